@@ -22,6 +22,8 @@ import com.megacorp.humanresources.service.ImageGenerationService;
 import com.megacorp.humanresources.service.WeatherService;
 import com.megacorp.humanresources.service.EmailService;
 import com.megacorp.humanresources.service.AddressService;
+import com.megacorp.humanresources.service.SalaryAnalyticsService;
+import com.megacorp.humanresources.service.HeadcountService;
 
 import org.springframework.web.client.RestTemplate;
 
@@ -46,7 +48,9 @@ public class HumanresourcesApplication {
 			ObjectProvider<FileStorageService> fileStorageService,
 			ObjectProvider<ImageGenerationService> imageGenerationService,
 			ObjectProvider<WeatherService> weatherService,
-			ObjectProvider<EmailService> emailService) {
+			ObjectProvider<EmailService> emailService,
+			ObjectProvider<SalaryAnalyticsService> salaryAnalyticsService,
+			ObjectProvider<HeadcountService> headcountService) {
 
 		List<Object> toolObjects = new ArrayList<>();
 		employeeService.ifAvailable(toolObjects::add);
@@ -58,6 +62,8 @@ public class HumanresourcesApplication {
 		imageGenerationService.ifAvailable(toolObjects::add);
 		weatherService.ifAvailable(toolObjects::add);
 		emailService.ifAvailable(toolObjects::add);
+		salaryAnalyticsService.ifAvailable(toolObjects::add);
+		headcountService.ifAvailable(toolObjects::add);
 
 		if (toolObjects.isEmpty()) {
 			logger.warn("No MCP tool beans available during startup; continuing without method tool callbacks");
@@ -0,0 +1,62 @@
+package com.megacorp.humanresources.config;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.sql.autoconfigure.init.SqlInitializationProperties;
+import org.springframework.boot.sql.init.dependency.DatabaseInitializationDependencyConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Startup database initialization: seed addresses and employees, then the spring.sql.init
+ * scripts. Declaring the initializer here makes Spring Boot's own script initializer back
+ * off; the dependency configurer keeps it ordered after the JPA schema creation
+ * (spring.jpa.defer-datasource-initialization) and before the repositories are used.
+ * A current snapshot of the tables, when enabled, is restored instead of seeding.
+ */
+@Configuration
+@EnableConfigurationProperties(SqlInitializationProperties.class)
+@Import(DatabaseInitializationDependencyConfigurer.class)
+public class DataBootstrapConfig {
+
+    @Bean
+    public EmployeeSeedDatabaseInitializer dataSourceScriptDatabaseInitializer(
+            DataSource dataSource,
+            SqlInitializationProperties properties,
+            DatabaseSnapshotStore databaseSnapshotStore,
+            @Value("${employee.bootstrap.loader:java}") String loader,
+            @Value("${employee.bootstrap.address-csv:ops/data/db/address_data_load.csv}") String addressCsv,
+            @Value("${employee.bootstrap.employee-csv:ops/data/db/employee_data_load.csv}") String employeeCsv,
+            @Value("${employee.bootstrap.batch-size:500}") int batchSize) {
+        EmployeeCsvBootstrapLoader csvLoader = new EmployeeCsvBootstrapLoader(
+            dataSource, Path.of(addressCsv), Path.of(employeeCsv), batchSize);
+        return new EmployeeSeedDatabaseInitializer(dataSource, properties, loader, csvLoader, databaseSnapshotStore);
+    }
+
+    @Bean
+    public DatabaseSnapshotStore databaseSnapshotStore(
+            DataSource dataSource,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${employee.snapshot.enabled:false}") boolean enabled,
+            @Value("${employee.snapshot.path:data/hr-snapshot.bin}") String path,
+            @Value("${employee.bootstrap.address-csv:ops/data/db/address_data_load.csv}") String addressCsv,
+            @Value("${employee.bootstrap.employee-csv:ops/data/db/employee_data_load.csv}") String employeeCsv,
+            @Value("${employee.bootstrap.batch-size:500}") int batchSize) {
+        // The snapshot is only current while the seed inputs are unchanged
+        List<Resource> seedInputs = List.of(
+            new FileSystemResource(addressCsv), new FileSystemResource(employeeCsv), new ClassPathResource("data.sql"));
+        return new DatabaseSnapshotStore(dataSource, Path.of(path), seedInputs, enabled, batchSize, meterRegistry);
+    }
+}
@@ -0,0 +1,574 @@
+package com.megacorp.humanresources.config;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.megacorp.humanresources.model.DatabaseSnapshotResult;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+
+/**
+ * Binary snapshot of the HR tables (addresses, employees, benefit plans and enrollments)
+ * that lets a restart of the in-memory database skip the seed.
+ *
+ * A snapshot is written on demand, and on shutdown when {@code employee.snapshot.enabled}
+ * is set, as a gzip-compressed stream of typed column values plus the next values of the
+ * sequences and identity columns. It carries a SHA-256 fingerprint of the seed inputs (the
+ * address and employee CSVs and data.sql). At startup the snapshot is restored instead of
+ * seeding when that fingerprint still matches and the tables have the same columns as
+ * when it was written; otherwise the database is seeded as usual.
+ *
+ * The snapshot holds the tables as they were when it was taken, so changes made through
+ * the application survive a restart once snapshots are enabled.
+ *
+ * How long the tables took to fill at startup is published as the
+ * {@code hr.database.initialization} gauge, tagged {@code source=seed} or
+ * {@code source=snapshot}; after a restore the seed duration is the one recorded in the
+ * snapshot, so both paths can be compared.
+ */
+public class DatabaseSnapshotStore {
+
+	private static final Logger logger = LoggerFactory.getLogger(DatabaseSnapshotStore.class);
+
+	// "HRDB" followed by the format version
+	private static final int MAGIC = 0x48524442;
+	private static final int FORMAT_VERSION = 1;
+
+	// In restore order; foreign keys are not checked while restoring
+	static final List<String> TABLES = List.of("ADDRESS", "EMPLOYEE", "BENEFITS_CONFIG", "EMPLOYEE_BENEFIT");
+
+	static final String INITIALIZATION_METRIC = "hr.database.initialization";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final Path path;
+	private final List<Resource> seedInputs;
+	private final boolean enabled;
+	private final int batchSize;
+	private final ObjectProvider<MeterRegistry> meterRegistry;
+
+	private volatile long seedMillis = -1;
+	private volatile long restoreMillis = -1;
+
+	public DatabaseSnapshotStore(DataSource dataSource, Path path, List<Resource> seedInputs, boolean enabled, int batchSize,
+			ObjectProvider<MeterRegistry> meterRegistry) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.transactionTemplate = new TransactionTemplate(new JdbcTransactionManager(dataSource));
+		this.path = path;
+		this.seedInputs = List.copyOf(seedInputs);
+		this.enabled = enabled;
+		this.batchSize = Math.max(1, batchSize);
+		this.meterRegistry = meterRegistry;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Records how long seeding the tables took, to be compared with restoring them.
+	 */
+	public void recordSeed(long millis) {
+		this.seedMillis = millis;
+	}
+
+	/**
+	 * Fills the empty HR tables from the snapshot file when snapshots are enabled and the
+	 * snapshot is current.
+	 *
+	 * @return Whether the tables were restored; when not, they are left untouched and have
+	 *         to be seeded
+	 */
+	public boolean restoreIfCurrent() {
+		if (!enabled) {
+			return false;
+		}
+		if (!Files.isRegularFile(path)) {
+			logger.info("No database snapshot at {}, seeding the database", path);
+			return false;
+		}
+		logger.debug("Entering restoreIfCurrent with path={}", path);
+		long start = System.nanoTime();
+		Snapshot snapshot;
+		try {
+			snapshot = read();
+		} catch (IOException | RuntimeException e) {
+			logger.warn("Database snapshot {} could not be read, seeding the database: {}", path, e.getMessage());
+			return false;
+		}
+		if (snapshot == null) {
+			logger.info("Database snapshot {} was written by another format version, seeding the database", path);
+			return false;
+		}
+		String fingerprint = fingerprint();
+		if (!snapshot.fingerprint().equals(fingerprint)) {
+			logger.info("Seed data changed since the database snapshot {} was taken, seeding the database", path);
+			return false;
+		}
+		String mismatch = schemaMismatch(snapshot);
+		if (mismatch != null) {
+			logger.info("Database snapshot {} does not fit the current tables ({}), seeding the database", path, mismatch);
+			return false;
+		}
+
+		try {
+			// The restarts are DDL, which H2 commits on its own, so they go first: when one fails
+			// no row has been inserted yet and the empty tables can still be seeded
+			snapshot.sequences().forEach((name, next) ->
+				jdbcTemplate.execute("ALTER SEQUENCE \"" + name + "\" RESTART WITH " + next));
+			snapshot.identities().forEach(identity -> jdbcTemplate.execute("ALTER TABLE \"" + identity.table()
+				+ "\" ALTER COLUMN \"" + identity.column() + "\" RESTART WITH " + identity.next()));
+			TABLES.forEach(table -> jdbcTemplate.execute("ALTER TABLE " + table + " SET REFERENTIAL_INTEGRITY FALSE"));
+			try {
+				// A failed insert rolls back every table, leaving them empty for the seed
+				transactionTemplate.executeWithoutResult(status -> snapshot.tables().forEach(this::insert));
+			} finally {
+				// The snapshot was read in one transaction, so its rows already satisfy the foreign keys
+				TABLES.forEach(table -> jdbcTemplate.execute("ALTER TABLE " + table + " SET REFERENTIAL_INTEGRITY TRUE NOCHECK"));
+			}
+		} catch (DataAccessException e) {
+			logger.warn("Database snapshot {} could not be restored, seeding the database", path, e);
+			return false;
+		}
+
+		restoreMillis = (System.nanoTime() - start) / 1_000_000;
+		seedMillis = snapshot.seedMillis();
+		logger.info("Database restored from the snapshot of {} ({} rows) in {} ms, seeding it took {} ms", snapshot.createdAt(),
+			snapshot.tables().stream().mapToLong(table -> table.rows().size()).sum(), restoreMillis, seedMillis);
+		return true;
+	}
+
+	/**
+	 * Writes the HR tables to the snapshot file, replacing the previous snapshot once the new
+	 * one is complete.
+	 *
+	 * @throws UncheckedIOException When the snapshot file cannot be written
+	 */
+	public DatabaseSnapshotResult save() {
+		logger.debug("Entering save with path={}", path);
+		long start = System.nanoTime();
+		Instant createdAt = Instant.now();
+		String fingerprint = fingerprint();
+		Map<String, Long> rowCounts = new LinkedHashMap<>();
+		long sizeBytes;
+		try {
+			Path directory = path.toAbsolutePath().getParent();
+			Files.createDirectories(directory);
+			Path partial = Files.createTempFile(directory, path.getFileName().toString(), ".partial");
+			try {
+				try (DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(partial), 1 << 16)))) {
+					out.writeInt(MAGIC);
+					out.writeInt(FORMAT_VERSION);
+					out.writeUTF(fingerprint);
+					out.writeLong(createdAt.toEpochMilli());
+					out.writeLong(seedMillis);
+					// One read-only transaction, so the tables and sequences are consistent with each other
+					TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+					readOnly.setReadOnly(true);
+					readOnly.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+					readOnly.executeWithoutResult(status -> {
+						try {
+							write(out, rowCounts);
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					});
+				}
+				Files.move(partial, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(partial);
+			}
+			sizeBytes = Files.size(path);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to write database snapshot " + path, e);
+		}
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+		logger.info("Database snapshot of {} rows written to {} ({} bytes) in {} ms",
+			rowCounts.values().stream().mapToLong(Long::longValue).sum(), path, sizeBytes, elapsedMillis);
+		return new DatabaseSnapshotResult(path.toString(), createdAt, sizeBytes, rowCounts, elapsedMillis);
+	}
+
+	@EventListener(ContextClosedEvent.class)
+	public void saveOnShutdown() {
+		if (!enabled) {
+			return;
+		}
+		try {
+			save();
+		} catch (RuntimeException e) {
+			logger.error("Failed to write the database snapshot on shutdown", e);
+		}
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void registerMetrics() {
+		MeterRegistry registry = meterRegistry.getIfAvailable();
+		if (registry == null) {
+			return;
+		}
+		if (seedMillis >= 0) {
+			TimeGauge.builder(INITIALIZATION_METRIC, this, TimeUnit.MILLISECONDS, store -> store.seedMillis)
+				.description("Time taken to fill the HR tables at startup")
+				.tag("source", "seed")
+				.register(registry);
+		}
+		if (restoreMillis >= 0) {
+			TimeGauge.builder(INITIALIZATION_METRIC, this, TimeUnit.MILLISECONDS, store -> store.restoreMillis)
+				.description("Time taken to fill the HR tables at startup")
+				.tag("source", "snapshot")
+				.register(registry);
+		}
+	}
+
+	private void write(DataOutputStream out, Map<String, Long> rowCounts) throws IOException {
+		out.writeInt(TABLES.size());
+		for (String table : TABLES) {
+			out.writeUTF(table);
+			long rows = jdbcTemplate.query("SELECT * FROM " + table + " ORDER BY 1", rs -> {
+				try {
+					return writeRows(out, rs);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			rowCounts.put(table, rows);
+		}
+
+		Map<String, Long> sequences = new LinkedHashMap<>();
+		jdbcTemplate.query("SELECT SEQUENCE_NAME, BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES "
+			+ "WHERE SEQUENCE_SCHEMA = SCHEMA() ORDER BY SEQUENCE_NAME",
+			rs -> {
+				sequences.put(rs.getString(1), rs.getLong(2));
+			});
+		out.writeInt(sequences.size());
+		for (Map.Entry<String, Long> sequence : sequences.entrySet()) {
+			out.writeUTF(sequence.getKey());
+			out.writeLong(sequence.getValue());
+		}
+
+		List<Identity> identities = jdbcTemplate.query("SELECT TABLE_NAME, COLUMN_NAME, IDENTITY_BASE FROM INFORMATION_SCHEMA.COLUMNS "
+			+ "WHERE TABLE_SCHEMA = SCHEMA() AND IS_IDENTITY = 'YES' ORDER BY TABLE_NAME",
+			(rs, rowNum) -> new Identity(rs.getString(1), rs.getString(2), rs.getLong(3)));
+		identities = identities.stream().filter(identity -> TABLES.contains(identity.table())).toList();
+		out.writeInt(identities.size());
+		for (Identity identity : identities) {
+			out.writeUTF(identity.table());
+			out.writeUTF(identity.column());
+			out.writeLong(identity.next());
+		}
+	}
+
+	private static long writeRows(DataOutputStream out, ResultSet rs) throws SQLException, IOException {
+		ResultSetMetaData metaData = rs.getMetaData();
+		int columnCount = metaData.getColumnCount();
+		ColumnCodec[] codecs = new ColumnCodec[columnCount];
+		out.writeInt(columnCount);
+		for (int column = 1; column <= columnCount; column++) {
+			out.writeUTF(metaData.getColumnName(column));
+			out.writeInt(metaData.getColumnType(column));
+			codecs[column - 1] = ColumnCodec.of(metaData.getColumnType(column));
+		}
+		long rows = 0;
+		while (rs.next()) {
+			out.writeBoolean(true);
+			for (int column = 1; column <= columnCount; column++) {
+				Object value = rs.getObject(column, codecs[column - 1].type);
+				out.writeBoolean(value != null);
+				if (value != null) {
+					codecs[column - 1].write(out, value);
+				}
+			}
+			rows++;
+		}
+		out.writeBoolean(false);
+		return rows;
+	}
+
+	/**
+	 * Reads the whole snapshot, or returns null when it has another format version.
+	 */
+	private Snapshot read() throws IOException {
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path), 1 << 16)))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+				return null;
+			}
+			String fingerprint = in.readUTF();
+			Instant createdAt = Instant.ofEpochMilli(in.readLong());
+			long recordedSeedMillis = in.readLong();
+
+			List<Table> tables = new ArrayList<>();
+			int tableCount = in.readInt();
+			for (int i = 0; i < tableCount; i++) {
+				String table = in.readUTF();
+				int columnCount = in.readInt();
+				List<String> columns = new ArrayList<>(columnCount);
+				int[] types = new int[columnCount];
+				ColumnCodec[] codecs = new ColumnCodec[columnCount];
+				for (int column = 0; column < columnCount; column++) {
+					columns.add(in.readUTF());
+					types[column] = in.readInt();
+					codecs[column] = ColumnCodec.of(types[column]);
+				}
+				List<Object[]> rows = new ArrayList<>();
+				while (in.readBoolean()) {
+					Object[] row = new Object[columnCount];
+					for (int column = 0; column < columnCount; column++) {
+						row[column] = in.readBoolean() ? codecs[column].read(in) : null;
+					}
+					rows.add(row);
+				}
+				tables.add(new Table(table, columns, types, rows));
+			}
+
+			Map<String, Long> sequences = new LinkedHashMap<>();
+			int sequenceCount = in.readInt();
+			for (int i = 0; i < sequenceCount; i++) {
+				sequences.put(in.readUTF(), in.readLong());
+			}
+			List<Identity> identities = new ArrayList<>();
+			int identityCount = in.readInt();
+			for (int i = 0; i < identityCount; i++) {
+				identities.add(new Identity(in.readUTF(), in.readUTF(), in.readLong()));
+			}
+			return new Snapshot(fingerprint, createdAt, recordedSeedMillis, tables, sequences, identities);
+		}
+	}
+
+	/**
+	 * Describes why the snapshot cannot be restored into the current tables, or returns null
+	 * when it can: every table must exist, be empty and have the same columns.
+	 */
+	private String schemaMismatch(Snapshot snapshot) {
+		if (!snapshot.tables().stream().map(Table::name).toList().equals(TABLES)) {
+			return "other tables";
+		}
+		for (Table table : snapshot.tables()) {
+			String mismatch;
+			try {
+				mismatch = jdbcTemplate.query("SELECT * FROM " + table.name() + " WHERE 1 = 0", rs -> {
+					ResultSetMetaData metaData = rs.getMetaData();
+					if (metaData.getColumnCount() != table.columns().size()) {
+						return "columns of " + table.name() + " changed";
+					}
+					for (int column = 1; column <= metaData.getColumnCount(); column++) {
+						if (!metaData.getColumnName(column).equals(table.columns().get(column - 1))
+								|| metaData.getColumnType(column) != table.types()[column - 1]) {
+							return "column " + table.name() + "." + metaData.getColumnName(column) + " changed";
+						}
+					}
+					return null;
+				});
+				if (mismatch == null && Boolean.TRUE.equals(
+						jdbcTemplate.queryForObject("SELECT EXISTS(SELECT 1 FROM " + table.name() + ")", Boolean.class))) {
+					mismatch = table.name() + " is not empty";
+				}
+			} catch (DataAccessException e) {
+				mismatch = "cannot read " + table.name();
+			}
+			if (mismatch != null) {
+				return mismatch;
+			}
+		}
+		return null;
+	}
+
+	private void insert(Table table) {
+		String sql = "INSERT INTO " + table.name() + " (" + String.join(", ", table.columns()) + ") VALUES ("
+			+ String.join(", ", table.columns().stream().map(column -> "?").toList()) + ")";
+		jdbcTemplate.batchUpdate(sql, table.rows(), batchSize, (PreparedStatement statement, Object[] row) -> {
+			for (int column = 0; column < row.length; column++) {
+				if (row[column] == null) {
+					statement.setNull(column + 1, table.types()[column]);
+				} else {
+					statement.setObject(column + 1, row[column]);
+				}
+			}
+		});
+	}
+
+	/**
+	 * SHA-256 over the contents of the seed inputs; a missing input counts as empty.
+	 */
+	private String fingerprint() {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] buffer = new byte[1 << 16];
+			for (Resource input : seedInputs) {
+				digest.update(input.getDescription().getBytes(StandardCharsets.UTF_8));
+				if (!input.exists()) {
+					continue;
+				}
+				try (InputStream stream = input.getInputStream()) {
+					int read;
+					while ((read = stream.read(buffer)) != -1) {
+						digest.update(buffer, 0, read);
+					}
+				}
+			}
+			return HexFormat.of().formatHex(digest.digest());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read the seed data", e);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Binary encoding of the column values by JDBC type.
+	 */
+	private enum ColumnCodec {
+		LONG(Long.class) {
+			void write(DataOutputStream out, Object value) throws IOException {
+				out.writeLong((Long) value);
+			}
+
+			Object read(DataInputStream in) throws IOException {
+				return in.readLong();
+			}
+		},
+		BOOLEAN(Boolean.class) {
+			void write(DataOutputStream out, Object value) throws IOException {
+				out.writeBoolean((Boolean) value);
+			}
+
+			Object read(DataInputStream in) throws IOException {
+				return in.readBoolean();
+			}
+		},
+		DOUBLE(Double.class) {
+			void write(DataOutputStream out, Object value) throws IOException {
+				out.writeDouble((Double) value);
+			}
+
+			Object read(DataInputStream in) throws IOException {
+				return in.readDouble();
+			}
+		},
+		DECIMAL(BigDecimal.class) {
+			void write(DataOutputStream out, Object value) throws IOException {
+				writeString(out, ((BigDecimal) value).toPlainString());
+			}
+
+			Object read(DataInputStream in) throws IOException {
+				return new BigDecimal(readString(in));
+			}
+		},
+		DATE(LocalDate.class) {
+			void write(DataOutputStream out, Object value) throws IOException {
+				out.writeLong(((LocalDate) value).toEpochDay());
+			}
+
+			Object read(DataInputStream in) throws IOException {
+				return LocalDate.ofEpochDay(in.readLong());
+			}
+		},
+		TIMESTAMP(LocalDateTime.class) {
+			void write(DataOutputStream out, Object value) throws IOException {
+				writeString(out, value.toString());
+			}
+
+			Object read(DataInputStream in) throws IOException {
+				return LocalDateTime.parse(readString(in));
+			}
+		},
+		STRING(String.class) {
+			void write(DataOutputStream out, Object value) throws IOException {
+				writeString(out, (String) value);
+			}
+
+			Object read(DataInputStream in) throws IOException {
+				return readString(in);
+			}
+		};
+
+		private final Class<?> type;
+
+		ColumnCodec(Class<?> type) {
+			this.type = type;
+		}
+
+		abstract void write(DataOutputStream out, Object value) throws IOException;
+
+		abstract Object read(DataInputStream in) throws IOException;
+
+		static ColumnCodec of(int jdbcType) {
+			return switch (jdbcType) {
+				case Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT -> LONG;
+				case Types.BOOLEAN, Types.BIT -> BOOLEAN;
+				case Types.DOUBLE, Types.FLOAT, Types.REAL -> DOUBLE;
+				case Types.DECIMAL, Types.NUMERIC -> DECIMAL;
+				case Types.DATE -> DATE;
+				case Types.TIMESTAMP -> TIMESTAMP;
+				case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR, Types.CLOB -> STRING;
+				default -> throw new IllegalStateException("Unsupported column type " + jdbcType + " in database snapshot");
+			};
+		}
+
+		// Length-prefixed, as writeUTF is limited to 64 KB
+		private static void writeString(DataOutputStream out, String value) throws IOException {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+
+		private static String readString(DataInputStream in) throws IOException {
+			return new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8);
+		}
+	}
+
+	private record Snapshot(String fingerprint, Instant createdAt, long seedMillis, List<Table> tables,
+			Map<String, Long> sequences, List<Identity> identities) {
+	}
+
+	private record Table(String name, List<String> columns, int[] types, List<Object[]> rows) {
+	}
+
+	private record Identity(String table, String column, long next) {
+	}
+}
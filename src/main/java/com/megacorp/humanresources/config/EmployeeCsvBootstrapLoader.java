@@ -0,0 +1,286 @@
+package com.megacorp.humanresources.config;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.megacorp.humanresources.service.helper.CsvLines;
+import com.megacorp.humanresources.service.helper.LocationNormalizer;
+
+/**
+ * Loads the seed addresses and employees from ops/data/db at startup in a single pass per
+ * file, replacing the CSVREAD statements of db/employee-seed.sql.
+ *
+ * Both CSVs are read and parsed in parallel. The rows are then inserted with JDBC batches
+ * in one transaction: addresses first, then employees ordered so that every manager is
+ * inserted before its reports. MANAGER_ID is therefore written by the insert itself from
+ * the in-memory map of file ids, instead of a correlated UPDATE that re-reads the CSV for
+ * every employee. Only employees on a management cycle longer than one (no such rows in
+ * the seed data) are linked by a batched UPDATE afterwards.
+ */
+public class EmployeeCsvBootstrapLoader {
+
+	private static final Logger logger = LoggerFactory.getLogger(EmployeeCsvBootstrapLoader.class);
+
+	// Same restart value as db/employee-seed.sql, so both loaders hand out the same next address id
+	static final long ADDRESS_SEQUENCE_START = 10_900;
+
+	private static final String INSERT_ADDRESS = "INSERT INTO address (ADDRESS_ID, STREET_ADDRESS, CITY, STATE, POSTAL_CODE, IS_REMOTE, "
+		+ "STATE_NORMALIZED, CITY_NORMALIZED, POSTAL_CODE_NORMALIZED) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	private static final String INSERT_EMPLOYEE = "INSERT INTO employee (EMPLOYEE_ID, FIRST_NAME, LAST_NAME, TITLE, DEPARTMENT, BUSINESS_UNIT, "
+		+ "GENDER, ETHNICITY, AGE, HIRE_DATE, ANNUAL_SALARY, TERMINATION_DATE, ADDRESS_ID, MANAGER_ID) "
+		+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	private static final String UPDATE_MANAGER = "UPDATE employee SET MANAGER_ID = ? WHERE EMPLOYEE_ID = ?";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final Path addressCsv;
+	private final Path employeeCsv;
+	private final int batchSize;
+
+	public EmployeeCsvBootstrapLoader(DataSource dataSource, Path addressCsv, Path employeeCsv, int batchSize) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.transactionTemplate = new TransactionTemplate(new JdbcTransactionManager(dataSource));
+		this.addressCsv = addressCsv;
+		this.employeeCsv = employeeCsv;
+		this.batchSize = Math.max(1, batchSize);
+	}
+
+	/**
+	 * Reads both CSVs and inserts their rows.
+	 *
+	 * @throws IllegalStateException When a file cannot be read or a row cannot be parsed
+	 */
+	public void load() {
+		logger.debug("Entering load with addressCsv={} employeeCsv={} batchSize={}", addressCsv, employeeCsv, batchSize);
+		long start = System.nanoTime();
+		CompletableFuture<List<AddressRow>> addressParse = CompletableFuture.supplyAsync(() -> parseAddresses(addressCsv));
+		CompletableFuture<List<EmployeeRow>> employeeParse = CompletableFuture.supplyAsync(() -> parseEmployees(employeeCsv));
+		List<AddressRow> addresses;
+		List<EmployeeRow> employees;
+		try {
+			addresses = addressParse.join();
+			employees = employeeParse.join();
+		} catch (CompletionException e) {
+			throw new IllegalStateException("Failed to read the seed CSVs: " + e.getCause().getMessage(), e.getCause());
+		}
+		long parsed = System.nanoTime();
+		logger.info("Parsed {} addresses and {} employees in {} ms", addresses.size(), employees.size(), (parsed - start) / 1_000_000);
+
+		transactionTemplate.executeWithoutResult(status -> {
+			long phaseStart = System.nanoTime();
+			jdbcTemplate.batchUpdate(INSERT_ADDRESS, addresses, batchSize, (statement, row) -> {
+				statement.setLong(1, row.addressId());
+				statement.setString(2, row.streetAddress());
+				statement.setString(3, row.city());
+				statement.setString(4, row.state());
+				statement.setString(5, row.postalCode());
+				statement.setBoolean(6, row.remote());
+				statement.setString(7, LocationNormalizer.normalizeState(row.state()));
+				statement.setString(8, LocationNormalizer.normalizeCity(row.city()));
+				statement.setString(9, LocationNormalizer.normalizePostalCode(row.postalCode()));
+			});
+			logger.info("Inserted {} addresses in {} ms", addresses.size(), (System.nanoTime() - phaseStart) / 1_000_000);
+
+			phaseStart = System.nanoTime();
+			InsertPlan plan = planInserts(employees);
+			jdbcTemplate.batchUpdate(INSERT_EMPLOYEE, plan.ordered(), batchSize, (statement, row) -> {
+				statement.setLong(1, row.employeeId());
+				statement.setString(2, row.firstName());
+				statement.setString(3, row.lastName());
+				statement.setString(4, row.title());
+				statement.setString(5, row.department());
+				statement.setString(6, row.businessUnit());
+				statement.setString(7, row.gender());
+				statement.setString(8, row.ethnicity());
+				setLong(statement, 9, row.age());
+				statement.setDate(10, row.hireDate() != null ? Date.valueOf(row.hireDate()) : null);
+				setLong(statement, 11, row.annualSalary());
+				statement.setDate(12, row.terminationDate() != null ? Date.valueOf(row.terminationDate()) : null);
+				setLong(statement, 13, row.addressId());
+				setLong(statement, 14, plan.deferred().contains(row.employeeId()) ? null : plan.managerOf(row));
+			});
+			logger.info("Inserted {} employees with their managers in {} ms", employees.size(), (System.nanoTime() - phaseStart) / 1_000_000);
+
+			phaseStart = System.nanoTime();
+			List<Object[]> links = plan.ordered().stream()
+				.filter(row -> plan.deferred().contains(row.employeeId()))
+				.map(row -> new Object[] { plan.managerOf(row), row.employeeId() })
+				.toList();
+			if (!links.isEmpty()) {
+				jdbcTemplate.batchUpdate(UPDATE_MANAGER, links, new int[] { Types.BIGINT, Types.BIGINT });
+			}
+			long maxAddressId = addresses.stream().mapToLong(AddressRow::addressId).max().orElse(0);
+			jdbcTemplate.execute("ALTER SEQUENCE address_sequence RESTART WITH " + Math.max(ADDRESS_SEQUENCE_START, maxAddressId + 1));
+			logger.info("Linked {} managers on a cycle in {} ms", links.size(), (System.nanoTime() - phaseStart) / 1_000_000);
+		});
+		logger.info("Seed data loaded in {} ms", (System.nanoTime() - start) / 1_000_000);
+	}
+
+	/**
+	 * Orders the employees so that each one follows its manager, walking up each unvisited
+	 * employee's management chain. An employee whose chain leads back to itself through
+	 * someone else is on a cycle; it is inserted without a manager and linked afterwards.
+	 * Managers that are not in the file are dropped, as the foreign key would reject them.
+	 */
+	static InsertPlan planInserts(List<EmployeeRow> employees) {
+		Map<Long, EmployeeRow> byId = new HashMap<>();
+		employees.forEach(row -> byId.put(row.employeeId(), row));
+		List<EmployeeRow> ordered = new ArrayList<>(employees.size());
+		Set<Long> placed = new HashSet<>();
+		Set<Long> deferred = new HashSet<>();
+		for (EmployeeRow employee : employees) {
+			Deque<EmployeeRow> chain = new ArrayDeque<>();
+			Set<Long> onChain = new HashSet<>();
+			EmployeeRow current = employee;
+			while (current != null && !placed.contains(current.employeeId()) && onChain.add(current.employeeId())) {
+				chain.push(current);
+				Long managerId = current.managerId();
+				current = managerId != null && !managerId.equals(current.employeeId()) ? byId.get(managerId) : null;
+			}
+			if (current != null && !placed.contains(current.employeeId())) {
+				// Walked back onto the chain: the employee at the top waits for its manager
+				deferred.add(chain.peek().employeeId());
+			}
+			while (!chain.isEmpty()) {
+				EmployeeRow row = chain.pop();
+				placed.add(row.employeeId());
+				ordered.add(row);
+			}
+		}
+		return new InsertPlan(ordered, deferred, byId.keySet());
+	}
+
+	private static List<AddressRow> parseAddresses(Path path) {
+		return readRows(path, (columns, values) -> new AddressRow(
+			Long.parseLong(value(columns, values, "ADDRESS_ID")),
+			value(columns, values, "STREET_ADDRESS"),
+			value(columns, values, "CITY"),
+			value(columns, values, "STATE"),
+			value(columns, values, "POSTAL_CODE"),
+			Boolean.parseBoolean(value(columns, values, "IS_REMOTE"))));
+	}
+
+	private static List<EmployeeRow> parseEmployees(Path path) {
+		return readRows(path, (columns, values) -> new EmployeeRow(
+			Long.parseLong(value(columns, values, "EMPLOYEE_ID")),
+			value(columns, values, "FIRST_NAME"),
+			value(columns, values, "LAST_NAME"),
+			value(columns, values, "TITLE"),
+			value(columns, values, "DEPARTMENT"),
+			value(columns, values, "BUSINESS_UNIT"),
+			value(columns, values, "GENDER"),
+			value(columns, values, "ETHNICITY"),
+			longValue(columns, values, "AGE"),
+			dateValue(columns, values, "HIRE_DATE"),
+			longValue(columns, values, "ANNUAL_SALARY"),
+			dateValue(columns, values, "TERMINATION_DATE"),
+			longValue(columns, values, "ADDRESS_ID"),
+			longValue(columns, values, "MANAGER_ID")));
+	}
+
+	private static <T> List<T> readRows(Path path, RowParser<T> parser) {
+		List<T> rows = new ArrayList<>();
+		try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			String header = reader.readLine();
+			if (header == null) {
+				return rows;
+			}
+			Map<String, Integer> columns = CsvLines.columns(header);
+			String line;
+			long lineNumber = 1;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				if (line.isBlank()) {
+					continue;
+				}
+				try {
+					rows.add(parser.parse(columns, CsvLines.split(line)));
+				} catch (RuntimeException e) {
+					throw new IllegalStateException(path + " line " + lineNumber + ": " + e.getMessage(), e);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot read " + path.toAbsolutePath(), e);
+		}
+		return rows;
+	}
+
+	private static String value(Map<String, Integer> columns, List<String> values, String column) {
+		Integer index = columns.get(column);
+		if (index == null || index >= values.size()) {
+			return null;
+		}
+		String value = values.get(index).trim();
+		return value.isEmpty() ? null : value;
+	}
+
+	private static Long longValue(Map<String, Integer> columns, List<String> values, String column) {
+		String value = value(columns, values, column);
+		return value != null ? Long.valueOf(value) : null;
+	}
+
+	private static LocalDate dateValue(Map<String, Integer> columns, List<String> values, String column) {
+		String value = value(columns, values, column);
+		return value != null ? LocalDate.parse(value) : null;
+	}
+
+	private static void setLong(PreparedStatement statement, int index, Long value) throws SQLException {
+		if (value != null) {
+			statement.setLong(index, value);
+		} else {
+			statement.setNull(index, Types.BIGINT);
+		}
+	}
+
+	@FunctionalInterface
+	private interface RowParser<T> {
+		T parse(Map<String, Integer> columns, List<String> values);
+	}
+
+	record AddressRow(long addressId, String streetAddress, String city, String state, String postalCode, boolean remote) {
+	}
+
+	record EmployeeRow(long employeeId, String firstName, String lastName, String title, String department, String businessUnit,
+			String gender, String ethnicity, Long age, LocalDate hireDate, Long annualSalary, LocalDate terminationDate,
+			Long addressId, Long managerId) {
+	}
+
+	/**
+	 * @param ordered The employees, each after its manager unless the manager is deferred
+	 * @param deferred Employees on a management cycle, inserted without a manager
+	 * @param known The employee ids in the file
+	 */
+	record InsertPlan(List<EmployeeRow> ordered, Set<Long> deferred, Set<Long> known) {
+
+		Long managerOf(EmployeeRow row) {
+			return row.managerId() != null && known.contains(row.managerId()) ? row.managerId() : null;
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package com.megacorp.humanresources.config;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.jdbc.autoconfigure.ApplicationDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.sql.autoconfigure.init.ApplicationScriptDatabaseInitializer;
+import org.springframework.boot.sql.autoconfigure.init.SqlInitializationProperties;
+import org.springframework.boot.sql.init.DatabaseInitializationMode;
+import org.springframework.boot.sql.init.DatabaseInitializationSettings;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/**
+ * Replaces Spring Boot's SQL script initializer so that the seed addresses and employees
+ * are loaded first, with the loader chosen by {@code employee.bootstrap.loader}, and the
+ * {@code spring.sql.init} scripts (data.sql, the benefits) run afterwards against them.
+ * Like the scripts, the seed only runs for an embedded database unless
+ * {@code spring.sql.init.mode=always}.
+ *
+ * When {@link DatabaseSnapshotStore} holds a current snapshot, it is restored instead and
+ * neither the seed nor the scripts run.
+ */
+public class EmployeeSeedDatabaseInitializer extends ApplicationDataSourceScriptDatabaseInitializer {
+
+	private static final Logger logger = LoggerFactory.getLogger(EmployeeSeedDatabaseInitializer.class);
+
+	static final String SQL_SEED_SCRIPT = "db/employee-seed.sql";
+
+	private final DatabaseInitializationMode mode;
+	private final String loader;
+	private final EmployeeCsvBootstrapLoader csvLoader;
+	private final DatabaseSnapshotStore snapshotStore;
+
+	public EmployeeSeedDatabaseInitializer(DataSource dataSource, SqlInitializationProperties properties, String loader,
+			EmployeeCsvBootstrapLoader csvLoader, DatabaseSnapshotStore snapshotStore) {
+		this(dataSource, ApplicationScriptDatabaseInitializer.getSettings(properties), loader, csvLoader, snapshotStore);
+	}
+
+	private EmployeeSeedDatabaseInitializer(DataSource dataSource, DatabaseInitializationSettings settings, String loader,
+			EmployeeCsvBootstrapLoader csvLoader, DatabaseSnapshotStore snapshotStore) {
+		super(dataSource, settings);
+		this.mode = settings.getMode();
+		this.loader = loader;
+		this.csvLoader = csvLoader;
+		this.snapshotStore = snapshotStore;
+	}
+
+	@Override
+	public boolean initializeDatabase() {
+		if (mode == DatabaseInitializationMode.ALWAYS || (mode == DatabaseInitializationMode.EMBEDDED && isEmbeddedDatabase())) {
+			if (snapshotStore.restoreIfCurrent()) {
+				return true;
+			}
+			long start = System.nanoTime();
+			if ("sql".equalsIgnoreCase(loader)) {
+				DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource(SQL_SEED_SCRIPT)), getDataSource());
+			} else {
+				csvLoader.load();
+			}
+			logger.info("Seed addresses and employees loaded by the {} loader in {} ms", loader, (System.nanoTime() - start) / 1_000_000);
+			super.initializeDatabase();
+			snapshotStore.recordSeed((System.nanoTime() - start) / 1_000_000);
+			return true;
+		}
+		return super.initializeDatabase();
+	}
+}
@@ -1,6 +1,7 @@
 package com.megacorp.humanresources.configurations;
 
 import com.megacorp.humanresources.advisors.ChatClientLoggingAdvisor;
+import com.megacorp.humanresources.embedding.CachingEmbeddingModel;
 import com.megacorp.humanresources.service.EmployeeService;
 import com.megacorp.humanresources.service.BenefitsService;
 import com.megacorp.humanresources.service.BraveSearchService;
@@ -10,19 +11,31 @@ import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.openai.OpenAiChatModel;
 import org.springframework.ai.openai.OpenAiChatOptions;
 import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 @Configuration
 public class ModelsConfiguration {
 
+    /**
+     * The text embedding model, with the embeddings of recent query texts cached unless
+     * {@code rag.query-embedding-cache.max-entries} is 0.
+     */
     @Bean
     @Primary
-    EmbeddingModel embeddingModel(@Qualifier("textEmbedding") EmbeddingModel textEmbedding) {
-        return textEmbedding;
+    EmbeddingModel embeddingModel(@Qualifier("textEmbedding") EmbeddingModel textEmbedding,
+            @Value("${rag.query-embedding-cache.max-entries:1000}") int maxEntries,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        if (maxEntries <= 0) {
+            return textEmbedding;
+        }
+        return new CachingEmbeddingModel(textEmbedding, maxEntries, meterRegistry.getIfAvailable());
     }
 
 	@Bean
@@ -0,0 +1,51 @@
+package com.megacorp.humanresources.configurations;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SpringAIVectorStoreTypes;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.megacorp.humanresources.vectorstore.HnswVectorStore;
+import com.megacorp.humanresources.vectorstore.MappedVectorStore;
+
+/**
+ * Policy vector store used instead of Elasticsearch when {@code spring.ai.vectorstore.type=hnsw}.
+ * Any other type leaves the policy store to Spring AI's auto-configuration, which registers
+ * its store under the same bean name.
+ */
+@Configuration
+public class PolicyVectorStoreConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(PolicyVectorStoreConfiguration.class);
+
+    public static final String POLICY_VECTOR_STORE = "vectorStore";
+    public static final String HNSW = "hnsw";
+
+    @Bean(name = POLICY_VECTOR_STORE)
+    @ConditionalOnProperty(name = SpringAIVectorStoreTypes.TYPE, havingValue = HNSW)
+    HnswVectorStore hnswPolicyVectorStore(EmbeddingModel embeddingModel,
+            @Value("${rag.policies.hnsw.path:data/policy-hnsw.bin}") String path,
+            @Value("${rag.policies.hnsw.encoding:float32}") String encoding,
+            @Value("${rag.policies.hnsw.m:16}") int m,
+            @Value("${rag.policies.hnsw.ef-construction:200}") int efConstruction,
+            @Value("${rag.policies.hnsw.ef-search:100}") int efSearch) {
+        HnswVectorStore vectorStore = HnswVectorStore.builder(embeddingModel)
+                .file(Path.of(path))
+                .encoding(MappedVectorStore.Encoding.valueOf(encoding.toUpperCase(Locale.ROOT)))
+                .m(m)
+                .efConstruction(efConstruction)
+                .efSearch(efSearch)
+                .build();
+        if (!vectorStore.load()) {
+            log.info("HNSW policy vector store {} is empty, the next policy ingest re-reads every PDF", path);
+        }
+        return vectorStore;
+    }
+}
@@ -8,16 +8,20 @@ import org.springframework.ai.reader.TextReader;
 import org.springframework.ai.transformer.splitter.TextSplitter;
 import org.springframework.ai.transformer.splitter.TokenTextSplitter;
 import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 
+import com.megacorp.humanresources.vectorstore.MappedVectorStore;
+
 import java.io.File;
-import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.Locale;
 
 //https://github.com/danvega/spring-ai-workshop/blob/main/src/main/java/dev/danvega/workshop/rag/RagConfiguration.java
 @Configuration
@@ -28,30 +32,67 @@ public class RagConfiguration {
     @Value("vectorstore.json")
     private String vectorStoreName;
 
+    @Value("vectorstore.bin")
+    private String mappedVectorStoreName;
+
+    @Value("${rag.models.vector-store.format:mapped}")
+    private String vectorStoreFormat;
+
+    @Value("${rag.models.vector-store.encoding:float32}")
+    private String vectorStoreEncoding;
+
     @Value("classpath:/data/models.json")
     private Resource models;
 
     @Bean(name = "ragVectorStore")
-    SimpleVectorStore simpleVectorStore(EmbeddingModel embeddingModel) throws IOException {
+    VectorStore ragVectorStore(EmbeddingModel embeddingModel) {
+        if ("json".equalsIgnoreCase(vectorStoreFormat)) {
+            return simpleVectorStore(embeddingModel);
+        }
+        var vectorStoreFile = getVectorStoreFile(mappedVectorStoreName);
+        var mappedVectorStore = MappedVectorStore.builder(embeddingModel)
+                .file(vectorStoreFile.toPath())
+                .encoding(MappedVectorStore.Encoding.valueOf(vectorStoreEncoding.toUpperCase(Locale.ROOT)))
+                .contentHash(MappedVectorStore.contentHash(models))
+                .build();
+        var legacyVectorStoreFile = getVectorStoreFile(vectorStoreName);
+        if (mappedVectorStore.load()) {
+            log.info("Mapped Vector Store File Exists and matches models.json");
+        } else if (!vectorStoreFile.exists() && legacyVectorStoreFile.exists()) {
+            // First start with the mapped format: reuse the embeddings of the JSON file instead of re-embedding.
+            // The import is written without a content hash, so the next start rebuilds it from models.json
+            log.info("Mapped Vector Store File Does Not Exist, converting {}", legacyVectorStoreFile);
+            mappedVectorStore.importSimpleVectorStore(new FileSystemResource(legacyVectorStoreFile));
+        } else {
+            log.info("Mapped Vector Store File Does Not Exist or models.json changed, loading documents");
+            mappedVectorStore.add(loadModelDocuments());
+        }
+        return mappedVectorStore;
+    }
+
+    private SimpleVectorStore simpleVectorStore(EmbeddingModel embeddingModel) {
         var simpleVectorStore = SimpleVectorStore.builder(embeddingModel).build();
-        var vectorStoreFile = getVectorStoreFile();
+        var vectorStoreFile = getVectorStoreFile(vectorStoreName);
         if (vectorStoreFile.exists()) {
             log.info("Vector Store File Exists,");
             simpleVectorStore.load(vectorStoreFile);
         } else {
             log.info("Vector Store File Does Not Exist, loading documents");
-            TextReader textReader = new TextReader(models);
-            textReader.getCustomMetadata().put("filename", "models.txt");
-            List<Document> documents = textReader.get();
-            TextSplitter textSplitter = new TokenTextSplitter();
-            List<Document> splitDocuments = textSplitter.apply(documents);
-            simpleVectorStore.add(splitDocuments);
+            simpleVectorStore.add(loadModelDocuments());
             simpleVectorStore.save(vectorStoreFile);
         }
         return simpleVectorStore;
     }
 
-    private File getVectorStoreFile() {
+    private List<Document> loadModelDocuments() {
+        TextReader textReader = new TextReader(models);
+        textReader.getCustomMetadata().put("filename", "models.txt");
+        List<Document> documents = textReader.get();
+        TextSplitter textSplitter = new TokenTextSplitter();
+        return textSplitter.apply(documents);
+    }
+
+    private File getVectorStoreFile(String fileName) {
         // Use user.dir to get the project root, not the current working directory
         String projectRoot = System.getProperty("user.dir");
         // If we're in the target directory (running from JAR), go up one level
@@ -59,7 +100,7 @@ public class RagConfiguration {
             projectRoot = new File(projectRoot).getParent();
         }
         Path path = Paths.get(projectRoot, "src", "main", "resources", "data");
-        String absolutePath = path.toFile().getAbsolutePath() + "/" + vectorStoreName;
+        String absolutePath = path.toFile().getAbsolutePath() + "/" + fileName;
         return new File(absolutePath);
     }
 
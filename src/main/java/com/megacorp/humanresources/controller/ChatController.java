@@ -8,9 +8,12 @@ import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.mcp.SyncMcpToolCallbackProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 
 import com.megacorp.humanresources.model.PolicyRagResponse;
+import com.megacorp.humanresources.model.PolicyRagStreamEvent;
 import com.megacorp.humanresources.service.EmployeeService;
 import com.megacorp.humanresources.service.BraveSearchService;
 import com.megacorp.humanresources.service.RagService;
@@ -224,6 +227,29 @@ public class ChatController {
       return result;
     }
 
+    /**
+     * Streams the answer to a policy question as server-sent events: a "policies" event with the
+     * matched policy titles and GCS files as soon as retrieval finishes, "token" events with the
+     * answer as it is generated, and a closing "done" event. Event data is JSON, so tokens keep
+     * their leading whitespace.
+     */
+    @GetMapping(value = "/ai/company-policies/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<PolicyRagStreamEvent>> streamCompanyPolicies(
+        @RequestParam(value = "question") String question,
+        @RequestParam(value = "topK", required = false) Integer topK,
+        @RequestParam(value = "similarityThreshold", required = false) Double similarityThreshold) {
+      log.debug("Entering streamCompanyPolicies with question={} topK={} similarityThreshold={}", question, topK, similarityThreshold);
+      return ragService.streamPolicies(question, topK, similarityThreshold)
+          .map(event -> ServerSentEvent.builder(event)
+              .event(switch (event) {
+                case PolicyRagStreamEvent.Policies policies -> "policies";
+                case PolicyRagStreamEvent.Token token -> "token";
+                case PolicyRagStreamEvent.Done done -> "done";
+              })
+              .build())
+          .doOnComplete(() -> log.info("streamCompanyPolicies completed"));
+    }
+
     @org.springframework.beans.factory.annotation.Autowired
     private com.megacorp.humanresources.service.EmployeeOnboardingService employeeOnboardingService;
 
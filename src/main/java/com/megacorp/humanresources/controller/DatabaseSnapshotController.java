@@ -0,0 +1,22 @@
+package com.megacorp.humanresources.controller;
+
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.megacorp.humanresources.config.DatabaseSnapshotStore;
+import com.megacorp.humanresources.model.DatabaseSnapshotResult;
+
+@RestController
+public class DatabaseSnapshotController {
+
+    private final DatabaseSnapshotStore databaseSnapshotStore;
+
+    public DatabaseSnapshotController(DatabaseSnapshotStore databaseSnapshotStore) {
+        this.databaseSnapshotStore = databaseSnapshotStore;
+    }
+
+    @PostMapping("/database/snapshot")
+    public DatabaseSnapshotResult saveSnapshot() {
+        return databaseSnapshotStore.save();
+    }
+}
@@ -62,6 +62,7 @@ public class EmailController {
      * @param dateAfter filter emails received after this date (optional, format: yyyy-MM-dd)
      * @param dateBefore filter emails received before this date (optional, format: yyyy-MM-dd)
      * @param unreadOnly if true, only return unread emails (optional, default: false)
+     * @param refresh if true, re-check the mailbox before answering from the local mirror (optional, default: false)
      * @return list of email messages with details
      */
     @GetMapping("/read-inbox")
@@ -74,12 +75,13 @@ public class EmailController {
             @RequestParam(value = "messageId", required = false) String messageId,
             @RequestParam(value = "dateAfter", required = false) String dateAfter,
             @RequestParam(value = "dateBefore", required = false) String dateBefore,
-            @RequestParam(value = "unreadOnly", required = false) Boolean unreadOnly) {
+            @RequestParam(value = "unreadOnly", required = false) Boolean unreadOnly,
+            @RequestParam(value = "refresh", required = false) Boolean refresh) {
         log.debug("Entering readInbox with maxEmails={} subjectFilter={} fromFilter={} toFilter={} unreadOnly={} messageId={} dateAfter={} dateBefore={}",
                 maxEmails, subjectFilter, fromFilter, toFilter, unreadOnly, messageId, dateAfter, dateBefore);
         try {
             List<EmailMessage> emails = emailService.readInbox(maxEmails, subjectFilter, fromFilter, toFilter, 
-                                                              bodyFilter, messageId, dateAfter, dateBefore, unreadOnly);
+                                                              bodyFilter, messageId, dateAfter, dateBefore, unreadOnly, refresh);
             log.info("Read inbox request completed with {} messages", emails.size());
             return ResponseEntity.ok(emails);
         } catch (Exception ex) {
@@ -103,6 +105,7 @@ public class EmailController {
      * @param dateAfter     filter emails received after this date (optional, format: yyyy-MM-dd)
      * @param dateBefore    filter emails received before this date (optional, format: yyyy-MM-dd)
      * @param unreadOnly    if true, only return unread emails (optional, default: false)
+     * @param refresh       if true, re-check the folder before answering from the local mirror (optional, default: false)
      * @return list of email messages with details
      */
     @GetMapping("/read-folder")
@@ -116,11 +119,12 @@ public class EmailController {
             @RequestParam(value = "messageId", required = false) String messageId,
             @RequestParam(value = "dateAfter", required = false) String dateAfter,
             @RequestParam(value = "dateBefore", required = false) String dateBefore,
-            @RequestParam(value = "unreadOnly", required = false) Boolean unreadOnly) {
+            @RequestParam(value = "unreadOnly", required = false) Boolean unreadOnly,
+            @RequestParam(value = "refresh", required = false) Boolean refresh) {
         log.debug("Entering readFolder with folder={} maxEmails={} subjectFilter={}", folder, maxEmails, subjectFilter);
         try {
             List<EmailMessage> emails = emailService.readFolder(folder, maxEmails, subjectFilter, fromFilter, toFilter,
-                                                                bodyFilter, messageId, dateAfter, dateBefore, unreadOnly);
+                                                                bodyFilter, messageId, dateAfter, dateBefore, unreadOnly, refresh);
             log.info("Read folder '{}' request completed with {} messages", folder, emails.size());
             return ResponseEntity.ok(emails);
         } catch (Exception ex) {
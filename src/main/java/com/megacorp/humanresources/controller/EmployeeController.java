@@ -1,17 +1,31 @@
 package com.megacorp.humanresources.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.List;
 
 import com.megacorp.humanresources.entity.Employee;
+import com.megacorp.humanresources.exceptions.InvalidRequestException;
+import com.megacorp.humanresources.model.EmployeeBulkUpdateResult;
 import com.megacorp.humanresources.model.EmployeeCount;
+import com.megacorp.humanresources.model.EmployeeGroupedCounts;
+import com.megacorp.humanresources.model.EmployeeImportResult;
+import com.megacorp.humanresources.model.EmployeeMatch;
+import com.megacorp.humanresources.model.EmployeeReports;
+import com.megacorp.humanresources.model.OrgChartEntry;
+import com.megacorp.humanresources.service.EmployeeImportService;
 import com.megacorp.humanresources.service.EmployeeService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
 @RestController
@@ -22,6 +36,9 @@ public class EmployeeController {
 	@Autowired
 	private EmployeeService employeeService;
 
+	@Autowired
+	private EmployeeImportService employeeImportService;
+
 	// Save operation
 	@PostMapping("/employees")
 	public Employee saveEmployee(@Valid @RequestBody Employee employee) {
@@ -49,13 +66,65 @@ public class EmployeeController {
 		return employee;
 	}
 
-	// List operation
+	// List operation, streamed so that memory use does not grow with headcount.
+	// format=ndjson writes one employee per line, fields limits the output to the listed properties.
 	@GetMapping("/employees")
-	public List<Employee> fetchEmployeeList() {
-		log.debug("Entering fetchEmployeeList");
-		List<Employee> employees = employeeService.fetchEmployeeList();
-		log.info("Fetched {} employees", employees.size());
-		return employees;
+	public ResponseEntity<StreamingResponseBody> fetchEmployeeList(
+			@RequestParam(required = false) String format,
+			@RequestParam(required = false) List<String> fields,
+			@RequestParam(required = false) String firstName,
+			@RequestParam(required = false) String lastName,
+			@RequestParam(required = false) Integer startAge,
+			@RequestParam(required = false) Integer endAge,
+			@RequestParam(required = false) String department,
+			@RequestParam(required = false) String title,
+			@RequestParam(required = false) String businessUnit,
+			@RequestParam(required = false) String gender,
+			@RequestParam(required = false) String ethnicity,
+			@RequestParam(required = false) Long managerId,
+			@RequestParam(required = false) Long addressId,
+			@RequestParam(required = false) String state,
+			@RequestParam(required = false) String city,
+			@RequestParam(required = false) String postalCode,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hireDate,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hireDateFirst,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hireDateLast,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate terminationDate,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate terminationDateFirst,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate terminationDateLast,
+			@RequestParam(required = false) Long annualSalary) {
+		log.debug("Entering fetchEmployeeList with format={} fields={}", format, fields);
+		MediaType mediaType = "ndjson".equalsIgnoreCase(format) ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON;
+		StreamingResponseBody body = outputStream -> {
+			long count = employeeService.exportEmployees(
+				outputStream,
+				format,
+				fields,
+				firstName,
+				lastName,
+				startAge,
+				endAge,
+				department,
+				title,
+				businessUnit,
+				gender,
+				ethnicity,
+				managerId,
+				addressId,
+				state,
+				city,
+				postalCode,
+				hireDate,
+				hireDateFirst,
+				hireDateLast,
+				terminationDate,
+				terminationDateFirst,
+				terminationDateLast,
+				annualSalary
+			);
+			log.info("Streamed {} employees", count);
+		};
+		return ResponseEntity.ok().contentType(mediaType).body(body);
 	}
 
 	// Partial update operation
@@ -109,7 +178,10 @@ public class EmployeeController {
 			@RequestParam(required = false) Integer pageNumber,
 			@RequestParam(required = false) Integer pageSize,
 			@RequestParam(required = false) String sortBy,
-			@RequestParam(required = false) String sortDirection) {
+			@RequestParam(required = false) String sortDirection,
+			@RequestParam(required = false) String cursor,
+			@RequestParam(required = false) Boolean includeTotal,
+			@RequestParam(required = false) String projection) {
 
 		log.debug("Entering searchEmployees endpoint");
 		return employeeService.searchEmployees(
@@ -137,7 +209,10 @@ public class EmployeeController {
 				pageNumber,
 				pageSize,
 				sortBy,
-				sortDirection
+				sortDirection,
+				cursor,
+				includeTotal,
+				projection
 		);
 	}
 
@@ -192,6 +267,177 @@ public class EmployeeController {
 		);
 	}
 
+	// Grouped count operation
+	@GetMapping("/employees/count/grouped")
+	public EmployeeGroupedCounts countEmployeesGroupedBy(
+			@RequestParam List<String> groupBy,
+			@RequestParam(required = false) List<String> metrics,
+			@RequestParam(required = false) String firstName,
+			@RequestParam(required = false) String lastName,
+			@RequestParam(required = false) Integer startAge,
+			@RequestParam(required = false) Integer endAge,
+			@RequestParam(required = false) String department,
+			@RequestParam(required = false) String title,
+			@RequestParam(required = false) String businessUnit,
+			@RequestParam(required = false) String gender,
+			@RequestParam(required = false) String ethnicity,
+			@RequestParam(required = false) Long managerId,
+			@RequestParam(required = false) Long addressId,
+			@RequestParam(required = false) String state,
+			@RequestParam(required = false) String city,
+			@RequestParam(required = false) String postalCode,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hireDate,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hireDateFirst,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hireDateLast,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate terminationDate,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate terminationDateFirst,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate terminationDateLast,
+			@RequestParam(required = false) Long annualSalary) {
+
+		log.debug("Entering countEmployeesGroupedBy endpoint with groupBy={}", groupBy);
+		return employeeService.countEmployeesGroupedBy(
+				groupBy,
+				metrics,
+				firstName,
+				lastName,
+				startAge,
+				endAge,
+				department,
+				title,
+				businessUnit,
+				gender,
+				ethnicity,
+				managerId,
+				addressId,
+				state,
+				city,
+				postalCode,
+				hireDate,
+				hireDateFirst,
+				hireDateLast,
+				terminationDate,
+				terminationDateFirst,
+				terminationDateLast,
+				annualSalary
+		);
+	}
+
+	// Fuzzy name/title search operation
+	@GetMapping("/employees/fuzzy-search")
+	public List<EmployeeMatch> fuzzySearchEmployees(
+			@RequestParam(required = false) String name,
+			@RequestParam(required = false) String title,
+			@RequestParam(required = false) Integer limit,
+			@RequestParam(required = false) Double minSimilarity) {
+
+		log.debug("Entering fuzzySearchEmployees endpoint with name={} title={}", name, title);
+		return employeeService.fuzzySearchEmployees(name, title, limit, minSimilarity);
+	}
+
+	// Org chart operations, served from the in-memory hierarchy index
+	@GetMapping("/employees/{id}/reporting-chain")
+	public List<OrgChartEntry> getReportingChain(@PathVariable("id") Long employeeId) {
+		log.debug("Entering getReportingChain endpoint with id={}", employeeId);
+		return employeeService.getReportingChain(employeeId);
+	}
+
+	@GetMapping("/employees/{id}/reports")
+	public EmployeeReports getAllReports(
+			@PathVariable("id") Long managerId,
+			@RequestParam(required = false) Integer pageNumber,
+			@RequestParam(required = false) Integer pageSize) {
+		log.debug("Entering getAllReports endpoint with id={} pageNumber={} pageSize={}", managerId, pageNumber, pageSize);
+		return employeeService.getAllReports(managerId, pageNumber, pageSize);
+	}
+
+	@GetMapping("/employees/{id}/reports/count")
+	public EmployeeCount countSubtree(@PathVariable("id") Long managerId) {
+		log.debug("Entering countSubtree endpoint with id={}", managerId);
+		return employeeService.countSubtree(managerId);
+	}
+
+	// Bulk update operation: the query parameters select the employees, the body holds the fields to set.
+	// dryRun=true only counts the matching employees.
+	@PatchMapping("/employees")
+	public EmployeeBulkUpdateResult updateEmployeesMatching(
+			@RequestBody EmployeeBulkUpdateRequest request,
+			@RequestParam(required = false) Boolean dryRun,
+			@RequestParam(required = false) String firstName,
+			@RequestParam(required = false) String lastName,
+			@RequestParam(required = false) Integer startAge,
+			@RequestParam(required = false) Integer endAge,
+			@RequestParam(required = false) String department,
+			@RequestParam(required = false) String title,
+			@RequestParam(required = false) String businessUnit,
+			@RequestParam(required = false) String gender,
+			@RequestParam(required = false) String ethnicity,
+			@RequestParam(required = false) Long managerId,
+			@RequestParam(required = false) Long addressId,
+			@RequestParam(required = false) String state,
+			@RequestParam(required = false) String city,
+			@RequestParam(required = false) String postalCode,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hireDate,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hireDateFirst,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hireDateLast,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate terminationDate,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate terminationDateFirst,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate terminationDateLast,
+			@RequestParam(required = false) Long annualSalary) {
+
+		log.debug("Entering updateEmployeesMatching endpoint with dryRun={}", dryRun);
+		EmployeeBulkUpdateResult result = employeeService.updateEmployeesMatching(
+				dryRun,
+				request.department,
+				request.title,
+				request.businessUnit,
+				request.managerId,
+				request.addressId,
+				request.annualSalary,
+				request.terminationDate,
+				firstName,
+				lastName,
+				startAge,
+				endAge,
+				department,
+				title,
+				businessUnit,
+				gender,
+				ethnicity,
+				managerId,
+				addressId,
+				state,
+				city,
+				postalCode,
+				hireDate,
+				hireDateFirst,
+				hireDateLast,
+				terminationDate,
+				terminationDateFirst,
+				terminationDateLast,
+				annualSalary
+		);
+		log.info("Bulk employee update finished with dryRun={} matchedCount={} updatedCount={}", result.dryRun(), result.matchedCount(), result.updatedCount());
+		return result;
+	}
+
+	// Bulk import operation: CSV with the columns of ops/data/db/employee_data_load.csv.
+	// EMPLOYEE_ID and MANAGER_ID are keys within the file; imported employees get new ids.
+	@PostMapping(value = "/employees/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+	public EmployeeImportResult importEmployees(
+			@RequestParam("file") MultipartFile file,
+			@RequestParam(required = false) Integer batchSize) throws IOException {
+
+		log.debug("Entering importEmployees endpoint with file={} size={} batchSize={}", file.getOriginalFilename(), file.getSize(), batchSize);
+		if (file.isEmpty()) {
+			throw new InvalidRequestException("CSV file is required.");
+		}
+		try (InputStream csv = file.getInputStream()) {
+			EmployeeImportResult result = employeeImportService.importEmployees(csv, batchSize);
+			log.info("Employee import finished: {} imported, {} failed", result.imported(), result.failed());
+			return result;
+		}
+	}
+
 	private static class EmployeeUpdateRequest {
 		public String firstName;
 		public String lastName;
@@ -209,4 +455,15 @@ public class EmployeeController {
 		public LocalDate terminationDate;
 		public Long annualSalary;
 	}
+
+	private static class EmployeeBulkUpdateRequest {
+		public String department;
+		public String title;
+		public String businessUnit;
+		public Long managerId;
+		public Long addressId;
+		public Long annualSalary;
+		@DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+		public LocalDate terminationDate;
+	}
 }
@@ -0,0 +1,32 @@
+package com.megacorp.humanresources.controller;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.megacorp.humanresources.model.HeadcountSeries;
+import com.megacorp.humanresources.service.HeadcountService;
+
+@RestController
+public class HeadcountController {
+
+    private final HeadcountService headcountService;
+
+    public HeadcountController(HeadcountService headcountService) {
+        this.headcountService = headcountService;
+    }
+
+    @GetMapping("/headcount/series")
+    public List<HeadcountSeries> headcountSeries(
+            @RequestParam(required = false) String dimension,
+            @RequestParam(required = false) String value,
+            @RequestParam(required = false) String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return headcountService.getHeadcountSeries(dimension, value, granularity, from, to);
+    }
+}
@@ -1,5 +1,6 @@
 package com.megacorp.humanresources.controller;
 
+import com.megacorp.humanresources.model.PolicyIngestResult;
 import com.megacorp.humanresources.model.PolicyRagResponse;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
@@ -45,13 +46,13 @@ class RagController {
      // }
 
      @PostMapping("/rag/policies/ingest-gcs")
-     ResponseEntity<?> ingestPoliciesFromGcs(
+     ResponseEntity<PolicyIngestResult> ingestPoliciesFromGcs(
           @RequestParam(name = "prefix", defaultValue = "policies/") String prefix
      ) {
           log.debug("Entering ingestPoliciesFromGcs with prefix={}", prefix);
-          int chunks = rag.ingestPoliciesFromGcs(prefix);
-          log.info("Policy RAG ingest completed with {} chunks", chunks);
-          return ResponseEntity.ok().body("Policy ingest complete. Chunks added: " + chunks);
+          PolicyIngestResult result = rag.ingestPoliciesFromGcs(prefix);
+          log.info("Policy RAG ingest completed with {} chunks", result.chunksAdded());
+          return ResponseEntity.ok(result);
      }
 
      @GetMapping("/rag/policies/query")
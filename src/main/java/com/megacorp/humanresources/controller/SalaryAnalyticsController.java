@@ -0,0 +1,45 @@
+package com.megacorp.humanresources.controller;
+
+import java.util.List;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.megacorp.humanresources.model.SalaryHistogram;
+import com.megacorp.humanresources.model.SalaryPercentiles;
+import com.megacorp.humanresources.model.SalarySummary;
+import com.megacorp.humanresources.service.SalaryAnalyticsService;
+
+@RestController
+public class SalaryAnalyticsController {
+
+    private final SalaryAnalyticsService salaryAnalyticsService;
+
+    public SalaryAnalyticsController(SalaryAnalyticsService salaryAnalyticsService) {
+        this.salaryAnalyticsService = salaryAnalyticsService;
+    }
+
+    @GetMapping("/salaries/percentiles")
+    public SalaryPercentiles salaryPercentiles(
+            @RequestParam(required = false) String dimension,
+            @RequestParam(required = false) String value,
+            @RequestParam(required = false) List<Double> percentiles) {
+        return salaryAnalyticsService.getSalaryPercentiles(dimension, value, percentiles);
+    }
+
+    @GetMapping("/salaries/summary")
+    public List<SalarySummary> salarySummary(
+            @RequestParam(required = false) String dimension,
+            @RequestParam(required = false) String value) {
+        return salaryAnalyticsService.getSalarySummary(dimension, value);
+    }
+
+    @GetMapping("/salaries/histogram")
+    public SalaryHistogram salaryHistogram(
+            @RequestParam(required = false) String dimension,
+            @RequestParam(required = false) String value,
+            @RequestParam(required = false) Long binWidth) {
+        return salaryAnalyticsService.getSalaryHistogram(dimension, value, binWidth);
+    }
+}
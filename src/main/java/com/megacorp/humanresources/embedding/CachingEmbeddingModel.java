@@ -0,0 +1,161 @@
+package com.megacorp.humanresources.embedding;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * EmbeddingModel that remembers the embeddings of the most recently used query texts.
+ *
+ * Only {@link #embed(String)} is cached, which is what vector stores call to embed the query
+ * of a similarity search; document and batch embedding go straight to the delegate, so that
+ * ingesting does not push the queries out. Texts are keyed by the SHA-256 of their normalized
+ * form (Unicode NFKC, lower case, whitespace collapsed), so questions that differ only in
+ * case or spacing share an embedding.
+ *
+ * Hits and misses are counted in {@code hr.rag.embedding.cache.requests}, tagged with the
+ * result, and every hit records in {@code hr.rag.embedding.cache.saved} how long embedding
+ * the text took when it was cached.
+ */
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+	private static final Logger logger = LoggerFactory.getLogger(CachingEmbeddingModel.class);
+
+	public static final String REQUESTS_METRIC = "hr.rag.embedding.cache.requests";
+	public static final String SAVED_METRIC = "hr.rag.embedding.cache.saved";
+
+	private final EmbeddingModel delegate;
+	private final Map<String, Cached> cache;
+
+	private final Counter hits;
+	private final Counter misses;
+	private final Timer saved;
+
+	private record Cached(float[] embedding, long nanos) {
+	}
+
+	/**
+	 * @param delegate The model that computes embeddings on a miss
+	 * @param maxEntries How many query texts to keep; the least recently used is dropped first
+	 * @param meterRegistry Registry for the cache metrics, or null
+	 */
+	public CachingEmbeddingModel(EmbeddingModel delegate, int maxEntries, MeterRegistry meterRegistry) {
+		this.delegate = delegate;
+		this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+				return size() > maxEntries;
+			}
+		};
+		if (meterRegistry != null) {
+			this.hits = Counter.builder(REQUESTS_METRIC).tag("result", "hit").register(meterRegistry);
+			this.misses = Counter.builder(REQUESTS_METRIC).tag("result", "miss").register(meterRegistry);
+			this.saved = Timer.builder(SAVED_METRIC)
+				.description("Embedding time avoided by query embedding cache hits")
+				.register(meterRegistry);
+		} else {
+			this.hits = null;
+			this.misses = null;
+			this.saved = null;
+		}
+	}
+
+	@Override
+	public float[] embed(String text) {
+		if (text == null) {
+			return delegate.embed(text);
+		}
+		String key = key(text);
+		Cached cached;
+		synchronized (cache) {
+			cached = cache.get(key);
+		}
+		if (cached != null) {
+			if (hits != null) {
+				hits.increment();
+				saved.record(cached.nanos(), TimeUnit.NANOSECONDS);
+			}
+			logger.debug("Query embedding cache hit for key={}", key);
+			return cached.embedding().clone();
+		}
+
+		long start = System.nanoTime();
+		float[] embedding = delegate.embed(text);
+		long nanos = System.nanoTime() - start;
+		if (misses != null) {
+			misses.increment();
+		}
+		synchronized (cache) {
+			cache.put(key, new Cached(embedding.clone(), nanos));
+		}
+		logger.debug("Query embedding cache miss for key={}, embedded in {} ms", key, nanos / 1_000_000);
+		return embedding;
+	}
+
+	@Override
+	public EmbeddingResponse call(EmbeddingRequest request) {
+		return delegate.call(request);
+	}
+
+	@Override
+	public float[] embed(Document document) {
+		return delegate.embed(document);
+	}
+
+	@Override
+	public String getEmbeddingContent(Document document) {
+		return delegate.getEmbeddingContent(document);
+	}
+
+	@Override
+	public int dimensions() {
+		return delegate.dimensions();
+	}
+
+	public int size() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	public void clear() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * The form query texts are compared in: NFKC, lower case, runs of whitespace replaced by a
+	 * single space and trimmed.
+	 */
+	public static String normalize(String text) {
+		String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+		return normalized.replaceAll("\\s+", " ").trim();
+	}
+
+	private static String key(String text) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(digest.digest(normalize(text).getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+}
@@ -1,10 +1,16 @@
 package com.megacorp.humanresources.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.megacorp.humanresources.service.helper.LocationNormalizer;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
@@ -17,12 +23,20 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "address")
+// Searches compare the normalized columns, so they can use these indexes
+@Table(
+    name = "address",
+    indexes = {
+        @Index(name = "idx_address_state_city", columnList = "STATE_NORMALIZED, CITY_NORMALIZED"),
+        @Index(name = "idx_address_city_state", columnList = "CITY_NORMALIZED, STATE_NORMALIZED"),
+        @Index(name = "idx_address_postal_code", columnList = "POSTAL_CODE_NORMALIZED")
+    }
+)
 public class Address {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "address_seq")
-    @SequenceGenerator(name = "address_seq", sequenceName = "address_sequence", allocationSize = 1, initialValue = 10000)
+    @SequenceGenerator(name = "address_seq", sequenceName = "address_sequence", allocationSize = 50, initialValue = 10000)
     @Column(name = "ADDRESS_ID")
     private Long addressId;
 
@@ -40,4 +54,30 @@ public class Address {
 
     @Column(name = "IS_REMOTE", nullable = false)
     private Boolean isRemote;
+
+    // Written from state/city/postalCode by normalizeLocation on every insert and update
+    @Column(name = "STATE_NORMALIZED", nullable = false)
+    @JsonIgnore
+    private String stateNormalized;
+
+    @Column(name = "CITY_NORMALIZED", nullable = false)
+    @JsonIgnore
+    private String cityNormalized;
+
+    @Column(name = "POSTAL_CODE_NORMALIZED", nullable = false)
+    @JsonIgnore
+    private String postalCodeNormalized;
+
+    /**
+     * Fills the normalized state, city and postal code columns from the raw values, so that
+     * every save through JPA keeps them in step. Inserts that bypass JPA have to call the
+     * LocationNormalizer methods themselves.
+     */
+    @PrePersist
+    @PreUpdate
+    void normalizeLocation() {
+        stateNormalized = state != null ? LocationNormalizer.normalizeState(state) : null;
+        cityNormalized = city != null ? LocationNormalizer.normalizeCity(city) : null;
+        postalCodeNormalized = postalCode != null ? LocationNormalizer.normalizePostalCode(postalCode) : null;
+    }
 }
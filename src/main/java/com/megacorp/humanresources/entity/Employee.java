@@ -6,10 +6,13 @@ import java.time.format.DateTimeFormatter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -18,20 +21,26 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import jakarta.persistence.SequenceGenerator;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 @Entity
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+// A manager loaded earlier in the same session is returned as its lazy proxy
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Table(
 	name = "employee",
 	indexes = {
-		@Index(name = "idx_manager_id", columnList = "MANAGER_ID")
+		@Index(name = "idx_manager_id", columnList = "MANAGER_ID"),
+		@Index(name = "idx_employee_address_id", columnList = "ADDRESS_ID")
 	}
 )
 public class Employee {
@@ -45,7 +54,7 @@ public class Employee {
 
 	@Id
 	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "employee_seq")
-	@SequenceGenerator(name = "employee_seq", sequenceName = "employee_sequence", allocationSize = 1, initialValue=6000)
+	@SequenceGenerator(name = "employee_seq", sequenceName = "employee_sequence", allocationSize = 50, initialValue=6000)
 	@Column(name = "EMPLOYEE_ID")
 	private Long employeeId;
 
@@ -73,15 +82,31 @@ public class Employee {
 	@Column(name = "AGE", nullable = true)
 	private Long age;
 
-	@ManyToOne
+	// Lazy so that loading an employee does not walk the whole management chain;
+	// getManagerId() reads the id from the proxy without initializing it
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "MANAGER_ID", insertable = true, updatable = true, nullable = true)
-	@com.fasterxml.jackson.annotation.JsonIgnore
+	@JsonIgnore
 	private Employee manager;
 
 	@ManyToOne
 	@JoinColumn(name = "ADDRESS_ID", insertable = true, updatable = true, nullable = true)
 	private Address address;
 
+	// Read-only copies of the foreign keys so that projections can select the ids
+	// without joining the manager or address rows. Use getManagerId()/getAddressId() in code.
+	@Column(name = "MANAGER_ID", insertable = false, updatable = false)
+	@JsonIgnore
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private Long managerIdValue;
+
+	@Column(name = "ADDRESS_ID", insertable = false, updatable = false)
+	@JsonIgnore
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private Long addressIdValue;
+
 	public void setManager(Employee manager) {
 		this.manager = manager;
 	}
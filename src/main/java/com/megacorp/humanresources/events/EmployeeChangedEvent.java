@@ -0,0 +1,25 @@
+package com.megacorp.humanresources.events;
+
+import com.megacorp.humanresources.entity.Employee;
+
+/**
+ * Published after an employee row has been inserted, updated or deleted so that
+ * in-memory views of the employee table can be kept current without re-reading it.
+ *
+ * @param employeeId The ID of the employee that changed
+ * @param employee The persisted state of the employee, or null when it was deleted
+ */
+public record EmployeeChangedEvent(Long employeeId, Employee employee) {
+
+	public static EmployeeChangedEvent saved(Employee employee) {
+		return new EmployeeChangedEvent(employee.getEmployeeId(), employee);
+	}
+
+	public static EmployeeChangedEvent deleted(Long employeeId) {
+		return new EmployeeChangedEvent(employeeId, null);
+	}
+
+	public boolean isDeleted() {
+		return employee == null;
+	}
+}
@@ -0,0 +1,12 @@
+package com.megacorp.humanresources.events;
+
+/**
+ * Published after a set-based write (bulk import or bulk update) has changed many employee
+ * rows at once. No {@link EmployeeChangedEvent} is published for the individual rows, so
+ * in-memory views of the employee table reload themselves instead.
+ *
+ * @param operation Short name of the operation that changed the rows, for logging
+ * @param rowCount The number of rows written
+ */
+public record EmployeesBulkChangedEvent(String operation, long rowCount) {
+}
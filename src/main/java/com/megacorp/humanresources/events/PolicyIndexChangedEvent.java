@@ -0,0 +1,14 @@
+package com.megacorp.humanresources.events;
+
+import java.util.List;
+
+/**
+ * Published after a policy ingest has added, replaced or purged chunks in the policy vector
+ * store, so that anything derived from the indexed policies, such as cached answers, is
+ * discarded.
+ *
+ * @param prefix The GCS prefix that was ingested
+ * @param changedPaths The policy PDFs whose chunks were written or deleted, including failed ones
+ */
+public record PolicyIndexChangedEvent(String prefix, List<String> changedPaths) {
+}
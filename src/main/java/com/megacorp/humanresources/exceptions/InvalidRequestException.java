@@ -0,0 +1,8 @@
+package com.megacorp.humanresources.exceptions;
+
+public class InvalidRequestException extends ApplicationException {
+
+    public InvalidRequestException(String message) {
+        super("INVALID_REQUEST", message);
+    }
+}
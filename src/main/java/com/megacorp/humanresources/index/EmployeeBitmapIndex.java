@@ -0,0 +1,526 @@
+package com.megacorp.humanresources.index;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.megacorp.humanresources.entity.Address;
+import com.megacorp.humanresources.entity.Employee;
+import com.megacorp.humanresources.events.EmployeeChangedEvent;
+import com.megacorp.humanresources.events.EmployeesBulkChangedEvent;
+import com.megacorp.humanresources.repository.EmployeeRepository;
+
+/**
+ * In-memory columnar snapshot of the employee table used to answer count queries
+ * without touching the database.
+ *
+ * Categorical columns (names, department, title, business unit, gender, ethnicity,
+ * manager, address, state, city, postal code) are stored as one Roaring bitmap of
+ * employee IDs per distinct value. Numeric and date columns (age, salary, hire date,
+ * termination date) are stored as value-sorted arrays so that ranges resolve with two
+ * binary searches. A count is the cardinality of the intersection of the bitmaps
+ * selected by each filter, matching the semantics of {@code EmployeeSpecifications}.
+ *
+ * The snapshot is loaded once the application is ready and then maintained
+ * incrementally from {@link EmployeeChangedEvent}s. Until it is loaded, or when it is
+ * disabled with {@code employee.bitmap-index.enabled=false}, {@link #count} returns an
+ * empty result and callers fall back to the database.
+ */
+@Component
+public class EmployeeBitmapIndex {
+
+	private static final Logger logger = LoggerFactory.getLogger(EmployeeBitmapIndex.class);
+
+	private final EmployeeRepository employeeRepository;
+	private final boolean enabled;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final Map<Integer, IndexedRow> rows = new HashMap<>();
+	private final RoaringBitmap allEmployees = new RoaringBitmap();
+
+	private final ValueBitmaps<String> firstNames = new ValueBitmaps<>();
+	private final ValueBitmaps<String> lastNames = new ValueBitmaps<>();
+	private final ValueBitmaps<String> departments = new ValueBitmaps<>();
+	private final ValueBitmaps<String> titles = new ValueBitmaps<>();
+	private final ValueBitmaps<String> businessUnits = new ValueBitmaps<>();
+	private final ValueBitmaps<String> genders = new ValueBitmaps<>();
+	private final ValueBitmaps<String> ethnicities = new ValueBitmaps<>();
+	private final ValueBitmaps<Long> managerIds = new ValueBitmaps<>();
+	private final ValueBitmaps<Long> addressIds = new ValueBitmaps<>();
+	private final ValueBitmaps<String> states = new ValueBitmaps<>();
+	private final ValueBitmaps<String> cities = new ValueBitmaps<>();
+	private final ValueBitmaps<String> postalCodes = new ValueBitmaps<>();
+
+	private final SortedColumn ages = new SortedColumn();
+	private final SortedColumn annualSalaries = new SortedColumn();
+	private final SortedColumn hireDates = new SortedColumn();
+	private final SortedColumn terminationDates = new SortedColumn();
+
+	private volatile boolean ready = false;
+
+	public EmployeeBitmapIndex(
+			EmployeeRepository employeeRepository,
+			@Value("${employee.bitmap-index.enabled:false}") boolean enabled) {
+		this.employeeRepository = employeeRepository;
+		this.enabled = enabled;
+	}
+
+	public boolean isReady() {
+		return enabled && ready;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void loadOnStartup() {
+		if (!enabled) {
+			logger.info("Employee bitmap index is disabled; counts will be served by the database");
+			return;
+		}
+		rebuild();
+	}
+
+	/**
+	 * Discards the current snapshot and reloads it from the employee table.
+	 */
+	public void rebuild() {
+		if (!enabled) {
+			return;
+		}
+		long start = System.nanoTime();
+		lock.writeLock().lock();
+		try {
+			clear();
+			List<Employee> employees = employeeRepository.findAll();
+			List<Integer> ids = new ArrayList<>(employees.size());
+			List<IndexedRow> loaded = new ArrayList<>(employees.size());
+			for (Employee employee : employees) {
+				Integer id = toBitmapId(employee.getEmployeeId());
+				if (id == null) {
+					ready = false;
+					return;
+				}
+				IndexedRow row = IndexedRow.of(employee);
+				rows.put(id, row);
+				addCategorical(id, row);
+				ids.add(id);
+				loaded.add(row);
+			}
+			ages.load(ids, loaded, IndexedRow::age);
+			annualSalaries.load(ids, loaded, IndexedRow::annualSalary);
+			hireDates.load(ids, loaded, IndexedRow::hireDay);
+			terminationDates.load(ids, loaded, IndexedRow::terminationDay);
+			allEmployees.runOptimize();
+			ready = true;
+			logger.info("Employee bitmap index built with {} employees in {} ms",
+				rows.size(), (System.nanoTime() - start) / 1_000_000);
+		} catch (Exception e) {
+			ready = false;
+			logger.error("Failed to build employee bitmap index; counts will be served by the database", e);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@EventListener
+	public void onEmployeesBulkChanged(EmployeesBulkChangedEvent event) {
+		logger.debug("Reloading after {} changed {} employees", event.operation(), event.rowCount());
+		rebuild();
+	}
+
+	@EventListener
+	public void onEmployeeChanged(EmployeeChangedEvent event) {
+		if (!enabled || !ready) {
+			return;
+		}
+		Integer id = toBitmapId(event.employeeId());
+		if (id == null) {
+			ready = false;
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			IndexedRow previous = rows.remove(id);
+			if (previous != null) {
+				removeRow(id, previous);
+			}
+			if (!event.isDeleted()) {
+				IndexedRow row = IndexedRow.of(event.employee());
+				rows.put(id, row);
+				addRow(id, row);
+			}
+			logger.debug("Employee bitmap index updated for employeeId={} deleted={}", id, event.isDeleted());
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Counts employees matching the given criteria. Parameters follow the same
+	 * conventions as the employee search specification: state and city are expected
+	 * to be already normalized to upper case, and age and date ranges only apply when
+	 * both bounds are present.
+	 *
+	 * @return The count, or an empty result when the index cannot answer
+	 */
+	public OptionalLong count(
+			String firstName, String lastName, Integer startAge, Integer endAge,
+			String department, String title, String businessUnit,
+			String gender, String ethnicity,
+			Long managerId, Long addressId, String state, String city, String postalCode,
+			LocalDate hireDate, LocalDate hireDateFirst, LocalDate hireDateLast,
+			LocalDate terminationDate, LocalDate terminationDateFirst, LocalDate terminationDateLast,
+			Long annualSalary) {
+
+		if (!isReady()) {
+			return OptionalLong.empty();
+		}
+
+		lock.readLock().lock();
+		try {
+			List<RoaringBitmap> filters = new ArrayList<>();
+			if (firstName != null && !firstName.isEmpty()) {
+				filters.add(firstNames.get(firstName));
+			}
+			if (lastName != null && !lastName.isEmpty()) {
+				filters.add(lastNames.get(lastName));
+			}
+			if (startAge != null && endAge != null) {
+				filters.add(ages.between(startAge, endAge));
+			}
+			if (department != null && !department.isEmpty()) {
+				filters.add(departments.get(department));
+			}
+			if (title != null && !title.isEmpty()) {
+				filters.add(titles.get(title));
+			}
+			if (gender != null && !gender.isEmpty()) {
+				filters.add(genders.get(gender));
+			}
+			if (businessUnit != null && !businessUnit.isEmpty()) {
+				filters.add(businessUnits.get(businessUnit));
+			}
+			if (ethnicity != null && !ethnicity.isEmpty()) {
+				filters.add(ethnicities.get(ethnicity));
+			}
+			if (hireDate != null) {
+				filters.add(hireDates.between(hireDate.toEpochDay(), hireDate.toEpochDay()));
+			}
+			if (hireDateFirst != null && hireDateLast != null) {
+				filters.add(hireDates.between(hireDateFirst.toEpochDay(), hireDateLast.toEpochDay()));
+			}
+			if (terminationDate != null) {
+				filters.add(terminationDates.between(terminationDate.toEpochDay(), terminationDate.toEpochDay()));
+			}
+			if (terminationDateFirst != null && terminationDateLast != null) {
+				filters.add(terminationDates.between(terminationDateFirst.toEpochDay(), terminationDateLast.toEpochDay()));
+			}
+			if (annualSalary != null) {
+				filters.add(annualSalaries.between(annualSalary, annualSalary));
+			}
+			if (managerId != null) {
+				filters.add(managerIds.get(managerId));
+			}
+			if (addressId != null) {
+				filters.add(addressIds.get(addressId));
+			}
+			if (state != null && !state.isBlank()) {
+				filters.add(states.get(state.toUpperCase(Locale.ROOT)));
+			}
+			if (city != null && !city.isBlank()) {
+				filters.add(cities.get(city.toUpperCase(Locale.ROOT)));
+			}
+			if (postalCode != null && !postalCode.isBlank()) {
+				filters.add(postalCodes.get(postalCode));
+			}
+
+			if (filters.isEmpty()) {
+				return OptionalLong.of(allEmployees.getLongCardinality());
+			}
+			if (filters.size() == 1) {
+				return OptionalLong.of(filters.get(0).getLongCardinality());
+			}
+			if (filters.size() == 2) {
+				return OptionalLong.of(RoaringBitmap.andCardinality(filters.get(0), filters.get(1)));
+			}
+			return OptionalLong.of(FastAggregation.and(filters.iterator()).getLongCardinality());
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void clear() {
+		rows.clear();
+		allEmployees.clear();
+		firstNames.clear();
+		lastNames.clear();
+		departments.clear();
+		titles.clear();
+		businessUnits.clear();
+		genders.clear();
+		ethnicities.clear();
+		managerIds.clear();
+		addressIds.clear();
+		states.clear();
+		cities.clear();
+		postalCodes.clear();
+		ages.clear();
+		annualSalaries.clear();
+		hireDates.clear();
+		terminationDates.clear();
+	}
+
+	private void addRow(int id, IndexedRow row) {
+		addCategorical(id, row);
+		ages.insert(row.age(), id);
+		annualSalaries.insert(row.annualSalary(), id);
+		hireDates.insert(row.hireDay(), id);
+		terminationDates.insert(row.terminationDay(), id);
+	}
+
+	private void addCategorical(int id, IndexedRow row) {
+		allEmployees.add(id);
+		firstNames.add(row.firstName(), id);
+		lastNames.add(row.lastName(), id);
+		departments.add(row.department(), id);
+		titles.add(row.title(), id);
+		businessUnits.add(row.businessUnit(), id);
+		genders.add(row.gender(), id);
+		ethnicities.add(row.ethnicity(), id);
+		managerIds.add(row.managerId(), id);
+		addressIds.add(row.addressId(), id);
+		states.add(row.state(), id);
+		cities.add(row.city(), id);
+		postalCodes.add(row.postalCode(), id);
+	}
+
+	private void removeRow(int id, IndexedRow row) {
+		allEmployees.remove(id);
+		firstNames.remove(row.firstName(), id);
+		lastNames.remove(row.lastName(), id);
+		departments.remove(row.department(), id);
+		titles.remove(row.title(), id);
+		businessUnits.remove(row.businessUnit(), id);
+		genders.remove(row.gender(), id);
+		ethnicities.remove(row.ethnicity(), id);
+		managerIds.remove(row.managerId(), id);
+		addressIds.remove(row.addressId(), id);
+		states.remove(row.state(), id);
+		cities.remove(row.city(), id);
+		postalCodes.remove(row.postalCode(), id);
+		ages.remove(row.age(), id);
+		annualSalaries.remove(row.annualSalary(), id);
+		hireDates.remove(row.hireDay(), id);
+		terminationDates.remove(row.terminationDay(), id);
+	}
+
+	private Integer toBitmapId(Long employeeId) {
+		if (employeeId == null || employeeId < 0 || employeeId > Integer.MAX_VALUE) {
+			logger.warn("Employee id {} cannot be stored in the bitmap index; disabling it", employeeId);
+			return null;
+		}
+		return employeeId.intValue();
+	}
+
+	/**
+	 * Indexed values of a single employee, kept so that an update can remove the
+	 * employee from the bitmaps and columns it was previously in.
+	 */
+	private record IndexedRow(
+			String firstName, String lastName, String department, String title, String businessUnit,
+			String gender, String ethnicity, Long managerId, Long addressId,
+			String state, String city, String postalCode,
+			Long age, Long annualSalary, Long hireDay, Long terminationDay) {
+
+		static IndexedRow of(Employee employee) {
+			Address address = employee.getAddress();
+			return new IndexedRow(
+				employee.getFirstName(),
+				employee.getLastName(),
+				employee.getDepartment(),
+				employee.getTitle(),
+				employee.getBusinessUnit(),
+				employee.getGender(),
+				employee.getEthnicity(),
+				employee.getManagerId(),
+				employee.getAddressId(),
+				address != null ? address.getStateNormalized() : null,
+				address != null ? address.getCityNormalized() : null,
+				address != null ? address.getPostalCodeNormalized() : null,
+				employee.getAge(),
+				employee.getAnnualSalary(),
+				employee.getHireDate() != null ? employee.getHireDate().toEpochDay() : null,
+				employee.getTerminationDate() != null ? employee.getTerminationDate().toEpochDay() : null
+			);
+		}
+	}
+
+	/**
+	 * One bitmap of employee IDs per distinct column value.
+	 */
+	private static final class ValueBitmaps<K> {
+
+		private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+		private final Map<K, RoaringBitmap> bitmaps = new HashMap<>();
+
+		void add(K value, int id) {
+			if (value != null) {
+				bitmaps.computeIfAbsent(value, key -> new RoaringBitmap()).add(id);
+			}
+		}
+
+		void remove(K value, int id) {
+			if (value == null) {
+				return;
+			}
+			RoaringBitmap bitmap = bitmaps.get(value);
+			if (bitmap != null) {
+				bitmap.remove(id);
+				if (bitmap.isEmpty()) {
+					bitmaps.remove(value);
+				}
+			}
+		}
+
+		RoaringBitmap get(K value) {
+			return bitmaps.getOrDefault(value, EMPTY);
+		}
+
+		void clear() {
+			bitmaps.clear();
+		}
+	}
+
+	/**
+	 * Parallel arrays of column values and employee IDs ordered by value. Null values
+	 * are not stored, so they never match a range, as with a SQL comparison.
+	 */
+	private static final class SortedColumn {
+
+		private long[] values = new long[0];
+		private int[] ids = new int[0];
+		private int size;
+
+		void clear() {
+			values = new long[0];
+			ids = new int[0];
+			size = 0;
+		}
+
+		void load(List<Integer> rowIds, List<IndexedRow> rows, Function<IndexedRow, Long> column) {
+			long[] loadedValues = new long[rows.size()];
+			int[] loadedIds = new int[rows.size()];
+			int count = 0;
+			for (int i = 0; i < rows.size(); i++) {
+				Long value = column.apply(rows.get(i));
+				if (value != null) {
+					loadedValues[count] = value;
+					loadedIds[count] = rowIds.get(i);
+					count++;
+				}
+			}
+			Integer[] order = new Integer[count];
+			for (int i = 0; i < count; i++) {
+				order[i] = i;
+			}
+			Arrays.sort(order, Comparator.comparingLong(i -> loadedValues[i]));
+			values = new long[count];
+			ids = new int[count];
+			for (int i = 0; i < count; i++) {
+				values[i] = loadedValues[order[i]];
+				ids[i] = loadedIds[order[i]];
+			}
+			size = count;
+		}
+
+		void insert(Long value, int id) {
+			if (value == null) {
+				return;
+			}
+			if (size == values.length) {
+				int capacity = Math.max(16, size * 2);
+				values = Arrays.copyOf(values, capacity);
+				ids = Arrays.copyOf(ids, capacity);
+			}
+			int position = upperBound(value);
+			System.arraycopy(values, position, values, position + 1, size - position);
+			System.arraycopy(ids, position, ids, position + 1, size - position);
+			values[position] = value;
+			ids[position] = id;
+			size++;
+		}
+
+		void remove(Long value, int id) {
+			if (value == null) {
+				return;
+			}
+			for (int i = lowerBound(value); i < size && values[i] == value; i++) {
+				if (ids[i] == id) {
+					System.arraycopy(values, i + 1, values, i, size - i - 1);
+					System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+					size--;
+					return;
+				}
+			}
+		}
+
+		RoaringBitmap between(long low, long high) {
+			RoaringBitmap bitmap = new RoaringBitmap();
+			if (low > high) {
+				return bitmap;
+			}
+			int from = lowerBound(low);
+			int to = upperBound(high);
+			if (to > from) {
+				bitmap.addN(ids, from, to - from);
+			}
+			return bitmap;
+		}
+
+		// First position whose value is >= the given value
+		private int lowerBound(long value) {
+			int low = 0;
+			int high = size;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (values[mid] < value) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+
+		// First position whose value is > the given value
+		private int upperBound(long value) {
+			int low = 0;
+			int high = size;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (values[mid] <= value) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+	}
+}
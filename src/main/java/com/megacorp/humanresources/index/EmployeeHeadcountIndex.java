@@ -0,0 +1,324 @@
+package com.megacorp.humanresources.index;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import com.megacorp.humanresources.entity.Employee;
+import com.megacorp.humanresources.events.EmployeeChangedEvent;
+import com.megacorp.humanresources.events.EmployeesBulkChangedEvent;
+import com.megacorp.humanresources.model.EmployeeTenure;
+import com.megacorp.humanresources.model.HeadcountSeries;
+import com.megacorp.humanresources.repository.EmployeeRepository;
+import com.megacorp.humanresources.service.helper.EmployeeDimensions;
+
+/**
+ * In-memory hire and termination timelines per department, title and business unit,
+ * from which headcount series are produced without counting queries.
+ *
+ * Every group, and all employees together, keeps a date-sorted map of the number of hires
+ * and terminations on each date. A series is one sweep over that map: the events before
+ * the first period are summed into the opening headcount, then each period collects the
+ * events up to its last day and carries the running headcount forward. The cost is the
+ * number of distinct event dates plus the number of periods, independent of how many
+ * periods or groups a plain COUNT approach would have to query.
+ *
+ * An employee is active from the hire date and no longer active from the termination
+ * date on, so a termination lowers the headcount of the period it falls in. Employees
+ * without a hire date are left out.
+ *
+ * The index is loaded once the application is ready and kept current from
+ * {@link EmployeeChangedEvent}s by taking the employee's previous events out of its
+ * previous groups and adding the new ones.
+ */
+@Component
+public class EmployeeHeadcountIndex {
+
+	private static final Logger logger = LoggerFactory.getLogger(EmployeeHeadcountIndex.class);
+
+	private static final List<String> DIMENSIONS = List.of(EmployeeDimensions.DEPARTMENT, EmployeeDimensions.TITLE,
+		EmployeeDimensions.BUSINESS_UNIT);
+
+	/**
+	 * Length of the periods of a series. Periods are aligned to calendar boundaries: weeks
+	 * start on Monday, quarters in January, April, July and October.
+	 */
+	public enum Granularity {
+		DAY, WEEK, MONTH, QUARTER, YEAR;
+
+		public LocalDate periodStart(LocalDate date) {
+			return switch (this) {
+				case DAY -> date;
+				case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+				case MONTH -> date.withDayOfMonth(1);
+				case QUARTER -> date.withDayOfMonth(1).withMonth((date.getMonthValue() - 1) / 3 * 3 + 1);
+				case YEAR -> date.withDayOfYear(1);
+			};
+		}
+
+		public LocalDate nextPeriodStart(LocalDate periodStart) {
+			return switch (this) {
+				case DAY -> periodStart.plusDays(1);
+				case WEEK -> periodStart.plusWeeks(1);
+				case MONTH -> periodStart.plusMonths(1);
+				case QUARTER -> periodStart.plusMonths(3);
+				case YEAR -> periodStart.plusYears(1);
+			};
+		}
+
+		/**
+		 * Number of periods needed to cover the dates from and to, inclusive.
+		 */
+		public long periodsBetween(LocalDate from, LocalDate to) {
+			LocalDate first = periodStart(from);
+			LocalDate last = periodStart(to);
+			return switch (this) {
+				case DAY -> ChronoUnit.DAYS.between(first, last) + 1;
+				case WEEK -> ChronoUnit.WEEKS.between(first, last) + 1;
+				case MONTH -> ChronoUnit.MONTHS.between(first, last) + 1;
+				case QUARTER -> ChronoUnit.MONTHS.between(first, last) / 3 + 1;
+				case YEAR -> ChronoUnit.YEARS.between(first, last) + 1;
+			};
+		}
+
+		public String label() {
+			return name().toLowerCase(Locale.ROOT);
+		}
+	}
+
+	private final EmployeeRepository employeeRepository;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	// Hires ([0]) and terminations ([1]) per date, for all employees and per group
+	private final NavigableMap<LocalDate, long[]> overall = new TreeMap<>();
+	private final Map<String, Map<String, NavigableMap<LocalDate, long[]>>> groups = new HashMap<>();
+	private final Map<Long, Tenure> counted = new HashMap<>();
+
+	private volatile boolean ready = false;
+
+	public EmployeeHeadcountIndex(EmployeeRepository employeeRepository) {
+		this.employeeRepository = employeeRepository;
+		DIMENSIONS.forEach(dimension -> groups.put(dimension, new HashMap<>()));
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void loadOnStartup() {
+		rebuild();
+	}
+
+	/**
+	 * Discards the current timelines and reloads them from the employee table.
+	 */
+	public void rebuild() {
+		long start = System.nanoTime();
+		lock.writeLock().lock();
+		try {
+			overall.clear();
+			groups.values().forEach(Map::clear);
+			counted.clear();
+			List<EmployeeTenure> employees = employeeRepository.findBy(
+				Specification.unrestricted(), query -> query.as(EmployeeTenure.class).all());
+			for (EmployeeTenure employee : employees) {
+				add(new Tenure(employee.getEmployeeId(), employee.getDepartment(), employee.getTitle(),
+					employee.getBusinessUnit(), employee.getHireDate(), employee.getTerminationDate()));
+			}
+			ready = true;
+			logger.info("Employee headcount index built with {} employees over {} event dates in {} ms",
+				counted.size(), overall.size(), (System.nanoTime() - start) / 1_000_000);
+		} catch (Exception e) {
+			ready = false;
+			logger.error("Failed to build employee headcount index", e);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@EventListener
+	public void onEmployeesBulkChanged(EmployeesBulkChangedEvent event) {
+		logger.debug("Reloading after {} changed {} employees", event.operation(), event.rowCount());
+		rebuild();
+	}
+
+	@EventListener
+	public void onEmployeeChanged(EmployeeChangedEvent event) {
+		if (!ready || event.employeeId() == null) {
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			Tenure previous = counted.remove(event.employeeId());
+			if (previous != null) {
+				apply(previous, -1);
+			}
+			if (!event.isDeleted()) {
+				Employee employee = event.employee();
+				add(new Tenure(event.employeeId(), employee.getDepartment(), employee.getTitle(),
+					employee.getBusinessUnit(), employee.getHireDate(), employee.getTerminationDate()));
+			}
+			logger.debug("Employee headcount index updated for employeeId={} deleted={}", event.employeeId(), event.isDeleted());
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * The earliest hire or termination date of any employee, or null when there is none.
+	 */
+	public LocalDate firstEventDate() {
+		return read(() -> overall.isEmpty() ? null : overall.firstKey());
+	}
+
+	/**
+	 * Produces the series of one group, or of all employees when dimension is null.
+	 *
+	 * @param dimension One of {@link EmployeeDimensions#DEPARTMENT}, {@link EmployeeDimensions#TITLE}, {@link EmployeeDimensions#BUSINESS_UNIT}, or null
+	 * @param value The group's value of the dimension (exact match)
+	 * @param from Any day of the first period
+	 * @param to Any day of the last period
+	 * @return The series, or null when no employee was ever in the group
+	 */
+	public HeadcountSeries series(String dimension, String value, Granularity granularity, LocalDate from, LocalDate to) {
+		return read(() -> {
+			NavigableMap<LocalDate, long[]> events = dimension == null ? overall : groups.get(dimension).get(value);
+			return events != null ? sweep(dimension, value, events, granularity, from, to) : null;
+		});
+	}
+
+	/**
+	 * Produces one series per group of a dimension, all over the same periods.
+	 *
+	 * @return One series per group, ordered by the group's value
+	 */
+	public List<HeadcountSeries> seriesPerGroup(String dimension, Granularity granularity, LocalDate from, LocalDate to) {
+		return read(() -> {
+			List<HeadcountSeries> series = new ArrayList<>();
+			new TreeMap<>(groups.get(dimension))
+				.forEach((value, events) -> series.add(sweep(dimension, value, events, granularity, from, to)));
+			return series;
+		});
+	}
+
+	/**
+	 * Number of groups of a dimension.
+	 */
+	public int groupCount(String dimension) {
+		return read(() -> groups.get(dimension).size());
+	}
+
+	private static HeadcountSeries sweep(String dimension, String value, NavigableMap<LocalDate, long[]> events,
+			Granularity granularity, LocalDate from, LocalDate to) {
+		LocalDate periodStart = granularity.periodStart(from);
+		Iterator<Map.Entry<LocalDate, long[]>> cursor = events.entrySet().iterator();
+		Map.Entry<LocalDate, long[]> next = cursor.hasNext() ? cursor.next() : null;
+
+		long headcount = 0;
+		while (next != null && next.getKey().isBefore(periodStart)) {
+			headcount += next.getValue()[0] - next.getValue()[1];
+			next = cursor.hasNext() ? cursor.next() : null;
+		}
+
+		List<HeadcountSeries.Period> periods = new ArrayList<>();
+		LocalDate lastDay = periodStart;
+		while (!periodStart.isAfter(to)) {
+			LocalDate nextStart = granularity.nextPeriodStart(periodStart);
+			LocalDate periodEnd = nextStart.minusDays(1);
+			long hires = 0;
+			long terminations = 0;
+			while (next != null && !next.getKey().isAfter(periodEnd)) {
+				hires += next.getValue()[0];
+				terminations += next.getValue()[1];
+				next = cursor.hasNext() ? cursor.next() : null;
+			}
+			headcount += hires - terminations;
+			periods.add(new HeadcountSeries.Period(periodStart, periodEnd, hires, terminations, headcount));
+			lastDay = periodEnd;
+			periodStart = nextStart;
+		}
+		return new HeadcountSeries(dimension, value, granularity.label(), granularity.periodStart(from), lastDay, periods);
+	}
+
+	private void add(Tenure tenure) {
+		if (tenure.employeeId() == null || tenure.hireDate() == null) {
+			return;
+		}
+		counted.put(tenure.employeeId(), tenure);
+		apply(tenure, 1);
+	}
+
+	private void apply(Tenure tenure, int sign) {
+		record(overall, tenure, sign);
+		for (String dimension : DIMENSIONS) {
+			String value = tenure.valueOf(dimension);
+			if (value == null) {
+				continue;
+			}
+			Map<String, NavigableMap<LocalDate, long[]>> dimensionGroups = groups.get(dimension);
+			NavigableMap<LocalDate, long[]> events = dimensionGroups.computeIfAbsent(value, key -> new TreeMap<>());
+			record(events, tenure, sign);
+			if (events.isEmpty()) {
+				dimensionGroups.remove(value);
+			}
+		}
+	}
+
+	private static void record(NavigableMap<LocalDate, long[]> events, Tenure tenure, int sign) {
+		count(events, tenure.hireDate(), 0, sign);
+		if (tenure.terminationDate() != null) {
+			count(events, tenure.terminationDate(), 1, sign);
+		}
+	}
+
+	private static void count(NavigableMap<LocalDate, long[]> events, LocalDate date, int kind, int sign) {
+		long[] counts = events.computeIfAbsent(date, key -> new long[2]);
+		counts[kind] += sign;
+		if (counts[0] == 0 && counts[1] == 0) {
+			events.remove(date);
+		}
+	}
+
+	private <T> T read(Supplier<T> query) {
+		if (!ready) {
+			rebuild();
+		}
+		lock.readLock().lock();
+		try {
+			return query.get();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private record Tenure(Long employeeId, String department, String title, String businessUnit,
+			LocalDate hireDate, LocalDate terminationDate) {
+
+		String valueOf(String dimension) {
+			return switch (dimension) {
+				case EmployeeDimensions.DEPARTMENT -> department;
+				case EmployeeDimensions.TITLE -> title;
+				default -> businessUnit;
+			};
+		}
+	}
+}
@@ -0,0 +1,359 @@
+package com.megacorp.humanresources.index;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import com.megacorp.humanresources.entity.Employee;
+import com.megacorp.humanresources.events.EmployeeChangedEvent;
+import com.megacorp.humanresources.events.EmployeesBulkChangedEvent;
+import com.megacorp.humanresources.model.EmployeeReports;
+import com.megacorp.humanresources.model.EmployeeSummary;
+import com.megacorp.humanresources.model.OrgChartEntry;
+import com.megacorp.humanresources.repository.EmployeeRepository;
+
+/**
+ * In-memory org chart built from the MANAGER_ID column, answering hierarchy questions
+ * without recursive queries.
+ *
+ * Every employee is a node with a parent pointer and a list of direct reports, so a
+ * reporting chain is a walk of O(depth) parent pointers. In addition the nodes are laid
+ * out in depth-first preorder (an Euler tour): each node records the position where its
+ * subtree starts and ends, so the subtree of a manager is one contiguous slice of that
+ * order. Counting all reports is then a subtraction and a page of reports is an array
+ * copy of the requested slice.
+ *
+ * Employees without a manager, managed by themselves or by an unknown employee are roots.
+ * Employees on a management cycle are laid out from the lowest ID of the cycle.
+ *
+ * The index is loaded once the application is ready and kept current from
+ * {@link EmployeeChangedEvent}s. A manager change only relinks the parent and child
+ * pointers; the tour positions are recomputed in O(n) by the next subtree query.
+ */
+@Component
+public class EmployeeHierarchyIndex {
+
+	private static final Logger logger = LoggerFactory.getLogger(EmployeeHierarchyIndex.class);
+
+	private final EmployeeRepository employeeRepository;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final Map<Long, Node> nodes = new HashMap<>();
+	// Employee IDs in depth-first preorder; valid while tourStale is false
+	private long[] tour = new long[0];
+	private boolean tourStale = true;
+
+	private volatile boolean ready = false;
+
+	public EmployeeHierarchyIndex(EmployeeRepository employeeRepository) {
+		this.employeeRepository = employeeRepository;
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void loadOnStartup() {
+		rebuild();
+	}
+
+	/**
+	 * Discards the current org chart and reloads it from the employee table.
+	 */
+	public void rebuild() {
+		long start = System.nanoTime();
+		lock.writeLock().lock();
+		try {
+			nodes.clear();
+			List<EmployeeSummary> employees = employeeRepository.findBy(
+				Specification.unrestricted(), query -> query.as(EmployeeSummary.class).all());
+			for (EmployeeSummary employee : employees) {
+				Node node = new Node(employee.getEmployeeId());
+				node.update(employee.getFirstName(), employee.getLastName(), employee.getTitle(),
+					employee.getDepartment(), employee.getManagerIdValue());
+				nodes.put(node.id, node);
+			}
+			for (Node node : nodes.values()) {
+				Node parent = parentOf(node);
+				if (parent != null) {
+					parent.reports.add(node.id);
+				}
+			}
+			computeTour();
+			ready = true;
+			logger.info("Employee hierarchy index built with {} employees in {} ms",
+				nodes.size(), (System.nanoTime() - start) / 1_000_000);
+		} catch (Exception e) {
+			ready = false;
+			logger.error("Failed to build employee hierarchy index", e);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@EventListener
+	public void onEmployeesBulkChanged(EmployeesBulkChangedEvent event) {
+		logger.debug("Reloading after {} changed {} employees", event.operation(), event.rowCount());
+		rebuild();
+	}
+
+	@EventListener
+	public void onEmployeeChanged(EmployeeChangedEvent event) {
+		if (!ready || event.employeeId() == null) {
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			Node node = nodes.get(event.employeeId());
+			if (event.isDeleted()) {
+				if (node != null) {
+					detach(node);
+					nodes.remove(node.id);
+					tourStale = true;
+				}
+			} else {
+				Employee employee = event.employee();
+				boolean added = node == null;
+				if (added) {
+					node = new Node(event.employeeId());
+					nodes.put(node.id, node);
+				}
+				Long managerId = employee.getManagerId();
+				boolean moved = !added && !Objects.equals(node.managerId, managerId);
+				if (moved) {
+					detach(node);
+				}
+				node.update(employee.getFirstName(), employee.getLastName(), employee.getTitle(),
+					employee.getDepartment(), managerId);
+				if (added || moved) {
+					Node parent = parentOf(node);
+					if (parent != null) {
+						parent.reports.add(node.id);
+					}
+					tourStale = true;
+				}
+			}
+			logger.debug("Employee hierarchy index updated for employeeId={} deleted={}", event.employeeId(), event.isDeleted());
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * The managers above an employee, from the direct manager (level 1) up to the top of
+	 * the organization.
+	 *
+	 * @return The chain, or null when the employee is unknown
+	 */
+	public List<OrgChartEntry> reportingChain(Long employeeId) {
+		ensureReady();
+		lock.readLock().lock();
+		try {
+			Node node = nodes.get(employeeId);
+			if (node == null) {
+				return null;
+			}
+			List<OrgChartEntry> chain = new ArrayList<>();
+			Set<Long> seen = new HashSet<>();
+			seen.add(node.id);
+			Node manager = parentOf(node);
+			while (manager != null && seen.add(manager.id)) {
+				chain.add(manager.toEntry(chain.size() + 1));
+				manager = parentOf(manager);
+			}
+			return chain;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * The number of direct and indirect reports of a manager.
+	 *
+	 * @return The count, or an empty result when the employee is unknown
+	 */
+	public OptionalLong subtreeSize(Long managerId) {
+		ensureReady();
+		lockCurrentTour();
+		try {
+			Node node = nodes.get(managerId);
+			return node == null ? OptionalLong.empty() : OptionalLong.of(node.end - node.start);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * One page of the direct and indirect reports of a manager in depth-first order.
+	 *
+	 * @param pageNumber The page number (1-based)
+	 * @param pageSize The number of reports per page
+	 * @return The page, or null when the employee is unknown
+	 */
+	public EmployeeReports reports(Long managerId, int pageNumber, int pageSize) {
+		ensureReady();
+		lockCurrentTour();
+		try {
+			Node manager = nodes.get(managerId);
+			if (manager == null) {
+				return null;
+			}
+			int total = manager.end - manager.start;
+			long from = manager.start + 1 + (long) (pageNumber - 1) * pageSize;
+			long to = Math.min(manager.end + 1L, from + pageSize);
+			List<OrgChartEntry> page = new ArrayList<>();
+			for (long position = from; position < to; position++) {
+				Node report = nodes.get(tour[(int) position]);
+				page.add(report.toEntry(report.depth - manager.depth));
+			}
+			int totalPages = (total + pageSize - 1) / pageSize;
+			return new EmployeeReports(managerId, total, pageNumber, pageSize, totalPages, page);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void ensureReady() {
+		if (!ready) {
+			rebuild();
+		}
+	}
+
+	/**
+	 * Takes the read lock with current tour positions, recomputing them first if a manager
+	 * change made them stale. The caller releases the read lock.
+	 */
+	private void lockCurrentTour() {
+		lock.readLock().lock();
+		if (!tourStale) {
+			return;
+		}
+		lock.readLock().unlock();
+		lock.writeLock().lock();
+		try {
+			if (tourStale) {
+				computeTour();
+			}
+			// Downgrade so that no writer can make the tour stale before the caller reads it
+			lock.readLock().lock();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void computeTour() {
+		long start = System.nanoTime();
+		tour = new long[nodes.size()];
+		List<Node> ordered = new ArrayList<>(nodes.values());
+		ordered.sort((a, b) -> Long.compare(a.id, b.id));
+		for (Node node : ordered) {
+			node.start = -1;
+			Collections.sort(node.reports);
+		}
+		int position = 0;
+		for (Node node : ordered) {
+			if (parentOf(node) == null) {
+				position = visit(node, position);
+			}
+		}
+		// Whatever is left sits on a management cycle and has no root above it
+		for (Node node : ordered) {
+			if (node.start < 0) {
+				position = visit(node, position);
+			}
+		}
+		tourStale = false;
+		logger.debug("Employee hierarchy tour computed for {} employees in {} us", position, (System.nanoTime() - start) / 1_000);
+	}
+
+	// Iterative depth-first walk; the org chart can be deeper than the call stack allows
+	private int visit(Node root, int position) {
+		root.depth = 0;
+		root.start = position;
+		tour[position++] = root.id;
+		Deque<Node> path = new ArrayDeque<>();
+		Deque<Iterator<Long>> pending = new ArrayDeque<>();
+		path.push(root);
+		pending.push(root.reports.iterator());
+		while (!path.isEmpty()) {
+			Iterator<Long> reports = pending.peek();
+			if (reports.hasNext()) {
+				Node report = nodes.get(reports.next());
+				if (report == null || report.start >= 0) {
+					continue;
+				}
+				report.depth = path.peek().depth + 1;
+				report.start = position;
+				tour[position++] = report.id;
+				path.push(report);
+				pending.push(report.reports.iterator());
+			} else {
+				path.pop().end = position - 1;
+				pending.pop();
+			}
+		}
+		return position;
+	}
+
+	private Node parentOf(Node node) {
+		if (node.managerId == null || node.managerId.equals(node.id)) {
+			return null;
+		}
+		return nodes.get(node.managerId);
+	}
+
+	private void detach(Node node) {
+		Node parent = parentOf(node);
+		if (parent != null) {
+			parent.reports.remove(node.id);
+		}
+	}
+
+	private static final class Node {
+		private final Long id;
+		private final List<Long> reports = new ArrayList<>();
+		private String firstName;
+		private String lastName;
+		private String title;
+		private String department;
+		private Long managerId;
+		// Position of the node in the tour and of the last node of its subtree
+		private int start;
+		private int end;
+		private int depth;
+
+		private Node(Long id) {
+			this.id = id;
+		}
+
+		private void update(String firstName, String lastName, String title, String department, Long managerId) {
+			this.firstName = firstName;
+			this.lastName = lastName;
+			this.title = title;
+			this.department = department;
+			this.managerId = managerId;
+		}
+
+		private OrgChartEntry toEntry(int level) {
+			return new OrgChartEntry(id, firstName, lastName, title, department, managerId, level);
+		}
+	}
+}
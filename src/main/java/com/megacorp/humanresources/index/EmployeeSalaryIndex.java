@@ -0,0 +1,329 @@
+package com.megacorp.humanresources.index;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import com.megacorp.humanresources.entity.Employee;
+import com.megacorp.humanresources.events.EmployeeChangedEvent;
+import com.megacorp.humanresources.events.EmployeesBulkChangedEvent;
+import com.megacorp.humanresources.model.EmployeeCompensation;
+import com.megacorp.humanresources.model.SalaryHistogram;
+import com.megacorp.humanresources.model.SalaryPercentiles;
+import com.megacorp.humanresources.model.SalarySummary;
+import com.megacorp.humanresources.repository.EmployeeRepository;
+import com.megacorp.humanresources.service.helper.EmployeeDimensions;
+
+/**
+ * In-memory salary distributions per department, title and business unit, answering
+ * percentile, summary and histogram questions without scanning the employee table.
+ *
+ * Every group, and all employees together, keeps a {@link SalarySketch}: logarithmic
+ * bucket counters whose quantiles are within a fixed relative accuracy (1% by default,
+ * {@code salary.sketch.relative-accuracy}) of the exact ones. A question only walks the
+ * buckets of one group, a few hundred counters at most, whatever the headcount.
+ *
+ * On startup the employees are loaded with a single projection query and folded into
+ * partial distributions in parallel, which are then merged bucket by bucket. Afterwards
+ * the index is kept current from {@link EmployeeChangedEvent}s: the employee's previous
+ * salary is taken out of its previous groups and the new one added to its new groups.
+ * Employees without a salary are left out; terminated employees are included, as in
+ * the employee count tools.
+ *
+ * Minimum and maximum are exact rather than estimated: the sketches track them as amounts
+ * are added, and when an update or delete takes out the extreme salary of a group, that
+ * group's new extreme is found from the compensations the index already holds.
+ */
+@Component
+public class EmployeeSalaryIndex {
+
+	private static final Logger logger = LoggerFactory.getLogger(EmployeeSalaryIndex.class);
+
+	private final EmployeeRepository employeeRepository;
+	private final double relativeAccuracy;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private Distribution distribution;
+
+	private volatile boolean ready = false;
+
+	public EmployeeSalaryIndex(EmployeeRepository employeeRepository,
+			@Value("${salary.sketch.relative-accuracy:0.01}") double relativeAccuracy) {
+		this.employeeRepository = employeeRepository;
+		this.relativeAccuracy = relativeAccuracy;
+		this.distribution = new Distribution(relativeAccuracy);
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	public double getRelativeAccuracy() {
+		return relativeAccuracy;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void loadOnStartup() {
+		rebuild();
+	}
+
+	/**
+	 * Discards the current distributions and reloads them from the employee table.
+	 */
+	public void rebuild() {
+		long start = System.nanoTime();
+		lock.writeLock().lock();
+		try {
+			List<EmployeeCompensation> employees = employeeRepository.findBy(
+				Specification.unrestricted(), query -> query.as(EmployeeCompensation.class).all());
+			distribution = employees.parallelStream()
+				.filter(employee -> employee.getEmployeeId() != null)
+				.map(employee -> new Compensation(employee.getEmployeeId(), employee.getDepartment(),
+					employee.getTitle(), employee.getBusinessUnit(), employee.getAnnualSalary()))
+				.collect(() -> new Distribution(relativeAccuracy), Distribution::add, Distribution::merge);
+			ready = true;
+			logger.info("Employee salary index built with {} salaries in {} departments, {} titles and {} business units in {} ms",
+				distribution.overall.count(), distribution.groups(EmployeeDimensions.DEPARTMENT).size(),
+				distribution.groups(EmployeeDimensions.TITLE).size(), distribution.groups(EmployeeDimensions.BUSINESS_UNIT).size(), (System.nanoTime() - start) / 1_000_000);
+		} catch (Exception e) {
+			ready = false;
+			logger.error("Failed to build employee salary index", e);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@EventListener
+	public void onEmployeesBulkChanged(EmployeesBulkChangedEvent event) {
+		logger.debug("Reloading after {} changed {} employees", event.operation(), event.rowCount());
+		rebuild();
+	}
+
+	@EventListener
+	public void onEmployeeChanged(EmployeeChangedEvent event) {
+		if (!ready || event.employeeId() == null) {
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			distribution.remove(event.employeeId());
+			if (!event.isDeleted()) {
+				Employee employee = event.employee();
+				distribution.add(new Compensation(event.employeeId(), employee.getDepartment(), employee.getTitle(),
+					employee.getBusinessUnit(), employee.getAnnualSalary()));
+			}
+			logger.debug("Employee salary index updated for employeeId={} deleted={}", event.employeeId(), event.isDeleted());
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Summarizes the salaries of one group, or of all employees when dimension is null.
+	 *
+	 * @param dimension One of {@link EmployeeDimensions#DEPARTMENT}, {@link EmployeeDimensions#TITLE}, {@link EmployeeDimensions#BUSINESS_UNIT}, or null
+	 * @param value The group's value of the dimension (exact match)
+	 * @return The summary, or null when no employee with a salary is in the group
+	 */
+	public SalarySummary summary(String dimension, String value) {
+		return read(() -> {
+			SalarySketch sketch = distribution.sketch(dimension, value);
+			return sketch != null ? summarize(dimension, value, sketch) : null;
+		});
+	}
+
+	/**
+	 * Summarizes the salaries of every group of a dimension.
+	 *
+	 * @param dimension One of {@link EmployeeDimensions#DEPARTMENT}, {@link EmployeeDimensions#TITLE}, {@link EmployeeDimensions#BUSINESS_UNIT}
+	 * @return One summary per group, ordered by the group's value
+	 */
+	public List<SalarySummary> summaries(String dimension) {
+		return read(() -> {
+			List<SalarySummary> summaries = new ArrayList<>();
+			new TreeMap<>(distribution.groups(dimension))
+				.forEach((value, sketch) -> summaries.add(summarize(dimension, value, sketch)));
+			return summaries;
+		});
+	}
+
+	/**
+	 * Estimates salary percentiles of one group, or of all employees when dimension is null.
+	 *
+	 * @param percentiles Percentiles between 0 and 100
+	 * @return The percentiles, or null when no employee with a salary is in the group
+	 */
+	public SalaryPercentiles percentiles(String dimension, String value, List<Double> percentiles) {
+		return read(() -> {
+			SalarySketch sketch = distribution.sketch(dimension, value);
+			if (sketch == null) {
+				return null;
+			}
+			Map<String, Long> estimates = new LinkedHashMap<>();
+			for (Double percentile : percentiles) {
+				String key = "p" + BigDecimal.valueOf(percentile).stripTrailingZeros().toPlainString();
+				double estimate = percentile <= 0 ? sketch.min()
+					: percentile >= 100 ? sketch.max() : sketch.quantile(percentile / 100);
+				estimates.put(key, Math.round(estimate));
+			}
+			return new SalaryPercentiles(dimension, value, sketch.count(), relativeAccuracy, estimates);
+		});
+	}
+
+	/**
+	 * Counts the salaries of one group, or of all employees when dimension is null, in bins
+	 * of the given width.
+	 *
+	 * @return The histogram, or null when no employee with a salary is in the group
+	 */
+	public SalaryHistogram histogram(String dimension, String value, long binWidth) {
+		return read(() -> {
+			SalarySketch sketch = distribution.sketch(dimension, value);
+			if (sketch == null) {
+				return null;
+			}
+			List<SalaryHistogram.Bin> bins = new ArrayList<>();
+			sketch.histogram(binWidth).forEach((lowerBound, count) ->
+				bins.add(new SalaryHistogram.Bin(lowerBound, lowerBound + binWidth, count)));
+			return new SalaryHistogram(dimension, value, sketch.count(), binWidth, bins);
+		});
+	}
+
+	private SalarySummary summarize(String dimension, String value, SalarySketch sketch) {
+		long p25 = Math.round(sketch.quantile(0.25));
+		long p75 = Math.round(sketch.quantile(0.75));
+		return new SalarySummary(dimension, value, sketch.count(), Math.round((double) sketch.sum() / sketch.count()),
+			Math.round(sketch.min()), p25, Math.round(sketch.quantile(0.5)), p75, p75 - p25,
+			Math.round(sketch.max()));
+	}
+
+	private <T> T read(Supplier<T> query) {
+		if (!ready) {
+			rebuild();
+		}
+		lock.readLock().lock();
+		try {
+			return query.get();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private record Compensation(Long employeeId, String department, String title, String businessUnit, Long annualSalary) {
+
+		String valueOf(String dimension) {
+			return switch (dimension) {
+				case EmployeeDimensions.DEPARTMENT -> department;
+				case EmployeeDimensions.TITLE -> title;
+				default -> businessUnit;
+			};
+		}
+	}
+
+	/**
+	 * Sketches of all employees and of every group, plus the compensation each employee
+	 * was counted with so that it can be taken out again.
+	 */
+	private static final class Distribution {
+
+		private static final List<String> DIMENSIONS = List.of(EmployeeDimensions.DEPARTMENT, EmployeeDimensions.TITLE,
+			EmployeeDimensions.BUSINESS_UNIT);
+
+		private final double relativeAccuracy;
+		private final SalarySketch overall;
+		private final Map<String, Map<String, SalarySketch>> groups = new HashMap<>();
+		private final Map<Long, Compensation> counted = new HashMap<>();
+
+		Distribution(double relativeAccuracy) {
+			this.relativeAccuracy = relativeAccuracy;
+			this.overall = new SalarySketch(relativeAccuracy);
+			DIMENSIONS.forEach(dimension -> groups.put(dimension, new HashMap<>()));
+		}
+
+		Map<String, SalarySketch> groups(String dimension) {
+			return groups.getOrDefault(dimension, Map.of());
+		}
+
+		SalarySketch sketch(String dimension, String value) {
+			SalarySketch sketch = dimension == null ? overall : groups(dimension).get(value);
+			return sketch != null && !sketch.isEmpty() ? sketch : null;
+		}
+
+		void add(Compensation compensation) {
+			if (compensation.annualSalary() == null) {
+				return;
+			}
+			long salary = compensation.annualSalary();
+			counted.put(compensation.employeeId(), compensation);
+			overall.add(salary);
+			for (String dimension : DIMENSIONS) {
+				String value = compensation.valueOf(dimension);
+				if (value != null) {
+					groups.get(dimension).computeIfAbsent(value, key -> new SalarySketch(relativeAccuracy)).add(salary);
+				}
+			}
+		}
+
+		void remove(Long employeeId) {
+			Compensation compensation = counted.remove(employeeId);
+			if (compensation == null) {
+				return;
+			}
+			long salary = compensation.annualSalary();
+			overall.remove(salary);
+			restoreExtremes(overall, null, null);
+			for (String dimension : DIMENSIONS) {
+				String value = compensation.valueOf(dimension);
+				SalarySketch sketch = value != null ? groups.get(dimension).get(value) : null;
+				if (sketch != null) {
+					sketch.remove(salary);
+					if (sketch.isEmpty()) {
+						groups.get(dimension).remove(value);
+					} else {
+						restoreExtremes(sketch, dimension, value);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Finds the exact extremes of a group again from the counted compensations after
+		 * its minimum or maximum salary was removed. Only those removals scan.
+		 */
+		private void restoreExtremes(SalarySketch sketch, String dimension, String value) {
+			if (sketch.hasExtremes() || sketch.isEmpty()) {
+				return;
+			}
+			LongSummaryStatistics salaries = counted.values().stream()
+				.filter(compensation -> dimension == null || value.equals(compensation.valueOf(dimension)))
+				.mapToLong(Compensation::annualSalary)
+				.summaryStatistics();
+			sketch.setExtremes(salaries.getMin(), salaries.getMax());
+		}
+
+		void merge(Distribution other) {
+			overall.merge(other.overall);
+			other.groups.forEach((dimension, sketches) -> sketches.forEach((value, sketch) ->
+				groups.get(dimension).merge(value, sketch, (mine, theirs) -> {
+					mine.merge(theirs);
+					return mine;
+				})));
+			counted.putAll(other.counted);
+		}
+	}
+}
@@ -0,0 +1,249 @@
+package com.megacorp.humanresources.index;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.megacorp.humanresources.entity.Employee;
+import com.megacorp.humanresources.events.EmployeeChangedEvent;
+import com.megacorp.humanresources.events.EmployeesBulkChangedEvent;
+import com.megacorp.humanresources.model.EmployeeMatch;
+import com.megacorp.humanresources.repository.EmployeeRepository;
+
+/**
+ * In-memory trigram index over employee names and titles used for typo-tolerant
+ * lookups such as "Jon Smyth" finding "John Smith".
+ *
+ * Each value is lowercased, stripped of accents and split into words; every word is
+ * padded with two leading spaces and one trailing space and broken into trigrams, as
+ * PostgreSQL's pg_trgm does. Every distinct trigram maps to a Roaring bitmap of the
+ * employees whose full name (first and last name) or title contains it. A search only
+ * visits the postings of the query's own trigrams, counts the shared trigrams per
+ * candidate and scores it with the Jaccard similarity of the two trigram sets, so no
+ * employee without a shared trigram is ever looked at.
+ *
+ * The index is loaded once the application is ready and then maintained incrementally
+ * from {@link EmployeeChangedEvent}s. A search issued before that builds it first.
+ */
+@Component
+public class EmployeeTrigramIndex {
+
+	private static final Logger logger = LoggerFactory.getLogger(EmployeeTrigramIndex.class);
+
+	private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+	private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	private final EmployeeRepository employeeRepository;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final Map<Integer, IndexedEmployee> employees = new HashMap<>();
+	private final Map<String, RoaringBitmap> namePostings = new HashMap<>();
+	private final Map<String, RoaringBitmap> titlePostings = new HashMap<>();
+
+	private volatile boolean ready = false;
+
+	public EmployeeTrigramIndex(EmployeeRepository employeeRepository) {
+		this.employeeRepository = employeeRepository;
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void loadOnStartup() {
+		rebuild();
+	}
+
+	/**
+	 * Discards the current index and reloads it from the employee table.
+	 */
+	public void rebuild() {
+		long start = System.nanoTime();
+		lock.writeLock().lock();
+		try {
+			employees.clear();
+			namePostings.clear();
+			titlePostings.clear();
+			for (Employee employee : employeeRepository.findAll()) {
+				add(employee);
+			}
+			namePostings.values().forEach(RoaringBitmap::runOptimize);
+			titlePostings.values().forEach(RoaringBitmap::runOptimize);
+			ready = true;
+			logger.info("Employee trigram index built with {} employees, {} name and {} title trigrams in {} ms",
+				employees.size(), namePostings.size(), titlePostings.size(), (System.nanoTime() - start) / 1_000_000);
+		} catch (Exception e) {
+			ready = false;
+			logger.error("Failed to build employee trigram index", e);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@EventListener
+	public void onEmployeesBulkChanged(EmployeesBulkChangedEvent event) {
+		logger.debug("Reloading after {} changed {} employees", event.operation(), event.rowCount());
+		rebuild();
+	}
+
+	@EventListener
+	public void onEmployeeChanged(EmployeeChangedEvent event) {
+		if (!ready || event.employeeId() == null) {
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			IndexedEmployee previous = employees.remove(event.employeeId().intValue());
+			if (previous != null) {
+				remove(previous);
+			}
+			if (!event.isDeleted()) {
+				add(event.employee());
+			}
+			logger.debug("Employee trigram index updated for employeeId={} deleted={}", event.employeeId(), event.isDeleted());
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Ranks employees by trigram similarity to the given name and/or title. When both
+	 * are given the score is the average of the two similarities.
+	 *
+	 * @param name Free-form first and/or last name (optional)
+	 * @param title Job title (optional)
+	 * @param limit Maximum number of matches to return
+	 * @param minSimilarity Matches scoring below this value (0 to 1) are dropped
+	 * @return Matches ordered by similarity descending, then employeeId
+	 */
+	public List<EmployeeMatch> search(String name, String title, int limit, double minSimilarity) {
+		if (!ready) {
+			rebuild();
+		}
+		Set<String> nameTrigrams = name != null ? trigrams(name) : Set.of();
+		Set<String> titleTrigrams = title != null ? trigrams(title) : Set.of();
+		int fields = (nameTrigrams.isEmpty() ? 0 : 1) + (titleTrigrams.isEmpty() ? 0 : 1);
+		if (fields == 0 || limit < 1) {
+			return List.of();
+		}
+
+		lock.readLock().lock();
+		try {
+			Map<Integer, int[]> shared = new HashMap<>();
+			countShared(nameTrigrams, namePostings, shared, 0);
+			countShared(titleTrigrams, titlePostings, shared, 1);
+
+			List<EmployeeMatch> matches = new ArrayList<>();
+			for (Map.Entry<Integer, int[]> candidate : shared.entrySet()) {
+				IndexedEmployee employee = employees.get(candidate.getKey());
+				int[] counts = candidate.getValue();
+				double score = 0;
+				if (!nameTrigrams.isEmpty()) {
+					score += jaccard(counts[0], nameTrigrams.size(), employee.nameTrigrams().size());
+				}
+				if (!titleTrigrams.isEmpty()) {
+					score += jaccard(counts[1], titleTrigrams.size(), employee.titleTrigrams().size());
+				}
+				score /= fields;
+				if (score >= minSimilarity) {
+					matches.add(new EmployeeMatch(
+						employee.employeeId(), employee.firstName(), employee.lastName(), employee.title(),
+						employee.department(), Math.round(score * 1000) / 1000.0));
+				}
+			}
+			matches.sort(Comparator.comparingDouble(EmployeeMatch::similarity).reversed()
+				.thenComparing(EmployeeMatch::employeeId));
+			return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void countShared(Set<String> queryTrigrams, Map<String, RoaringBitmap> postings, Map<Integer, int[]> shared, int field) {
+		for (String trigram : queryTrigrams) {
+			RoaringBitmap posting = postings.get(trigram);
+			if (posting != null) {
+				posting.forEach((int id) -> shared.computeIfAbsent(id, key -> new int[2])[field]++);
+			}
+		}
+	}
+
+	private static double jaccard(int shared, int querySize, int valueSize) {
+		int union = querySize + valueSize - shared;
+		return union == 0 ? 0 : (double) shared / union;
+	}
+
+	private void add(Employee employee) {
+		if (employee.getEmployeeId() == null) {
+			return;
+		}
+		int id = employee.getEmployeeId().intValue();
+		String fullName = (employee.getFirstName() != null ? employee.getFirstName() : "")
+			+ " " + (employee.getLastName() != null ? employee.getLastName() : "");
+		IndexedEmployee indexed = new IndexedEmployee(
+			employee.getEmployeeId(), employee.getFirstName(), employee.getLastName(), employee.getTitle(),
+			employee.getDepartment(), trigrams(fullName),
+			employee.getTitle() != null ? trigrams(employee.getTitle()) : Set.of());
+		employees.put(id, indexed);
+		indexed.nameTrigrams().forEach(trigram -> namePostings.computeIfAbsent(trigram, key -> new RoaringBitmap()).add(id));
+		indexed.titleTrigrams().forEach(trigram -> titlePostings.computeIfAbsent(trigram, key -> new RoaringBitmap()).add(id));
+	}
+
+	private void remove(IndexedEmployee employee) {
+		int id = employee.employeeId().intValue();
+		removePostings(employee.nameTrigrams(), namePostings, id);
+		removePostings(employee.titleTrigrams(), titlePostings, id);
+	}
+
+	private static void removePostings(Set<String> trigrams, Map<String, RoaringBitmap> postings, int id) {
+		for (String trigram : trigrams) {
+			RoaringBitmap posting = postings.get(trigram);
+			if (posting != null) {
+				posting.remove(id);
+				if (posting.isEmpty()) {
+					postings.remove(trigram);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Distinct trigrams of the value's words, each word padded as "  word ".
+	 */
+	static Set<String> trigrams(String value) {
+		String folded = COMBINING_MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+		String[] words = NON_ALPHANUMERIC.matcher(folded.toLowerCase(Locale.ROOT)).replaceAll(" ").trim().split(" ");
+		Set<String> trigrams = new LinkedHashSet<>();
+		for (String word : words) {
+			if (word.isEmpty()) {
+				continue;
+			}
+			String padded = "  " + word + " ";
+			for (int i = 0; i + 3 <= padded.length(); i++) {
+				trigrams.add(padded.substring(i, i + 3));
+			}
+		}
+		return trigrams;
+	}
+
+	private record IndexedEmployee(
+			Long employeeId, String firstName, String lastName, String title, String department,
+			Set<String> nameTrigrams, Set<String> titleTrigrams) {
+	}
+}
@@ -0,0 +1,358 @@
+package com.megacorp.humanresources.index;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * In-memory BM25 index over the chunks of the ingested policy PDFs, for exact policy terms
+ * such as "fraternization" that a similarity search can miss, and for keyword questions that
+ * can be answered without embedding them.
+ *
+ * Chunk text and policy title are lowercased, stripped of accents and split into words;
+ * common English stop words are dropped. Every word maps to the chunks containing it and how
+ * often, and a search scores only the chunks in the postings of the query's own words with
+ * Okapi BM25 (k1 = 1.2, b = 0.75). The title is indexed with the text of every chunk, so a
+ * question naming a policy finds all of its chunks.
+ *
+ * The policy ingest keeps the index current by replacing the chunks of every PDF it writes
+ * and removing those of every PDF it deletes. The chunks of each PDF are also written to
+ * {@code rag.policies.chunk-store-path} as one JSON file, from which the index is loaded
+ * when the application is ready.
+ */
+@Component
+public class PolicyLexicalIndex {
+
+	private static final Logger logger = LoggerFactory.getLogger(PolicyLexicalIndex.class);
+
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+
+	private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+	private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+	private static final Set<String> STOP_WORDS = Set.of(
+		"a", "about", "am", "an", "and", "any", "are", "as", "at", "be", "by", "can", "could", "do", "does",
+		"for", "from", "have", "how", "i", "if", "in", "is", "it", "its", "me", "my", "of", "on", "or",
+		"our", "should", "that", "the", "their", "there", "this", "to", "us", "was", "we", "what", "when",
+		"where", "which", "who", "why", "will", "with", "would", "you", "your");
+
+	/**
+	 * A scored chunk.
+	 *
+	 * @param document The chunk, with the id and metadata it was indexed with
+	 * @param score Its BM25 score
+	 * @param matchedTerms How many distinct query words it contains
+	 */
+	public record Match(Document document, double score, int matchedTerms) {
+	}
+
+	/**
+	 * The chunks of a search.
+	 *
+	 * @param terms The distinct query words after tokenizing
+	 * @param matches The best chunks, highest score first
+	 */
+	public record Result(List<String> terms, List<Match> matches) {
+	}
+
+	private record StoredPolicy(String gcsPath, List<StoredChunk> chunks) {
+	}
+
+	private record StoredChunk(String id, String text, Map<String, Object> metadata) {
+	}
+
+	private record IndexedChunk(Document document, String gcsPath, int length) {
+	}
+
+	private final Path storePath;
+	private final JsonMapper jsonMapper = JsonMapper.builder().build();
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final List<IndexedChunk> chunks = new ArrayList<>();
+	private final Map<String, List<Integer>> chunksByPolicy = new HashMap<>();
+	private final Map<String, Map<Integer, Integer>> postings = new HashMap<>();
+	private long totalLength = 0;
+	private int chunkCount = 0;
+
+	private volatile boolean ready = false;
+
+	public PolicyLexicalIndex(@Value("${rag.policies.chunk-store-path:data/policy-chunks}") String storePath) {
+		this.storePath = Path.of(storePath);
+	}
+
+	public boolean isReady() {
+		return ready;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void loadOnStartup() {
+		rebuild();
+	}
+
+	/**
+	 * Discards the current index and reloads it from the chunk store.
+	 */
+	public void rebuild() {
+		long start = System.nanoTime();
+		lock.writeLock().lock();
+		try {
+			clear();
+			if (Files.isDirectory(storePath)) {
+				try (Stream<Path> files = Files.list(storePath)) {
+					for (Path file : files.filter(path -> path.toString().endsWith(".json")).sorted().toList()) {
+						StoredPolicy policy = jsonMapper.readValue(file.toFile(), StoredPolicy.class);
+						add(policy.gcsPath(), policy.chunks().stream()
+							.map(chunk -> new Document(chunk.id(), chunk.text(), chunk.metadata()))
+							.toList());
+					}
+				}
+			}
+			ready = true;
+			logger.info("Policy lexical index built with {} policies, {} chunks and {} terms in {} ms",
+				chunksByPolicy.size(), chunkCount, postings.size(), (System.nanoTime() - start) / 1_000_000);
+		} catch (Exception e) {
+			ready = false;
+			logger.error("Failed to build policy lexical index from {}", storePath, e);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Replaces the chunks of a policy, in the index and in the chunk store.
+	 */
+	public void replace(String gcsPath, List<Document> policyChunks) {
+		List<StoredChunk> stored = policyChunks.stream()
+			.map(chunk -> new StoredChunk(chunk.getId(), chunk.getText(), chunk.getMetadata()))
+			.toList();
+		lock.writeLock().lock();
+		try {
+			write(gcsPath, new StoredPolicy(gcsPath, stored));
+			removeFromIndex(gcsPath);
+			add(gcsPath, policyChunks);
+			logger.debug("Policy lexical index replaced {} with {} chunks", gcsPath, policyChunks.size());
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes the chunks of a policy, from the index and from the chunk store.
+	 */
+	public void remove(String gcsPath) {
+		lock.writeLock().lock();
+		try {
+			Files.deleteIfExists(file(gcsPath));
+			removeFromIndex(gcsPath);
+			logger.debug("Policy lexical index removed {}", gcsPath);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to delete the stored chunks of " + gcsPath, e);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Whether the chunks of a policy are indexed; true also for a policy without text.
+	 */
+	public boolean contains(String gcsPath) {
+		lock.readLock().lock();
+		try {
+			return chunksByPolicy.containsKey(gcsPath);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return chunkCount;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Scores the chunks containing any of the query's words with BM25.
+	 *
+	 * @param query Free text; stop words and punctuation are ignored
+	 * @param limit The maximum number of chunks to return
+	 */
+	public Result search(String query, int limit) {
+		List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+		lock.readLock().lock();
+		try {
+			if (chunkCount == 0 || terms.isEmpty() || limit < 1) {
+				return new Result(terms, List.of());
+			}
+			double averageLength = (double) totalLength / chunkCount;
+			Map<Integer, double[]> scores = new HashMap<>();
+			for (String term : terms) {
+				Map<Integer, Integer> termPostings = postings.get(term);
+				if (termPostings == null) {
+					continue;
+				}
+				double idf = Math.log(1 + (chunkCount - termPostings.size() + 0.5) / (termPostings.size() + 0.5));
+				termPostings.forEach((chunk, frequency) -> {
+					double norm = K1 * (1 - B + B * chunks.get(chunk).length() / averageLength);
+					double[] score = scores.computeIfAbsent(chunk, key -> new double[2]);
+					score[0] += idf * frequency * (K1 + 1) / (frequency + norm);
+					score[1]++;
+				});
+			}
+			List<Match> matches = scores.entrySet().stream()
+				.sorted(Comparator.comparingDouble((Map.Entry<Integer, double[]> entry) -> entry.getValue()[0]).reversed()
+					.thenComparing(Map.Entry::getKey))
+				.limit(limit)
+				.map(entry -> new Match(chunks.get(entry.getKey()).document(), entry.getValue()[0], (int) entry.getValue()[1]))
+				.toList();
+			return new Result(terms, matches);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Ranks policies by the score of their best chunk for the query.
+	 *
+	 * @return The gcsPaths of at most limit policies, best first
+	 */
+	public List<String> rankPolicies(String query, int limit) {
+		Map<String, Double> best = new LinkedHashMap<>();
+		for (Match match : search(query, Math.max(limit * 10, 50)).matches()) {
+			Object gcsPath = match.document().getMetadata().get("gcsPath");
+			if (gcsPath != null) {
+				best.putIfAbsent(gcsPath.toString(), match.score());
+			}
+		}
+		return best.keySet().stream().limit(limit).toList();
+	}
+
+	/**
+	 * Lowercased, accent-free words of text without stop words, in order and with repeats.
+	 */
+	public static List<String> tokenize(String text) {
+		if (text == null || text.isBlank()) {
+			return List.of();
+		}
+		String folded = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("")
+			.toLowerCase(Locale.ROOT);
+		return Arrays.stream(NON_ALPHANUMERIC.split(folded))
+			.filter(word -> word.length() > 1 && !STOP_WORDS.contains(word))
+			.toList();
+	}
+
+	private void add(String gcsPath, List<Document> policyChunks) {
+		List<Integer> ids = new ArrayList<>();
+		for (Document chunk : policyChunks) {
+			Object title = chunk.getMetadata().get("policyTitle");
+			List<String> words = new ArrayList<>(tokenize(title == null ? "" : title.toString()));
+			words.addAll(tokenize(chunk.getText()));
+			int id = chunks.size();
+			chunks.add(new IndexedChunk(chunk, gcsPath, words.size()));
+			Map<String, Integer> frequencies = new HashMap<>();
+			words.forEach(word -> frequencies.merge(word, 1, Integer::sum));
+			frequencies.forEach((word, frequency) -> postings.computeIfAbsent(word, key -> new HashMap<>()).put(id, frequency));
+			totalLength += words.size();
+			chunkCount++;
+			ids.add(id);
+		}
+		chunksByPolicy.put(gcsPath, ids);
+	}
+
+	private void removeFromIndex(String gcsPath) {
+		List<Integer> ids = chunksByPolicy.remove(gcsPath);
+		if (ids == null) {
+			return;
+		}
+		Set<Integer> removed = new HashSet<>(ids);
+		postings.values().removeIf(termPostings -> {
+			termPostings.keySet().removeAll(removed);
+			return termPostings.isEmpty();
+		});
+		for (int id : ids) {
+			// Chunk ids are list positions, so removed chunks leave a hole rather than shifting the others
+			IndexedChunk chunk = chunks.set(id, null);
+			totalLength -= chunk.length();
+			chunkCount--;
+		}
+		if (chunks.size() > 2 * chunkCount + 1024) {
+			compact();
+		}
+	}
+
+	/**
+	 * Re-adds the indexed chunks so that the holes left by removed chunks are dropped.
+	 */
+	private void compact() {
+		Map<String, List<Document>> policies = new LinkedHashMap<>();
+		chunksByPolicy.forEach((gcsPath, ids) -> policies.put(gcsPath, ids.stream().map(id -> chunks.get(id).document()).toList()));
+		clear();
+		policies.forEach(this::add);
+	}
+
+	private void clear() {
+		chunks.clear();
+		chunksByPolicy.clear();
+		postings.clear();
+		totalLength = 0;
+		chunkCount = 0;
+	}
+
+	private void write(String gcsPath, StoredPolicy policy) {
+		try {
+			Files.createDirectories(storePath);
+			Path file = file(gcsPath);
+			Path temp = Files.createTempFile(storePath, file.getFileName().toString(), ".tmp");
+			try {
+				jsonMapper.writeValue(temp.toFile(), policy);
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(temp);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to store the chunks of " + gcsPath, e);
+		}
+	}
+
+	private Path file(String gcsPath) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(gcsPath.getBytes(StandardCharsets.UTF_8));
+			return storePath.resolve(HexFormat.of().formatHex(hash) + ".json");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+}
@@ -0,0 +1,250 @@
+package com.megacorp.humanresources.index;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Mergeable quantile sketch over positive amounts with a fixed relative accuracy, after
+ * DDSketch (Masson, Rim and Lee, VLDB 2019).
+ *
+ * Amounts are counted in logarithmic buckets: with {@code gamma = (1 + a) / (1 - a)} an
+ * amount x falls into bucket {@code ceil(log_gamma(x))}, and every amount of a bucket is
+ * within a relative error a of the bucket's representative value. A quantile is found by
+ * walking the cumulative bucket counts, so it is within a of the true value at that rank
+ * however skewed the data is. The whole salary range of 1 to 10 million at 1% accuracy
+ * fits in about 800 buckets.
+ *
+ * Unlike t-digest or KLL the buckets are plain counters, so an amount can be removed again
+ * exactly and two sketches merge by adding their counters. That is what lets the salary
+ * index follow updates and deletes without rebuilding.
+ *
+ * The smallest and largest amount are kept exactly next to the buckets, since a bucket
+ * representative may be up to a off the true extreme. Adding and merging keep them
+ * current; removing the current minimum or maximum leaves them unknown until the caller
+ * supplies them again with {@link #setExtremes}, as only the caller has the amounts.
+ *
+ * Not thread-safe; callers guard it.
+ */
+final class SalarySketch {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final double relativeAccuracy;
+	private final double gamma;
+	private final double logGamma;
+
+	// counts[i] holds the bucket with index offset + i
+	private long[] counts = new long[0];
+	private int offset;
+	// Amounts of zero or less; they have no logarithmic bucket
+	private long zeroCount;
+	private long count;
+	private long sum;
+	// Exact extremes of the amounts; meaningless when the sketch is empty or extremesKnown is false
+	private long min = Long.MAX_VALUE;
+	private long max = Long.MIN_VALUE;
+	private boolean extremesKnown = true;
+
+	SalarySketch(double relativeAccuracy) {
+		if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+			throw new IllegalArgumentException("relativeAccuracy must be between 0 and 1, got " + relativeAccuracy);
+		}
+		this.relativeAccuracy = relativeAccuracy;
+		this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+		this.logGamma = Math.log(gamma);
+	}
+
+	double relativeAccuracy() {
+		return relativeAccuracy;
+	}
+
+	long count() {
+		return count;
+	}
+
+	long sum() {
+		return sum;
+	}
+
+	boolean isEmpty() {
+		return count == 0;
+	}
+
+	/**
+	 * @return Whether {@link #min()} and {@link #max()} are exact, which is false only after
+	 *         removing the minimum or maximum and before {@link #setExtremes}
+	 */
+	boolean hasExtremes() {
+		return extremesKnown;
+	}
+
+	/**
+	 * @return The smallest amount, or the lowest bucket's representative when it is not known
+	 *         exactly; NaN when the sketch is empty
+	 */
+	double min() {
+		return count == 0 ? Double.NaN : extremesKnown ? min : quantile(0);
+	}
+
+	/**
+	 * @return The largest amount, or the highest bucket's representative when it is not known
+	 *         exactly; NaN when the sketch is empty
+	 */
+	double max() {
+		return count == 0 ? Double.NaN : extremesKnown ? max : quantile(1);
+	}
+
+	/**
+	 * Sets the exact extremes after a removal made them unknown.
+	 */
+	void setExtremes(long min, long max) {
+		this.min = min;
+		this.max = max;
+		this.extremesKnown = true;
+	}
+
+	void add(long amount) {
+		if (amount <= 0) {
+			zeroCount++;
+		} else {
+			int index = bucketIndex(amount);
+			ensureCapacity(index);
+			counts[index - offset]++;
+		}
+		count++;
+		sum += amount;
+		min = Math.min(min, amount);
+		max = Math.max(max, amount);
+	}
+
+	/**
+	 * Removes one occurrence of the amount.
+	 *
+	 * @return false, leaving the sketch unchanged, when its bucket is already empty
+	 */
+	boolean remove(long amount) {
+		if (amount <= 0) {
+			if (zeroCount == 0) {
+				return false;
+			}
+			zeroCount--;
+		} else {
+			int slot = bucketIndex(amount) - offset;
+			if (slot < 0 || slot >= counts.length || counts[slot] == 0) {
+				return false;
+			}
+			counts[slot]--;
+		}
+		count--;
+		sum -= amount;
+		if (count == 0) {
+			setExtremes(Long.MAX_VALUE, Long.MIN_VALUE);
+		} else if (amount <= min || amount >= max) {
+			extremesKnown = false;
+		}
+		return true;
+	}
+
+	/**
+	 * Adds all amounts of the other sketch, which must use the same relative accuracy.
+	 */
+	void merge(SalarySketch other) {
+		if (other.relativeAccuracy != relativeAccuracy) {
+			throw new IllegalArgumentException("Cannot merge sketches of relative accuracy "
+				+ relativeAccuracy + " and " + other.relativeAccuracy);
+		}
+		for (int slot = 0; slot < other.counts.length; slot++) {
+			if (other.counts[slot] != 0) {
+				int index = other.offset + slot;
+				ensureCapacity(index);
+				counts[index - offset] += other.counts[slot];
+			}
+		}
+		zeroCount += other.zeroCount;
+		count += other.count;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		extremesKnown &= other.extremesKnown;
+	}
+
+	/**
+	 * Estimates the amount at the given quantile, the amount with rank
+	 * {@code floor(quantile * (count - 1))} in ascending order. The estimate is a bucket
+	 * representative; use {@link #min()} and {@link #max()} for the exact extremes.
+	 *
+	 * @param quantile Between 0 and 1
+	 * @return The estimate, or NaN when the sketch is empty
+	 */
+	double quantile(double quantile) {
+		if (count == 0) {
+			return Double.NaN;
+		}
+		long rank = (long) Math.floor(Math.max(0, Math.min(1, quantile)) * (count - 1));
+		long seen = zeroCount;
+		if (rank < seen) {
+			return 0;
+		}
+		for (int slot = 0; slot < counts.length; slot++) {
+			seen += counts[slot];
+			if (rank < seen) {
+				return value(offset + slot);
+			}
+		}
+		return value(offset + counts.length - 1);
+	}
+
+	/**
+	 * Counts the amounts per fixed-width bin. Every bucket of the sketch is attributed to the
+	 * bin of its representative value, so an amount close to a bin boundary may be counted
+	 * in the neighbouring bin.
+	 *
+	 * @param binWidth Width of each bin; bin k covers [k * binWidth, (k + 1) * binWidth)
+	 * @return Count per bin lower bound, ascending, without empty bins
+	 */
+	Map<Long, Long> histogram(long binWidth) {
+		Map<Long, Long> bins = new LinkedHashMap<>();
+		if (zeroCount > 0) {
+			bins.put(0L, zeroCount);
+		}
+		for (int slot = 0; slot < counts.length; slot++) {
+			if (counts[slot] != 0) {
+				long lowerBound = (long) Math.floor(value(offset + slot) / binWidth) * binWidth;
+				bins.merge(lowerBound, counts[slot], Long::sum);
+			}
+		}
+		return bins;
+	}
+
+	private int bucketIndex(long amount) {
+		return (int) Math.ceil(Math.log(amount) / logGamma);
+	}
+
+	/**
+	 * Representative value of a bucket, the point with equal relative distance to both of
+	 * its bounds gamma^(index - 1) and gamma^index.
+	 */
+	private double value(int index) {
+		return 2 * Math.pow(gamma, index) / (gamma + 1);
+	}
+
+	private void ensureCapacity(int index) {
+		if (counts.length == 0) {
+			counts = new long[INITIAL_CAPACITY];
+			offset = index - INITIAL_CAPACITY / 2;
+			return;
+		}
+		if (index >= offset && index < offset + counts.length) {
+			return;
+		}
+		int low = Math.min(offset, index);
+		int high = Math.max(offset + counts.length - 1, index);
+		int length = Math.max(high - low + 1, counts.length * 2);
+		// Leave room on the side that grew so the next out-of-range amount rarely copies again
+		int newOffset = index < offset ? high - length + 1 : low;
+		long[] grown = new long[length];
+		System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+		counts = grown;
+		offset = newOffset;
+	}
+}
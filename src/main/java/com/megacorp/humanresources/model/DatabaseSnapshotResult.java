@@ -0,0 +1,22 @@
+package com.megacorp.humanresources.model;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Outcome of writing a snapshot of the HR tables.
+ *
+ * @param path The snapshot file
+ * @param createdAt When the snapshot was taken
+ * @param sizeBytes The size of the snapshot file
+ * @param rowCounts The number of rows written per table, in restore order
+ * @param elapsedMillis How long reading the tables and writing the file took
+ */
+public record DatabaseSnapshotResult(
+    String path,
+    Instant createdAt,
+    long sizeBytes,
+    Map<String, Long> rowCounts,
+    long elapsedMillis
+) {
+}
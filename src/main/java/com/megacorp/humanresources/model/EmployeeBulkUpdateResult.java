@@ -0,0 +1,19 @@
+package com.megacorp.humanresources.model;
+
+import java.util.Map;
+
+/**
+ * Result of a set-based update of the employees matching a filter.
+ *
+ * @param dryRun Whether the update was only counted and not executed
+ * @param matchedCount The number of employees matching the filter
+ * @param updatedCount The number of rows updated, 0 for a dry run
+ * @param changes The fields set on every matching employee and their new values
+ */
+public record EmployeeBulkUpdateResult(
+    boolean dryRun,
+    long matchedCount,
+    long updatedCount,
+    Map<String, Object> changes
+) {
+}
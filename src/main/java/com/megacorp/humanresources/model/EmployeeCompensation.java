@@ -0,0 +1,17 @@
+package com.megacorp.humanresources.model;
+
+/**
+ * Closed projection of the columns the salary distribution index is built from.
+ */
+public interface EmployeeCompensation {
+
+    Long getEmployeeId();
+
+    String getDepartment();
+
+    String getTitle();
+
+    String getBusinessUnit();
+
+    Long getAnnualSalary();
+}
@@ -0,0 +1,24 @@
+package com.megacorp.humanresources.model;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One row of a grouped employee aggregation. Metrics that were not requested are null
+ * and left out of the JSON.
+ *
+ * @param group The group-by dimension values of this row, keyed by dimension name
+ * @param count The number of employees in the group
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record EmployeeGroupCount(
+    Map<String, Object> group,
+    Long count,
+    Double avgSalary,
+    Long minSalary,
+    Long maxSalary,
+    Long sumSalary,
+    Double avgAge
+) {
+}
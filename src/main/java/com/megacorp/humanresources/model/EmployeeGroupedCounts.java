@@ -0,0 +1,19 @@
+package com.megacorp.humanresources.model;
+
+import java.util.List;
+
+/**
+ * Result of a grouped employee aggregation, ordered by count descending.
+ *
+ * @param groupBy The dimensions the employees were grouped by
+ * @param metrics The metrics computed for each group
+ * @param totalCount The number of employees across all groups
+ * @param groups One entry per distinct combination of dimension values
+ */
+public record EmployeeGroupedCounts(
+    List<String> groupBy,
+    List<String> metrics,
+    long totalCount,
+    List<EmployeeGroupCount> groups
+) {
+}
@@ -0,0 +1,15 @@
+package com.megacorp.humanresources.model;
+
+/**
+ * A CSV row that was rejected, or only partially applied, by a bulk employee import.
+ *
+ * @param rowNumber The line number of the row in the file; the header is line 1
+ * @param employeeId The EMPLOYEE_ID value of the row as given in the file, if any
+ * @param message Why the row was rejected
+ */
+public record EmployeeImportError(
+    long rowNumber,
+    String employeeId,
+    String message
+) {
+}
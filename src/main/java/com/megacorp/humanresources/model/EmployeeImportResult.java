@@ -0,0 +1,27 @@
+package com.megacorp.humanresources.model;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk employee import.
+ *
+ * @param rowsRead The number of data rows read from the file
+ * @param imported The number of employees inserted
+ * @param failed The number of rows that were not inserted
+ * @param managersLinked The number of imported employees whose manager was set
+ * @param elapsedMs Wall-clock duration of the import
+ * @param rowsPerSecond Rows read per second of wall-clock time
+ * @param errors Per-row errors, capped at employee.import.max-reported-errors
+ * @param errorsTruncated Whether more errors occurred than are listed in errors
+ */
+public record EmployeeImportResult(
+    long rowsRead,
+    long imported,
+    long failed,
+    long managersLinked,
+    long elapsedMs,
+    double rowsPerSecond,
+    List<EmployeeImportError> errors,
+    boolean errorsTruncated
+) {
+}
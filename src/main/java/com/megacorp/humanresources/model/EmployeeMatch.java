@@ -0,0 +1,16 @@
+package com.megacorp.humanresources.model;
+
+/**
+ * A fuzzy search candidate.
+ *
+ * @param similarity Trigram similarity to the query, from 0 (nothing shared) to 1 (identical)
+ */
+public record EmployeeMatch(
+    Long employeeId,
+    String firstName,
+    String lastName,
+    String title,
+    String department,
+    double similarity
+) {
+}
@@ -0,0 +1,24 @@
+package com.megacorp.humanresources.model;
+
+import java.util.List;
+
+/**
+ * One page of all direct and indirect reports of a manager, in depth-first order so that
+ * every report is listed after its own manager.
+ *
+ * @param managerId The ID of the manager whose organization is listed
+ * @param totalCount The number of direct and indirect reports
+ * @param pageNumber The page number (1-based)
+ * @param pageSize The maximum number of reports per page
+ * @param totalPages The number of pages
+ * @param reports The reports on this page
+ */
+public record EmployeeReports(
+    Long managerId,
+    long totalCount,
+    int pageNumber,
+    int pageSize,
+    int totalPages,
+    List<OrgChartEntry> reports
+) {
+}
@@ -0,0 +1,28 @@
+package com.megacorp.humanresources.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Closed projection of an employee used by the summary search mode. Only these columns
+ * are selected; the manager and address are returned as ids without joining their rows.
+ */
+public interface EmployeeSummary {
+
+    Long getEmployeeId();
+
+    String getFirstName();
+
+    String getLastName();
+
+    String getTitle();
+
+    String getDepartment();
+
+    String getBusinessUnit();
+
+    @JsonProperty("managerId")
+    Long getManagerIdValue();
+
+    @JsonProperty("addressId")
+    Long getAddressIdValue();
+}
@@ -0,0 +1,21 @@
+package com.megacorp.humanresources.model;
+
+import java.time.LocalDate;
+
+/**
+ * Closed projection of the columns the headcount time series are built from.
+ */
+public interface EmployeeTenure {
+
+    Long getEmployeeId();
+
+    String getDepartment();
+
+    String getTitle();
+
+    String getBusinessUnit();
+
+    LocalDate getHireDate();
+
+    LocalDate getTerminationDate();
+}
@@ -0,0 +1,16 @@
+package com.megacorp.humanresources.model;
+
+/**
+ * A file in Google Cloud Storage together with the version information GCS keeps for it.
+ *
+ * @param name       the file name (object key) in GCS
+ * @param generation the object generation, which changes every time the object is overwritten
+ * @param md5Hash    the Base64 MD5 hash of the content, or null for composite objects
+ * @param size       the content length in bytes
+ */
+public record FileVersion(
+    String name,
+    Long generation,
+    String md5Hash,
+    Long size
+) {}
@@ -0,0 +1,34 @@
+package com.megacorp.humanresources.model;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Active headcount, hires and terminations of a group of employees per period.
+ *
+ * @param dimension The grouping dimension (department, title or businessUnit), or null for all employees
+ * @param value The group's value of the dimension, or null for all employees
+ * @param granularity The period length: day, week, month, quarter or year
+ * @param from The first day of the first period
+ * @param to The last day of the last period
+ * @param periods The periods in chronological order
+ */
+public record HeadcountSeries(
+    String dimension,
+    String value,
+    String granularity,
+    LocalDate from,
+    LocalDate to,
+    List<Period> periods
+) {
+
+    /**
+     * @param start The first day of the period
+     * @param end The last day of the period
+     * @param hires The number of employees hired during the period
+     * @param terminations The number of employees terminated during the period
+     * @param headcount The number of employees active at the end of the period
+     */
+    public record Period(LocalDate start, LocalDate end, long hires, long terminations, long headcount) {
+    }
+}
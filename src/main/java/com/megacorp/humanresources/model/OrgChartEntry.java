@@ -0,0 +1,23 @@
+package com.megacorp.humanresources.model;
+
+/**
+ * An employee's position in the management hierarchy relative to another employee.
+ *
+ * @param employeeId The employee ID
+ * @param firstName The first name of the employee
+ * @param lastName The last name of the employee
+ * @param title The job title of the employee
+ * @param department The department of the employee
+ * @param managerId The ID of the employee's direct manager
+ * @param level Levels between the two employees: 1 is a direct manager or direct report
+ */
+public record OrgChartEntry(
+    Long employeeId,
+    String firstName,
+    String lastName,
+    String title,
+    String department,
+    Long managerId,
+    int level
+) {
+}
@@ -0,0 +1,31 @@
+package com.megacorp.humanresources.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of an incremental policy ingest from a GCS prefix.
+ *
+ * @param prefix The GCS prefix that was ingested
+ * @param added Policy PDFs ingested for the first time
+ * @param updated Policy PDFs whose previous chunks were replaced because the object changed
+ * @param unchanged Number of policy PDFs skipped because the manifest already has their version
+ * @param removed Policy PDFs no longer in GCS whose chunks were purged
+ * @param failed Policy PDFs that could not be ingested and will be retried on the next run
+ * @param chunksAdded Number of chunks written to the vector store
+ * @param elapsedMillis How long the ingest took
+ * @param stageMillis Time spent downloading, parsing, splitting, deleting and indexing, summed over
+ *        files; stages run concurrently, so the sum can exceed elapsedMillis
+ */
+public record PolicyIngestResult(
+    String prefix,
+    List<String> added,
+    List<String> updated,
+    int unchanged,
+    List<String> removed,
+    List<String> failed,
+    int chunksAdded,
+    long elapsedMillis,
+    Map<String, Long> stageMillis
+) {
+}
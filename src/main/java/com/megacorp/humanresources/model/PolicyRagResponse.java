@@ -7,6 +7,8 @@ public record PolicyRagResponse(
     List<String> attachmentPaths,
     List<String> matchedPolicyTitles,
     String supportingContext,
-    int matchCount
+    int matchCount,
+    int contextTokens,
+    int contextTokensSaved
 ) {
 }
@@ -0,0 +1,41 @@
+package com.megacorp.humanresources.model;
+
+import java.util.List;
+
+/**
+ * Event of a streamed policy answer: one {@link Policies} once retrieval finishes, the answer as
+ * {@link Token}s while it is generated, and a final {@link Done}.
+ */
+public sealed interface PolicyRagStreamEvent {
+
+    /**
+     * The policies the answer is based on, sent before the answer.
+     *
+     * @param attachmentPaths GCS paths of the matched policy PDFs
+     * @param matchedPolicyTitles Titles of the matched policies
+     * @param matchCount Number of policy chunks the answer is based on
+     */
+    record Policies(
+        List<String> attachmentPaths,
+        List<String> matchedPolicyTitles,
+        int matchCount
+    ) implements PolicyRagStreamEvent {
+    }
+
+    /**
+     * The next piece of the answer.
+     */
+    record Token(String text) implements PolicyRagStreamEvent {
+    }
+
+    /**
+     * End of the answer.
+     *
+     * @param cached Whether the answer came from the policy answer cache in a single token
+     */
+    record Done(
+        int matchCount,
+        boolean cached
+    ) implements PolicyRagStreamEvent {
+    }
+}
@@ -0,0 +1,29 @@
+package com.megacorp.humanresources.model;
+
+import java.util.List;
+
+/**
+ * Annual salaries of a group of employees counted in fixed-width bins.
+ *
+ * @param dimension The grouping dimension (department, title or businessUnit), or null for all employees
+ * @param value The group's value of the dimension, or null for all employees
+ * @param count The number of employees with a salary in the group
+ * @param binWidth The width of every bin
+ * @param bins The non-empty bins in ascending order
+ */
+public record SalaryHistogram(
+    String dimension,
+    String value,
+    long count,
+    long binWidth,
+    List<Bin> bins
+) {
+
+    /**
+     * @param lowerBound The lowest salary of the bin (inclusive)
+     * @param upperBound The upper end of the bin (exclusive)
+     * @param count The number of employees in the bin
+     */
+    public record Bin(long lowerBound, long upperBound, long count) {
+    }
+}
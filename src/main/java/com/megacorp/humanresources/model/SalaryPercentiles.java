@@ -0,0 +1,21 @@
+package com.megacorp.humanresources.model;
+
+import java.util.Map;
+
+/**
+ * Requested percentiles of the annual salaries of a group of employees.
+ *
+ * @param dimension The grouping dimension (department, title or businessUnit), or null for all employees
+ * @param value The group's value of the dimension, or null for all employees
+ * @param count The number of employees with a salary in the group
+ * @param relativeAccuracy The maximum relative error of every percentile, e.g. 0.01 for 1%
+ * @param percentiles The estimated salary per percentile, keyed as "p50", "p99.5" in request order
+ */
+public record SalaryPercentiles(
+    String dimension,
+    String value,
+    long count,
+    double relativeAccuracy,
+    Map<String, Long> percentiles
+) {
+}
@@ -0,0 +1,30 @@
+package com.megacorp.humanresources.model;
+
+/**
+ * Salary distribution of a group of employees. The mean, minimum and maximum are exact; the
+ * quartiles and median are estimates within the sketch's relative accuracy.
+ *
+ * @param dimension The grouping dimension (department, title or businessUnit), or null for all employees
+ * @param value The group's value of the dimension, or null for all employees
+ * @param count The number of employees with a salary in the group
+ * @param mean The average annual salary
+ * @param min The lowest annual salary
+ * @param p25 The first quartile
+ * @param median The median annual salary
+ * @param p75 The third quartile
+ * @param iqr The interquartile range, p75 minus p25
+ * @param max The highest annual salary
+ */
+public record SalarySummary(
+    String dimension,
+    String value,
+    long count,
+    long mean,
+    long min,
+    long p25,
+    long median,
+    long p75,
+    long iqr,
+    long max
+) {
+}
@@ -3,16 +3,20 @@ package com.megacorp.humanresources.repository;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import com.megacorp.humanresources.entity.EmployeeBenefit;
 
 public interface EmployeeBenefitRepository extends JpaRepository<EmployeeBenefit, Long> {
 
+    @EntityGraph(attributePaths = {"employee", "benefitsPlan"})
     List<EmployeeBenefit> findByEmployee_EmployeeId(Long employeeId);
 
+    @EntityGraph(attributePaths = {"employee", "benefitsPlan"})
     List<EmployeeBenefit> findByBenefitsPlan_PlanId(Long planId);
 
+    @EntityGraph(attributePaths = {"employee", "benefitsPlan"})
     List<EmployeeBenefit> findByBenefitsPlan_PlanType(String planType);
 
     Optional<EmployeeBenefit> findByEmployee_EmployeeIdAndBenefitsPlan_PlanType(Long employeeId, String planType);
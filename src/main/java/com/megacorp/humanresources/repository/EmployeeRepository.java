@@ -1,7 +1,10 @@
 package com.megacorp.humanresources.repository;
 
+import java.util.List;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
@@ -9,8 +12,14 @@ import com.megacorp.humanresources.entity.Employee;
 
 //Interface extending CrudRepository
 public interface EmployeeRepository extends JpaRepository<Employee, Long>, JpaSpecificationExecutor<Employee> {
-    Page<Employee> findAll(Pageable pageable);
-    
-}
 
+    // List queries join the address into the same select instead of loading it per row
+
+    @Override
+    @EntityGraph(attributePaths = "address")
+    List<Employee> findAll();
 
+    @EntityGraph(attributePaths = "address")
+    Page<Employee> findAll(Pageable pageable);
+
+}
@@ -24,9 +24,11 @@ import org.springframework.ai.reader.pdf.PagePdfDocumentReader;
 import org.springframework.stereotype.Service;
 import org.springframework.core.io.ByteArrayResource;
 
+import com.megacorp.humanresources.index.PolicyLexicalIndex;
 import com.megacorp.humanresources.model.EmailMessage;
 import com.megacorp.humanresources.model.PolicyRagResponse;
 import com.megacorp.humanresources.service.helper.EmailServiceHelper;
+import com.megacorp.humanresources.service.helper.MailboxMirror;
 
 import io.modelcontextprotocol.client.McpSyncClient;
 import org.eclipse.angus.mail.imap.IMAPFolder;
@@ -71,9 +73,12 @@ public class EmailIdleService {
     private EmailServiceHelper emailHelper;
 
     private final EmailService emailService;
+    private final MailboxMirror mailboxMirror;
     private final EmployeeService employeeService;
     private final RagService ragService;
     private final FileStorageService fileStorageService;
+    private final PolicyLexicalIndex lexicalIndex;
+    private final PolicyContextPacker contextPacker;
     private final ChatClient chatClient;
     private final JsonMapper jsonMapper;
     private final ConcurrentMap<String, CachedPolicyText> policyTextCache = new ConcurrentHashMap<>();
@@ -84,9 +89,12 @@ public class EmailIdleService {
     public EmailIdleService(
         EmailServiceHelper emailHelper,
         EmailService emailService,
+        MailboxMirror mailboxMirror,
         EmployeeService employeeService,
         RagService ragService,
         FileStorageService fileStorageService,
+        PolicyLexicalIndex lexicalIndex,
+        PolicyContextPacker contextPacker,
         ChatClient.Builder chatClientBuilder,
         List<McpSyncClient> mcpSyncClients,
         CallAdvisor chatClientLoggingAdvisor,
@@ -94,9 +102,12 @@ public class EmailIdleService {
     ) {
         this.emailHelper = emailHelper;
         this.emailService = emailService;
+        this.mailboxMirror = mailboxMirror;
         this.employeeService = employeeService;
         this.ragService = ragService;
         this.fileStorageService = fileStorageService;
+        this.lexicalIndex = lexicalIndex;
+        this.contextPacker = contextPacker;
         this.jsonMapper = jsonMapper;
         this.chatClient = chatClientBuilder
             .defaultAdvisors(chatClientLoggingAdvisor)
@@ -186,6 +197,8 @@ public class EmailIdleService {
                 public void messagesAdded(MessageCountEvent ev) {
                     Message[] msgs = ev.getMessages();
                     logger.info("🆕 New messages arrived: {}", msgs.length);
+                    // The next inbox read syncs the mirror instead of answering without them
+                    mailboxMirror.invalidate("INBOX");
                     
                     for (Message msg : msgs) {
                         try {
@@ -275,19 +288,24 @@ public class EmailIdleService {
         List<String> inferredPolicyAttachments = flowType == FlowType.POLICY
             ? inferPolicyAttachments(emailMessage, availablePolicyFiles)
             : List.of();
-        String policyContext = flowType == FlowType.POLICY
-            ? buildPolicyContextFromGcs(inferredPolicyAttachments)
-            : "";
+        String policyContext = "";
 
         if (flowType == FlowType.POLICY) {
             String policyQuestion = buildPolicyQuestion(emailMessage);
             PolicyRagResponse policyRagResponse = ragService.queryPolicies(policyQuestion, 5, 0.6);
 
-            if (policyRagResponse != null) {
-                if (policyRagResponse.supportingContext() != null && !policyRagResponse.supportingContext().isBlank()) {
-                    policyContext = policyRagResponse.supportingContext();
-                }
+            // The packed RAG context replaces the full policy text, which is only read from GCS
+            // when retrieval found nothing
+            if (policyRagResponse != null && policyRagResponse.supportingContext() != null
+                && !policyRagResponse.supportingContext().isBlank()) {
+                policyContext = policyRagResponse.supportingContext();
+                logger.debug("Using packed policy context of {} tokens, {} tokens saved",
+                    policyRagResponse.contextTokens(), policyRagResponse.contextTokensSaved());
+            } else {
+                policyContext = buildPolicyContextFromGcs(inferredPolicyAttachments);
+            }
 
+            if (policyRagResponse != null) {
                 if (policyRagResponse.attachmentPaths() != null && !policyRagResponse.attachmentPaths().isEmpty()) {
                     inferredPolicyAttachments = policyRagResponse.attachmentPaths();
                 }
@@ -642,6 +660,18 @@ public class EmailIdleService {
                 .ifPresent(inferred::add);
         }
 
+        if (inferred.size() < 2 && lexicalIndex.isReady() && lexicalIndex.size() > 0) {
+            // Rank by the policies' text rather than their file names
+            for (String policyPath : lexicalIndex.rankPolicies(content, 3)) {
+                if (availablePolicyFiles.contains(policyPath)) {
+                    inferred.add(policyPath);
+                }
+                if (inferred.size() >= 3) {
+                    break;
+                }
+            }
+        }
+
         if (inferred.size() < 2) {
             List<ScoredPolicy> scoredPolicies = availablePolicyFiles.stream()
                 .map(fileName -> new ScoredPolicy(fileName, scorePolicyAgainstQuestion(fileName, content)))
@@ -686,15 +716,14 @@ public class EmailIdleService {
             return "";
         }
 
+        // Each policy gets an equal share of the context token budget for as many chunks
+        int tokensPerPolicy = contextPacker.maxTokens(inferredPolicyAttachments.size()) / inferredPolicyAttachments.size();
         List<String> snippets = new ArrayList<>();
         for (String attachment : inferredPolicyAttachments) {
             String text = readPolicyPdfTextFromGcs(attachment);
             if (text != null && !text.isBlank()) {
                 String title = extractPolicyTitleFromPath(attachment);
-                String normalized = text.replaceAll("\\s+", " ").trim();
-                if (normalized.length() > 2200) {
-                    normalized = normalized.substring(0, 2200);
-                }
+                String normalized = contextPacker.truncate(text.replaceAll("\\s+", " ").trim(), tokensPerPolicy);
                 snippets.add("Policy: " + title + "\n" + normalized);
             }
         }
@@ -9,11 +9,11 @@ public interface EmailService {
     
     List<EmailMessage> readInbox(Integer maxEmails, String subjectFilter, String fromFilter, String toFilter, 
                                  String bodyFilter, String messageId, String dateAfter, String dateBefore, 
-                                 Boolean isUnreadOnly) throws Exception;
+                                 Boolean isUnreadOnly, Boolean forceRefresh) throws Exception;
 
     List<EmailMessage> readFolder(String folderName, Integer maxEmails, String subjectFilter, String fromFilter, 
                                   String toFilter, String bodyFilter, String messageId, String dateAfter, 
-                                  String dateBefore, Boolean isUnreadOnly) throws Exception;
+                                  String dateBefore, Boolean isUnreadOnly, Boolean forceRefresh) throws Exception;
     
     void markEmailAsRead(String messageId) throws Exception;
 
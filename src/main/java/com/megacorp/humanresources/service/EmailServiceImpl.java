@@ -11,6 +11,7 @@ import jakarta.mail.search.*;
 import jakarta.activation.DataHandler;
 import jakarta.mail.util.ByteArrayDataSource;
 import java.util.List;
+import java.util.Optional;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -19,6 +20,8 @@ import org.springframework.web.multipart.MultipartFile;
 import java.util.ArrayList;
 import com.megacorp.humanresources.model.EmailMessage;
 import com.megacorp.humanresources.service.helper.EmailServiceHelper;
+import com.megacorp.humanresources.service.helper.ImapStorePool;
+import com.megacorp.humanresources.service.helper.MailboxMirror;
 
 @Service
 public class EmailServiceImpl implements EmailService {
@@ -31,13 +34,20 @@ public class EmailServiceImpl implements EmailService {
     @Autowired
     private EmailServiceHelper emailHelper;
 
-    private static final String IMAP_SERVER = "imap.gmail.com";
+    @Autowired
+    private ImapStorePool imapStorePool;
+
+    @Autowired
+    private MailboxMirror mailboxMirror;
+
+    private static final String GMAIL_DRAFTS_FOLDER = "[Gmail]/Drafts";
+    private static final String DRAFTS_FOLDER = "Drafts";
 
     @Value("${gmail_email_address}")
     private String emailAddress;
-    
-    @Value("${gmail_email_app_password}")
-    private String emailPassword;
+
+    // Resolved on first use, since the drafts folder of a mailbox does not move
+    private volatile String draftsFolderName;
 
     /**
      * Saves an email draft to the IMAP drafts folder with optional attachments.
@@ -67,8 +77,6 @@ public class EmailServiceImpl implements EmailService {
         }
         
         String emailBody = body;
-        Store inboxStore = null;
-        Folder inboxFolder = null;
         
         // Handle reply headers, subject, and body with quoted original message
         if (inReplyToMessageId != null && !inReplyToMessageId.trim().isEmpty()) {
@@ -82,51 +90,30 @@ public class EmailServiceImpl implements EmailService {
             }
             message.setSubject(formattedSubject);
             
-            // Open inbox folder to retrieve original message
+            // Retrieve and quote the original message while the pooled inbox is open
             try {
-                Session imapSession = emailHelper.getImapSession();
-                inboxStore = imapSession.getStore("imap");
-                inboxStore.connect(IMAP_SERVER, emailAddress, emailPassword);
-                
-                inboxFolder = inboxStore.getFolder("INBOX");
-                inboxFolder.open(Folder.READ_ONLY);
-                
-                // Retrieve original message while folder is open
-                Message originalMessage = emailHelper.retrieveOriginalMessage(inReplyToMessageId, inboxFolder);
-                if (originalMessage != null) {
-                    emailBody = emailHelper.formatReplyBody(body, originalMessage);
+                emailBody = imapStorePool.withFolder("INBOX", Folder.READ_ONLY, inboxFolder -> {
+                    Message originalMessage = emailHelper.retrieveOriginalMessage(inReplyToMessageId, inboxFolder);
+                    if (originalMessage == null) {
+                        logger.warn("Could not retrieve original message with ID: {}", inReplyToMessageId);
+                        return body;
+                    }
+                    String replyBody = emailHelper.formatReplyBody(body, originalMessage);
                     
                     // Extract and include original email's attachment names
                     List<String> originalAttachmentNames = emailHelper.extractAttachmentNames(originalMessage);
                     if (originalAttachmentNames != null && !originalAttachmentNames.isEmpty()) {
-                        emailBody += "\n\n[Original email contained " + originalAttachmentNames.size() + 
+                        replyBody += "\n\n[Original email contained " + originalAttachmentNames.size() + 
                                     " attachment(s): " + String.join(", ", originalAttachmentNames) + "]";
                         logger.debug("Added original email attachment names to reply: {}", originalAttachmentNames);
                     }
                     
                     logger.debug("Successfully retrieved and quoted original message");
-                } else {
-                    logger.warn("Could not retrieve original message with ID: {}", inReplyToMessageId);
-                }
+                    return replyBody;
+                });
             } catch (Exception e) {
                 logger.error("Error retrieving original message for inReplyToMessageId={}", inReplyToMessageId, e);
                 // Continue with reply without quoted content
-            } finally {
-                // Close inbox folder after we're done with the message
-                try {
-                    if (inboxFolder != null && inboxFolder.isOpen()) {
-                        inboxFolder.close(false);
-                    }
-                } catch (Exception e) {
-                    logger.warn("Error closing inbox folder", e);
-                }
-                try {
-                    if (inboxStore != null && inboxStore.isConnected()) {
-                        inboxStore.close();
-                    }
-                } catch (Exception e) {
-                    logger.warn("Error closing inbox store", e);
-                }
             }
             
             logger.debug("Creating draft as reply to message ID: {}", inReplyToMessageId);
@@ -187,18 +174,12 @@ public class EmailServiceImpl implements EmailService {
 
         message.setContent(multipart);
 
-        Session imapSession = emailHelper.getImapSession();
-        Store store = imapSession.getStore("imap");
-        store.connect(IMAP_SERVER, emailAddress, emailPassword);
-
-        Folder drafts = store.getFolder("[Gmail]/Drafts");
-        if (!drafts.exists()) {
-            drafts = store.getFolder("Drafts");
-        }
-        drafts.open(Folder.READ_WRITE);
-        drafts.appendMessages(new Message[]{message});
-        drafts.close(false);
-        store.close();
+        String draftsFolder = draftsFolderName();
+        imapStorePool.withFolder(draftsFolder, Folder.READ_WRITE, drafts -> {
+            drafts.appendMessages(new Message[]{message});
+            return null;
+        });
+        mailboxMirror.invalidate(draftsFolder);
         logger.info("Email draft saved successfully for toEmail={} subject={}", toEmail, subject);
     }
     
@@ -214,16 +195,18 @@ public class EmailServiceImpl implements EmailService {
      * @param dateAfter optional date filter - returns emails received after this date (format: yyyy-MM-dd)
      * @param dateBefore optional date filter - returns emails received before this date (format: yyyy-MM-dd)
      * @param isUnreadOnly if true, only return unread emails; if false, return all emails
+     * @param forceRefresh if true, re-check the mailbox on the server before answering from the local mirror
      * @return list of EmailMessage objects containing email details
      * @throws Exception if IMAP connection or message parsing fails
      */
     @Tool(name = "readInbox", description = "Reads emails from the Gmail inbox with optional filtering by " +
             "subject, sender, recipient, body content, date range, and read/unread status. Returns up to the specified " +
-            "maximum number of emails (default 50, max 500).")
+            "maximum number of emails (default 50, max 500). Emails are answered from a local copy of the mailbox that " +
+            "is at most a few minutes old; set forceRefresh to true to re-check the mailbox first.")
     public List<EmailMessage> readInbox(Integer maxEmails, String subjectFilter, String fromFilter, String toFilter, 
                                         String bodyFilter, String messageId, String dateAfter, String dateBefore, 
-                                        Boolean isUnreadOnly) throws Exception {
-        return readFromFolder("INBOX", maxEmails, subjectFilter, fromFilter, toFilter, bodyFilter, messageId, dateAfter, dateBefore, isUnreadOnly);
+                                        Boolean isUnreadOnly, Boolean forceRefresh) throws Exception {
+        return readFromFolder("INBOX", maxEmails, subjectFilter, fromFilter, toFilter, bodyFilter, messageId, dateAfter, dateBefore, isUnreadOnly, forceRefresh);
     }
 
     /**
@@ -240,95 +223,78 @@ public class EmailServiceImpl implements EmailService {
      * @param dateAfter     optional date filter (format: yyyy-MM-dd)
      * @param dateBefore    optional date filter (format: yyyy-MM-dd)
      * @param isUnreadOnly  if true, only return unread emails
+     * @param forceRefresh  if true, re-check the folder on the server before answering from the local mirror
      * @return list of EmailMessage objects
      * @throws Exception if IMAP connection or message parsing fails
      */
     public List<EmailMessage> readFolder(String folderName, Integer maxEmails, String subjectFilter, String fromFilter, 
                                          String toFilter, String bodyFilter, String messageId, String dateAfter, 
-                                         String dateBefore, Boolean isUnreadOnly) throws Exception {
+                                         String dateBefore, Boolean isUnreadOnly, Boolean forceRefresh) throws Exception {
         if (folderName == null || folderName.trim().isEmpty()) {
             folderName = "INBOX";
         }
-        return readFromFolder(folderName, maxEmails, subjectFilter, fromFilter, toFilter, bodyFilter, messageId, dateAfter, dateBefore, isUnreadOnly);
+        return readFromFolder(folderName, maxEmails, subjectFilter, fromFilter, toFilter, bodyFilter, messageId, dateAfter, dateBefore, isUnreadOnly, forceRefresh);
     }
 
     /**
-     * Core implementation for reading emails from any Gmail IMAP folder.
+     * Core implementation for reading emails from any Gmail IMAP folder. Reads are answered from
+     * the local mailbox mirror when it can, and searched on the IMAP server otherwise.
      */
     private List<EmailMessage> readFromFolder(String folderName, Integer maxEmails, String subjectFilter, 
                                               String fromFilter, String toFilter, String bodyFilter, 
                                               String messageId, String dateAfter, String dateBefore, 
-                                              Boolean isUnreadOnly) throws Exception {
-        logger.debug("Entering readFromFolder with folder={}, maxEmails={}, subjectFilter={}, fromFilter={}, toFilter={}, bodyFilter={}, messageId={}, dateAfter={}, dateBefore={}, unreadOnly={}", 
-                    folderName, maxEmails, subjectFilter, fromFilter, toFilter, bodyFilter, messageId, dateAfter, dateBefore, isUnreadOnly);
+                                              Boolean isUnreadOnly, Boolean forceRefresh) throws Exception {
+        logger.debug("Entering readFromFolder with folder={}, maxEmails={}, subjectFilter={}, fromFilter={}, toFilter={}, bodyFilter={}, messageId={}, dateAfter={}, dateBefore={}, unreadOnly={}, forceRefresh={}", 
+                    folderName, maxEmails, subjectFilter, fromFilter, toFilter, bodyFilter, messageId, dateAfter, dateBefore, isUnreadOnly, forceRefresh);
         
         int limit = (maxEmails != null && maxEmails > 0) ? Math.min(maxEmails, 500) : 50;
         boolean unreadOnly = (isUnreadOnly != null) ? isUnreadOnly : false;
         
-        List<EmailMessage> emailMessages = new ArrayList<>();
-        
-        Session imapSession = emailHelper.getImapSession();
-        Store store = null;
-        Folder folder = null;
+        Optional<List<EmailMessage>> mirrored = mailboxMirror.read(folderName, limit, subjectFilter, fromFilter, toFilter,
+            bodyFilter, messageId, dateAfter, dateBefore, unreadOnly, Boolean.TRUE.equals(forceRefresh));
+        if (mirrored.isPresent()) {
+            return mirrored.get();
+        }
         
         try {
-            store = imapSession.getStore("imap");
-            store.connect(IMAP_SERVER, emailAddress, emailPassword);
-            
-            folder = store.getFolder(folderName);
-            if (!folder.exists()) {
-                logger.warn("Folder '{}' does not exist", folderName);
-                return emailMessages;
-            }
-            folder.open(Folder.READ_ONLY);
-            
-            logger.info("Connected to folder '{}'. Total messages: {}", folderName, folder.getMessageCount());
-            
-            SearchTerm searchTerm = emailHelper.buildSearchTerm(subjectFilter, fromFilter, toFilter, bodyFilter, messageId, dateAfter, dateBefore, unreadOnly);
-            
-            Message[] messages;
-            if (searchTerm != null) {
-                messages = folder.search(searchTerm);
-                logger.info("Search returned {} messages", messages.length);
-            } else {
-                messages = folder.getMessages();
-            }
-            
-            int messagesToProcess = Math.min(messages.length, limit);
-            
-            for (int i = messages.length - 1; i >= messages.length - messagesToProcess && i >= 0; i--) {
-                try {
-                    Message message = messages[i];
-                    EmailMessage emailMessage = emailHelper.convertToEmailMessage(message);
-                    emailMessages.add(emailMessage);
-                } catch (Exception e) {
-                    logger.error("Error processing message at index {}: {}", i, e.getMessage());
+            return imapStorePool.withFolder(folderName, Folder.READ_ONLY, folder -> {
+                List<EmailMessage> emailMessages = new ArrayList<>();
+                if (!folder.exists()) {
+                    logger.warn("Folder '{}' does not exist", folder.getFullName());
+                    return emailMessages;
                 }
-            }
-            
-            logger.info("Successfully processed {} email messages from folder '{}'", emailMessages.size(), folderName);
-            
+                
+                logger.info("Using folder '{}'. Total messages: {}", folder.getFullName(), folder.getMessageCount());
+                
+                SearchTerm searchTerm = emailHelper.buildSearchTerm(subjectFilter, fromFilter, toFilter, bodyFilter, messageId, dateAfter, dateBefore, unreadOnly);
+                
+                Message[] messages;
+                if (searchTerm != null) {
+                    messages = folder.search(searchTerm);
+                    logger.info("Search returned {} messages", messages.length);
+                } else {
+                    messages = folder.getMessages();
+                }
+                
+                int messagesToProcess = Math.min(messages.length, limit);
+                
+                for (int i = messages.length - 1; i >= messages.length - messagesToProcess && i >= 0; i--) {
+                    try {
+                        Message message = messages[i];
+                        EmailMessage emailMessage = emailHelper.convertToEmailMessage(message);
+                        emailMessages.add(emailMessage);
+                    } catch (Exception e) {
+                        logger.error("Error processing message at index {}: {}", i, e.getMessage());
+                    }
+                }
+                
+                logger.info("Successfully processed {} email messages from folder '{}'", emailMessages.size(), folder.getFullName());
+                return emailMessages;
+            });
         } catch (Exception e) {
             logger.error("Error reading folder '{}'", folderName, e);
             throw e;
-        } finally {
-            try {
-                if (folder != null && folder.isOpen()) {
-                    folder.close(false);
-                }
-            } catch (Exception e) {
-                logger.warn("Error closing folder", e);
-            }
-            try {
-                if (store != null && store.isConnected()) {
-                    store.close();
-                }
-            } catch (Exception e) {
-                logger.warn("Error closing store", e);
-            }
         }
-        
-        return emailMessages;
     }
     
     /**
@@ -346,54 +312,29 @@ public class EmailServiceImpl implements EmailService {
             throw new IllegalArgumentException("Message ID cannot be null or empty");
         }
         
-        Session imapSession = emailHelper.getImapSession();
-        Store store = null;
-        Folder inbox = null;
-        
         try {
-            // Connect to Gmail IMAP
-            store = imapSession.getStore("imap");
-            store.connect(IMAP_SERVER, emailAddress, emailPassword);
-            
             // Open inbox folder in READ_WRITE mode to modify flags
-            inbox = store.getFolder("INBOX");
-            inbox.open(Folder.READ_WRITE);
-            
-            logger.debug("Connected to inbox in READ_WRITE mode");
-            
-            // Search for the message by Message-ID
-            SearchTerm searchTerm = new MessageIDTerm(messageId);
-            Message[] messages = inbox.search(searchTerm);
-            
-            if (messages.length == 0) {
-                throw new Exception("Email not found with Message-ID: " + messageId);
-            }
-            
-            // Mark the message as read (set SEEN flag)
-            Message message = messages[0];
-            message.setFlag(Flags.Flag.SEEN, true);
+            imapStorePool.withFolder("INBOX", Folder.READ_WRITE, inbox -> {
+                // Search for the message by Message-ID
+                SearchTerm searchTerm = new MessageIDTerm(messageId);
+                Message[] messages = inbox.search(searchTerm);
+                
+                if (messages.length == 0) {
+                    throw new Exception("Email not found with Message-ID: " + messageId);
+                }
+                
+                // Mark the message as read (set SEEN flag)
+                Message message = messages[0];
+                message.setFlag(Flags.Flag.SEEN, true);
+                return null;
+            });
+            mailboxMirror.markRead("INBOX", messageId);
             
             logger.info("Successfully marked email as read: {}", messageId);
             
         } catch (Exception e) {
             logger.error("Error marking email as read for messageId={}", messageId, e);
             throw e;
-        } finally {
-            // Clean up resources
-            try {
-                if (inbox != null && inbox.isOpen()) {
-                    inbox.close(true); // true to expunge deleted messages and save changes
-                }
-            } catch (Exception e) {
-                logger.warn("Error closing inbox", e);
-            }
-            try {
-                if (store != null && store.isConnected()) {
-                    store.close();
-                }
-            } catch (Exception e) {
-                logger.warn("Error closing store", e);
-            }
         }
     }
 
@@ -404,33 +345,26 @@ public class EmailServiceImpl implements EmailService {
     @Override
     public int deleteDraftsBySubjectContaining(String subjectContains) throws Exception {
         logger.debug("Entering deleteDraftsBySubjectContaining with subjectContains={}", subjectContains);
-        Store store = null;
-        Folder drafts = null;
-        int deletedCount = 0;
-
         try {
-            Session imapSession = emailHelper.getImapSession();
-            store = imapSession.getStore("imap");
-            store.connect(IMAP_SERVER, emailAddress, emailPassword);
-
-            drafts = store.getFolder("[Gmail]/Drafts");
-            if (!drafts.exists()) {
-                drafts = store.getFolder("Drafts");
-            }
-            drafts.open(Folder.READ_WRITE);
-
-            Message[] messages = drafts.getMessages();
-            for (Message msg : messages) {
-                String subject = msg.getSubject();
-                if (subject != null && subject.contains(subjectContains)) {
-                    msg.setFlag(Flags.Flag.DELETED, true);
-                    deletedCount++;
-                    logger.debug("Marked draft for deletion: {}", subject);
+            int deletedCount = imapStorePool.withFolder(draftsFolderName(), Folder.READ_WRITE, drafts -> {
+                int deleted = 0;
+                Message[] messages = drafts.getMessages();
+                for (Message msg : messages) {
+                    String subject = msg.getSubject();
+                    if (subject != null && subject.contains(subjectContains)) {
+                        msg.setFlag(Flags.Flag.DELETED, true);
+                        deleted++;
+                        logger.debug("Marked draft for deletion: {}", subject);
+                    }
                 }
-            }
 
+                if (deleted > 0) {
+                    drafts.expunge();
+                }
+                return deleted;
+            });
             if (deletedCount > 0) {
-                drafts.expunge();
+                mailboxMirror.invalidate(draftsFolderName());
             }
 
             logger.info("Deleted {} draft emails matching '{}'", deletedCount, subjectContains);
@@ -439,22 +373,20 @@ public class EmailServiceImpl implements EmailService {
         } catch (Exception e) {
             logger.error("Error deleting drafts matching '{}': {}", subjectContains, e.getMessage(), e);
             throw e;
-        } finally {
-            try {
-                if (drafts != null && drafts.isOpen()) {
-                    drafts.close(false);
-                }
-            } catch (Exception e) {
-                logger.warn("Error closing drafts folder", e);
-            }
-            try {
-                if (store != null && store.isConnected()) {
-                    store.close();
-                }
-            } catch (Exception e) {
-                logger.warn("Error closing store", e);
-            }
         }
     }
+
+    /**
+     * Name of the drafts folder: Gmail's "[Gmail]/Drafts", or "Drafts" on other servers.
+     */
+    private String draftsFolderName() throws Exception {
+        String name = draftsFolderName;
+        if (name == null) {
+            boolean gmailDrafts = imapStorePool.withFolder(GMAIL_DRAFTS_FOLDER, Folder.READ_WRITE, Folder::exists);
+            name = gmailDrafts ? GMAIL_DRAFTS_FOLDER : DRAFTS_FOLDER;
+            draftsFolderName = name;
+        }
+        return name;
+    }
     
 }
@@ -0,0 +1,12 @@
+package com.megacorp.humanresources.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.megacorp.humanresources.model.EmployeeImportResult;
+
+public interface EmployeeImportService {
+
+	EmployeeImportResult importEmployees(InputStream csv, Integer batchSize) throws IOException;
+
+}
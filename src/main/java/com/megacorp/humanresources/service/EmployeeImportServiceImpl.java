@@ -0,0 +1,441 @@
+package com.megacorp.humanresources.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.megacorp.humanresources.entity.Address;
+import com.megacorp.humanresources.entity.Employee;
+import com.megacorp.humanresources.exceptions.InvalidRequestException;
+import com.megacorp.humanresources.events.EmployeesBulkChangedEvent;
+import com.megacorp.humanresources.model.EmployeeImportError;
+import com.megacorp.humanresources.model.EmployeeImportResult;
+import com.megacorp.humanresources.service.helper.CsvLines;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Bulk loads employees from a CSV file with the columns of ops/data/db/employee_data_load.csv.
+ *
+ * The file is streamed in chunks of employee.import.batch-size rows. The rows of a chunk are
+ * parsed and validated in parallel and then inserted in one transaction, sent to the database
+ * as JDBC batches of the same size; the persistence context is flushed and cleared after every
+ * chunk so memory use does not grow with the file. Employee ids come from employee_sequence
+ * through Hibernate's pooled-lo optimizer, so one sequence call covers allocationSize inserts.
+ *
+ * EMPLOYEE_ID is only a key within the file: every imported employee receives a new generated
+ * id. MANAGER_ID is resolved against the keys of the file first and the existing employees
+ * second. A manager that appears earlier in the file is linked on insert; forward and self
+ * references are linked in a second pass with batched UPDATE statements once every row is in.
+ *
+ * A rejected row does not stop the import; it is reported with its line number. Quoted values
+ * may contain commas and doubled quotes but not line breaks.
+ */
+@Service
+public class EmployeeImportServiceImpl implements EmployeeImportService {
+
+	private static final Logger logger = LoggerFactory.getLogger(EmployeeImportServiceImpl.class);
+
+	private static final int MAX_BATCH_SIZE = 10_000;
+	private static final int IN_LIST_CHUNK_SIZE = 1_000;
+	private static final List<String> REQUIRED_COLUMNS = List.of("FIRST_NAME", "LAST_NAME");
+
+	private static final String EXISTING_ADDRESS_IDS = "select a.addressId from Address a where a.addressId in :ids";
+	private static final String EXISTING_EMPLOYEE_IDS = "select e.employeeId from Employee e where e.employeeId in :ids";
+	private static final String UPDATE_MANAGER = "UPDATE employee SET MANAGER_ID = ? WHERE EMPLOYEE_ID = ?";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Value("${employee.import.batch-size:500}")
+	private int defaultBatchSize;
+
+	@Value("${employee.import.max-reported-errors:100}")
+	private int maxReportedErrors;
+
+	/**
+	 * Imports every employee row of the given CSV stream.
+	 *
+	 * @param csv The CSV content, starting with a header row; column names are case-insensitive
+	 * @param batchSize Rows per transaction and JDBC batch (optional, defaults to employee.import.batch-size)
+	 * @return Counts, throughput and per-row errors of the import
+	 * @throws IOException If the stream cannot be read
+	 */
+	@Override
+	public EmployeeImportResult importEmployees(InputStream csv, Integer batchSize) throws IOException {
+		int size = batchSize != null ? batchSize : defaultBatchSize;
+		if (size < 1 || size > MAX_BATCH_SIZE) {
+			throw new InvalidRequestException("batchSize must be between 1 and " + MAX_BATCH_SIZE);
+		}
+		logger.debug("Entering importEmployees with batchSize={}", size);
+		long start = System.nanoTime();
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		ImportRun run = new ImportRun(maxReportedErrors);
+
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+			String headerLine = reader.readLine();
+			if (headerLine == null) {
+				throw new InvalidRequestException("The CSV file is empty");
+			}
+			CsvHeader header = parseHeader(headerLine);
+
+			List<RawRow> chunk = new ArrayList<>(size);
+			long lineNumber = 1;
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				if (line.isBlank()) {
+					continue;
+				}
+				chunk.add(new RawRow(lineNumber, line));
+				if (chunk.size() == size) {
+					writeChunk(chunk, header, size, transactionTemplate, run);
+					chunk.clear();
+				}
+			}
+			if (!chunk.isEmpty()) {
+				writeChunk(chunk, header, size, transactionTemplate, run);
+			}
+		}
+
+		linkDeferredManagers(size, transactionTemplate, run);
+
+		if (run.imported > 0) {
+			// No per-row change events are published for bulk writes; the in-memory views reload once
+			eventPublisher.publishEvent(new EmployeesBulkChangedEvent("employee import", run.imported + run.managersLinked));
+		}
+
+		run.errors.sort(Comparator.comparingLong(EmployeeImportError::rowNumber));
+		long elapsedNanos = Math.max(System.nanoTime() - start, 1);
+		double rowsPerSecond = Math.round(run.rowsRead * 1e10 / elapsedNanos) / 10.0;
+		logger.info("Imported {} of {} employee rows ({} failed, {} managers linked) in {} ms, {} rows/s",
+			run.imported, run.rowsRead, run.failed, run.managersLinked, elapsedNanos / 1_000_000, rowsPerSecond);
+		return new EmployeeImportResult(
+			run.rowsRead, run.imported, run.failed, run.managersLinked, elapsedNanos / 1_000_000, rowsPerSecond,
+			run.errors, run.errorsTruncated);
+	}
+
+	private void writeChunk(List<RawRow> chunk, CsvHeader header, int batchSize, TransactionTemplate transactionTemplate, ImportRun run) {
+		// parallel streams keep encounter order, so rows are still inserted in file order
+		List<ParsedRow> rows = chunk.parallelStream().map(raw -> parseRow(raw, header)).toList();
+		run.rowsRead += rows.size();
+
+		List<ParsedRow> valid = new ArrayList<>(rows.size());
+		for (ParsedRow row : rows) {
+			if (row.fileKey() != null) {
+				run.fileKeys.add(row.fileKey());
+			}
+			if (row.error() != null) {
+				run.reject(row.rowNumber(), row.fileKey(), row.error());
+			} else {
+				valid.add(row);
+			}
+		}
+		if (valid.isEmpty()) {
+			return;
+		}
+
+		try {
+			ChunkResult result = transactionTemplate.execute(status -> insertChunk(valid, batchSize, run.importedIds));
+			run.merge(result);
+			logger.debug("importEmployees wrote {} employees up to row {}", result.inserted, valid.get(valid.size() - 1).rowNumber());
+		} catch (RuntimeException e) {
+			logger.warn("Employee import batch starting at row {} was rolled back", valid.get(0).rowNumber(), e);
+			String message = "Batch write failed: " + rootCauseMessage(e);
+			valid.forEach(row -> run.reject(row.rowNumber(), row.fileKey(), message));
+		}
+	}
+
+	private ChunkResult insertChunk(List<ParsedRow> rows, int batchSize, Map<String, Long> importedIds) {
+		entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+		Set<Long> existingAddressIds = existingIds(EXISTING_ADDRESS_IDS,
+			rows.stream().map(ParsedRow::addressId).filter(Objects::nonNull).collect(Collectors.toSet()));
+
+		ChunkResult result = new ChunkResult();
+		for (ParsedRow row : rows) {
+			if (row.fileKey() != null && (importedIds.containsKey(row.fileKey()) || result.importedIds.containsKey(row.fileKey()))) {
+				result.rejected.add(new EmployeeImportError(row.rowNumber(), row.fileKey(), "Duplicate EMPLOYEE_ID " + row.fileKey()));
+				continue;
+			}
+			if (row.addressId() != null && !existingAddressIds.contains(row.addressId())) {
+				result.rejected.add(new EmployeeImportError(row.rowNumber(), row.fileKey(), "ADDRESS_ID " + row.addressId() + " does not exist"));
+				continue;
+			}
+
+			Employee employee = row.employee();
+			if (row.addressId() != null) {
+				employee.setAddress(entityManager.getReference(Address.class, row.addressId()));
+			}
+			Long managerId = null;
+			if (row.managerKey() != null) {
+				managerId = importedIds.containsKey(row.managerKey())
+					? importedIds.get(row.managerKey())
+					: result.importedIds.get(row.managerKey());
+			}
+			if (managerId != null) {
+				employee.setManager(entityManager.getReference(Employee.class, managerId));
+				result.managersLinked++;
+			}
+
+			entityManager.persist(employee);
+			result.inserted++;
+			if (row.fileKey() != null) {
+				result.importedIds.put(row.fileKey(), employee.getEmployeeId());
+			}
+			if (row.managerKey() != null && managerId == null) {
+				result.deferred.add(new DeferredManager(row.rowNumber(), row.fileKey(), employee.getEmployeeId(), row.managerKey()));
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+		return result;
+	}
+
+	/**
+	 * Second pass: links the managers that were not yet inserted when their reports were.
+	 */
+	private void linkDeferredManagers(int batchSize, TransactionTemplate transactionTemplate, ImportRun run) {
+		if (run.deferred.isEmpty()) {
+			return;
+		}
+		Set<Long> outsideFile = new HashSet<>();
+		for (DeferredManager pending : run.deferred) {
+			if (!run.fileKeys.contains(pending.managerKey())) {
+				Long id = parseId(pending.managerKey());
+				if (id != null) {
+					outsideFile.add(id);
+				}
+			}
+		}
+		Set<Long> existingManagers = outsideFile.isEmpty()
+			? Set.of()
+			: transactionTemplate.execute(status -> existingIds(EXISTING_EMPLOYEE_IDS, outsideFile));
+
+		List<long[]> updates = new ArrayList<>(run.deferred.size());
+		for (DeferredManager pending : run.deferred) {
+			Long managerId = run.importedIds.get(pending.managerKey());
+			if (managerId == null && !run.fileKeys.contains(pending.managerKey())) {
+				Long id = parseId(pending.managerKey());
+				managerId = id != null && existingManagers.contains(id) ? id : null;
+			}
+			if (managerId != null) {
+				updates.add(new long[] { managerId, pending.employeeId() });
+			} else if (run.fileKeys.contains(pending.managerKey())) {
+				run.error(pending.rowNumber(), pending.fileKey(),
+					"Manager row " + pending.managerKey() + " was not imported; the employee was imported without a manager");
+			} else {
+				run.error(pending.rowNumber(), pending.fileKey(),
+					"MANAGER_ID " + pending.managerKey() + " matches no employee; the employee was imported without a manager");
+			}
+		}
+		if (updates.isEmpty()) {
+			return;
+		}
+
+		transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_MANAGER, updates, batchSize, (ps, update) -> {
+			ps.setLong(1, update[0]);
+			ps.setLong(2, update[1]);
+		}));
+		run.managersLinked += updates.size();
+		logger.debug("importEmployees linked {} managers in the second pass", updates.size());
+	}
+
+	private Set<Long> existingIds(String query, Collection<Long> ids) {
+		Set<Long> existing = new HashSet<>();
+		List<Long> remaining = new ArrayList<>(ids);
+		for (int from = 0; from < remaining.size(); from += IN_LIST_CHUNK_SIZE) {
+			List<Long> chunk = remaining.subList(from, Math.min(from + IN_LIST_CHUNK_SIZE, remaining.size()));
+			existing.addAll(entityManager.createQuery(query, Long.class).setParameter("ids", chunk).getResultList());
+		}
+		return existing;
+	}
+
+	private static CsvHeader parseHeader(String headerLine) {
+		Map<String, Integer> columns = CsvLines.columns(headerLine);
+		List<String> missing = REQUIRED_COLUMNS.stream().filter(column -> !columns.containsKey(column)).toList();
+		if (!missing.isEmpty()) {
+			throw new InvalidRequestException("The CSV header is missing the required columns " + missing);
+		}
+		return new CsvHeader(columns, CsvLines.split(headerLine).size());
+	}
+
+	private static ParsedRow parseRow(RawRow raw, CsvHeader header) {
+		List<String> values = CsvLines.split(raw.line());
+		String fileKey = header.value(values, "EMPLOYEE_ID");
+		try {
+			if (values.size() != header.width()) {
+				throw new IllegalArgumentException("Expected " + header.width() + " columns but found " + values.size());
+			}
+			String firstName = header.value(values, "FIRST_NAME");
+			String lastName = header.value(values, "LAST_NAME");
+			if (firstName == null || lastName == null) {
+				throw new IllegalArgumentException("FIRST_NAME and LAST_NAME are required");
+			}
+			Employee employee = Employee.builder()
+				.firstName(firstName)
+				.lastName(lastName)
+				.title(header.value(values, "TITLE"))
+				.department(header.value(values, "DEPARTMENT"))
+				.businessUnit(header.value(values, "BUSINESS_UNIT"))
+				.gender(header.value(values, "GENDER"))
+				.ethnicity(header.value(values, "ETHNICITY"))
+				.age(parseLong(header, values, "AGE"))
+				.hireDate(parseDate(header, values, "HIRE_DATE"))
+				.terminationDate(parseDate(header, values, "TERMINATION_DATE"))
+				.annualSalary(parseLong(header, values, "ANNUAL_SALARY"))
+				.build();
+			return new ParsedRow(raw.rowNumber(), fileKey, header.value(values, "MANAGER_ID"),
+				parseLong(header, values, "ADDRESS_ID"), employee, null);
+		} catch (IllegalArgumentException e) {
+			return new ParsedRow(raw.rowNumber(), fileKey, null, null, null, e.getMessage());
+		}
+	}
+
+	private static Long parseLong(CsvHeader header, List<String> values, String column) {
+		String value = header.value(values, column);
+		if (value == null) {
+			return null;
+		}
+		try {
+			return Long.valueOf(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid " + column + " '" + value + "'");
+		}
+	}
+
+	private static LocalDate parseDate(CsvHeader header, List<String> values, String column) {
+		String value = header.value(values, column);
+		if (value == null) {
+			return null;
+		}
+		try {
+			return LocalDate.parse(value);
+		} catch (DateTimeParseException e) {
+			throw new IllegalArgumentException("Invalid " + column + " '" + value + "', expected yyyy-MM-dd");
+		}
+	}
+
+	private static Long parseId(String value) {
+		try {
+			return Long.valueOf(value);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private static String rootCauseMessage(Throwable e) {
+		Throwable root = e;
+		while (root.getCause() != null && root.getCause() != root) {
+			root = root.getCause();
+		}
+		return root.getMessage();
+	}
+
+	private record RawRow(long rowNumber, String line) {
+	}
+
+	private record CsvHeader(Map<String, Integer> columns, int width) {
+
+		/**
+		 * The trimmed value of the column, or null when the column is absent or blank.
+		 */
+		String value(List<String> values, String column) {
+			Integer index = columns.get(column);
+			if (index == null || index >= values.size()) {
+				return null;
+			}
+			String value = values.get(index).trim();
+			return value.isEmpty() ? null : value;
+		}
+	}
+
+	private record ParsedRow(long rowNumber, String fileKey, String managerKey, Long addressId, Employee employee, String error) {
+	}
+
+	private record DeferredManager(long rowNumber, String fileKey, long employeeId, String managerKey) {
+	}
+
+	/**
+	 * What one committed chunk added; only merged into the run once its transaction committed.
+	 */
+	private static final class ChunkResult {
+		private final Map<String, Long> importedIds = new HashMap<>();
+		private final List<DeferredManager> deferred = new ArrayList<>();
+		private final List<EmployeeImportError> rejected = new ArrayList<>();
+		private long inserted;
+		private long managersLinked;
+	}
+
+	private static final class ImportRun {
+		private final int maxReportedErrors;
+		private final Map<String, Long> importedIds = new HashMap<>();
+		private final Set<String> fileKeys = new HashSet<>();
+		private final List<DeferredManager> deferred = new ArrayList<>();
+		private final List<EmployeeImportError> errors = new ArrayList<>();
+		private boolean errorsTruncated;
+		private long rowsRead;
+		private long imported;
+		private long failed;
+		private long managersLinked;
+
+		private ImportRun(int maxReportedErrors) {
+			this.maxReportedErrors = maxReportedErrors;
+		}
+
+		private void merge(ChunkResult result) {
+			importedIds.putAll(result.importedIds);
+			deferred.addAll(result.deferred);
+			imported += result.inserted;
+			managersLinked += result.managersLinked;
+			result.rejected.forEach(error -> reject(error.rowNumber(), error.employeeId(), error.message()));
+		}
+
+		private void reject(long rowNumber, String fileKey, String message) {
+			failed++;
+			error(rowNumber, fileKey, message);
+		}
+
+		private void error(long rowNumber, String fileKey, String message) {
+			if (errors.size() < maxReportedErrors) {
+				errors.add(new EmployeeImportError(rowNumber, fileKey, message));
+			} else {
+				errorsTruncated = true;
+			}
+		}
+	}
+}
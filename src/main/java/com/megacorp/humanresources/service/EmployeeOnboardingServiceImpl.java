@@ -17,12 +17,14 @@ import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.megacorp.humanresources.advisors.ChatClientLoggingAdvisor;
 import com.megacorp.humanresources.entity.Address;
 import com.megacorp.humanresources.entity.Employee;
+import com.megacorp.humanresources.events.EmployeeChangedEvent;
 import com.megacorp.humanresources.exceptions.OnboardingStepException;
 import com.megacorp.humanresources.model.OnboardingStepResult;
 import com.megacorp.humanresources.repository.AddressRepository;
@@ -103,6 +105,7 @@ public class EmployeeOnboardingServiceImpl implements EmployeeOnboardingService
 	private final FileStorageService fileStorageService;
 	private final EmailService emailService;
 	private final ImageGenerationService imageGenerationService;
+	private final ApplicationEventPublisher eventPublisher;
 	private final int maxRetries;
 
 	// Secondary and judge models kept for the legacy generateWelcomeMessage method
@@ -120,6 +123,7 @@ public class EmployeeOnboardingServiceImpl implements EmployeeOnboardingService
 			EmailService emailService,
 			ImageGenerationService imageGenerationService,
 			ChatClientLoggingAdvisor chatClientLoggingAdvisor,
+			ApplicationEventPublisher eventPublisher,
 			@Value("${onboarding.judge.max-retries:3}") int maxRetries) {
 
 		this.secondaryChatModel = secondaryChatModel;
@@ -130,6 +134,7 @@ public class EmployeeOnboardingServiceImpl implements EmployeeOnboardingService
 		this.fileStorageService = fileStorageService;
 		this.emailService = emailService;
 		this.imageGenerationService = imageGenerationService;
+		this.eventPublisher = eventPublisher;
 		this.maxRetries = maxRetries;
 
 		// Content generation ChatClient uses the primary model
@@ -310,6 +315,7 @@ public class EmployeeOnboardingServiceImpl implements EmployeeOnboardingService
 					}
 
 					state.savedEmployee = employeeRepository.save(employee);
+					eventPublisher.publishEvent(EmployeeChangedEvent.saved(state.savedEmployee));
 					logger.info("Employee saved with id={}, addressId={}",
 							state.savedEmployee.getEmployeeId(), state.savedEmployee.getAddressId());
 
@@ -883,6 +889,7 @@ public class EmployeeOnboardingServiceImpl implements EmployeeOnboardingService
 		if (state.savedEmployee != null) {
 			try {
 				employeeRepository.deleteById(state.savedEmployee.getEmployeeId());
+				eventPublisher.publishEvent(EmployeeChangedEvent.deleted(state.savedEmployee.getEmployeeId()));
 				logger.info("Rollback: deleted employee id={}", state.savedEmployee.getEmployeeId());
 				state.savedEmployee = null;
 			} catch (Exception e) {
@@ -1,10 +1,18 @@
 package com.megacorp.humanresources.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 import com.megacorp.humanresources.entity.Employee;
+import com.megacorp.humanresources.model.EmployeeBulkUpdateResult;
 import com.megacorp.humanresources.model.EmployeeCount;
+import com.megacorp.humanresources.model.EmployeeGroupedCounts;
+import com.megacorp.humanresources.model.EmployeeMatch;
+import com.megacorp.humanresources.model.EmployeeReports;
+import com.megacorp.humanresources.model.OrgChartEntry;
 
 public interface EmployeeService {
 	// Save operation
@@ -37,6 +45,33 @@ public interface EmployeeService {
 
 	List<Employee> fetchEmployeeList();
 
+	long exportEmployees(
+		OutputStream outputStream,
+		String format,
+		Collection<String> fields,
+		String firstName,
+		String lastName,
+		Integer startAge,
+		Integer endAge,
+		String department,
+		String title,
+		String businessUnit,
+		String gender,
+		String ethnicity,
+		Long managerId,
+		Long addressId,
+		String state,
+		String city,
+		String postalCode,
+		LocalDate hireDate,
+		LocalDate hireDateFirst,
+		LocalDate hireDateLast,
+		LocalDate terminationDate,
+		LocalDate terminationDateFirst,
+		LocalDate terminationDateLast,
+		Long annualSalary
+	) throws IOException;
+
 	String searchEmployees(
 		String firstName,
 		String lastName,
@@ -62,7 +97,10 @@ public interface EmployeeService {
 		Integer pageNumber, 
 		Integer pageSize, 
 		String sortBy, 
-		String sortDirection
+		String sortDirection,
+		String cursor,
+		Boolean includeTotal,
+		String projection
 	);
 
 	
@@ -90,4 +128,70 @@ public interface EmployeeService {
 		Long annualSalary
 	);
 
+	EmployeeGroupedCounts countEmployeesGroupedBy(
+		List<String> groupBy,
+		List<String> metrics,
+		String firstName,
+		String lastName,
+		Integer startAge,
+		Integer endAge,
+		String department,
+		String title,
+		String businessUnit,
+		String gender,
+		String ethnicity,
+		Long managerId,
+		Long addressId,
+		String state,
+		String city,
+		String postalCode,
+		LocalDate hireDate,
+		LocalDate hireDateFirst,
+		LocalDate hireDateLast,
+		LocalDate terminationDate,
+		LocalDate terminationDateFirst,
+		LocalDate terminationDateLast,
+		Long annualSalary
+	);
+
+	EmployeeBulkUpdateResult updateEmployeesMatching(
+		Boolean dryRun,
+		String newDepartment,
+		String newTitle,
+		String newBusinessUnit,
+		Long newManagerId,
+		Long newAddressId,
+		Long newAnnualSalary,
+		LocalDate newTerminationDate,
+		String firstName,
+		String lastName,
+		Integer startAge,
+		Integer endAge,
+		String department,
+		String title,
+		String businessUnit,
+		String gender,
+		String ethnicity,
+		Long managerId,
+		Long addressId,
+		String state,
+		String city,
+		String postalCode,
+		LocalDate hireDate,
+		LocalDate hireDateFirst,
+		LocalDate hireDateLast,
+		LocalDate terminationDate,
+		LocalDate terminationDateFirst,
+		LocalDate terminationDateLast,
+		Long annualSalary
+	);
+
+	List<EmployeeMatch> fuzzySearchEmployees(String name, String title, Integer limit, Double minSimilarity);
+
+	List<OrgChartEntry> getReportingChain(Long employeeId);
+
+	EmployeeReports getAllReports(Long managerId, Integer pageNumber, Integer pageSize);
+
+	EmployeeCount countSubtree(Long managerId);
+
 }
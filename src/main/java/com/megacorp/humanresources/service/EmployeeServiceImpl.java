@@ -1,32 +1,83 @@
 package com.megacorp.humanresources.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.OptionalLong;
+import java.util.stream.Stream;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
+import org.hibernate.jpa.HibernateHints;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.query.FluentQuery.FetchableFluentQuery;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.megacorp.humanresources.entity.Address;
 import com.megacorp.humanresources.entity.Employee;
+import com.megacorp.humanresources.events.EmployeeChangedEvent;
+import com.megacorp.humanresources.events.EmployeesBulkChangedEvent;
+import com.megacorp.humanresources.exceptions.InvalidRequestException;
 import com.megacorp.humanresources.exceptions.ResourceNotFoundException;
+import com.megacorp.humanresources.index.EmployeeBitmapIndex;
+import com.megacorp.humanresources.index.EmployeeHierarchyIndex;
+import com.megacorp.humanresources.index.EmployeeTrigramIndex;
+import com.megacorp.humanresources.model.EmployeeBulkUpdateResult;
 import com.megacorp.humanresources.model.EmployeeCount;
+import com.megacorp.humanresources.model.EmployeeGroupCount;
+import com.megacorp.humanresources.model.EmployeeGroupedCounts;
+import com.megacorp.humanresources.model.EmployeeMatch;
+import com.megacorp.humanresources.model.EmployeeReports;
+import com.megacorp.humanresources.model.EmployeeSummary;
+import com.megacorp.humanresources.model.OrgChartEntry;
 import com.megacorp.humanresources.repository.AddressRepository;
 import com.megacorp.humanresources.repository.EmployeeRepository;
+import com.megacorp.humanresources.service.helper.EmployeeSearchCursor;
+import com.megacorp.humanresources.service.helper.LocationNormalizer;
 import com.megacorp.humanresources.specifications.EmployeeSpecifications;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.LocalDateField;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
 import lombok.extern.slf4j.Slf4j;
 
 
@@ -42,6 +93,11 @@ import lombok.extern.slf4j.Slf4j;
  * - getEmployeeById: Retrieves a single employee by their ID.
  * - deleteEmployeeById: Deletes a single employee by their ID.
  * - searchEmployees: Searches employees by various criteria with pagination and sorting.
+ * - exportEmployees: Streams matching employees as a JSON array or NDJSON in constant memory.
+ * - countEmployeesGroupedBy: Counts and aggregates employees per group in a single GROUP BY query.
+ * - updateEmployeesMatching: Sets fields on all employees matching a filter in a single bulk UPDATE.
+ * - fuzzySearchEmployees: Ranks employees by trigram similarity of name and title.
+ * - getReportingChain, getAllReports, countSubtree: Answer org chart questions from the in-memory hierarchy index.
  *
  * Annotations:
  * - @Service: Marks this class as a Spring service.
@@ -52,60 +108,33 @@ import lombok.extern.slf4j.Slf4j;
 
 //Class
 public class EmployeeServiceImpl implements EmployeeService {
-	private static final Map<String, String> US_STATE_TO_ABBREVIATION = Map.ofEntries(
-		Map.entry("alabama", "AL"),
-		Map.entry("alaska", "AK"),
-		Map.entry("arizona", "AZ"),
-		Map.entry("arkansas", "AR"),
-		Map.entry("california", "CA"),
-		Map.entry("colorado", "CO"),
-		Map.entry("connecticut", "CT"),
-		Map.entry("delaware", "DE"),
-		Map.entry("district of columbia", "DC"),
-		Map.entry("florida", "FL"),
-		Map.entry("georgia", "GA"),
-		Map.entry("hawaii", "HI"),
-		Map.entry("idaho", "ID"),
-		Map.entry("illinois", "IL"),
-		Map.entry("indiana", "IN"),
-		Map.entry("iowa", "IA"),
-		Map.entry("kansas", "KS"),
-		Map.entry("kentucky", "KY"),
-		Map.entry("louisiana", "LA"),
-		Map.entry("maine", "ME"),
-		Map.entry("maryland", "MD"),
-		Map.entry("massachusetts", "MA"),
-		Map.entry("michigan", "MI"),
-		Map.entry("minnesota", "MN"),
-		Map.entry("mississippi", "MS"),
-		Map.entry("missouri", "MO"),
-		Map.entry("montana", "MT"),
-		Map.entry("nebraska", "NE"),
-		Map.entry("nevada", "NV"),
-		Map.entry("new hampshire", "NH"),
-		Map.entry("new jersey", "NJ"),
-		Map.entry("new mexico", "NM"),
-		Map.entry("new york", "NY"),
-		Map.entry("north carolina", "NC"),
-		Map.entry("north dakota", "ND"),
-		Map.entry("ohio", "OH"),
-		Map.entry("oklahoma", "OK"),
-		Map.entry("oregon", "OR"),
-		Map.entry("pennsylvania", "PA"),
-		Map.entry("rhode island", "RI"),
-		Map.entry("south carolina", "SC"),
-		Map.entry("south dakota", "SD"),
-		Map.entry("tennessee", "TN"),
-		Map.entry("texas", "TX"),
-		Map.entry("utah", "UT"),
-		Map.entry("vermont", "VT"),
-		Map.entry("virginia", "VA"),
-		Map.entry("washington", "WA"),
-		Map.entry("west virginia", "WV"),
-		Map.entry("wisconsin", "WI"),
-		Map.entry("wyoming", "WY")
-	);
 	
+	private static final Map<String, String> GROUP_BY_DIMENSIONS = Map.of(
+		"department", "department",
+		"title", "title",
+		"businessunit", "businessUnit",
+		"gender", "gender",
+		"ethnicity", "ethnicity",
+		"state", "state",
+		"city", "city",
+		"hireyear", "hireYear"
+	);
+
+	private static final Map<String, String> GROUP_METRICS = Map.of(
+		"count", "count",
+		"avgsalary", "avgSalary",
+		"minsalary", "minSalary",
+		"maxsalary", "maxSalary",
+		"sumsalary", "sumSalary",
+		"avgage", "avgAge"
+	);
+
+	private static final int FUZZY_SEARCH_DEFAULT_LIMIT = 10;
+	private static final int FUZZY_SEARCH_MAX_LIMIT = 100;
+	private static final double FUZZY_SEARCH_DEFAULT_SIMILARITY = 0.3;
+
+	private static final int REPORTS_MAX_PAGE_SIZE = 1000;
+
 	private static final Logger logger = LoggerFactory.getLogger(EmployeeServiceImpl.class);
 
 	@Autowired
@@ -113,19 +142,55 @@ public class EmployeeServiceImpl implements EmployeeService {
 
 	@Autowired
 	private AddressRepository addressRepository;
+
+	@Autowired
+	private EmployeeBitmapIndex employeeBitmapIndex;
+
+	@Autowired
+	private EmployeeTrigramIndex employeeTrigramIndex;
+
+	@Autowired
+	private EmployeeHierarchyIndex employeeHierarchyIndex;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Value("${employee.export.fetch-size:500}")
+	private int exportFetchSize;
+
+	@Value("${employee.export.clear-interval:500}")
+	private int exportClearInterval;
+
+	private static final ObjectMapper EXPORT_MAPPER = new ObjectMapper()
+		.registerModule(new JavaTimeModule())
+		.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+		.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
 	
 	/**
 	 * Save a new employee to the repository.
 	 *
 	 * @param employee The Employee object to be saved
 	 * @return The persisted Employee object with generated ID
+	 * @throws ResourceNotFoundException if the employee's address does not exist
 	 */
 	@Tool(name = "save_employee", description = "Creates a new employee based on the passed employee object.")
 	@Override
 	public Employee saveEmployee(Employee employee) {
 		logger.debug("Entering saveEmployee with firstName={} lastName={}", employee.getFirstName(), employee.getLastName());
 		employee.setEmployeeId(null);
+		Long addressId = employee.getAddressId();
+		if (addressId != null) {
+			// The address passed in only carries what was deserialized; the indexes need the stored
+			// one with its normalized location
+			Address address = addressRepository.findById(addressId)
+					.orElseThrow(() -> new ResourceNotFoundException("Address", addressId));
+			employee.setAddress(address);
+		}
 		Employee savedEmployee = employeeRepository.save(employee);
+		eventPublisher.publishEvent(EmployeeChangedEvent.saved(savedEmployee));
 		logger.info("Employee saved successfully with employeeId={}", savedEmployee.getEmployeeId());
 		return savedEmployee;
 	}
@@ -148,6 +213,7 @@ public class EmployeeServiceImpl implements EmployeeService {
 			logger.error("Error parsing hire date", e);
 		}
 		Employee savedEmployee = employeeRepository.save(employee);
+		eventPublisher.publishEvent(EmployeeChangedEvent.saved(savedEmployee));
 		logger.info("Employee saved successfully with employeeId={}", savedEmployee.getEmployeeId());
 		return savedEmployee;
 	}
@@ -285,6 +351,7 @@ public class EmployeeServiceImpl implements EmployeeService {
 		}
 				
 		employeeRepository.save(employee);
+		eventPublisher.publishEvent(EmployeeChangedEvent.saved(employee));
 
 		logger.info("Employee updated successfully with employeeId={}", employee.getEmployeeId());
 		return employee;
@@ -321,11 +388,13 @@ public class EmployeeServiceImpl implements EmployeeService {
 			throw new ResourceNotFoundException("Employee", employeeId);
 		}
 		employeeRepository.deleteById(employeeId);
+		eventPublisher.publishEvent(EmployeeChangedEvent.deleted(employeeId));
 		logger.info("Employee deleted successfully with employeeId={}", employeeId);
 	}
 
 	/**
-	 * Retrieve a list of all employees
+	 * Retrieve a list of all employees.
+	 * Loads the whole table into memory; use exportEmployees for large result sets.
 	 * 
 	 * @return A list containing all employees
 	 */
@@ -336,6 +405,103 @@ public class EmployeeServiceImpl implements EmployeeService {
 		logger.info("Fetched {} employees", employeesList.size());
 		return employeesList;
 	}
+
+	/**
+	 * Streams employees matching the given criteria to the output stream without holding
+	 * the result set in memory. Rows are read through a forward-only cursor with a fixed
+	 * JDBC fetch size, and the persistence context is cleared every
+	 * {@code employee.export.clear-interval} rows so that processed entities can be collected.
+	 *
+	 * @param outputStream The stream to write to; it is flushed but not closed
+	 * @param format "ndjson" for one JSON object per line, otherwise a JSON array
+	 * @param fields Top-level Employee fields to include (optional, all fields when empty)
+	 * @return The number of employees written
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public long exportEmployees(
+		OutputStream outputStream,
+		String format,
+		Collection<String> fields,
+		String firstName,
+		String lastName,
+		Integer startAge,
+		Integer endAge,
+		String department,
+		String title,
+		String businessUnit,
+		String gender,
+		String ethnicity,
+		Long managerId,
+		Long addressId,
+		String state,
+		String city,
+		String postalCode,
+		LocalDate hireDate,
+		LocalDate hireDateFirst,
+		LocalDate hireDateLast,
+		LocalDate terminationDate,
+		LocalDate terminationDateFirst,
+		LocalDate terminationDateLast,
+		Long annualSalary
+	) throws IOException {
+		logger.debug("Entering exportEmployees with format={} fields={}", format, fields);
+		long start = System.currentTimeMillis();
+		boolean ndjson = "ndjson".equalsIgnoreCase(format);
+		// 0 or less clears after every row rather than dividing by zero
+		int clearInterval = Math.max(1, exportClearInterval);
+
+		Specification<Employee> spec = buildEmployeeSpecification(
+			firstName, lastName, startAge, endAge, department, title, businessUnit, gender, ethnicity,
+			managerId, addressId, state, city, postalCode, hireDate, hireDateFirst, hireDateLast, terminationDate, terminationDateFirst, terminationDateLast, annualSalary
+		);
+
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Employee> query = cb.createQuery(Employee.class);
+		Root<Employee> root = query.from(Employee.class);
+		// Fetch the address in the same row instead of one select per employee
+		root.fetch("address", JoinType.LEFT);
+		query.select(root)
+			.where(spec.toPredicate(root, query, cb))
+			.orderBy(cb.asc(root.get("employeeId")));
+
+		long count = 0;
+		JsonGenerator generator = EXPORT_MAPPER.getFactory().createGenerator(outputStream);
+		try (Stream<Employee> employees = entityManager.createQuery(query)
+				.setHint(HibernateHints.HINT_FETCH_SIZE, exportFetchSize)
+				.setHint(HibernateHints.HINT_READ_ONLY, true)
+				.getResultStream()) {
+
+			if (!ndjson) {
+				generator.writeStartArray();
+			}
+			Iterator<Employee> iterator = employees.iterator();
+			while (iterator.hasNext()) {
+				ObjectNode node = EXPORT_MAPPER.valueToTree(iterator.next());
+				if (fields != null && !fields.isEmpty()) {
+					node.retain(fields);
+				}
+				generator.writeTree(node);
+				if (ndjson) {
+					generator.writeRaw('\n');
+				}
+				count++;
+				if (count % clearInterval == 0) {
+					generator.flush();
+					entityManager.clear();
+					logger.debug("exportEmployees flushed {} employees and cleared the persistence context", count);
+				}
+			}
+			if (!ndjson) {
+				generator.writeEndArray();
+			}
+		} finally {
+			generator.flush();
+		}
+
+		logger.info("Exported {} employees as {} in {} ms", count, ndjson ? "NDJSON" : "JSON", System.currentTimeMillis() - start);
+		return count;
+	}
 	
 	/**
 	 * Searches for employees using any combination of the following optional parameters:
@@ -365,13 +531,19 @@ public class EmployeeServiceImpl implements EmployeeService {
 	 * @param pageSize The number of employees per page
 	 * @param sortBy The field to sort by (any Employee field)
 	 * @param sortDirection The direction of sorting ("asc" or "desc")
+	 * @param cursor The nextCursor of a previous result; switches to keyset pagination (optional)
+	 * @param includeTotal Whether to run the count query for totalElements (optional)
+	 * @param projection "summary" to select only the {@link EmployeeSummary} columns, otherwise full employees (optional)
 	 * @return A Page of employees matching the criteria
 	 */
 	@Tool(
 		name = "search_employees",
 		description = "Get a Page of employees. Optional parameters: pageNumber, pageSize, sortBy (any Employee field), " +
 		"sortDirection (desc or asc), firstName, lastName, startAge, endAge, department, title, businessUnit, gender, ethnicity, " +
-		"managerId, addressId, state (US state in address, e.g. GA or Georgia), city, postalCode, hireDate (Format: YYYY-MM-DD), hireDateFirst (Format: YYYY-MM-DD), hireDateLast (Format: YYYY-MM-DD), terminationDate (Format: YYYY-MM-DD), terminationDateFirst (Format: YYYY-MM-DD), terminationDateLast (Format: YYYY-MM-DD), annualSalary."
+		"managerId, addressId, state (US state in address, e.g. GA or Georgia), city, postalCode, hireDate (Format: YYYY-MM-DD), hireDateFirst (Format: YYYY-MM-DD), hireDateLast (Format: YYYY-MM-DD), terminationDate (Format: YYYY-MM-DD), terminationDateFirst (Format: YYYY-MM-DD), terminationDateLast (Format: YYYY-MM-DD), annualSalary, " +
+		"cursor (the nextCursor value of a previous result; returns the employees after it using the same sort, much faster than pageNumber for later pages; " +
+		"employees with an empty sortBy field are skipped in cursor mode), includeTotal (whether to compute totalElements; defaults to true with pageNumber and false with cursor), " +
+		"projection (full or summary; summary returns only employeeId, firstName, lastName, title, department, businessUnit, managerId and addressId and is cheaper for large pages)."
 	)
 	public String searchEmployeesTool(
 		@ToolParam(required = false) String firstName,
@@ -398,14 +570,17 @@ public class EmployeeServiceImpl implements EmployeeService {
 		@ToolParam(required = false) Integer pageNumber, 
 		@ToolParam(required = false) Integer pageSize, 
 		@ToolParam(required = false) String sortBy, 
-		@ToolParam(required = false) String sortDirection
+		@ToolParam(required = false) String sortDirection,
+		@ToolParam(required = false, description = "nextCursor from a previous search_employees result") String cursor,
+		@ToolParam(required = false) Boolean includeTotal,
+		@ToolParam(required = false, description = "full (default) or summary") String projection
 	) {
 		return searchEmployees(
 			firstName, lastName, startAge, endAge, department, title, businessUnit, gender, ethnicity,
 			managerId, addressId, state, city, postalCode, 
 			parseDate(hireDate), parseDate(hireDateFirst), parseDate(hireDateLast), 
 			parseDate(terminationDate), parseDate(terminationDateFirst), parseDate(terminationDateLast), 
-			annualSalary, pageNumber, pageSize, sortBy, sortDirection
+			annualSalary, pageNumber, pageSize, sortBy, sortDirection, cursor, includeTotal, projection
 		);
 	}
 
@@ -434,12 +609,24 @@ public class EmployeeServiceImpl implements EmployeeService {
 		Integer pageNumber, 
 		Integer pageSize, 
 		String sortBy, 
-		String sortDirection
+		String sortDirection,
+		String cursor,
+		Boolean includeTotal,
+		String projection
 	)
 	{
 		logger.debug("Entering searchEmployees("
-			+ "firstName={}, lastName={}, startAge={}, endAge={}, department={}, title={}, businessUnit={}, gender={}, ethnicity={}, managerId={}, addressId={}, state={}, city={}, postalCode={}, hireDate={}, hireDateFirst={}, hireDateLast={}, terminationDate={}, terminationDateFirst={}, terminationDateLast={}, annualSalary={}, pageNumber={}, pageSize={}, sortBy={}, sortDirection={})",
-			firstName, lastName, startAge, endAge, department, title, businessUnit, gender, ethnicity, managerId, addressId, state, city, postalCode, hireDate, hireDateFirst, hireDateLast, terminationDate, terminationDateFirst, terminationDateLast, annualSalary, pageNumber, pageSize, sortBy, sortDirection);
+			+ "firstName={}, lastName={}, startAge={}, endAge={}, department={}, title={}, businessUnit={}, gender={}, ethnicity={}, managerId={}, addressId={}, state={}, city={}, postalCode={}, hireDate={}, hireDateFirst={}, hireDateLast={}, terminationDate={}, terminationDateFirst={}, terminationDateLast={}, annualSalary={}, pageNumber={}, pageSize={}, sortBy={}, sortDirection={}, cursor={}, includeTotal={}, projection={})",
+			firstName, lastName, startAge, endAge, department, title, businessUnit, gender, ethnicity, managerId, addressId, state, city, postalCode, hireDate, hireDateFirst, hireDateLast, terminationDate, terminationDateFirst, terminationDateLast, annualSalary, pageNumber, pageSize, sortBy, sortDirection, cursor, includeTotal, projection);
+
+		boolean summary = false;
+		if (projection != null && !projection.isBlank()) {
+			if (projection.equalsIgnoreCase("summary")) {
+				summary = true;
+			} else if (!projection.equalsIgnoreCase("full")) {
+				throw new InvalidRequestException("Unsupported projection '" + projection + "'. Supported values: full, summary");
+			}
+		}
 		
 		Specification<Employee> spec = buildEmployeeSpecification(
 			firstName, lastName, startAge, endAge, department, title, businessUnit, gender, ethnicity,
@@ -448,8 +635,6 @@ public class EmployeeServiceImpl implements EmployeeService {
 
 		logger.debug("Built search specification: {}", spec);
 
-		Pageable pageable = null;
-
 		if (pageNumber == null || pageNumber < 1) {
 			pageNumber = 1; // Default to first page if not provided or invalid
 		}
@@ -462,36 +647,28 @@ public class EmployeeServiceImpl implements EmployeeService {
 		if (sortDirection == null || sortDirection.isEmpty()) {
 			sortDirection = "asc"; // Default to ascending order if not provided
 		}
+		if (!sortDirection.equalsIgnoreCase("asc") && !sortDirection.equalsIgnoreCase("desc")) {
+			logger.warn("Invalid sort direction provided: {}. Defaulting to ascending order.", sortDirection);
+			sortDirection = "asc";
+		}
 		logger.debug("Pagination and sorting parameters - pageNumber: {}, pageSize: {}, sortBy: {}, sortDirection: {}", 
 			pageNumber, pageSize, sortBy, sortDirection);
 
-		// pageNumber - 1 is used because PageRequest is 0-based
-		if (sortDirection.equalsIgnoreCase("desc")) {
-			pageable = PageRequest.of(pageNumber - 1, pageSize, Sort.by(sortBy).descending());
-		} else if (!sortDirection.equalsIgnoreCase("asc")) {
-			logger.warn("Invalid sort direction provided: {}. Defaulting to ascending order.", sortDirection);
-			pageable = PageRequest.of(pageNumber - 1, pageSize, Sort.by(sortBy).ascending());
+		java.util.Map<String, Object> response;
+		if (cursor != null && !cursor.isBlank()) {
+			response = seekEmployees(spec, EmployeeSearchCursor.decode(cursor), sortBy, sortDirection, pageSize,
+				includeTotal != null && includeTotal, summary);
 		} else {
-			pageable = PageRequest.of(pageNumber - 1, pageSize, Sort.by(sortBy).ascending());
+			response = pageEmployees(spec, pageNumber, pageSize, sortBy, sortDirection,
+				includeTotal == null || includeTotal, summary);
 		}
-		logger.debug("Created pageable object: {}", pageable);
-
-		Page<Employee> result = employeeRepository.findAll(spec, pageable);
 
 		try {
-			java.util.Map<String, Object> response = new java.util.HashMap<>();
-			response.put("content", result.getContent());
-			response.put("totalElements", result.getTotalElements());
-			response.put("totalPages", result.getTotalPages());
-			response.put("pageNumber", result.getNumber() + 1); // convert to 1-based
-			response.put("pageSize", result.getSize());
-			response.put("sort", result.getSort().toString());
-
 			ObjectMapper mapper = new ObjectMapper();
 			mapper.registerModule(new JavaTimeModule());
 			String json = mapper.writeValueAsString(response);
 			logger.debug("searchEmployees result JSON: {}", json);
-			logger.info("Employee search completed successfully with {} results", result.getNumberOfElements());
+			logger.info("Employee search completed successfully with {} results", ((List<?>) response.get("content")).size());
 			return json;
 		} catch (Exception e) {
 			logger.error("Error serializing search result to JSON", e);
@@ -499,8 +676,109 @@ public class EmployeeServiceImpl implements EmployeeService {
 		}
 	}
 
+	/**
+	 * Offset pagination. The response also carries a nextCursor so that a caller can
+	 * continue with keyset pagination after the first page.
+	 */
+	private java.util.Map<String, Object> pageEmployees(
+		Specification<Employee> spec, int pageNumber, int pageSize, String sortBy, String sortDirection, boolean includeTotal, boolean summary
+	) {
+		// pageNumber - 1 is used because PageRequest is 0-based
+		Pageable pageable = PageRequest.of(pageNumber - 1, pageSize, searchSort(sortBy, sortDirection));
+		logger.debug("Created pageable object: {}", pageable);
+
+		java.util.Map<String, Object> response = new java.util.HashMap<>();
+		Slice<?> result;
+		if (includeTotal) {
+			Page<?> page = employeeRepository.findBy(spec, query -> searchFetchPlan(query, summary).page(pageable));
+			response.put("totalElements", page.getTotalElements());
+			response.put("totalPages", page.getTotalPages());
+			result = page;
+		} else {
+			// A Slice reads one extra row to detect a next page instead of running count(*)
+			result = employeeRepository.findBy(spec, query -> searchFetchPlan(query, summary).slice(pageable));
+		}
+		response.put("content", result.getContent());
+		response.put("pageNumber", result.getNumber() + 1); // convert to 1-based
+		response.put("pageSize", result.getSize());
+		response.put("sort", result.getSort().toString());
+		response.put("hasNext", result.hasNext());
+		if (result.hasNext()) {
+			List<?> content = result.getContent();
+			EmployeeSearchCursor next = EmployeeSearchCursor.after(content.get(content.size() - 1), sortBy, sortDirection);
+			response.put("nextCursor", next != null ? next.encode() : null);
+		}
+		return response;
+	}
+
+	/**
+	 * Keyset pagination: seeks past the cursor's sort key and employeeId instead of
+	 * skipping rows with OFFSET, so every page costs the same regardless of depth.
+	 */
+	private java.util.Map<String, Object> seekEmployees(
+		Specification<Employee> spec, EmployeeSearchCursor cursor, String sortBy, String sortDirection, int pageSize, boolean includeTotal, boolean summary
+	) {
+		if (!cursor.sortBy().equals(sortBy) || !cursor.sortDirection().equalsIgnoreCase(sortDirection)) {
+			logger.debug("Cursor sort {} {} overrides requested sort {} {}", cursor.sortBy(), cursor.sortDirection(), sortBy, sortDirection);
+		}
+		String seekSortBy = cursor.sortBy();
+		String seekSortDirection = cursor.sortDirection();
+
+		// Rows without a sort value cannot be positioned relative to the cursor key
+		Specification<Employee> seekSpec = seekSortBy.equals("employeeId")
+			? spec
+			: spec.and((root, query, cb) -> cb.isNotNull(root.get(seekSortBy)));
+		Sort sort = searchSort(seekSortBy, seekSortDirection);
+		KeysetScrollPosition position = cursor.toScrollPosition();
+
+		// Keyset scrolling does not apply the fetch plan's entity graph, so fetch-join the address explicitly
+		Specification<Employee> scrollSpec = summary ? seekSpec : seekSpec.and(EmployeeSpecifications.fetchAddress());
+		Window<?> window = employeeRepository.findBy(scrollSpec,
+			query -> searchFetchPlan(query.sortBy(sort).limit(pageSize), summary).scroll(position));
+
+		java.util.Map<String, Object> response = new java.util.HashMap<>();
+		response.put("content", window.getContent());
+		response.put("pageSize", pageSize);
+		response.put("sort", sort.toString());
+		response.put("hasNext", window.hasNext());
+		if (window.hasNext() && !window.isEmpty()) {
+			EmployeeSearchCursor next = EmployeeSearchCursor.from(
+				(KeysetScrollPosition) window.positionAt(window.size() - 1), seekSortBy, seekSortDirection);
+			response.put("nextCursor", next != null ? next.encode() : null);
+		}
+		if (includeTotal) {
+			response.put("totalElements", employeeRepository.count(seekSpec));
+		}
+		return response;
+	}
+
+	/**
+	 * Fetch plan for search pages: full employees load their address in the same select
+	 * (the manager is lazy and only its id is serialized), while the summary projection
+	 * selects just the {@link EmployeeSummary} columns.
+	 */
+	private FetchableFluentQuery<?> searchFetchPlan(FetchableFluentQuery<Employee> query, boolean summary) {
+		return summary ? query.as(EmployeeSummary.class) : query.project("address");
+	}
+
+	/**
+	 * Sort used by both pagination modes. employeeId is appended as a tie-breaker so
+	 * that the order is total and a keyset cursor taken from an offset page is stable.
+	 */
+	private Sort searchSort(String sortBy, String sortDirection) {
+		Sort sort = sortDirection.equalsIgnoreCase("desc")
+			? Sort.by(sortBy).descending()
+			: Sort.by(sortBy).ascending();
+		if (!sortBy.equals("employeeId")) {
+			sort = sort.and(Sort.by("employeeId").ascending());
+		}
+		return sort;
+	}
+
 	/**
 	 * Counts the number of employees matching the given search criteria.
+	 * Served from the in-memory {@link EmployeeBitmapIndex} when it is enabled and loaded,
+	 * otherwise by a COUNT query built from the same specification used for searches.
 	 *
 	 * @param firstName The first name of the employee (optional)
 	 * @param lastName The last name of the employee (optional)
@@ -585,6 +863,19 @@ public class EmployeeServiceImpl implements EmployeeService {
 			+ "firstName={}, lastName={}, startAge={}, endAge={}, department={}, title={}, businessUnit={}, gender={}, ethnicity={}, managerId={}, addressId={}, state={}, city={}, postalCode={}, hireDate={}, hireDateFirst={}, hireDateLast={}, terminationDate={}, terminationDateFirst={}, terminationDateLast={}, annualSalary={})",
 			firstName, lastName, startAge, endAge, department, title, businessUnit, gender, ethnicity, managerId, addressId, state, city, postalCode, hireDate, hireDateFirst, hireDateLast, terminationDate, terminationDateFirst, terminationDateLast, annualSalary);
 
+		OptionalLong indexedCount = employeeBitmapIndex.count(
+			firstName, lastName, startAge, endAge, department, title, businessUnit, gender, ethnicity,
+			managerId, addressId,
+			state != null && !state.isBlank() ? LocationNormalizer.normalizeState(state) : null,
+			city != null && !city.isBlank() ? LocationNormalizer.normalizeCity(city) : null,
+			postalCode != null && !postalCode.isBlank() ? LocationNormalizer.normalizePostalCode(postalCode) : null,
+			hireDate, hireDateFirst, hireDateLast, terminationDate, terminationDateFirst, terminationDateLast, annualSalary
+		);
+		if (indexedCount.isPresent()) {
+			logger.info("Employee count completed from bitmap index with count={}", indexedCount.getAsLong());
+			return new EmployeeCount(indexedCount.getAsLong());
+		}
+
 		Specification<Employee> spec = buildEmployeeSpecification(
 			firstName, lastName, startAge, endAge, department, title, businessUnit, gender, ethnicity,
 			managerId, addressId, state, city, postalCode, hireDate, hireDateFirst, hireDateLast, terminationDate, terminationDateFirst, terminationDateLast, annualSalary
@@ -596,6 +887,543 @@ public class EmployeeServiceImpl implements EmployeeService {
 		return new EmployeeCount(Long.valueOf(count));
 	}
 
+	/**
+	 * Counts employees matching the given criteria grouped by one or two dimensions, with
+	 * optional salary and age metrics per group. All groups are computed by a single
+	 * GROUP BY query.
+	 *
+	 * @param groupBy One or two of: department, title, businessUnit, gender, ethnicity, state, city, hireYear;
+	 *                states are grouped by 2-letter code and cities uppercased
+	 * @param metrics Any of: count, avgSalary, minSalary, maxSalary, sumSalary, avgAge (optional, count is always included)
+	 * @return The groups ordered by count descending
+	 */
+	@Tool(
+		name = "count_employees_grouped_by",
+		description = "Count employees grouped by one or two dimensions in a single call, e.g. headcount per department in Ohio " +
+		"(groupBy=[department], state=OH) or per department and gender. groupBy values: department, title, businessUnit, gender, ethnicity, " +
+		"state, city, hireYear. Optional metrics per group: count (always included), avgSalary, minSalary, maxSalary, sumSalary, avgAge. " +
+		"Accepts the same optional filters as count_employees. Prefer this over calling count_employees once per value."
+	)
+	public EmployeeGroupedCounts countEmployeesGroupedByTool(
+		@ToolParam(description = "One or two of: department, title, businessUnit, gender, ethnicity, state, city, hireYear") List<String> groupBy,
+		@ToolParam(required = false, description = "Any of: count, avgSalary, minSalary, maxSalary, sumSalary, avgAge") List<String> metrics,
+		@ToolParam(required = false) String firstName,
+		@ToolParam(required = false) String lastName,
+		@ToolParam(required = false) Integer startAge,
+		@ToolParam(required = false) Integer endAge,
+		@ToolParam(required = false) String department,
+		@ToolParam(required = false) String title,
+		@ToolParam(required = false) String businessUnit,
+		@ToolParam(required = false) String gender,
+		@ToolParam(required = false) String ethnicity,
+		@ToolParam(required = false) Long managerId,
+		@ToolParam(required = false) Long addressId,
+		@ToolParam(required = false, description = "US state in employee address; accepts 2-letter code or full state name") String state,
+		@ToolParam(required = false, description = "City in employee address") String city,
+		@ToolParam(required = false, description = "ZIP/postal code in employee address") String postalCode,
+		@ToolParam(required = false, description = "Format: YYYY-MM-DD") String hireDate,
+		@ToolParam(required = false, description = "Format: YYYY-MM-DD") String hireDateFirst,
+		@ToolParam(required = false, description = "Format: YYYY-MM-DD") String hireDateLast,
+		@ToolParam(required = false, description = "Format: YYYY-MM-DD") String terminationDate,
+		@ToolParam(required = false, description = "Format: YYYY-MM-DD") String terminationDateFirst,
+		@ToolParam(required = false, description = "Format: YYYY-MM-DD") String terminationDateLast,
+		@ToolParam(required = false) Long annualSalary
+	) {
+		return countEmployeesGroupedBy(
+			groupBy, metrics,
+			firstName, lastName, startAge, endAge, department, title, businessUnit, gender, ethnicity,
+			managerId, addressId, state, city, postalCode,
+			parseDate(hireDate), parseDate(hireDateFirst), parseDate(hireDateLast),
+			parseDate(terminationDate), parseDate(terminationDateFirst), parseDate(terminationDateLast),
+			annualSalary
+		);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public EmployeeGroupedCounts countEmployeesGroupedBy(
+		List<String> groupBy,
+		List<String> metrics,
+		String firstName,
+		String lastName,
+		Integer startAge,
+		Integer endAge,
+		String department,
+		String title,
+		String businessUnit,
+		String gender,
+		String ethnicity,
+		Long managerId,
+		Long addressId,
+		String state,
+		String city,
+		String postalCode,
+		LocalDate hireDate,
+		LocalDate hireDateFirst,
+		LocalDate hireDateLast,
+		LocalDate terminationDate,
+		LocalDate terminationDateFirst,
+		LocalDate terminationDateLast,
+		Long annualSalary
+	) {
+		logger.debug("Entering countEmployeesGroupedBy with groupBy={} metrics={}", groupBy, metrics);
+
+		List<String> dimensions = resolveGroupDimensions(groupBy);
+		List<String> requestedMetrics = resolveGroupMetrics(metrics);
+
+		Specification<Employee> spec = buildEmployeeSpecification(
+			firstName, lastName, startAge, endAge, department, title, businessUnit, gender, ethnicity,
+			managerId, addressId, state, city, postalCode, hireDate, hireDateFirst, hireDateLast, terminationDate, terminationDateFirst, terminationDateLast, annualSalary
+		);
+
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<Employee> root = query.from(Employee.class);
+
+		Join<Employee, Address> address = null;
+		List<Expression<?>> groupExpressions = new ArrayList<>();
+		for (String dimension : dimensions) {
+			Expression<?> expression;
+			if ("state".equals(dimension) || "city".equals(dimension)) {
+				if (address == null) {
+					address = root.join("address", JoinType.LEFT);
+				}
+				// "Georgia", "GA" and " ga" are one group, as they are one value when filtering
+				expression = address.get(dimension + "Normalized");
+			} else if ("hireYear".equals(dimension)) {
+				expression = cb.extract(LocalDateField.YEAR, root.<LocalDate>get("hireDate"));
+			} else {
+				expression = root.get(dimension);
+			}
+			groupExpressions.add(expression);
+		}
+
+		List<Selection<?>> selections = new ArrayList<>(groupExpressions);
+		Expression<Long> count = cb.count(root);
+		selections.add(count.alias("count"));
+		Expression<Long> salary = root.get("annualSalary");
+		if (requestedMetrics.contains("avgSalary")) {
+			selections.add(cb.avg(salary).alias("avgSalary"));
+		}
+		if (requestedMetrics.contains("minSalary")) {
+			selections.add(cb.min(salary).alias("minSalary"));
+		}
+		if (requestedMetrics.contains("maxSalary")) {
+			selections.add(cb.max(salary).alias("maxSalary"));
+		}
+		if (requestedMetrics.contains("sumSalary")) {
+			selections.add(cb.sum(salary).alias("sumSalary"));
+		}
+		if (requestedMetrics.contains("avgAge")) {
+			selections.add(cb.avg(root.<Long>get("age")).alias("avgAge"));
+		}
+
+		List<Order> order = new ArrayList<>();
+		order.add(cb.desc(count));
+		groupExpressions.forEach(expression -> order.add(cb.asc(expression)));
+
+		query.multiselect(selections)
+			.where(spec.toPredicate(root, query, cb))
+			.groupBy(groupExpressions)
+			.orderBy(order);
+
+		List<Tuple> rows = entityManager.createQuery(query).getResultList();
+
+		List<EmployeeGroupCount> groups = new ArrayList<>(rows.size());
+		long totalCount = 0;
+		for (Tuple row : rows) {
+			Map<String, Object> group = new LinkedHashMap<>();
+			for (int i = 0; i < dimensions.size(); i++) {
+				group.put(dimensions.get(i), row.get(i));
+			}
+			Long groupCount = row.get("count", Long.class);
+			totalCount += groupCount;
+			groups.add(new EmployeeGroupCount(
+				group,
+				groupCount,
+				requestedMetrics.contains("avgSalary") ? row.get("avgSalary", Double.class) : null,
+				requestedMetrics.contains("minSalary") ? row.get("minSalary", Long.class) : null,
+				requestedMetrics.contains("maxSalary") ? row.get("maxSalary", Long.class) : null,
+				requestedMetrics.contains("sumSalary") ? row.get("sumSalary", Long.class) : null,
+				requestedMetrics.contains("avgAge") ? row.get("avgAge", Double.class) : null
+			));
+		}
+
+		logger.info("Grouped employee count completed with {} groups and totalCount={}", groups.size(), totalCount);
+		return new EmployeeGroupedCounts(dimensions, requestedMetrics, totalCount, groups);
+	}
+
+	private List<String> resolveGroupDimensions(List<String> groupBy) {
+		List<String> dimensions = new ArrayList<>();
+		if (groupBy != null) {
+			for (String value : groupBy) {
+				if (value == null || value.isBlank()) {
+					continue;
+				}
+				String dimension = GROUP_BY_DIMENSIONS.get(value.replaceAll("[\\s_-]", "").toLowerCase(Locale.US));
+				if (dimension == null) {
+					throw new InvalidRequestException("Unsupported groupBy '" + value + "'. Supported values: " + String.join(", ", GROUP_BY_DIMENSIONS.values().stream().distinct().sorted().toList()));
+				}
+				if (!dimensions.contains(dimension)) {
+					dimensions.add(dimension);
+				}
+			}
+		}
+		if (dimensions.isEmpty() || dimensions.size() > 2) {
+			throw new InvalidRequestException("groupBy must name one or two dimensions, got " + groupBy);
+		}
+		return dimensions;
+	}
+
+	private List<String> resolveGroupMetrics(List<String> metrics) {
+		List<String> resolved = new ArrayList<>();
+		resolved.add("count");
+		if (metrics != null) {
+			for (String value : metrics) {
+				if (value == null || value.isBlank()) {
+					continue;
+				}
+				String metric = GROUP_METRICS.get(value.replaceAll("[\\s_-]", "").toLowerCase(Locale.US));
+				if (metric == null) {
+					throw new InvalidRequestException("Unsupported metric '" + value + "'. Supported values: count, avgSalary, minSalary, maxSalary, sumSalary, avgAge");
+				}
+				if (!resolved.contains(metric)) {
+					resolved.add(metric);
+				}
+			}
+		}
+		return resolved;
+	}
+
+	/**
+	 * Sets the given fields on every employee matching the filters with a single criteria
+	 * bulk UPDATE, e.g. moving a whole department under a new manager in one call. With
+	 * dryRun the matching employees are only counted.
+	 *
+	 * @param dryRun Only count the matching employees (optional, default false)
+	 * @param newDepartment The department to set (optional)
+	 * @param newTitle The job title to set (optional)
+	 * @param newBusinessUnit The business unit to set (optional)
+	 * @param newManagerId The ID of the manager to set (optional); rejected when they or anyone above
+	 *                     them in the reporting chain matches the filters
+	 * @param newAddressId The ID of the address to set (optional)
+	 * @param newAnnualSalary The annual salary to set (optional)
+	 * @param newTerminationDate The termination date to set (optional)
+	 * @return The number of matching and updated employees and the applied changes
+	 */
+	@Tool(
+		name = "update_employees_matching",
+		description = "Set the same fields on every employee matching the filters in a single update, e.g. move everyone in a department " +
+		"under a new manager (department=X, newManagerId=Y). Fields that can be set: newDepartment, newTitle, newBusinessUnit, newManagerId, " +
+		"newAddressId, newAnnualSalary, newTerminationDate (Format: YYYY-MM-DD). Accepts the same optional filters as count_employees; at least one " +
+		"filter is required. Call with dryRun=true first to get the number of employees that would change and confirm it with the user " +
+		"before calling with dryRun=false. Prefer this over calling update_employee once per employee."
+	)
+	@Transactional
+	public EmployeeBulkUpdateResult updateEmployeesMatchingTool(
+		@ToolParam(required = false, description = "true to only count the matching employees") Boolean dryRun,
+		@ToolParam(required = false) String newDepartment,
+		@ToolParam(required = false) String newTitle,
+		@ToolParam(required = false) String newBusinessUnit,
+		@ToolParam(required = false) Long newManagerId,
+		@ToolParam(required = false) Long newAddressId,
+		@ToolParam(required = false) Long newAnnualSalary,
+		@ToolParam(required = false, description = "Format: YYYY-MM-DD") String newTerminationDate,
+		@ToolParam(required = false) String firstName,
+		@ToolParam(required = false) String lastName,
+		@ToolParam(required = false) Integer startAge,
+		@ToolParam(required = false) Integer endAge,
+		@ToolParam(required = false) String department,
+		@ToolParam(required = false) String title,
+		@ToolParam(required = false) String businessUnit,
+		@ToolParam(required = false) String gender,
+		@ToolParam(required = false) String ethnicity,
+		@ToolParam(required = false) Long managerId,
+		@ToolParam(required = false) Long addressId,
+		@ToolParam(required = false, description = "US state in employee address; accepts 2-letter code or full state name") String state,
+		@ToolParam(required = false, description = "City in employee address") String city,
+		@ToolParam(required = false, description = "ZIP/postal code in employee address") String postalCode,
+		@ToolParam(required = false, description = "Format: YYYY-MM-DD") String hireDate,
+		@ToolParam(required = false, description = "Format: YYYY-MM-DD") String hireDateFirst,
+		@ToolParam(required = false, description = "Format: YYYY-MM-DD") String hireDateLast,
+		@ToolParam(required = false, description = "Format: YYYY-MM-DD") String terminationDate,
+		@ToolParam(required = false, description = "Format: YYYY-MM-DD") String terminationDateFirst,
+		@ToolParam(required = false, description = "Format: YYYY-MM-DD") String terminationDateLast,
+		@ToolParam(required = false) Long annualSalary
+	) {
+		return updateEmployeesMatching(
+			dryRun, newDepartment, newTitle, newBusinessUnit, newManagerId, newAddressId, newAnnualSalary, parseDate(newTerminationDate),
+			firstName, lastName, startAge, endAge, department, title, businessUnit, gender, ethnicity,
+			managerId, addressId, state, city, postalCode,
+			parseDate(hireDate), parseDate(hireDateFirst), parseDate(hireDateLast),
+			parseDate(terminationDate), parseDate(terminationDateFirst), parseDate(terminationDateLast),
+			annualSalary
+		);
+	}
+
+	@Override
+	@Transactional
+	public EmployeeBulkUpdateResult updateEmployeesMatching(
+		Boolean dryRun,
+		String newDepartment,
+		String newTitle,
+		String newBusinessUnit,
+		Long newManagerId,
+		Long newAddressId,
+		Long newAnnualSalary,
+		LocalDate newTerminationDate,
+		String firstName,
+		String lastName,
+		Integer startAge,
+		Integer endAge,
+		String department,
+		String title,
+		String businessUnit,
+		String gender,
+		String ethnicity,
+		Long managerId,
+		Long addressId,
+		String state,
+		String city,
+		String postalCode,
+		LocalDate hireDate,
+		LocalDate hireDateFirst,
+		LocalDate hireDateLast,
+		LocalDate terminationDate,
+		LocalDate terminationDateFirst,
+		LocalDate terminationDateLast,
+		Long annualSalary
+	) {
+		boolean countOnly = Boolean.TRUE.equals(dryRun);
+		logger.debug("Entering updateEmployeesMatching with dryRun={} newDepartment={} newTitle={} newBusinessUnit={} newManagerId={} newAddressId={} newAnnualSalary={} newTerminationDate={}",
+			countOnly, newDepartment, newTitle, newBusinessUnit, newManagerId, newAddressId, newAnnualSalary, newTerminationDate);
+
+		boolean filtered = Stream.of(firstName, lastName, department, title, businessUnit, gender, ethnicity, state, city, postalCode)
+				.anyMatch(value -> value != null && !value.isBlank())
+			|| Stream.of(managerId, addressId, annualSalary, hireDate, terminationDate).anyMatch(value -> value != null)
+			|| (startAge != null && endAge != null)
+			|| (hireDateFirst != null && hireDateLast != null)
+			|| (terminationDateFirst != null && terminationDateLast != null);
+		if (!filtered) {
+			throw new InvalidRequestException("At least one filter is required; refusing to update every employee");
+		}
+
+		Map<String, Object> changes = new LinkedHashMap<>();
+		if (newDepartment != null && !newDepartment.isEmpty()) {
+			changes.put("department", newDepartment);
+		}
+		if (newTitle != null && !newTitle.isEmpty()) {
+			changes.put("title", newTitle);
+		}
+		if (newBusinessUnit != null && !newBusinessUnit.isEmpty()) {
+			changes.put("businessUnit", newBusinessUnit);
+		}
+		if (newAnnualSalary != null) {
+			changes.put("annualSalary", newAnnualSalary);
+		}
+		if (newTerminationDate != null) {
+			changes.put("terminationDate", newTerminationDate);
+		}
+		Employee newManager = null;
+		if (newManagerId != null) {
+			newManager = employeeRepository.findById(newManagerId)
+					.orElseThrow(() -> new ResourceNotFoundException("Employee manager", newManagerId));
+			changes.put("managerId", newManagerId);
+		}
+		Address newAddress = null;
+		if (newAddressId != null) {
+			newAddress = addressRepository.findById(newAddressId)
+					.orElseThrow(() -> new ResourceNotFoundException("Address", newAddressId));
+			changes.put("addressId", newAddressId);
+		}
+		if (changes.isEmpty()) {
+			throw new InvalidRequestException("Specify at least one field to change: newDepartment, newTitle, newBusinessUnit, newManagerId, newAddressId, newAnnualSalary, newTerminationDate");
+		}
+
+		// Location filters are applied separately, since a bulk update cannot join the address
+		Specification<Employee> spec = buildEmployeeSpecification(
+			firstName, lastName, startAge, endAge, department, title, businessUnit, gender, ethnicity,
+			managerId, addressId, null, null, null, hireDate, hireDateFirst, hireDateLast, terminationDate, terminationDateFirst, terminationDateLast, annualSalary
+		);
+		boolean locationFiltered = Stream.of(state, city, postalCode).anyMatch(value -> value != null && !value.isBlank());
+
+		if (newManagerId != null) {
+			// The new manager and everyone above them: a matched employee among them would end up
+			// reporting to someone who reports to them
+			List<Long> managerChain = new ArrayList<>();
+			for (Employee above = newManager; above != null && !managerChain.contains(above.getEmployeeId()); above = above.getManager()) {
+				managerChain.add(above.getEmployeeId());
+			}
+			Specification<Employee> managerChainMatches = spec
+				.and((root, query, cb) -> root.get("employeeId").in(managerChain))
+				.and((root, query, cb) -> locationFiltered
+					? EmployeeSpecifications.hasAddressMatching(query, root, cb, state, city, postalCode)
+					: cb.conjunction());
+			List<Employee> matchedAbove = employeeRepository.findAll(managerChainMatches, PageRequest.of(0, 1)).getContent();
+			if (!matchedAbove.isEmpty()) {
+				Long matchedId = matchedAbove.getFirst().getEmployeeId();
+				throw new InvalidRequestException(matchedId.equals(newManagerId)
+					? "Employee " + newManagerId + " matches the filters and cannot become their own manager; narrow the filters to exclude them"
+					: "Employee " + matchedId + " matches the filters and is above employee " + newManagerId
+						+ " in the reporting chain, so the update would create a reporting cycle; narrow the filters to exclude them");
+			}
+		}
+
+		if (countOnly) {
+			long matched = countEmployees(
+				firstName, lastName, startAge, endAge, department, title, businessUnit, gender, ethnicity,
+				managerId, addressId, state, city, postalCode, hireDate, hireDateFirst, hireDateLast, terminationDate, terminationDateFirst, terminationDateLast, annualSalary
+			).getCount();
+			logger.info("Bulk employee update dry run matched {} employees for changes {}", matched, changes);
+			return new EmployeeBulkUpdateResult(true, matched, 0, changes);
+		}
+
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaUpdate<Employee> update = cb.createCriteriaUpdate(Employee.class);
+		Root<Employee> root = update.from(Employee.class);
+		for (Map.Entry<String, Object> change : changes.entrySet()) {
+			switch (change.getKey()) {
+				case "managerId" -> update.set(root.<Employee>get("manager"), newManager);
+				case "addressId" -> update.set(root.<Address>get("address"), newAddress);
+				default -> update.set(root.get(change.getKey()), change.getValue());
+			}
+		}
+		Predicate filter = spec.toPredicate(root, null, cb);
+		if (locationFiltered) {
+			filter = cb.and(filter, EmployeeSpecifications.hasAddressMatching(update, root, cb, state, city, postalCode));
+		}
+		update.where(filter);
+
+		entityManager.flush();
+		int updated = entityManager.createQuery(update).executeUpdate();
+		// The bulk update bypasses the persistence context, so drop any stale copies of the rows
+		entityManager.clear();
+
+		if (updated > 0) {
+			// Bulk updates publish no per-row EmployeeChangedEvent; the in-memory views reload once committed
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					eventPublisher.publishEvent(new EmployeesBulkChangedEvent("bulk employee update", updated));
+				}
+			});
+		}
+
+		logger.info("Bulk employee update completed with updatedCount={} for changes {}", updated, changes);
+		return new EmployeeBulkUpdateResult(false, updated, updated, changes);
+	}
+
+	/**
+	 * Finds employees whose name and/or title approximately match the given text, for
+	 * example "Jon Smyth" finding "John Smith". Served from the in-memory
+	 * {@link EmployeeTrigramIndex}, so no LIKE scan of the employee table is run.
+	 *
+	 * @param name Free-form first and/or last name (optional if title is given)
+	 * @param title Job title (optional if name is given)
+	 * @param limit Maximum number of candidates (optional, default 10, at most 100)
+	 * @param minSimilarity Minimum similarity from 0 to 1 (optional, default 0.3)
+	 * @return Candidates ranked by similarity descending
+	 */
+	@Override
+	@Tool(
+		name = "fuzzy_search_employees",
+		description = "Find employees by approximate name and/or title when the exact spelling is unknown, e.g. \"Jon Smyth\" finds John Smith. " +
+		"Returns ranked candidates with employeeId and a similarity score from 0 to 1. Use the employeeId with other tools to get details."
+	)
+	public List<EmployeeMatch> fuzzySearchEmployees(
+		@ToolParam(required = false, description = "First and/or last name, any spelling") String name,
+		@ToolParam(required = false, description = "Job title, any spelling") String title,
+		@ToolParam(required = false, description = "Maximum number of candidates, default 10") Integer limit,
+		@ToolParam(required = false, description = "Minimum similarity from 0 to 1, default 0.3") Double minSimilarity
+	) {
+		logger.debug("Entering fuzzySearchEmployees with name={} title={} limit={} minSimilarity={}", name, title, limit, minSimilarity);
+		if ((name == null || name.isBlank()) && (title == null || title.isBlank())) {
+			throw new InvalidRequestException("fuzzy_search_employees requires a name or a title");
+		}
+		int resolvedLimit = limit == null || limit < 1 ? FUZZY_SEARCH_DEFAULT_LIMIT : Math.min(limit, FUZZY_SEARCH_MAX_LIMIT);
+		double resolvedMinSimilarity = minSimilarity == null ? FUZZY_SEARCH_DEFAULT_SIMILARITY : Math.max(0, Math.min(1, minSimilarity));
+
+		long start = System.nanoTime();
+		List<EmployeeMatch> matches = employeeTrigramIndex.search(name, title, resolvedLimit, resolvedMinSimilarity);
+		logger.info("Fuzzy employee search returned {} matches in {} us", matches.size(), (System.nanoTime() - start) / 1_000);
+		return matches;
+	}
+
+	/**
+	 * Returns the managers above an employee, from the direct manager up to the top of the
+	 * organization, from the in-memory {@link EmployeeHierarchyIndex}.
+	 *
+	 * @param employeeId The ID of the employee
+	 * @return The chain of managers; level 1 is the direct manager
+	 */
+	@Override
+	@Tool(
+		name = "get_reporting_chain",
+		description = "Get the full management chain above an employee in one call, from the direct manager (level 1) up to the top of " +
+		"the organization. Prefer this over calling get_employee_with_id once per level."
+	)
+	public List<OrgChartEntry> getReportingChain(Long employeeId) {
+		logger.debug("Entering getReportingChain with employeeId={}", employeeId);
+		List<OrgChartEntry> chain = employeeHierarchyIndex.reportingChain(employeeId);
+		if (chain == null) {
+			throw new ResourceNotFoundException("Employee", employeeId);
+		}
+		logger.info("Reporting chain of employeeId={} has {} managers", employeeId, chain.size());
+		return chain;
+	}
+
+	/**
+	 * Returns one page of all direct and indirect reports of a manager, in depth-first
+	 * order, from the in-memory {@link EmployeeHierarchyIndex}.
+	 *
+	 * @param managerId The ID of the manager
+	 * @param pageNumber The page number to retrieve (1-based, optional, default 1)
+	 * @param pageSize The number of reports per page (optional, default 10, at most 1000)
+	 * @return The page of reports with the total count
+	 */
+	@Override
+	@Tool(
+		name = "get_all_reports",
+		description = "Get everyone in a manager's organization: direct reports and their reports at every level, paginated. " +
+		"Each report is listed after its own manager and carries its level below the manager (1 = direct report). " +
+		"Optional parameters: pageNumber (1-based, default 1), pageSize (default 10, at most 1000)."
+	)
+	public EmployeeReports getAllReports(
+		Long managerId,
+		@ToolParam(required = false) Integer pageNumber,
+		@ToolParam(required = false) Integer pageSize
+	) {
+		logger.debug("Entering getAllReports with managerId={} pageNumber={} pageSize={}", managerId, pageNumber, pageSize);
+		int resolvedPageNumber = pageNumber == null || pageNumber < 1 ? 1 : pageNumber;
+		int resolvedPageSize = pageSize == null || pageSize < 1 ? 10 : Math.min(pageSize, REPORTS_MAX_PAGE_SIZE);
+		EmployeeReports reports = employeeHierarchyIndex.reports(managerId, resolvedPageNumber, resolvedPageSize);
+		if (reports == null) {
+			throw new ResourceNotFoundException("Employee", managerId);
+		}
+		logger.info("Returned {} of {} reports of managerId={}", reports.reports().size(), reports.totalCount(), managerId);
+		return reports;
+	}
+
+	/**
+	 * Counts all direct and indirect reports of a manager in constant time from the
+	 * in-memory {@link EmployeeHierarchyIndex}.
+	 *
+	 * @param managerId The ID of the manager
+	 * @return The number of employees in the manager's organization, excluding the manager
+	 */
+	@Override
+	@Tool(
+		name = "count_subtree",
+		description = "Count everyone in a manager's organization: direct reports and their reports at every level, excluding the manager."
+	)
+	public EmployeeCount countSubtree(Long managerId) {
+		logger.debug("Entering countSubtree with managerId={}", managerId);
+		long count = employeeHierarchyIndex.subtreeSize(managerId)
+			.orElseThrow(() -> new ResourceNotFoundException("Employee", managerId));
+		logger.info("Subtree of managerId={} has {} employees", managerId, count);
+		return new EmployeeCount(count);
+	}
+
 	@Tool(
 		name = "count_employees_in_state",
 		description = "Count employees whose address is in a US state. Accepts full name (e.g. Georgia) or 2-letter code (e.g. GA)."
@@ -728,7 +1556,10 @@ public class EmployeeServiceImpl implements EmployeeService {
 			pageNumber,
 			pageSize,
 			sortBy,
-			sortDirection
+			sortDirection,
+			null,
+			null,
+			null
 		);
 	}
 
@@ -786,37 +1617,17 @@ public class EmployeeServiceImpl implements EmployeeService {
 			spec = spec.and(EmployeeSpecifications.hasAddressId(addressId));
 		}
 		if (state != null && !state.isBlank()) {
-			spec = spec.and(EmployeeSpecifications.hasAddressState(normalizeUsState(state)));
+			spec = spec.and(EmployeeSpecifications.hasAddressState(LocationNormalizer.normalizeState(state)));
 		}
 		if (city != null && !city.isBlank()) {
-			spec = spec.and(EmployeeSpecifications.hasAddressCity(normalizeCity(city)));
+			spec = spec.and(EmployeeSpecifications.hasAddressCity(LocationNormalizer.normalizeCity(city)));
 		}
 		if (postalCode != null && !postalCode.isBlank()) {
-			spec = spec.and(EmployeeSpecifications.hasAddressPostalCode(normalizePostalCode(postalCode)));
+			spec = spec.and(EmployeeSpecifications.hasAddressPostalCode(LocationNormalizer.normalizePostalCode(postalCode)));
 		}
 		return spec;
 	}
 
-	private String normalizeUsState(String state) {
-		String trimmed = state.trim();
-		if (trimmed.length() == 2) {
-			return trimmed.toUpperCase(Locale.ROOT);
-		}
-		String mapped = US_STATE_TO_ABBREVIATION.get(trimmed.toLowerCase(Locale.ROOT));
-		if (mapped != null) {
-			return mapped;
-		}
-		return trimmed.toUpperCase(Locale.ROOT);
-	}
-
-	private String normalizeCity(String city) {
-		return city.trim().toUpperCase(Locale.ROOT);
-	}
-
-	private String normalizePostalCode(String postalCode) {
-		return postalCode.trim();
-	}
-
 	private LocalDate parseDate(String dateStr) {
 		if (dateStr == null || dateStr.trim().isEmpty()) {
 			return null;
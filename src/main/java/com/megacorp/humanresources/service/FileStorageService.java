@@ -6,12 +6,15 @@ import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.megacorp.humanresources.model.FileItem;
+import com.megacorp.humanresources.model.FileVersion;
 
 public interface FileStorageService {
     String readFile(String fileName);
 
     List<String> listFiles(String prefix);
 
+    List<FileVersion> listFileVersions(String prefix);
+
     String deleteFile(String fileName);
 
     byte[] retrieveFile(String fileName);
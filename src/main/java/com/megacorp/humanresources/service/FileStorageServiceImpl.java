@@ -25,6 +25,7 @@ import org.springframework.core.io.Resource;
 
 import java.util.concurrent.TimeUnit;
 import com.megacorp.humanresources.model.FileItem;
+import com.megacorp.humanresources.model.FileVersion;
 
 import com.google.auth.ServiceAccountSigner;
 import com.google.auth.oauth2.GoogleCredentials;
@@ -292,6 +293,35 @@ public class FileStorageServiceImpl implements FileStorageService {
         return fileNames;
     }
 
+    /**
+     * Lists the files directly under a prefix with their GCS generation and MD5 hash, so that
+     * callers can tell whether an object changed since they last read it without downloading it.
+     *
+     * @param prefix The prefix (folder) to list
+     * @return The files under the prefix, excluding sub-folders
+     */
+    @Override
+    public List<FileVersion> listFileVersions(String prefix) {
+        logger.debug("Entering listFileVersions with prefix={}", prefix);
+
+        List<FileVersion> files = new ArrayList<>();
+        try {
+            Storage storage = StorageOptions.newBuilder().setProjectId(projectId).build().getService();
+            for (Blob blob : storage
+                .list(bucketName, BlobListOption.currentDirectory(), BlobListOption.prefix(prefix))
+                .iterateAll()) {
+                if (!blob.isDirectory()) {
+                    files.add(new FileVersion(blob.getName(), blob.getGeneration(), blob.getMd5(), blob.getSize()));
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Exception occurred while listing file versions for prefix={}", prefix, e);
+            throw e;
+        }
+        logger.info("Listed {} file versions for prefix={}", files.size(), prefix);
+        return files;
+    }
+
     /**
      * Returns a list of public URLs for all files in a given folder in the GCS bucket.
      *
@@ -0,0 +1,11 @@
+package com.megacorp.humanresources.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.megacorp.humanresources.model.HeadcountSeries;
+
+public interface HeadcountService {
+
+	List<HeadcountSeries> getHeadcountSeries(String dimension, String value, String granularity, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,134 @@
+package com.megacorp.humanresources.service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.stereotype.Service;
+
+import com.megacorp.humanresources.exceptions.InvalidRequestException;
+import com.megacorp.humanresources.exceptions.ResourceNotFoundException;
+import com.megacorp.humanresources.index.EmployeeHeadcountIndex;
+import com.megacorp.humanresources.index.EmployeeHeadcountIndex.Granularity;
+import com.megacorp.humanresources.model.HeadcountSeries;
+import com.megacorp.humanresources.service.helper.EmployeeDimensions;
+
+/**
+ * Headcount over time (active employees, hires and terminations per day, week, month,
+ * quarter or year) per department, title or business unit, answered from the in-memory
+ * {@link EmployeeHeadcountIndex} in one call instead of one count per period.
+ */
+@Service
+public class HeadcountServiceImpl implements HeadcountService {
+
+	private static final Logger logger = LoggerFactory.getLogger(HeadcountServiceImpl.class);
+
+	// Upper bound on periods times series in one response
+	private static final long MAX_POINTS = 10_000;
+
+	private final EmployeeHeadcountIndex employeeHeadcountIndex;
+
+	public HeadcountServiceImpl(EmployeeHeadcountIndex employeeHeadcountIndex) {
+		this.employeeHeadcountIndex = employeeHeadcountIndex;
+	}
+
+	@Tool(
+		name = "get_headcount_series",
+		description = "Get headcount over time in one call: for every day, week, month, quarter or year the number of hires, terminations " +
+		"and employees active at the end of the period. For all employees, one department, title or business unit (dimension and value), " +
+		"or every group of a dimension (dimension only), e.g. monthly headcount per department since 2015. Prefer this over repeated " +
+		"count_employees calls with hire and termination date ranges."
+	)
+	public List<HeadcountSeries> getHeadcountSeriesTool(
+		@ToolParam(required = false, description = "One of: department, title, businessUnit. Omit for all employees") String dimension,
+		@ToolParam(required = false, description = "Exact department, title or business unit name, e.g. Sales. Omit for every group of the dimension") String value,
+		@ToolParam(required = false, description = "day, week, month (default), quarter or year") String granularity,
+		@ToolParam(required = false, description = "First date, format: YYYY-MM-DD. Default: the earliest hire date") String from,
+		@ToolParam(required = false, description = "Last date, format: YYYY-MM-DD. Default: today") String to
+	) {
+		return getHeadcountSeries(dimension, value, granularity, parseDate("from", from), parseDate("to", to));
+	}
+
+	/**
+	 * Produces headcount series. With a dimension and a value one group is covered, with
+	 * only a dimension every group of it over the same periods, and without either all
+	 * employees.
+	 *
+	 * @param dimension department, title or businessUnit (optional)
+	 * @param value The department, title or business unit name (optional)
+	 * @param granularity day, week, month, quarter or year (optional, default month)
+	 * @param from Any day of the first period (optional, default the earliest hire date)
+	 * @param to Any day of the last period (optional, default today)
+	 * @return One series per group
+	 */
+	@Override
+	public List<HeadcountSeries> getHeadcountSeries(String dimension, String value, String granularity, LocalDate from, LocalDate to) {
+		logger.debug("Entering getHeadcountSeries with dimension={} value={} granularity={} from={} to={}",
+			dimension, value, granularity, from, to);
+		String resolvedDimension = EmployeeDimensions.resolve(dimension, value, false);
+		Granularity resolvedGranularity = resolveGranularity(granularity);
+		LocalDate resolvedTo = to != null ? to : LocalDate.now();
+		LocalDate resolvedFrom = from != null ? from : employeeHeadcountIndex.firstEventDate();
+		if (resolvedFrom == null) {
+			resolvedFrom = resolvedTo;
+		}
+		if (resolvedFrom.isAfter(resolvedTo)) {
+			throw new InvalidRequestException("from " + resolvedFrom + " is after to " + resolvedTo);
+		}
+
+		boolean perGroup = resolvedDimension != null && (value == null || value.isBlank());
+		long points = resolvedGranularity.periodsBetween(resolvedFrom, resolvedTo)
+			* (perGroup ? Math.max(1, employeeHeadcountIndex.groupCount(resolvedDimension)) : 1);
+		if (points > MAX_POINTS) {
+			throw new InvalidRequestException("The request covers " + points + " periods, more than " + MAX_POINTS
+				+ ". Use a coarser granularity, a shorter date range or a single group.");
+		}
+
+		long start = System.nanoTime();
+		List<HeadcountSeries> series;
+		if (perGroup) {
+			series = employeeHeadcountIndex.seriesPerGroup(resolvedDimension, resolvedGranularity, resolvedFrom, resolvedTo);
+		} else {
+			HeadcountSeries single = employeeHeadcountIndex.series(resolvedDimension, value, resolvedGranularity, resolvedFrom, resolvedTo);
+			if (single == null) {
+				throw new ResourceNotFoundException("Headcount group", resolvedDimension + "=" + value);
+			}
+			series = List.of(single);
+		}
+		logger.info("Headcount series for {}={} returned {} series of {} {} periods in {} us", resolvedDimension, value,
+			series.size(), series.isEmpty() ? 0 : series.get(0).periods().size(), resolvedGranularity.label(),
+			(System.nanoTime() - start) / 1_000);
+		return series;
+	}
+
+	private Granularity resolveGranularity(String granularity) {
+		if (granularity == null || granularity.isBlank()) {
+			return Granularity.MONTH;
+		}
+		String normalized = granularity.trim().toUpperCase(Locale.US);
+		if (normalized.endsWith("LY")) {
+			normalized = normalized.equals("DAILY") ? "DAY" : normalized.substring(0, normalized.length() - 2);
+		}
+		try {
+			return Granularity.valueOf(normalized);
+		} catch (IllegalArgumentException e) {
+			throw new InvalidRequestException("Unsupported granularity '" + granularity + "'. Supported values: day, week, month, quarter, year");
+		}
+	}
+
+	private LocalDate parseDate(String name, String value) {
+		if (value == null || value.isBlank()) {
+			return null;
+		}
+		try {
+			return LocalDate.parse(value.trim());
+		} catch (DateTimeParseException e) {
+			throw new InvalidRequestException(name + " must be a date in the format YYYY-MM-DD, got '" + value + "'");
+		}
+	}
+}
@@ -0,0 +1,205 @@
+package com.megacorp.humanresources.service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.megacorp.humanresources.events.PolicyIndexChangedEvent;
+import com.megacorp.humanresources.model.PolicyRagResponse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Semantic cache of policy answers: a question is answered from the cache when its embedding
+ * is within {@code rag.policies.answer-cache.max-distance} cosine distance of a question that
+ * was answered with the same topK and similarity threshold. Keyword questions, which are answered
+ * without embedding them, are cached by their normalized terms instead.
+ *
+ * Entries expire after {@code rag.policies.answer-cache.ttl}, the least recently used entry is
+ * dropped once {@code rag.policies.answer-cache.max-entries} are cached, and everything is
+ * dropped when a {@link PolicyIndexChangedEvent} reports that the indexed policies changed.
+ * Every invalidation starts a new generation; an answer computed during an earlier generation
+ * is not stored, since it may come from chunks that were just replaced.
+ *
+ * Lookups scan all entries, which for a few hundred entries costs far less than the embedding
+ * request that precedes them. Hits and misses are counted in
+ * {@code hr.rag.policy.answer.cache.requests}, tagged with the result, and every hit records in
+ * {@code hr.rag.policy.answer.cache.saved} how long computing the cached answer took.
+ */
+@Component
+class PolicyAnswerCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PolicyAnswerCache.class);
+
+    static final String REQUESTS_METRIC = "hr.rag.policy.answer.cache.requests";
+    static final String SAVED_METRIC = "hr.rag.policy.answer.cache.saved";
+
+    private final int maxEntries;
+    private final double maxDistance;
+    private final long ttlNanos;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long nextKey = 0;
+    private long generation = 0;
+
+    /**
+     * @param unitEmbedding The normalized question embedding, or null for a keyword question
+     * @param keywordTerms The terms of a keyword question, or null
+     */
+    private record Entry(float[] unitEmbedding, String keywordTerms, int topK, double similarityThreshold,
+            PolicyRagResponse response, long computeNanos, long createdNanos) {
+    }
+
+    PolicyAnswerCache(@Value("${rag.policies.answer-cache.max-entries:500}") int maxEntries,
+            @Value("${rag.policies.answer-cache.max-distance:0.05}") double maxDistance,
+            @Value("${rag.policies.answer-cache.ttl:12h}") Duration ttl,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.maxEntries = maxEntries;
+        this.maxDistance = maxDistance;
+        this.ttlNanos = ttl.toNanos();
+        this.meterRegistry = meterRegistry;
+    }
+
+    boolean isEnabled() {
+        return maxEntries > 0;
+    }
+
+    synchronized long generation() {
+        return generation;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the cached answer of the closest earlier question asked with the same topK and
+     * similarity threshold, or null when no question is within the maximum distance.
+     */
+    PolicyRagResponse find(float[] questionEmbedding, int topK, double similarityThreshold) {
+        float[] unit = Vectors.unit(questionEmbedding);
+        return find(topK, similarityThreshold, entry -> entry.unitEmbedding() == null
+            || entry.unitEmbedding().length != unit.length ? Double.POSITIVE_INFINITY : 1.0 - Vectors.dot(unit, entry.unitEmbedding()));
+    }
+
+    /**
+     * Returns the cached answer of an earlier keyword question with the same terms, topK and
+     * similarity threshold, or null.
+     *
+     * @param keywordTerms The normalized terms of the question
+     */
+    PolicyRagResponse findKeyword(String keywordTerms, int topK, double similarityThreshold) {
+        return find(topK, similarityThreshold, entry -> keywordTerms.equals(entry.keywordTerms()) ? 0 : Double.POSITIVE_INFINITY);
+    }
+
+    private PolicyRagResponse find(int topK, double similarityThreshold, ToDoubleFunction<Entry> distanceTo) {
+        Entry best = null;
+        Long bestKey = null;
+        double bestDistance = maxDistance;
+        synchronized (this) {
+            long now = System.nanoTime();
+            Iterator<Map.Entry<Long, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Long, Entry> cached = iterator.next();
+                Entry entry = cached.getValue();
+                if (now - entry.createdNanos() > ttlNanos) {
+                    iterator.remove();
+                    continue;
+                }
+                if (entry.topK() != topK || entry.similarityThreshold() != similarityThreshold) {
+                    continue;
+                }
+                double distance = distanceTo.applyAsDouble(entry);
+                if (distance <= bestDistance) {
+                    best = entry;
+                    bestKey = cached.getKey();
+                    bestDistance = distance;
+                }
+            }
+            if (bestKey != null) {
+                // Moves the entry to the most recently used end
+                entries.get(bestKey);
+            }
+        }
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (best == null) {
+            if (registry != null) {
+                Counter.builder(REQUESTS_METRIC).tag("result", "miss").register(registry).increment();
+            }
+            return null;
+        }
+        if (registry != null) {
+            Counter.builder(REQUESTS_METRIC).tag("result", "hit").register(registry).increment();
+            Timer.builder(SAVED_METRIC)
+                .description("Answer time avoided by policy answer cache hits")
+                .register(registry)
+                .record(best.computeNanos(), TimeUnit.NANOSECONDS);
+        }
+        logger.debug("Policy answer cache hit at cosine distance {}", bestDistance);
+        return best.response();
+    }
+
+    /**
+     * Stores an answer, unless the policies changed since generation was read.
+     *
+     * @param generation The value of {@link #generation()} read before the answer was computed
+     * @param computeNanos How long computing the answer took
+     */
+    void put(float[] questionEmbedding, int topK, double similarityThreshold, PolicyRagResponse response,
+            long computeNanos, long generation) {
+        put(new Entry(Vectors.unit(questionEmbedding), null, topK, similarityThreshold, response, computeNanos, System.nanoTime()),
+            generation);
+    }
+
+    /**
+     * Stores the answer of a keyword question, unless the policies changed since generation was read.
+     *
+     * @param keywordTerms The normalized terms of the question
+     */
+    void putKeyword(String keywordTerms, int topK, double similarityThreshold, PolicyRagResponse response,
+            long computeNanos, long generation) {
+        put(new Entry(null, keywordTerms, topK, similarityThreshold, response, computeNanos, System.nanoTime()), generation);
+    }
+
+    private void put(Entry entry, long generation) {
+        synchronized (this) {
+            if (generation != this.generation) {
+                logger.debug("Not caching a policy answer computed before the policy index changed");
+                return;
+            }
+            entries.put(nextKey++, entry);
+            Iterator<Long> eldest = entries.keySet().iterator();
+            while (entries.size() > maxEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    @EventListener
+    public void onPolicyIndexChanged(PolicyIndexChangedEvent event) {
+        int dropped;
+        synchronized (this) {
+            dropped = entries.size();
+            entries.clear();
+            generation++;
+        }
+        logger.info("Cleared {} cached policy answers after {} policies changed under {}", dropped,
+            event.changedPaths().size(), event.prefix());
+    }
+}
@@ -0,0 +1,248 @@
+package com.megacorp.humanresources.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import com.megacorp.humanresources.configurations.PolicyVectorStoreConfiguration;
+import com.megacorp.humanresources.vectorstore.StoredVectors;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Fits the matched policy chunks of a question into the token budget of the answer prompt.
+ *
+ * Chunks are first picked by maximal marginal relevance over their embeddings: each step takes
+ * the chunk with the best {@code lambda * similarity to the question - (1 - lambda) * highest
+ * similarity to a chunk already picked}, and chunks at least
+ * {@code rag.policies.context.duplicate-similarity} similar to a picked one are dropped as
+ * near-duplicates, which the overlap between neighboring chunks of a PDF produces. Picked chunks
+ * are then added in that order while they fit into the token budget, counted with the cl100k
+ * tokenizer the chunks were split with. The budget is {@code rag.policies.context.max-tokens}, or
+ * when that is 0, as by default, room for the topK chunks of {@code rag.policies.ingest.chunk-size}
+ * tokens that were asked for, so that only near-duplicates are left out unless a smaller budget is
+ * configured. The first chunk that does not
+ * fit is cut at a token boundary when enough of the budget is left. The chunks kept are
+ * returned in their original relevance order.
+ *
+ * The chunk vectors are read from the policy vector store, which already holds them, when it
+ * implements {@link StoredVectors} as the HNSW store does; only the question is embedded. Without
+ * a question, with a store that does not hand out its vectors, or when a chunk is no longer in
+ * the store, only the budget is applied. Tokens sent and saved per request are recorded in
+ * {@code hr.rag.policy.context.tokens} and {@code hr.rag.policy.context.tokens.saved}.
+ */
+@Component
+class PolicyContextPacker {
+
+    private static final Logger logger = LoggerFactory.getLogger(PolicyContextPacker.class);
+
+    static final String TOKENS_METRIC = "hr.rag.policy.context.tokens";
+    static final String SAVED_METRIC = "hr.rag.policy.context.tokens.saved";
+
+    // A chunk cut to fewer tokens than this carries too little to be worth its place
+    private static final int MIN_PARTIAL_TOKENS = 48;
+
+    /**
+     * The chunks that fit, in relevance order.
+     *
+     * @param tokens Tokens of the packed chunks
+     * @param tokensSaved Tokens of the matched chunks that were dropped or cut
+     * @param duplicates Number of chunks dropped as near-duplicates
+     */
+    record Packed(List<Document> documents, int tokens, int tokensSaved, int duplicates) {
+    }
+
+    private final EmbeddingModel embeddingModel;
+    private final VectorStore vectorStore;
+    private final int maxTokens;
+    private final int chunkSize;
+    private final double lambda;
+    private final double duplicateSimilarity;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final Encoding encoding = Encodings.newLazyEncodingRegistry().getEncoding(EncodingType.CL100K_BASE);
+
+    PolicyContextPacker(EmbeddingModel embeddingModel,
+            @Qualifier(PolicyVectorStoreConfiguration.POLICY_VECTOR_STORE) VectorStore vectorStore,
+            @Value("${rag.policies.context.max-tokens:0}") int maxTokens,
+            @Value("${rag.policies.ingest.chunk-size:800}") int chunkSize,
+            @Value("${rag.policies.context.mmr-lambda:0.7}") double lambda,
+            @Value("${rag.policies.context.duplicate-similarity:0.95}") double duplicateSimilarity,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.embeddingModel = embeddingModel;
+        this.vectorStore = vectorStore;
+        this.maxTokens = maxTokens;
+        this.chunkSize = chunkSize;
+        this.lambda = lambda;
+        this.duplicateSimilarity = duplicateSimilarity;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param ranked Matched chunks, most relevant first
+     * @param question The question, to select by maximal marginal relevance, or null to only
+     *                 apply the token budget
+     * @param topK The number of chunks asked for
+     */
+    Packed pack(List<Document> ranked, String question, int topK) {
+        if (ranked == null || ranked.isEmpty()) {
+            return new Packed(List.of(), 0, 0, 0);
+        }
+        int maxTokens = maxTokens(topK);
+        logger.debug("Entering pack with {} chunks, maxTokens={}", ranked.size(), maxTokens);
+
+        int[] chunkTokens = new int[ranked.size()];
+        int totalTokens = 0;
+        for (int i = 0; i < ranked.size(); i++) {
+            chunkTokens[i] = countTokens(ranked.get(i).getText());
+            totalTokens += chunkTokens[i];
+        }
+
+        List<Integer> order = new ArrayList<>();
+        int duplicates = 0;
+        List<float[]> embeddings = question != null && !question.isBlank() && ranked.size() > 1 ? storedVectors(ranked) : null;
+        if (embeddings != null) {
+            duplicates = selectByMarginalRelevance(embeddings, question, order);
+        } else {
+            for (int i = 0; i < ranked.size(); i++) {
+                order.add(i);
+            }
+        }
+
+        Map<Integer, Document> kept = new LinkedHashMap<>();
+        int tokens = 0;
+        for (int index : order) {
+            int remaining = maxTokens - tokens;
+            if (chunkTokens[index] <= remaining) {
+                kept.put(index, ranked.get(index));
+                tokens += chunkTokens[index];
+            } else if (remaining >= MIN_PARTIAL_TOKENS) {
+                Document document = ranked.get(index);
+                String truncated = truncate(document.getText(), remaining);
+                kept.put(index, document.mutate().text(truncated).build());
+                tokens += countTokens(truncated);
+                break;
+            } else {
+                break;
+            }
+        }
+
+        List<Document> documents = kept.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .map(Map.Entry::getValue)
+            .toList();
+        int saved = totalTokens - tokens;
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            DistributionSummary.builder(TOKENS_METRIC).description("Tokens of policy context sent per question")
+                .baseUnit("tokens").register(registry).record(tokens);
+            DistributionSummary.builder(SAVED_METRIC).description("Tokens of matched policy chunks left out per question")
+                .baseUnit("tokens").register(registry).record(saved);
+        }
+        logger.info("Packed {} of {} policy chunks into {} tokens, {} tokens saved, {} near-duplicates dropped",
+            documents.size(), ranked.size(), tokens, saved, duplicates);
+        return new Packed(documents, tokens, saved, duplicates);
+    }
+
+    /**
+     * The token budget for the context of topK chunks.
+     */
+    int maxTokens(int topK) {
+        return maxTokens > 0 ? maxTokens : Math.max(1, topK) * chunkSize;
+    }
+
+    /**
+     * Cuts a text to at most maxTokens tokens.
+     */
+    String truncate(String text, int maxTokens) {
+        if (text == null || text.isEmpty() || maxTokens <= 0) {
+            return "";
+        }
+        var result = encoding.encodeOrdinary(text, maxTokens);
+        return result.isTruncated() ? encoding.decode(result.getTokens()) : text;
+    }
+
+    int countTokens(String text) {
+        return text == null || text.isEmpty() ? 0 : encoding.countTokensOrdinary(text);
+    }
+
+    /**
+     * Orders the chunks by maximal marginal relevance into order, leaving out near-duplicates.
+     *
+     * @return The number of near-duplicates left out
+     */
+    private int selectByMarginalRelevance(List<float[]> embeddings, String question, List<Integer> order) {
+        float[] query = Vectors.unit(embeddingModel.embed(question));
+        int count = embeddings.size();
+        double[] relevance = new double[count];
+        double[] redundancy = new double[count];
+        boolean[] done = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            relevance[i] = Vectors.dot(query, embeddings.get(i));
+            redundancy[i] = Double.NEGATIVE_INFINITY;
+        }
+
+        int duplicates = 0;
+        for (int step = 0; step < count; step++) {
+            int best = -1;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < count; i++) {
+                if (done[i]) {
+                    continue;
+                }
+                double score = order.isEmpty() ? relevance[i] : lambda * relevance[i] - (1 - lambda) * redundancy[i];
+                if (score > bestScore) {
+                    best = i;
+                    bestScore = score;
+                }
+            }
+            done[best] = true;
+            if (redundancy[best] >= duplicateSimilarity) {
+                duplicates++;
+                continue;
+            }
+            order.add(best);
+            for (int i = 0; i < count; i++) {
+                if (!done[i]) {
+                    redundancy[i] = Math.max(redundancy[i], Vectors.dot(embeddings.get(i), embeddings.get(best)));
+                }
+            }
+        }
+        return duplicates;
+    }
+
+    /**
+     * The unit vectors the policy vector store holds for the chunks, or null when it does not
+     * hand them out or lacks one of them.
+     */
+    private List<float[]> storedVectors(List<Document> chunks) {
+        if (!(vectorStore instanceof StoredVectors stored)) {
+            return null;
+        }
+        Map<String, float[]> vectors = stored.findVectors(chunks.stream().map(Document::getId).toList());
+        List<float[]> embeddings = new ArrayList<>(chunks.size());
+        for (Document chunk : chunks) {
+            float[] vector = vectors.get(chunk.getId());
+            if (vector == null) {
+                logger.debug("Policy chunk {} is not in the vector store, packing by the budget only", chunk.getId());
+                return null;
+            }
+            embeddings.add(vector);
+        }
+        return embeddings;
+    }
+}
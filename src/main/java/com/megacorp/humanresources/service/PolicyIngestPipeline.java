@@ -0,0 +1,412 @@
+package com.megacorp.humanresources.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.pdf.PagePdfDocumentReader;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.stereotype.Component;
+
+import com.megacorp.humanresources.configurations.PolicyVectorStoreConfiguration;
+import com.megacorp.humanresources.index.PolicyLexicalIndex;
+import com.megacorp.humanresources.model.FileVersion;
+import com.megacorp.humanresources.service.helper.PolicyIngestManifest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Staged pipeline that turns policy PDFs in GCS into chunks in the policy vector store.
+ *
+ * Downloading, parsing and splitting a PDF runs on virtual threads, at most
+ * {@code rag.policies.ingest.parallelism} PDFs at a time. The calling thread indexes: it takes
+ * PDFs in the order they finish parsing and collects the chunks of several PDFs into batches of
+ * {@code rag.policies.ingest.batch-size}. Each batch is one vectorStore.add, which embeds it in
+ * token-sized requests and writes it to the store in one go (a single bulk request for
+ * Elasticsearch, one file rewrite for the HNSW store). No further PDF is started while twice the
+ * parallelism are parsed or being parsed, so a slow indexer holds back the downloads instead of
+ * buffering every parsed PDF.
+ *
+ * Every chunk of a PDF carries the {@code ingestId} of the run that wrote it. Once the last chunk
+ * of a PDF has been indexed, the chunks of its previous version (any other ingestId) are deleted,
+ * it replaces its entry in the {@link PolicyLexicalIndex} and it is recorded in the manifest, so
+ * a changed policy stays searchable while its new version is being indexed. If a batch fails,
+ * every PDF with chunks in it fails: the chunks it already had written are deleted, its previous
+ * version is left in place and it stays out of the manifest, so the next ingest retries it.
+ *
+ * The time spent in each stage is recorded in the {@code hr.rag.policy.ingest.stage} timer,
+ * tagged with the stage, and returned summed over all PDFs.
+ */
+@Component
+class PolicyIngestPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(PolicyIngestPipeline.class);
+
+    static final String STAGE_METRIC = "hr.rag.policy.ingest.stage";
+
+    /** Chunk metadata naming the ingest that wrote the chunk. */
+    static final String INGEST_ID = "ingestId";
+
+    enum Stage {
+        DOWNLOAD, PARSE, SPLIT, DELETE, INDEX;
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * What a run ingested.
+     *
+     * @param added PDFs that were not in the manifest
+     * @param updated PDFs whose previous version was in the manifest
+     * @param failed PDFs that could not be downloaded, parsed or indexed
+     * @param chunksAdded Number of chunks written to the vector store
+     * @param stageMillis Time per stage summed over PDFs; concurrent stages can add up to more than the run took
+     */
+    record Outcome(List<String> added, List<String> updated, List<String> failed, int chunksAdded,
+            Map<String, Long> stageMillis) {
+    }
+
+    private final VectorStore vectorStore;
+    private final FileStorageService fileStorageService;
+    private final PolicyLexicalIndex lexicalIndex;
+    private final int parallelism;
+    private final int batchSize;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    // Loading the tokenizer's encoding is expensive and splitting keeps no state, so the
+    // workers share one splitter
+    private final TokenTextSplitter textSplitter;
+
+    PolicyIngestPipeline(@Qualifier(PolicyVectorStoreConfiguration.POLICY_VECTOR_STORE) VectorStore vectorStore, FileStorageService fileStorageService,
+            PolicyLexicalIndex lexicalIndex,
+            @Value("${rag.policies.ingest.parallelism:4}") int parallelism,
+            @Value("${rag.policies.ingest.batch-size:100}") int batchSize,
+            @Value("${rag.policies.ingest.chunk-size:800}") int chunkSize,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.vectorStore = vectorStore;
+        this.fileStorageService = fileStorageService;
+        this.lexicalIndex = lexicalIndex;
+        this.parallelism = Math.max(1, parallelism);
+        this.batchSize = Math.max(1, batchSize);
+        this.textSplitter = TokenTextSplitter.builder().withChunkSize(chunkSize).build();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Replaces the chunks of each file with those of its current version and records it in the
+     * manifest, saving the manifest after every completed file.
+     */
+    Outcome run(List<FileVersion> files, PolicyIngestManifest manifest) {
+        logger.debug("Entering run with {} files, parallelism={} batchSize={}", files.size(), parallelism, batchSize);
+        Run run = new Run(files.size(), manifest);
+        if (files.isEmpty()) {
+            return run.outcome();
+        }
+
+        Semaphore workers = new Semaphore(parallelism);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletionService<Parsed> completion = new ExecutorCompletionService<>(executor);
+            Iterator<FileVersion> pending = files.iterator();
+            int inFlight = 0;
+            while (inFlight < parallelism * 2 && pending.hasNext()) {
+                FileVersion file = pending.next();
+                completion.submit(() -> parse(file, workers, run));
+                inFlight++;
+            }
+            while (inFlight > 0) {
+                Parsed parsed = completion.take().get();
+                inFlight--;
+                if (pending.hasNext()) {
+                    FileVersion file = pending.next();
+                    completion.submit(() -> parse(file, workers, run));
+                    inFlight++;
+                }
+                run.index(parsed);
+            }
+            run.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Policy ingest was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Policy ingest worker failed", e.getCause());
+        }
+        return run.outcome();
+    }
+
+    /**
+     * Deletes every chunk of the policy at gcsPath from the vector store and the lexical index.
+     */
+    void deleteChunks(String gcsPath) {
+        vectorStore.delete(new FilterExpressionBuilder().eq("gcsPath", gcsPath).build());
+        lexicalIndex.remove(gcsPath);
+    }
+
+    private Parsed parse(FileVersion file, Semaphore workers, Run run) {
+        try {
+            workers.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Parsed(file, null, e, null);
+        }
+        try {
+            byte[] fileBytes = run.timed(Stage.DOWNLOAD, () -> fileStorageService.retrieveFile(file.name()));
+            if (fileBytes == null || fileBytes.length == 0) {
+                logger.warn("Skipping empty policy pdf in GCS path={}", file.name());
+                return new Parsed(file, List.of(), null, UUID.randomUUID().toString());
+            }
+            List<Document> pages = run.timed(Stage.PARSE, () -> new PagePdfDocumentReader(new ByteArrayResource(fileBytes)).read());
+            List<Document> splitPages = run.timed(Stage.SPLIT, () -> textSplitter.apply(pages));
+
+            String policyTitle = extractPolicyTitle(file.name());
+            String ingestId = UUID.randomUUID().toString();
+            List<Document> chunks = splitPages.stream()
+                .map(doc -> enrichPolicyDocument(doc, policyTitle, file, ingestId))
+                .toList();
+            logger.debug("Parsed policy {} into {} pages and {} chunks", file.name(), pages.size(), chunks.size());
+            return new Parsed(file, chunks, null, ingestId);
+        } catch (Exception e) {
+            return new Parsed(file, null, e, null);
+        } finally {
+            workers.release();
+        }
+    }
+
+    private Document enrichPolicyDocument(Document sourceDoc, String policyTitle, FileVersion policyPdf, String ingestId) {
+        Map<String, Object> metadata = new HashMap<>(sourceDoc.getMetadata());
+        metadata.put("policyTitle", policyTitle);
+        metadata.put("gcsPath", policyPdf.name());
+        if (policyPdf.generation() != null) {
+            metadata.put("gcsGeneration", policyPdf.generation());
+        }
+        metadata.put("sourceType", "gcs-policy-pdf");
+        metadata.put(INGEST_ID, ingestId);
+        return new Document(sourceDoc.getText(), metadata);
+    }
+
+    private String extractPolicyTitle(String gcsPath) {
+        if (gcsPath == null || gcsPath.isBlank()) {
+            return "";
+        }
+
+        String title = gcsPath;
+        int slash = title.lastIndexOf('/');
+        if (slash >= 0 && slash + 1 < title.length()) {
+            title = title.substring(slash + 1);
+        }
+
+        if (title.toLowerCase(Locale.ROOT).endsWith(".pdf")) {
+            title = title.substring(0, title.length() - 4);
+        }
+
+        if (title.startsWith("policies_")) {
+            title = title.substring("policies_".length());
+        }
+
+        return title;
+    }
+
+    private record Parsed(FileVersion file, List<Document> chunks, Exception error, String ingestId) {
+    }
+
+    /**
+     * A PDF that is being indexed, with the number of its chunks not yet added to a batch.
+     */
+    private static final class Indexing {
+        final FileVersion file;
+        final String ingestId;
+        final boolean known;
+        final List<Document> chunks;
+        final int chunkCount;
+        int unbatched;
+        boolean failed;
+
+        Indexing(FileVersion file, String ingestId, boolean known, List<Document> chunks) {
+            this.file = file;
+            this.ingestId = ingestId;
+            this.known = known;
+            this.chunks = chunks;
+            this.chunkCount = chunks.size();
+            this.unbatched = chunkCount;
+        }
+    }
+
+    /**
+     * State of one run. Stage timings are added from the worker threads; everything else is
+     * only touched by the indexing thread.
+     */
+    private final class Run {
+        private final int fileCount;
+        private final PolicyIngestManifest manifest;
+        private final Map<Stage, LongAdder> stageNanos = new EnumMap<>(Stage.class);
+        private final MeterRegistry registry = meterRegistry.getIfAvailable();
+
+        private final List<Document> batch = new ArrayList<>();
+        private final Set<Indexing> batchFiles = new LinkedHashSet<>();
+        private final List<String> added = new ArrayList<>();
+        private final List<String> updated = new ArrayList<>();
+        private final List<String> failed = new ArrayList<>();
+        private int chunksAdded = 0;
+
+        Run(int fileCount, PolicyIngestManifest manifest) {
+            this.fileCount = fileCount;
+            this.manifest = manifest;
+            for (Stage stage : Stage.values()) {
+                stageNanos.put(stage, new LongAdder());
+            }
+        }
+
+        void index(Parsed parsed) {
+            String path = parsed.file().name();
+            if (parsed.error() != null) {
+                fail(path, parsed.error());
+                return;
+            }
+
+            // The previous version stays in the store until this one is complete, but leaves the
+            // manifest now so that a failure is retried by the next ingest
+            boolean known = manifest.get(path) != null;
+            manifest.remove(path);
+
+            Indexing indexing = new Indexing(parsed.file(), parsed.ingestId(), known, parsed.chunks());
+            if (indexing.chunkCount == 0) {
+                complete(indexing);
+                return;
+            }
+            for (Document chunk : parsed.chunks()) {
+                if (indexing.failed) {
+                    break;
+                }
+                batch.add(chunk);
+                batchFiles.add(indexing);
+                indexing.unbatched--;
+                if (batch.size() >= batchSize) {
+                    flush();
+                }
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                timed(Stage.INDEX, () -> {
+                    vectorStore.add(batch);
+                    return null;
+                });
+                chunksAdded += batch.size();
+                logger.debug("Indexed batch of {} chunks from {} policies", batch.size(), batchFiles.size());
+                for (Indexing indexing : batchFiles) {
+                    if (indexing.unbatched == 0) {
+                        complete(indexing);
+                    }
+                }
+            } catch (Exception e) {
+                for (Indexing indexing : batchFiles) {
+                    indexing.failed = true;
+                    fail(indexing, e);
+                }
+            } finally {
+                batch.clear();
+                batchFiles.clear();
+            }
+        }
+
+        private void complete(Indexing indexing) {
+            String path = indexing.file.name();
+            try {
+                timed(Stage.DELETE, () -> {
+                    FilterExpressionBuilder b = new FilterExpressionBuilder();
+                    vectorStore.delete(b.and(b.eq("gcsPath", path), b.ne(INGEST_ID, indexing.ingestId)).build());
+                    return null;
+                });
+                lexicalIndex.replace(path, indexing.chunks);
+            } catch (Exception e) {
+                fail(indexing, e);
+                return;
+            }
+            manifest.record(indexing.file, indexing.chunkCount);
+            manifest.save();
+            (indexing.known ? updated : added).add(indexing.file.name());
+            logger.info("Ingested {} policy {} with {} chunks ({}/{} files done)", indexing.known ? "changed" : "new",
+                indexing.file.name(), indexing.chunkCount, done(), fileCount);
+        }
+
+        /**
+         * Fails a PDF whose chunks may be partly indexed, deleting them so that only its previous
+         * version is left in the store.
+         */
+        private void fail(Indexing indexing, Exception e) {
+            String path = indexing.file.name();
+            fail(path, e);
+            try {
+                FilterExpressionBuilder b = new FilterExpressionBuilder();
+                vectorStore.delete(b.and(b.eq("gcsPath", path), b.eq(INGEST_ID, indexing.ingestId)).build());
+            } catch (Exception cleanup) {
+                logger.warn("Could not delete partly indexed chunks of policy pdf path={}", path, cleanup);
+            }
+        }
+
+        private void fail(String path, Exception e) {
+            failed.add(path);
+            logger.error("Failed ingest for policy pdf path={} ({}/{} files done)", path, done(), fileCount, e);
+        }
+
+        private int done() {
+            return added.size() + updated.size() + failed.size();
+        }
+
+        <T> T timed(Stage stage, Supplier<T> work) {
+            long start = System.nanoTime();
+            try {
+                return work.get();
+            } finally {
+                long nanos = System.nanoTime() - start;
+                stageNanos.get(stage).add(nanos);
+                if (registry != null) {
+                    Timer.builder(STAGE_METRIC)
+                        .description("Time spent per policy ingest stage")
+                        .tag("stage", stage.label())
+                        .register(registry)
+                        .record(nanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+
+        Outcome outcome() {
+            Map<String, Long> stageMillis = new LinkedHashMap<>();
+            stageNanos.forEach((stage, nanos) -> stageMillis.put(stage.label(), nanos.sum() / 1_000_000));
+            return new Outcome(added, updated, failed, chunksAdded, Collections.unmodifiableMap(stageMillis));
+        }
+    }
+}
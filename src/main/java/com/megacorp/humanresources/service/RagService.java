@@ -1,6 +1,10 @@
 package com.megacorp.humanresources.service;
 
+import com.megacorp.humanresources.model.PolicyIngestResult;
 import com.megacorp.humanresources.model.PolicyRagResponse;
+import com.megacorp.humanresources.model.PolicyRagStreamEvent;
+
+import reactor.core.publisher.Flux;
 
 public interface RagService {
 
@@ -10,7 +14,9 @@ public interface RagService {
 
     // String directRag(String question);
 
-    int ingestPoliciesFromGcs(String prefix);
+    PolicyIngestResult ingestPoliciesFromGcs(String prefix);
 
     PolicyRagResponse queryPolicies(String question, Integer topK, Double similarityThreshold);
+
+    Flux<PolicyRagStreamEvent> streamPolicies(String question, Integer topK, Double similarityThreshold);
 }
@@ -1,24 +1,48 @@
 package com.megacorp.humanresources.service;
 
+import com.megacorp.humanresources.configurations.PolicyVectorStoreConfiguration;
+import com.megacorp.humanresources.events.PolicyIndexChangedEvent;
+import com.megacorp.humanresources.index.PolicyLexicalIndex;
+import com.megacorp.humanresources.model.FileVersion;
+import com.megacorp.humanresources.model.PolicyIngestResult;
 import com.megacorp.humanresources.model.PolicyRagResponse;
+import com.megacorp.humanresources.model.PolicyRagStreamEvent;
+import com.megacorp.humanresources.service.helper.PolicyIngestManifest;
+import com.megacorp.humanresources.vectorstore.HnswVectorStore;
+import com.megacorp.humanresources.vectorstore.MappedVectorStore;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.vectorstore.QuestionAnswerAdvisor;
 import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.reader.pdf.PagePdfDocumentReader;
 import org.springframework.ai.transformer.splitter.TokenTextSplitter;
 import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.elasticsearch.ElasticsearchVectorStore;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.Resource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Stream;
 import java.util.stream.Collectors;
 
@@ -29,17 +53,70 @@ class RagServiceImpl implements RagService {
     private static final String DEFAULT_POLICY_PREFIX = "policies/";
     private static final int DEFAULT_TOP_K = 5;
     private static final double DEFAULT_SIMILARITY_THRESHOLD = 0.6;
+    // Each retriever contributes this many times topK candidates to the fusion
+    private static final int CANDIDATE_FACTOR = 3;
+    // Lexical matches scoring below this share of the best one only share common words with the question
+    private static final double LEXICAL_MIN_RELATIVE_SCORE = 0.25;
+    private static final String NO_CONTEXT_ANSWER = "No relevant policy context found.";
+
+    static final String RETRIEVAL_METRIC = "hr.rag.policy.retrieval";
+    static final String FIRST_TOKEN_METRIC = "hr.rag.policy.first.token";
+    private static final String RETRIEVAL_DESCRIPTION = "Time to find the policy chunks or cached answer for a question";
 
-    private final ElasticsearchVectorStore vectorStore;
+    private final VectorStore vectorStore;
 
     private final ChatClient ai;
 
     private final FileStorageService fileStorageService;
 
-    RagServiceImpl(ElasticsearchVectorStore vectorStore, ChatClient.Builder clientBuilder, FileStorageService fileStorageService) {
+    private final PolicyIngestPipeline ingestPipeline;
+
+    private final EmbeddingModel embeddingModel;
+
+    private final PolicyAnswerCache answerCache;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final PolicyLexicalIndex lexicalIndex;
+
+    private final PolicyContextPacker contextPacker;
+
+    private final Path manifestPath;
+
+    private final int rrfK;
+
+    private final int keywordMaxTerms;
+
+    private final double keywordMinScore;
+
+    private final double keywordMinMargin;
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    RagServiceImpl(@Qualifier(PolicyVectorStoreConfiguration.POLICY_VECTOR_STORE) VectorStore vectorStore, ChatClient.Builder clientBuilder, FileStorageService fileStorageService,
+            PolicyIngestPipeline ingestPipeline, EmbeddingModel embeddingModel, PolicyAnswerCache answerCache,
+            ApplicationEventPublisher eventPublisher, PolicyLexicalIndex lexicalIndex, PolicyContextPacker contextPacker,
+            @Value("${rag.policies.manifest-path:data/policy-ingest-manifest.json}") String manifestPath,
+            @Value("${rag.policies.hybrid.rrf-k:60}") int rrfK,
+            @Value("${rag.policies.hybrid.keyword-max-terms:3}") int keywordMaxTerms,
+            @Value("${rag.policies.hybrid.keyword-min-score:2.0}") double keywordMinScore,
+            @Value("${rag.policies.hybrid.keyword-min-margin:1.5}") double keywordMinMargin,
+            ObjectProvider<MeterRegistry> meterRegistry) {
         this.vectorStore = vectorStore;
         this.ai = clientBuilder.build();
         this.fileStorageService = fileStorageService;
+        this.ingestPipeline = ingestPipeline;
+        this.embeddingModel = embeddingModel;
+        this.answerCache = answerCache;
+        this.eventPublisher = eventPublisher;
+        this.lexicalIndex = lexicalIndex;
+        this.contextPacker = contextPacker;
+        this.rrfK = rrfK;
+        this.keywordMaxTerms = keywordMaxTerms;
+        this.keywordMinScore = keywordMinScore;
+        this.keywordMinMargin = keywordMinMargin;
+        this.meterRegistry = meterRegistry;
+        this.manifestPath = Path.of(manifestPath);
     }
 
     // public void ingest(Resource path) {
@@ -114,8 +191,27 @@ class RagServiceImpl implements RagService {
 
     // }
 
+    /**
+     * Brings the policy chunks in the vector store in line with the PDFs under a GCS prefix,
+     * reading only the PDFs that changed since the previous ingest.
+     *
+     * The listing's generation and MD5 hash are compared with the ingest manifest. Unchanged
+     * PDFs that are also in the lexical index are skipped without being downloaded. New and changed PDFs go through the
+     * {@link PolicyIngestPipeline}, which deletes any chunks with their gcsPath before adding
+     * the new ones; that also clears duplicates left by ingests that predate the manifest.
+     * When the policy vector store is empty but the manifest is not, as after the store's file
+     * was deleted, corrupted or written with another encoding, the manifest is discarded and
+     * every PDF is ingested again.
+     * PDFs recorded in the manifest but no longer in GCS have their chunks purged. The manifest
+     * is saved after every file, so an interrupted ingest resumes where it stopped; a file that
+     * fails is dropped from the manifest and retried on the next run.
+     *
+     * @param prefix the GCS folder to ingest, "policies/" when blank
+     * @return what was added, replaced, skipped, purged and failed, with the time per stage
+     */
     @Override
-    public int ingestPoliciesFromGcs(String prefix) {
+    public synchronized PolicyIngestResult ingestPoliciesFromGcs(String prefix) {
+        long start = System.nanoTime();
         String effectivePrefix = (prefix == null || prefix.isBlank()) ? DEFAULT_POLICY_PREFIX : prefix;
         if (!effectivePrefix.endsWith("/")) {
             effectivePrefix = effectivePrefix + "/";
@@ -123,38 +219,76 @@ class RagServiceImpl implements RagService {
 
         logger.info("Starting policy RAG ingest from GCS prefix={}", effectivePrefix);
 
-        List<String> policyPdfPaths = fileStorageService.listFiles(effectivePrefix).stream()
-            .filter(path -> path != null && path.toLowerCase(Locale.ROOT).endsWith(".pdf"))
+        List<FileVersion> policyPdfs = fileStorageService.listFileVersions(effectivePrefix).stream()
+            .filter(file -> file.name() != null && file.name().toLowerCase(Locale.ROOT).endsWith(".pdf"))
             .toList();
 
-        int totalChunks = 0;
-        for (String policyPdfPath : policyPdfPaths) {
-            try {
-                byte[] fileBytes = fileStorageService.retrieveFile(policyPdfPath);
-                if (fileBytes == null || fileBytes.length == 0) {
-                    logger.warn("Skipping empty policy pdf in GCS path={}", policyPdfPath);
-                    continue;
-                }
-
-                PagePdfDocumentReader reader = new PagePdfDocumentReader(new ByteArrayResource(fileBytes));
-                List<Document> pages = reader.read();
-                List<Document> splitPages = new TokenTextSplitter().apply(pages);
+        PolicyIngestManifest manifest = PolicyIngestManifest.load(manifestPath);
+        if (manifest.size() > 0 && isPolicyStoreEmpty()) {
+            logger.warn("Policy vector store is empty but ingest manifest {} lists {} files, re-ingesting every policy",
+                manifestPath, manifest.size());
+            manifest.clear();
+        }
+        List<FileVersion> changedPdfs = policyPdfs.stream()
+            .filter(file -> !manifest.isCurrent(file) || (lexicalIndex.isReady() && !lexicalIndex.contains(file.name())))
+            .toList();
+        int unchanged = policyPdfs.size() - changedPdfs.size();
+        logger.debug("Policy ingest found {} new or changed and {} unchanged pdfs", changedPdfs.size(), unchanged);
 
-                String policyTitle = extractPolicyTitle(policyPdfPath);
-                List<Document> enrichedDocuments = splitPages.stream()
-                    .map(doc -> enrichPolicyDocument(doc, policyTitle, policyPdfPath))
-                    .toList();
+        PolicyIngestPipeline.Outcome outcome = ingestPipeline.run(changedPdfs, manifest);
 
-                vectorStore.add(enrichedDocuments);
-                totalChunks += enrichedDocuments.size();
-                logger.info("Ingested policy {} with {} chunks", policyPdfPath, enrichedDocuments.size());
+        List<String> removed = new ArrayList<>();
+        List<String> failed = new ArrayList<>(outcome.failed());
+        List<String> listedPaths = policyPdfs.stream().map(FileVersion::name).toList();
+        for (String deletedPath : manifest.missingFrom(effectivePrefix, listedPaths)) {
+            try {
+                ingestPipeline.deleteChunks(deletedPath);
+                manifest.remove(deletedPath);
+                manifest.save();
+                removed.add(deletedPath);
+                logger.info("Purged chunks of deleted policy {}", deletedPath);
             } catch (Exception e) {
-                logger.error("Failed ingest for policy pdf path={}", policyPdfPath, e);
+                failed.add(deletedPath);
+                logger.error("Failed to purge chunks of deleted policy path={}", deletedPath, e);
             }
         }
 
-        logger.info("Completed policy RAG ingest for {} files, {} chunks", policyPdfPaths.size(), totalChunks);
-        return totalChunks;
+        if (!changedPdfs.isEmpty() || !removed.isEmpty()) {
+            List<String> changedPaths = new ArrayList<>(changedPdfs.stream().map(FileVersion::name).toList());
+            changedPaths.addAll(removed);
+            eventPublisher.publishEvent(new PolicyIndexChangedEvent(effectivePrefix, changedPaths));
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        logger.info("Completed policy RAG ingest for {} files in {} ms: {} added, {} updated, {} unchanged, {} removed, {} failed, {} chunks",
+            policyPdfs.size(), elapsedMillis, outcome.added().size(), outcome.updated().size(), unchanged, removed.size(),
+            failed.size(), outcome.chunksAdded());
+        return new PolicyIngestResult(effectivePrefix, outcome.added(), outcome.updated(), unchanged, removed, failed,
+            outcome.chunksAdded(), elapsedMillis, outcome.stageMillis());
+    }
+
+    /**
+     * Whether the policy vector store holds no chunks. The in-JVM stores know their size; any
+     * other store is probed with a search that accepts every chunk, and a store that cannot be
+     * probed is assumed to be in line with the manifest.
+     */
+    private boolean isPolicyStoreEmpty() {
+        if (vectorStore instanceof HnswVectorStore hnsw) {
+            return hnsw.size() == 0;
+        }
+        if (vectorStore instanceof MappedVectorStore mapped) {
+            return mapped.size() == 0;
+        }
+        try {
+            return vectorStore.similaritySearch(SearchRequest.builder()
+                .query("policy")
+                .topK(1)
+                .similarityThresholdAll()
+                .build()).isEmpty();
+        } catch (RuntimeException e) {
+            logger.warn("Could not check whether the policy vector store is empty: {}", e.getMessage());
+            return false;
+        }
     }
 
     /**
@@ -164,6 +298,22 @@ class RagServiceImpl implements RagService {
      * matching the provided question, retrieves supporting context, and generates an answer
      * using an AI model based on the found policy context.
      * 
+     * The similarity search results are fused with BM25 matches from the
+     * {@link PolicyLexicalIndex} by reciprocal rank fusion, so chunks containing the exact
+     * policy terms of the question are found even below the similarity threshold. Short
+     * keyword questions that clearly match one policy are answered from the lexical index
+     * alone, without embedding the question, unless a similarity threshold stricter than the
+     * default asks for matches the lexical index cannot vouch for.
+     *
+     * A question close enough to one answered before with the same topK and similarity
+     * threshold is answered from the {@link PolicyAnswerCache} instead, until the next ingest
+     * changes the policy index. Retrieval time is recorded in {@code hr.rag.policy.retrieval};
+     * {@link #streamPolicies} answers the same way as a stream of events.
+     *
+     * The matched chunks are packed into the prompt by the {@link PolicyContextPacker}, which
+     * drops near-duplicate chunks and keeps the context within
+     * {@code rag.policies.context.max-tokens}; the response reports the tokens sent and saved.
+     * 
      * @param question the HR policy question to search for. Used as the query input for
      *                 similarity search against the vector store.
      * @param topK the maximum number of similar documents to retrieve. If null or less than 1,
@@ -176,107 +326,321 @@ class RagServiceImpl implements RagService {
      *         - the AI-generated answer based on policy context
      *         - a list of GCS file paths for matched policy attachments
      *         - a list of matched policy titles
-     *         - the concatenated supporting context from matched documents
+     *         - the concatenated supporting context from the packed documents
      *         - the count of matching documents found
+     *         - the tokens of the supporting context and the tokens packing left out
      *         
      *         If no relevant policies are found, returns a response with a default message
      *         and empty collections.
      */
     @Override
     public PolicyRagResponse queryPolicies(String question, Integer topK, Double similarityThreshold) {
+        Retrieval retrieval = retrieve(question, topK, similarityThreshold);
+        if (retrieval.cached() != null) {
+            logger.info("Policy RAG query answered from cache with {} matches", retrieval.cached().matchCount());
+            return retrieval.cached();
+        }
+
+        PolicyContext context = retrieval.context();
+        String answer = context.isEmpty()
+            ? NO_CONTEXT_ANSWER
+            : ai.prompt()
+                .user(context.prompt(question))
+                .call()
+                .content();
+        PolicyRagResponse response = context.response(answer == null ? "" : answer);
+        cacheAnswer(retrieval, response);
+        return response;
+    }
+
+    /**
+     * Streaming variant of {@link #queryPolicies}: retrieves the same way, emits the matched
+     * policy titles and GCS paths as soon as retrieval finishes, then the answer tokens as the
+     * chat model generates them, and a final event once the answer is complete. A cached answer
+     * is emitted as a single token. The complete answer is cached like a blocking one.
+     *
+     * Retrieval runs on a bounded elastic thread when the stream is subscribed. The time from
+     * the request to the first answer token is recorded in {@code hr.rag.policy.first.token},
+     * next to the retrieval time in {@code hr.rag.policy.retrieval}.
+     */
+    @Override
+    public Flux<PolicyRagStreamEvent> streamPolicies(String question, Integer topK, Double similarityThreshold) {
+        return Flux.defer(() -> {
+            Retrieval retrieval = retrieve(question, topK, similarityThreshold);
+            PolicyRagResponse cached = retrieval.cached();
+            if (cached != null) {
+                logger.info("Policy RAG stream answered from cache with {} matches", cached.matchCount());
+                return Flux.<PolicyRagStreamEvent>just(
+                    new PolicyRagStreamEvent.Policies(cached.attachmentPaths(), cached.matchedPolicyTitles(), cached.matchCount()),
+                    new PolicyRagStreamEvent.Token(cached.answer()),
+                    new PolicyRagStreamEvent.Done(cached.matchCount(), true));
+            }
+
+            PolicyContext context = retrieval.context();
+            StringBuilder answer = new StringBuilder();
+            Flux<String> tokens;
+            if (context.isEmpty()) {
+                tokens = Flux.just(NO_CONTEXT_ANSWER);
+            } else {
+                AtomicBoolean first = new AtomicBoolean(true);
+                tokens = ai.prompt()
+                    .user(context.prompt(question))
+                    .stream()
+                    .content()
+                    .doOnNext(token -> {
+                        if (first.getAndSet(false)) {
+                            recordLatency(FIRST_TOKEN_METRIC, "Time from a streamed policy question to the first answer token",
+                                null, retrieval.startNanos());
+                        }
+                    });
+            }
+            return Flux.<PolicyRagStreamEvent>concat(
+                Flux.just(new PolicyRagStreamEvent.Policies(context.attachmentPaths(), context.matchedPolicyTitles(),
+                    context.matches().size())),
+                tokens.doOnNext(answer::append).map(PolicyRagStreamEvent.Token::new),
+                Mono.fromSupplier(() -> {
+                    cacheAnswer(retrieval, context.response(answer.toString()));
+                    logger.info("Policy RAG stream completed with {} matches in {} ms", context.matches().size(),
+                        (System.nanoTime() - retrieval.startNanos()) / 1_000_000);
+                    return new PolicyRagStreamEvent.Done(context.matches().size(), false);
+                }));
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * The retrieval half of a policy question: a short keyword question clearly matching one
+     * policy is looked up in the answer cache by its terms and otherwise answered from the
+     * lexical index alone, so that it is never embedded. Any other question is embedded, looked
+     * up in the answer cache and otherwise answered from the fused vector and lexical matches.
+     * The time taken is recorded in {@code hr.rag.policy.retrieval}, tagged with the path
+     * (cache, keyword or hybrid).
+     */
+    private Retrieval retrieve(String question, Integer topK, Double similarityThreshold) {
+        long start = System.nanoTime();
         int effectiveTopK = topK == null || topK < 1 ? DEFAULT_TOP_K : topK;
         double effectiveSimilarity = similarityThreshold == null ? DEFAULT_SIMILARITY_THRESHOLD : similarityThreshold;
+        long generation = answerCache.generation();
+
+        PolicyLexicalIndex.Result lexical = lexicalIndex.search(question, effectiveTopK * CANDIDATE_FACTOR);
+        // Keyword matches carry no similarity, so a stricter threshold than the default needs the vector search
+        if (effectiveSimilarity <= DEFAULT_SIMILARITY_THRESHOLD
+                && isConfidentKeywordMatch(lexical, keywordMaxTerms, keywordMinScore, keywordMinMargin)) {
+            String keywordTerms = String.join(" ", lexical.terms());
+            if (answerCache.isEnabled()) {
+                PolicyRagResponse cached = answerCache.findKeyword(keywordTerms, effectiveTopK, effectiveSimilarity);
+                if (cached != null) {
+                    recordLatency(RETRIEVAL_METRIC, RETRIEVAL_DESCRIPTION, "cache", start);
+                    return new Retrieval(start, cached, null, null, keywordTerms, generation, effectiveTopK, effectiveSimilarity);
+                }
+            }
+            logger.debug("Answering keyword question with terms={} from the lexical index only", lexical.terms());
+            List<Document> matches = lexical.matches().stream()
+                .limit(effectiveTopK)
+                .map(PolicyLexicalIndex.Match::document)
+                .toList();
+            // Packed without the question, which would have to be embedded for that
+            PolicyContext context = packedContext(null, matches, effectiveTopK);
+            recordLatency(RETRIEVAL_METRIC, RETRIEVAL_DESCRIPTION, "keyword", start);
+            return new Retrieval(start, null, context, null, keywordTerms, generation, effectiveTopK, effectiveSimilarity);
+        }
+
+        float[] questionEmbedding = null;
+        if (answerCache.isEnabled() && question != null && !question.isBlank()) {
+            // The similarity search embeds the question again, which the caching embedding model
+            // answers without another request
+            questionEmbedding = embeddingModel.embed(question);
+            PolicyRagResponse cached = answerCache.find(questionEmbedding, effectiveTopK, effectiveSimilarity);
+            if (cached != null) {
+                recordLatency(RETRIEVAL_METRIC, RETRIEVAL_DESCRIPTION, "cache", start);
+                return new Retrieval(start, cached, null, questionEmbedding, null, generation, effectiveTopK, effectiveSimilarity);
+            }
+        }
+
+        PolicyContext context = packedContext(question, hybridMatches(question, effectiveTopK, effectiveSimilarity, lexical), effectiveTopK);
+        recordLatency(RETRIEVAL_METRIC, RETRIEVAL_DESCRIPTION, "hybrid", start);
+        return new Retrieval(start, null, context, questionEmbedding, null, generation, effectiveTopK, effectiveSimilarity);
+    }
+
+    private PolicyContext packedContext(String question, List<Document> matches, int topK) {
+        return PolicyContext.of(matches, contextPacker.pack(matches, question, topK));
+    }
 
+    /**
+     * Stores an answer in the answer cache when its question was looked up there, with the
+     * time since the question arrived as what a hit saves.
+     */
+    private void cacheAnswer(Retrieval retrieval, PolicyRagResponse response) {
+        long computeNanos = System.nanoTime() - retrieval.startNanos();
+        if (retrieval.questionEmbedding() != null) {
+            answerCache.put(retrieval.questionEmbedding(), retrieval.topK(), retrieval.similarityThreshold(), response,
+                computeNanos, retrieval.generation());
+        } else if (retrieval.keywordTerms() != null && answerCache.isEnabled()) {
+            answerCache.putKeyword(retrieval.keywordTerms(), retrieval.topK(), retrieval.similarityThreshold(), response,
+                computeNanos, retrieval.generation());
+        }
+    }
+
+    private void recordLatency(String metric, String description, String path, long startNanos) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return;
+        }
+        Timer.Builder timer = Timer.builder(metric).description(description);
+        if (path != null) {
+            timer.tag("path", path);
+        }
+        timer.register(registry).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private List<Document> hybridMatches(String question, int effectiveTopK, double effectiveSimilarity,
+            PolicyLexicalIndex.Result lexical) {
         logger.debug("Querying policy vector store with topK={} similarityThreshold={}", effectiveTopK, effectiveSimilarity);
 
-        List<Document> matches = vectorStore.doSimilaritySearch(SearchRequest.builder()
+        List<Document> vectorMatches = vectorStore.similaritySearch(SearchRequest.builder()
             .query(question)
-            .topK(effectiveTopK)
+            .topK(effectiveTopK * CANDIDATE_FACTOR)
             .similarityThreshold(effectiveSimilarity)
             .build());
 
-        if (matches == null || matches.isEmpty()) {
-            return new PolicyRagResponse(
-                "No relevant policy context found.",
-                List.of(),
-                List.of(),
-                "",
-                0
-            );
-        }
+        double bestLexicalScore = lexical.matches().isEmpty() ? 0 : lexical.matches().getFirst().score();
+        List<Document> lexicalMatches = lexical.matches().stream()
+            .filter(match -> match.score() >= bestLexicalScore * LEXICAL_MIN_RELATIVE_SCORE)
+            .map(PolicyLexicalIndex.Match::document)
+            .toList();
 
-        String supportingContext = matches.stream()
-            .map(Document::getText)
-            .filter(Objects::nonNull)
-            .collect(Collectors.joining(System.lineSeparator() + System.lineSeparator()));
+        List<Document> matches = reciprocalRankFusion(
+            List.of(vectorMatches == null ? List.of() : vectorMatches, lexicalMatches), rrfK, effectiveTopK);
+        logger.debug("Fused {} vector and {} lexical matches into {}", vectorMatches == null ? 0 : vectorMatches.size(),
+            lexicalMatches.size(), matches.size());
+        return matches;
+    }
 
-        List<String> attachmentPaths = matches.stream()
-            .flatMap(doc -> Stream.of(doc.getMetadata().get("gcsPath")))
-            .filter(Objects::nonNull)
-            .map(Object::toString)
-            .distinct()
-            .toList();
+    /**
+     * Whether a question is a short keyword query that the lexical index answers on its own:
+     * at most maxTerms words, all of them in the best chunk, and that chunk scoring at least
+     * minScore and at least minMargin times the best chunk of any other policy. The minimum score
+     * keeps a common word that only one policy happens to contain from counting as a match.
+     *
+     * @param maxTerms {@code rag.policies.hybrid.keyword-max-terms}, 0 to answer no question this way
+     * @param minScore {@code rag.policies.hybrid.keyword-min-score}, the BM25 score the best chunk needs
+     * @param minMargin {@code rag.policies.hybrid.keyword-min-margin}
+     */
+    static boolean isConfidentKeywordMatch(PolicyLexicalIndex.Result lexical, int maxTerms, double minScore, double minMargin) {
+        List<PolicyLexicalIndex.Match> matches = lexical.matches();
+        if (maxTerms < 1 || matches.isEmpty() || lexical.terms().size() > maxTerms) {
+            return false;
+        }
+        PolicyLexicalIndex.Match best = matches.getFirst();
+        if (best.matchedTerms() < lexical.terms().size() || best.score() < minScore) {
+            return false;
+        }
+        Object bestPolicy = best.document().getMetadata().get("gcsPath");
+        double runnerUp = matches.stream()
+            .filter(match -> !Objects.equals(match.document().getMetadata().get("gcsPath"), bestPolicy))
+            .mapToDouble(PolicyLexicalIndex.Match::score)
+            .findFirst()
+            .orElse(0);
+        return best.score() >= minMargin * runnerUp;
+    }
 
-        List<String> matchedPolicyTitles = matches.stream()
-            .flatMap(doc -> Stream.of(doc.getMetadata().get("policyTitle")))
-            .filter(Objects::nonNull)
-            .map(Object::toString)
-            .distinct()
+    /**
+     * Merges rankings by summing 1 / (k + rank) for every ranking a document appears in, so that
+     * documents ranked well by several retrievers come first without their scores having to be
+     * comparable.
+     */
+    static List<Document> reciprocalRankFusion(List<List<Document>> rankings, int k, int limit) {
+        // Insertion order breaks ties in favour of the earlier ranking
+        Map<String, Document> documents = new HashMap<>();
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (List<Document> ranking : rankings) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                Document document = ranking.get(rank);
+                documents.putIfAbsent(document.getId(), document);
+                scores.merge(document.getId(), 1.0 / (k + rank + 1), Double::sum);
+            }
+        }
+        return scores.entrySet().stream()
+            .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+            .limit(limit)
+            .map(entry -> documents.get(entry.getKey()))
             .toList();
-
-        String answerPrompt = """
-            You are an HR policy assistant. Answer using only the policy context below.
-            If context is insufficient, say you are not certain and suggest contacting HR.
-
-            QUESTION:
-            %s
-
-            POLICY_CONTEXT:
-            %s
-            """.formatted(question, supportingContext);
-
-        String answer = ai.prompt()
-            .user(answerPrompt)
-            .call()
-            .content();
-
-        return new PolicyRagResponse(
-            answer == null ? "" : answer,
-            attachmentPaths,
-            matchedPolicyTitles,
-            supportingContext,
-            matches.size()
-        );
     }
 
-    private Document enrichPolicyDocument(Document sourceDoc, String policyTitle, String gcsPath) {
-        Map<String, Object> metadata = new HashMap<>(sourceDoc.getMetadata());
-        metadata.put("policyTitle", policyTitle);
-        metadata.put("gcsPath", gcsPath);
-        metadata.put("sourceType", "gcs-policy-pdf");
-        return new Document(sourceDoc.getText(), metadata);
+    /**
+     * Where retrieval for a question ended: a cached answer, or the context to answer from.
+     *
+     * @param questionEmbedding The embedding the answer cache was searched with, or null
+     * @param keywordTerms The terms a keyword answer is cached by, or null; with neither, the
+     *                     answer is not cached
+     * @param generation The answer cache generation read before retrieving
+     */
+    private record Retrieval(long startNanos, PolicyRagResponse cached, PolicyContext context, float[] questionEmbedding,
+            String keywordTerms, long generation, int topK, double similarityThreshold) {
     }
 
-    private String extractPolicyTitle(String gcsPath) {
-        if (gcsPath == null || gcsPath.isBlank()) {
-            return "";
-        }
+    /**
+     * The matched chunks of a question, the packed chunks the supporting context is made of and
+     * the policies those come from, so that no policy is named that the answer did not see.
+     */
+    private record PolicyContext(List<Document> matches, String supportingContext, List<String> attachmentPaths,
+            List<String> matchedPolicyTitles, int contextTokens, int contextTokensSaved) {
+
+        static PolicyContext of(List<Document> matches, PolicyContextPacker.Packed packed) {
+            if (matches == null || matches.isEmpty()) {
+                return new PolicyContext(List.of(), "", List.of(), List.of(), 0, 0);
+            }
 
-        String title = gcsPath;
-        int slash = title.lastIndexOf('/');
-        if (slash >= 0 && slash + 1 < title.length()) {
-            title = title.substring(slash + 1);
+            String supportingContext = packed.documents().stream()
+                .map(Document::getText)
+                .filter(Objects::nonNull)
+                .collect(Collectors.joining(System.lineSeparator() + System.lineSeparator()));
+
+            List<String> attachmentPaths = packed.documents().stream()
+                .flatMap(doc -> Stream.of(doc.getMetadata().get("gcsPath")))
+                .filter(Objects::nonNull)
+                .map(Object::toString)
+                .distinct()
+                .toList();
+
+            List<String> matchedPolicyTitles = packed.documents().stream()
+                .flatMap(doc -> Stream.of(doc.getMetadata().get("policyTitle")))
+                .filter(Objects::nonNull)
+                .map(Object::toString)
+                .distinct()
+                .toList();
+
+            return new PolicyContext(matches, supportingContext, attachmentPaths, matchedPolicyTitles, packed.tokens(),
+                packed.tokensSaved());
         }
 
-        if (title.toLowerCase(Locale.ROOT).endsWith(".pdf")) {
-            title = title.substring(0, title.length() - 4);
+        boolean isEmpty() {
+            return matches.isEmpty();
         }
 
-        if (title.startsWith("policies_")) {
-            title = title.substring("policies_".length());
+        String prompt(String question) {
+            return """
+                You are an HR policy assistant. Answer using only the policy context below.
+                If context is insufficient, say you are not certain and suggest contacting HR.
+
+                QUESTION:
+                %s
+
+                POLICY_CONTEXT:
+                %s
+                """.formatted(question, supportingContext);
         }
 
-        return title;
+        PolicyRagResponse response(String answer) {
+            return new PolicyRagResponse(
+                answer,
+                attachmentPaths,
+                matchedPolicyTitles,
+                supportingContext,
+                matches.size(),
+                contextTokens,
+                contextTokensSaved
+            );
+        }
     }
 
 }
@@ -0,0 +1,16 @@
+package com.megacorp.humanresources.service;
+
+import java.util.List;
+
+import com.megacorp.humanresources.model.SalaryHistogram;
+import com.megacorp.humanresources.model.SalaryPercentiles;
+import com.megacorp.humanresources.model.SalarySummary;
+
+public interface SalaryAnalyticsService {
+
+	SalaryPercentiles getSalaryPercentiles(String dimension, String value, List<Double> percentiles);
+
+	List<SalarySummary> getSalarySummary(String dimension, String value);
+
+	SalaryHistogram getSalaryHistogram(String dimension, String value, Long binWidth);
+}
@@ -0,0 +1,156 @@
+package com.megacorp.humanresources.service;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.stereotype.Service;
+
+import com.megacorp.humanresources.exceptions.InvalidRequestException;
+import com.megacorp.humanresources.exceptions.ResourceNotFoundException;
+import com.megacorp.humanresources.index.EmployeeSalaryIndex;
+import com.megacorp.humanresources.model.SalaryHistogram;
+import com.megacorp.humanresources.model.SalaryPercentiles;
+import com.megacorp.humanresources.model.SalarySummary;
+import com.megacorp.humanresources.service.helper.EmployeeDimensions;
+
+/**
+ * Salary distribution questions (percentiles, median and interquartile range, histograms)
+ * per department, title or business unit, answered from the in-memory
+ * {@link EmployeeSalaryIndex} instead of scanning the employee table.
+ */
+@Service
+public class SalaryAnalyticsServiceImpl implements SalaryAnalyticsService {
+
+	private static final Logger logger = LoggerFactory.getLogger(SalaryAnalyticsServiceImpl.class);
+
+	private static final List<Double> DEFAULT_PERCENTILES = List.of(25.0, 50.0, 75.0, 90.0, 99.0);
+	private static final int MAX_PERCENTILES = 100;
+	private static final long DEFAULT_BIN_WIDTH = 10_000;
+
+	private final EmployeeSalaryIndex employeeSalaryIndex;
+
+	public SalaryAnalyticsServiceImpl(EmployeeSalaryIndex employeeSalaryIndex) {
+		this.employeeSalaryIndex = employeeSalaryIndex;
+	}
+
+	/**
+	 * Estimates salary percentiles of a department, title or business unit, or of all
+	 * employees when no dimension is given.
+	 *
+	 * @param dimension department, title or businessUnit (optional)
+	 * @param value The department, title or business unit name; required with a dimension
+	 * @param percentiles Percentiles between 0 and 100 (optional, default 25, 50, 75, 90, 99)
+	 * @return The estimated salary per percentile, each within the index's relative accuracy;
+	 *         percentiles 0 and 100 are the exact minimum and maximum
+	 */
+	@Override
+	@Tool(
+		name = "salary_percentiles",
+		description = "Get annual salary percentiles (e.g. 10, 50, 90, 99) of a department, title or business unit, or of the whole company " +
+		"when no dimension is given. Answers from precomputed distributions; every value is within 1% of the exact percentile."
+	)
+	public SalaryPercentiles getSalaryPercentiles(
+		@ToolParam(required = false, description = "One of: department, title, businessUnit. Omit for all employees") String dimension,
+		@ToolParam(required = false, description = "Exact department, title or business unit name, e.g. IT") String value,
+		@ToolParam(required = false, description = "Percentiles from 0 to 100, default [25, 50, 75, 90, 99]") List<Double> percentiles
+	) {
+		logger.debug("Entering getSalaryPercentiles with dimension={} value={} percentiles={}", dimension, value, percentiles);
+		String resolvedDimension = EmployeeDimensions.resolve(dimension, value, true);
+		List<Double> resolvedPercentiles = percentiles == null || percentiles.isEmpty() ? DEFAULT_PERCENTILES : percentiles;
+		if (resolvedPercentiles.size() > MAX_PERCENTILES) {
+			throw new InvalidRequestException("At most " + MAX_PERCENTILES + " percentiles can be requested at once");
+		}
+		for (Double percentile : resolvedPercentiles) {
+			if (percentile == null || !(percentile >= 0 && percentile <= 100)) {
+				throw new InvalidRequestException("Percentiles must be between 0 and 100, got " + percentile);
+			}
+		}
+
+		long start = System.nanoTime();
+		SalaryPercentiles result = employeeSalaryIndex.percentiles(resolvedDimension, value, resolvedPercentiles);
+		if (result == null) {
+			throw new ResourceNotFoundException("Salary group", resolvedDimension + "=" + value);
+		}
+		logger.info("Salary percentiles for {}={} over {} employees computed in {} us",
+			resolvedDimension, value, result.count(), (System.nanoTime() - start) / 1_000);
+		return result;
+	}
+
+	/**
+	 * Summarizes salaries (count, mean, min, quartiles, median, IQR, max). With a dimension
+	 * and a value one group is summarized, with only a dimension every group of it, and
+	 * without either all employees.
+	 *
+	 * @param dimension department, title or businessUnit (optional)
+	 * @param value The department, title or business unit name (optional)
+	 * @return One summary per group
+	 */
+	@Override
+	@Tool(
+		name = "salary_summary",
+		description = "Get the salary distribution (count, mean, min, p25, median, p75, interquartile range, max) of one department, title " +
+		"or business unit, of every group of a dimension (give only the dimension, e.g. to compare departments), or of the whole company."
+	)
+	public List<SalarySummary> getSalarySummary(
+		@ToolParam(required = false, description = "One of: department, title, businessUnit. Omit for all employees") String dimension,
+		@ToolParam(required = false, description = "Exact department, title or business unit name. Omit to list every group of the dimension") String value
+	) {
+		logger.debug("Entering getSalarySummary with dimension={} value={}", dimension, value);
+		String resolvedDimension = EmployeeDimensions.resolve(dimension, value, false);
+
+		long start = System.nanoTime();
+		List<SalarySummary> summaries;
+		if (resolvedDimension != null && (value == null || value.isBlank())) {
+			summaries = employeeSalaryIndex.summaries(resolvedDimension);
+		} else {
+			SalarySummary summary = employeeSalaryIndex.summary(resolvedDimension, value);
+			if (summary == null) {
+				throw new ResourceNotFoundException("Salary group", resolvedDimension + "=" + value);
+			}
+			summaries = List.of(summary);
+		}
+		logger.info("Salary summary for {}={} returned {} groups in {} us",
+			resolvedDimension, value, summaries.size(), (System.nanoTime() - start) / 1_000);
+		return summaries;
+	}
+
+	/**
+	 * Counts salaries in fixed-width bins for a department, title or business unit, or for
+	 * all employees when no dimension is given.
+	 *
+	 * @param dimension department, title or businessUnit (optional)
+	 * @param value The department, title or business unit name; required with a dimension
+	 * @param binWidth Width of each bin in dollars (optional, default 10000)
+	 * @return The non-empty bins in ascending order
+	 */
+	@Override
+	@Tool(
+		name = "salary_histogram",
+		description = "Get a histogram of annual salaries of a department, title or business unit, or of the whole company, as counts " +
+		"per salary bin (default bins of 10000)."
+	)
+	public SalaryHistogram getSalaryHistogram(
+		@ToolParam(required = false, description = "One of: department, title, businessUnit. Omit for all employees") String dimension,
+		@ToolParam(required = false, description = "Exact department, title or business unit name, e.g. IT") String value,
+		@ToolParam(required = false, description = "Bin width in dollars, default 10000") Long binWidth
+	) {
+		logger.debug("Entering getSalaryHistogram with dimension={} value={} binWidth={}", dimension, value, binWidth);
+		String resolvedDimension = EmployeeDimensions.resolve(dimension, value, true);
+		if (binWidth != null && binWidth < 1) {
+			throw new InvalidRequestException("binWidth must be positive, got " + binWidth);
+		}
+
+		long start = System.nanoTime();
+		SalaryHistogram histogram = employeeSalaryIndex.histogram(resolvedDimension, value,
+			binWidth != null ? binWidth : DEFAULT_BIN_WIDTH);
+		if (histogram == null) {
+			throw new ResourceNotFoundException("Salary group", resolvedDimension + "=" + value);
+		}
+		logger.info("Salary histogram for {}={} has {} bins, computed in {} us",
+			resolvedDimension, value, histogram.bins().size(), (System.nanoTime() - start) / 1_000);
+		return histogram;
+	}
+}
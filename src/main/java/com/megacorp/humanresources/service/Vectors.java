@@ -0,0 +1,33 @@
+package com.megacorp.humanresources.service;
+
+/**
+ * Cosine similarity of embeddings as the dot product of their unit vectors.
+ */
+final class Vectors {
+
+    private Vectors() {
+    }
+
+    /**
+     * The vector scaled to length 1, or all zeros for a zero vector.
+     */
+    static float[] unit(float[] vector) {
+        double norm = Math.sqrt(dot(vector, vector));
+        float[] unit = new float[vector.length];
+        if (norm == 0) {
+            return unit;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            unit[i] = (float) (vector[i] / norm);
+        }
+        return unit;
+    }
+
+    static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
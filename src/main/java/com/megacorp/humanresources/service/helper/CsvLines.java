@@ -0,0 +1,60 @@
+package com.megacorp.humanresources.service.helper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Minimal CSV line handling shared by the employee import and the startup data loader.
+ */
+public final class CsvLines {
+
+	private CsvLines() {
+	}
+
+	/**
+	 * Splits one CSV line on commas outside of double quotes; "" inside quotes is a literal quote.
+	 */
+	public static List<String> split(String line) {
+		List<String> values = new ArrayList<>();
+		StringBuilder current = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c != '"') {
+					current.append(c);
+				} else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					current.append('"');
+					i++;
+				} else {
+					quoted = false;
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				values.add(current.toString());
+				current.setLength(0);
+			} else {
+				current.append(c);
+			}
+		}
+		values.add(current.toString());
+		return values;
+	}
+
+	/**
+	 * Maps the uppercased, trimmed column names of a header line to their positions. A
+	 * leading byte order mark is ignored and the first of duplicate names wins.
+	 */
+	public static Map<String, Integer> columns(String headerLine) {
+		List<String> names = split(headerLine.startsWith("\uFEFF") ? headerLine.substring(1) : headerLine);
+		Map<String, Integer> columns = new HashMap<>();
+		for (int i = 0; i < names.size(); i++) {
+			columns.putIfAbsent(names.get(i).trim().toUpperCase(Locale.ROOT), i);
+		}
+		return columns;
+	}
+}
@@ -0,0 +1,55 @@
+package com.megacorp.humanresources.service.helper;
+
+import java.util.Locale;
+import java.util.Map;
+
+import com.megacorp.humanresources.exceptions.InvalidRequestException;
+
+/**
+ * Resolves the dimension a caller groups employees by to the name the in-memory indexes
+ * (EmployeeHeadcountIndex, EmployeeSalaryIndex) use for it, so that "Business Unit",
+ * "business_unit" and "businessUnit" all mean the same dimension.
+ */
+public final class EmployeeDimensions {
+
+	public static final String DEPARTMENT = "department";
+	public static final String TITLE = "title";
+	public static final String BUSINESS_UNIT = "businessUnit";
+
+	private static final Map<String, String> DIMENSIONS = Map.of(
+		"department", DEPARTMENT,
+		"title", TITLE,
+		"businessunit", BUSINESS_UNIT
+	);
+
+	private EmployeeDimensions() {
+	}
+
+	/**
+	 * Maps a dimension name to the index's name.
+	 *
+	 * @param dimension department, title or businessUnit, in any case and with spaces, '_' or '-' (optional)
+	 * @param value The group of the dimension (optional)
+	 * @param valueRequired Whether a dimension must come with a value
+	 * @return The dimension, or null for all employees
+	 * @throws InvalidRequestException for an unknown dimension, a value without a dimension, or a
+	 *                                 missing value when one is required
+	 */
+	public static String resolve(String dimension, String value, boolean valueRequired) {
+		boolean hasValue = value != null && !value.isBlank();
+		if (dimension == null || dimension.isBlank()) {
+			if (hasValue) {
+				throw new InvalidRequestException("A dimension (department, title or businessUnit) is required with value '" + value + "'");
+			}
+			return null;
+		}
+		String resolved = DIMENSIONS.get(dimension.replaceAll("[\\s_-]", "").toLowerCase(Locale.US));
+		if (resolved == null) {
+			throw new InvalidRequestException("Unsupported dimension '" + dimension + "'. Supported values: businessUnit, department, title");
+		}
+		if (valueRequired && !hasValue) {
+			throw new InvalidRequestException("A value is required with dimension '" + dimension + "'");
+		}
+		return resolved;
+	}
+}
@@ -0,0 +1,104 @@
+package com.megacorp.humanresources.service.helper;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.megacorp.humanresources.entity.Employee;
+import com.megacorp.humanresources.exceptions.InvalidRequestException;
+
+/**
+ * Opaque position for keyset (seek) pagination of employee searches.
+ *
+ * A cursor records the sort the results were read with and the sort key and
+ * employeeId of the last employee returned. It is serialized as URL-safe Base64
+ * JSON so that callers can pass it back unchanged as {@code cursor}.
+ *
+ * @param sortBy The Employee field the results are ordered by
+ * @param sortDirection "asc" or "desc"
+ * @param keys The last row's sort key and employeeId
+ */
+public record EmployeeSearchCursor(String sortBy, String sortDirection, Map<String, Object> keys) {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper()
+		.registerModule(new JavaTimeModule())
+		.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+	/**
+	 * Builds the cursor that continues after the given employee or employee projection, or
+	 * returns null when the row has no value for the sort field and therefore cannot be
+	 * seeked past (including a projection that does not carry the sort field).
+	 */
+	public static EmployeeSearchCursor after(Object employee, String sortBy, String sortDirection) {
+		BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(employee);
+		if (!wrapper.isReadableProperty(sortBy)) {
+			return null;
+		}
+		Map<String, Object> keys = new LinkedHashMap<>();
+		Object sortValue = wrapper.getPropertyValue(sortBy);
+		if (sortValue == null) {
+			return null;
+		}
+		keys.put(sortBy, sortValue);
+		keys.put("employeeId", wrapper.getPropertyValue("employeeId"));
+		return new EmployeeSearchCursor(sortBy, sortDirection, keys);
+	}
+
+	public static EmployeeSearchCursor from(KeysetScrollPosition position, String sortBy, String sortDirection) {
+		if (position.getKeys().values().stream().anyMatch(value -> value == null)) {
+			return null;
+		}
+		return new EmployeeSearchCursor(sortBy, sortDirection, new LinkedHashMap<>(position.getKeys()));
+	}
+
+	public static EmployeeSearchCursor decode(String cursor) {
+		try {
+			byte[] json = Base64.getUrlDecoder().decode(cursor.trim());
+			EmployeeSearchCursor decoded = MAPPER.readValue(json, EmployeeSearchCursor.class);
+			if (decoded.sortBy() == null || decoded.keys() == null || !decoded.keys().containsKey("employeeId")) {
+				throw new InvalidRequestException("Invalid employee search cursor");
+			}
+			// JSON loses the key types (dates come back as strings), so restore them from the entity fields
+			Map<String, Object> typedKeys = new LinkedHashMap<>();
+			for (Map.Entry<String, Object> key : decoded.keys().entrySet()) {
+				typedKeys.put(key.getKey(), MAPPER.convertValue(key.getValue(), fieldType(key.getKey())));
+			}
+			return new EmployeeSearchCursor(decoded.sortBy(), decoded.sortDirection(), typedKeys);
+		} catch (InvalidRequestException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new InvalidRequestException("Invalid employee search cursor: " + e.getMessage());
+		}
+	}
+
+	public String encode() {
+		try {
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(this));
+		} catch (Exception e) {
+			throw new IllegalStateException("Unable to encode employee search cursor", e);
+		}
+	}
+
+	public KeysetScrollPosition toScrollPosition() {
+		return ScrollPosition.forward(keys);
+	}
+
+	private static Class<?> fieldType(String propertyPath) throws NoSuchFieldException {
+		Class<?> type = Employee.class;
+		for (String segment : propertyPath.split("\\.")) {
+			Field field = type.getDeclaredField(segment);
+			type = field.getType();
+		}
+		return type;
+	}
+}
@@ -0,0 +1,382 @@
+package com.megacorp.humanresources.service.helper;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.angus.mail.imap.IMAPFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Folder;
+import jakarta.mail.FolderClosedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Store;
+import jakarta.mail.StoreClosedException;
+
+/**
+ * Bounded pool of authenticated Gmail IMAP stores, each keeping the folder it last used open, so
+ * that email operations skip the TLS handshake, LOGIN and SELECT of a new connection.
+ *
+ * Connections are opened on demand up to {@code email.imap.pool.max-size}; a caller finding all
+ * of them in use waits up to {@code email.imap.pool.max-wait}. An idle connection that already
+ * has the requested folder open in the requested mode is preferred, otherwise an idle one
+ * switches folders. A borrowed connection is validated with a NOOP, which also brings the open
+ * folder's message count up to date, and replaced by a new one if that fails. A connection that
+ * drops during use is discarded instead of returned. Idle connections get a NOOP every
+ * {@code email.imap.pool.keep-alive} so that Gmail does not close them.
+ *
+ * The IDLE listener keeps its own connection, since IDLE blocks it. Connections in use and idle
+ * are in {@code hr.email.imap.pool.connections}, tagged with the state, the time waited for a
+ * connection in {@code hr.email.imap.pool.wait} and new logins in
+ * {@code hr.email.imap.pool.connects}.
+ */
+@Component
+public class ImapStorePool {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImapStorePool.class);
+
+    public static final String CONNECTIONS_METRIC = "hr.email.imap.pool.connections";
+    public static final String WAIT_METRIC = "hr.email.imap.pool.wait";
+    public static final String CONNECTS_METRIC = "hr.email.imap.pool.connects";
+
+    private static final String IMAP_SERVER = "imap.gmail.com";
+
+    /**
+     * Work done in a pooled folder, which stays open for the next caller.
+     */
+    @FunctionalInterface
+    public interface FolderCallback<T> {
+
+        /**
+         * @param folder The folder, open in the requested mode, or unopened if it does not exist
+         */
+        T doInFolder(Folder folder) throws Exception;
+    }
+
+    private final EmailServiceHelper emailHelper;
+    private final String emailAddress;
+    private final String emailPassword;
+    private final int maxSize;
+    private final Duration maxWait;
+    private final Duration keepAlive;
+    private final Semaphore permits;
+    private final AtomicInteger active = new AtomicInteger();
+    private final Timer waitTimer;
+    private final Counter connects;
+    private final ScheduledExecutorService keepAliveExecutor;
+
+    // Most recently returned first; guarded by itself
+    private final Deque<Connection> idle = new ArrayDeque<>();
+
+    private volatile boolean closed;
+
+    public ImapStorePool(EmailServiceHelper emailHelper,
+            @Value("${gmail_email_address}") String emailAddress,
+            @Value("${gmail_email_app_password}") String emailPassword,
+            @Value("${email.imap.pool.max-size:4}") int maxSize,
+            @Value("${email.imap.pool.max-wait:10s}") Duration maxWait,
+            @Value("${email.imap.pool.keep-alive:5m}") Duration keepAlive,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.emailHelper = emailHelper;
+        this.emailAddress = emailAddress;
+        this.emailPassword = emailPassword;
+        this.maxSize = Math.max(1, maxSize);
+        this.maxWait = maxWait;
+        this.keepAlive = keepAlive;
+        this.permits = new Semaphore(this.maxSize, true);
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder(CONNECTIONS_METRIC, active, AtomicInteger::get).tag("state", "active")
+                .description("IMAP connections in use").register(registry);
+            Gauge.builder(CONNECTIONS_METRIC, this, ImapStorePool::idleCount).tag("state", "idle")
+                .description("IMAP connections open and waiting to be borrowed").register(registry);
+            waitTimer = Timer.builder(WAIT_METRIC).description("Time waited to borrow an IMAP connection").register(registry);
+            connects = Counter.builder(CONNECTS_METRIC).description("IMAP logins opened by the pool").register(registry);
+        } else {
+            waitTimer = null;
+            connects = null;
+        }
+
+        if (keepAlive.isPositive()) {
+            keepAliveExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "imap-pool-keep-alive");
+                thread.setDaemon(true);
+                return thread;
+            });
+            keepAliveExecutor.scheduleWithFixedDelay(this::keepIdleConnectionsAlive, keepAlive.toMillis(),
+                keepAlive.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            keepAliveExecutor = null;
+        }
+    }
+
+    /**
+     * Runs callback with folderName open in mode (Folder.READ_ONLY or Folder.READ_WRITE) on a
+     * pooled connection. Messages of the folder can only be read inside the callback.
+     *
+     * @throws MessagingException if no connection became free within the maximum wait, or the
+     *                            IMAP server could not be reached
+     */
+    public <T> T withFolder(String folderName, int mode, FolderCallback<T> callback) throws Exception {
+        logger.debug("Entering withFolder with folderName={} mode={}", folderName, mode);
+        Connection connection = borrow(folderName, mode);
+        boolean reusable = false;
+        try {
+            Folder folder;
+            try {
+                folder = connection.open(folderName, mode);
+            } catch (MessagingException e) {
+                // The connection may be left between folders, so it is not reused
+                logger.warn("Discarding IMAP connection that could not open folder '{}': {}", folderName, e.getMessage());
+                throw e;
+            }
+            try {
+                T result = callback.doInFolder(folder);
+                reusable = true;
+                return result;
+            } catch (FolderClosedException | StoreClosedException e) {
+                logger.warn("Discarding IMAP connection that closed while using folder '{}': {}", folderName, e.getMessage());
+                throw e;
+            } catch (Exception e) {
+                // Failures of the work itself leave the connection usable; the next borrow validates it
+                reusable = true;
+                throw e;
+            }
+        } finally {
+            release(connection, reusable);
+        }
+    }
+
+    public int activeCount() {
+        return active.get();
+    }
+
+    public int idleCount() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        logger.debug("Entering close");
+        closed = true;
+        if (keepAliveExecutor != null) {
+            keepAliveExecutor.shutdownNow();
+        }
+        List<Connection> connections;
+        synchronized (idle) {
+            connections = new ArrayList<>(idle);
+            idle.clear();
+        }
+        connections.forEach(Connection::close);
+        logger.info("Closed IMAP connection pool with {} idle connections", connections.size());
+    }
+
+    private Connection borrow(String folderName, int mode) throws Exception {
+        if (closed) {
+            throw new MessagingException("IMAP connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new MessagingException("No IMAP connection became free within " + maxWait.toMillis() + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for an IMAP connection", e);
+        } finally {
+            if (waitTimer != null) {
+                waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        active.incrementAndGet();
+        try {
+            Connection connection;
+            while ((connection = takeIdle(folderName, mode)) != null) {
+                if (connection.validate()) {
+                    return connection;
+                }
+                logger.info("Replacing IMAP connection that failed validation");
+                connection.close();
+            }
+            return connect();
+        } catch (Exception e) {
+            active.decrementAndGet();
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void release(Connection connection, boolean reusable) {
+        if (reusable && !closed) {
+            connection.lastUsedNanos = System.nanoTime();
+            synchronized (idle) {
+                idle.addFirst(connection);
+            }
+        } else {
+            connection.close();
+        }
+        active.decrementAndGet();
+        permits.release();
+    }
+
+    /**
+     * An idle connection with the folder open in the mode, else the most recently used one.
+     */
+    private Connection takeIdle(String folderName, int mode) {
+        synchronized (idle) {
+            for (Iterator<Connection> connections = idle.iterator(); connections.hasNext();) {
+                Connection connection = connections.next();
+                if (connection.hasOpen(folderName, mode)) {
+                    connections.remove();
+                    return connection;
+                }
+            }
+            return idle.pollFirst();
+        }
+    }
+
+    private Connection connect() throws MessagingException {
+        long start = System.nanoTime();
+        Store store = emailHelper.getImapSession().getStore("imap");
+        store.connect(IMAP_SERVER, emailAddress, emailPassword);
+        if (connects != null) {
+            connects.increment();
+        }
+        logger.info("Opened pooled IMAP connection in {} ms ({} in use of {})", (System.nanoTime() - start) / 1_000_000,
+            active.get(), maxSize);
+        return new Connection(store);
+    }
+
+    /**
+     * Sends a NOOP on every connection idle for longer than the keep-alive interval, closing
+     * those that fail. Connections are taken out of the pool with a permit while checked, so
+     * the pool never holds more than its maximum.
+     */
+    void keepIdleConnectionsAlive() {
+        long cutoff = System.nanoTime() - keepAlive.toNanos();
+        int checked = 0;
+        int dropped = 0;
+        for (int i = idleCount(); i > 0 && !closed && permits.tryAcquire(); i--) {
+            Connection connection;
+            synchronized (idle) {
+                connection = idle.peekLast() != null && idle.peekLast().lastUsedNanos <= cutoff ? idle.pollLast() : null;
+            }
+            if (connection == null) {
+                permits.release();
+                break;
+            }
+            checked++;
+            if (connection.validate()) {
+                connection.lastUsedNanos = System.nanoTime();
+                synchronized (idle) {
+                    idle.addFirst(connection);
+                }
+            } else {
+                dropped++;
+                connection.close();
+            }
+            permits.release();
+        }
+        if (checked > 0) {
+            logger.debug("Kept {} idle IMAP connections alive, dropped {}", checked - dropped, dropped);
+        }
+    }
+
+    /**
+     * A logged-in store and the folder it has open, if any.
+     */
+    private static final class Connection {
+
+        private final Store store;
+        private Folder folder;
+        private volatile long lastUsedNanos = System.nanoTime();
+
+        Connection(Store store) {
+            this.store = store;
+        }
+
+        boolean hasOpen(String folderName, int mode) {
+            return folder != null && folder.isOpen() && folder.getFullName().equals(folderName) && folder.getMode() == mode;
+        }
+
+        /**
+         * Opens folderName in mode unless it is open already, closing the previous folder first
+         * so that its IMAP connection is reused for the new one.
+         */
+        Folder open(String folderName, int mode) throws MessagingException {
+            if (hasOpen(folderName, mode)) {
+                return folder;
+            }
+            closeFolder();
+            Folder next = store.getFolder(folderName);
+            if (!next.exists()) {
+                return next;
+            }
+            next.open(mode);
+            folder = next;
+            return next;
+        }
+
+        boolean validate() {
+            try {
+                if (folder != null && folder.isOpen()) {
+                    if (folder instanceof IMAPFolder imapFolder) {
+                        imapFolder.doCommand(protocol -> {
+                            protocol.simpleCommand("NOOP", null);
+                            return null;
+                        });
+                    } else {
+                        folder.getMessageCount();
+                    }
+                    return true;
+                }
+                // An IMAP store sends a NOOP to answer this
+                return store.isConnected();
+            } catch (Exception e) {
+                logger.debug("IMAP connection failed validation: {}", e.getMessage());
+                return false;
+            }
+        }
+
+        private void closeFolder() {
+            try {
+                if (folder != null && folder.isOpen()) {
+                    folder.close(false);
+                }
+            } catch (Exception e) {
+                logger.warn("Error closing pooled folder", e);
+            }
+            folder = null;
+        }
+
+        void close() {
+            closeFolder();
+            try {
+                store.close();
+            } catch (Exception e) {
+                logger.warn("Error closing pooled store", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.megacorp.humanresources.service.helper;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Normalizes address locations so that the values written to the normalized Address
+ * columns and the values searched for compare equal: states as 2-letter codes, cities
+ * and postal codes trimmed and uppercased.
+ */
+public final class LocationNormalizer {
+
+	private static final Map<String, String> US_STATE_TO_ABBREVIATION = Map.ofEntries(
+		Map.entry("alabama", "AL"),
+		Map.entry("alaska", "AK"),
+		Map.entry("arizona", "AZ"),
+		Map.entry("arkansas", "AR"),
+		Map.entry("california", "CA"),
+		Map.entry("colorado", "CO"),
+		Map.entry("connecticut", "CT"),
+		Map.entry("delaware", "DE"),
+		Map.entry("district of columbia", "DC"),
+		Map.entry("florida", "FL"),
+		Map.entry("georgia", "GA"),
+		Map.entry("hawaii", "HI"),
+		Map.entry("idaho", "ID"),
+		Map.entry("illinois", "IL"),
+		Map.entry("indiana", "IN"),
+		Map.entry("iowa", "IA"),
+		Map.entry("kansas", "KS"),
+		Map.entry("kentucky", "KY"),
+		Map.entry("louisiana", "LA"),
+		Map.entry("maine", "ME"),
+		Map.entry("maryland", "MD"),
+		Map.entry("massachusetts", "MA"),
+		Map.entry("michigan", "MI"),
+		Map.entry("minnesota", "MN"),
+		Map.entry("mississippi", "MS"),
+		Map.entry("missouri", "MO"),
+		Map.entry("montana", "MT"),
+		Map.entry("nebraska", "NE"),
+		Map.entry("nevada", "NV"),
+		Map.entry("new hampshire", "NH"),
+		Map.entry("new jersey", "NJ"),
+		Map.entry("new mexico", "NM"),
+		Map.entry("new york", "NY"),
+		Map.entry("north carolina", "NC"),
+		Map.entry("north dakota", "ND"),
+		Map.entry("ohio", "OH"),
+		Map.entry("oklahoma", "OK"),
+		Map.entry("oregon", "OR"),
+		Map.entry("pennsylvania", "PA"),
+		Map.entry("rhode island", "RI"),
+		Map.entry("south carolina", "SC"),
+		Map.entry("south dakota", "SD"),
+		Map.entry("tennessee", "TN"),
+		Map.entry("texas", "TX"),
+		Map.entry("utah", "UT"),
+		Map.entry("vermont", "VT"),
+		Map.entry("virginia", "VA"),
+		Map.entry("washington", "WA"),
+		Map.entry("west virginia", "WV"),
+		Map.entry("wisconsin", "WI"),
+		Map.entry("wyoming", "WY")
+	);
+
+	private LocationNormalizer() {
+	}
+
+	/**
+	 * Returns the 2-letter code for a US state given as a code or full name, or the
+	 * uppercased input when it is not a known state name.
+	 */
+	public static String normalizeState(String state) {
+		String trimmed = state.trim();
+		if (trimmed.length() == 2) {
+			return trimmed.toUpperCase(Locale.ROOT);
+		}
+		String mapped = US_STATE_TO_ABBREVIATION.get(trimmed.toLowerCase(Locale.ROOT));
+		if (mapped != null) {
+			return mapped;
+		}
+		return trimmed.toUpperCase(Locale.ROOT);
+	}
+
+	public static String normalizeCity(String city) {
+		return city.trim().toUpperCase(Locale.ROOT);
+	}
+
+	public static String normalizePostalCode(String postalCode) {
+		return postalCode.trim().toUpperCase(Locale.ROOT);
+	}
+}
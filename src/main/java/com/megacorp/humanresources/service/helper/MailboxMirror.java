@@ -0,0 +1,798 @@
+package com.megacorp.humanresources.service.helper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.eclipse.angus.mail.imap.IMAPFolder;
+import org.eclipse.angus.mail.imap.IMAPMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.megacorp.humanresources.model.EmailMessage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.FetchProfile;
+import jakarta.mail.Flags;
+import jakarta.mail.Folder;
+import jakarta.mail.Message;
+import jakarta.mail.UIDFolder;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Local copy of the envelopes, flags and text of mailbox folders, keyed by IMAP UID, that answers
+ * email reads without searching and downloading the messages on the IMAP server every time.
+ *
+ * The folders in {@code email.mirror.folders} are synced from startup every
+ * {@code email.mirror.sync-interval}; any other folder joins them when it is first read and is
+ * answered from the mirror once its first sync is done. A sync works on the folder selected on a
+ * pooled connection, whose message count the pool's NOOP has brought up to date, and does only
+ * what changed: while UIDVALIDITY stays the same, only messages from the UIDNEXT of the previous
+ * sync on are downloaded, flags are refreshed with a CHANGEDSINCE fetch from the previous
+ * HIGHESTMODSEQ on servers with CONDSTORE, as Gmail has, or with a FLAGS fetch otherwise, and the
+ * remaining UIDs are only listed when the message count shows an expunge. A new UIDVALIDITY
+ * discards the folder and syncs it again. STATUS is not used, as RFC 3501 asks clients not to
+ * send it for the selected mailbox. Only the most recent
+ * {@code email.mirror.max-messages} messages of a folder are kept; a read that finds fewer
+ * matches than it asked for in a folder with older messages goes to the server.
+ *
+ * A read syncs the folder first when its last sync is older than
+ * {@code email.mirror.max-staleness}, or when a refresh is forced, and goes to the server if that
+ * sync fails. Folders are stored as JSON under {@code email.mirror.path}, so that after a restart
+ * only the changes since are synced. The envelopes and bodies are stored unencrypted, which is why
+ * the mirror is off unless {@code email.mirror.enabled} is set. Sync times are in {@code hr.email.mirror.sync}, tagged with
+ * the folder, and reads in {@code hr.email.mirror.reads}, tagged with whether the mirror
+ * answered them.
+ */
+@Component
+public class MailboxMirror {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailboxMirror.class);
+
+    public static final String SYNC_METRIC = "hr.email.mirror.sync";
+    public static final String READS_METRIC = "hr.email.mirror.reads";
+
+    private static final long NEVER = Long.MIN_VALUE;
+
+    private record StoredFolder(String folderName, long uidValidity, long uidNext, long highestModSeq,
+            int messageCount, boolean complete, List<StoredMessage> messages) {
+    }
+
+    private record StoredMessage(long uid, EmailMessage message) {
+    }
+
+    /**
+     * A mirrored message with the lower-cased text its filters match against.
+     */
+    private record Mirrored(long uid, EmailMessage message, String subject, String from, String to, String body,
+            LocalDate receivedOn) {
+
+        static Mirrored of(long uid, EmailMessage message) {
+            return new Mirrored(uid, message, lower(message.getSubject()), lower(message.getFrom()),
+                message.getTo() == null ? "" : lower(String.join("\n", message.getTo())), lower(message.getBody()),
+                message.getReceivedDate() == null ? null : message.getReceivedDate().toLocalDate());
+        }
+
+        Mirrored withRead(boolean read) {
+            EmailMessage updated = copy(message);
+            updated.setRead(read);
+            return new Mirrored(uid, updated, subject, from, to, body, receivedOn);
+        }
+    }
+
+    /**
+     * What a sync reads from a folder that is open on the server.
+     */
+    interface Source {
+
+        long uidValidity() throws Exception;
+
+        /**
+         * Number of messages in the folder, counting those added and expunged since it was selected.
+         */
+        int messageCount() throws Exception;
+
+        boolean condstore() throws Exception;
+
+        /**
+         * A HIGHESTMODSEQ of the folder no later than any change still to be read; only asked
+         * of CONDSTORE servers.
+         */
+        long highestModSeq() throws Exception;
+
+        /**
+         * Messages with a UID from fromUid on, by UID.
+         */
+        NavigableMap<Long, EmailMessage> messagesFrom(long fromUid) throws Exception;
+
+        /**
+         * The count most recent messages, by UID.
+         */
+        NavigableMap<Long, EmailMessage> lastMessages(int count) throws Exception;
+
+        /**
+         * Whether each message with a UID from floorUid on is read, by UID.
+         */
+        Map<Long, Boolean> readFlags(long floorUid) throws Exception;
+
+        Set<Long> uids(long floorUid) throws Exception;
+
+        /**
+         * Whether each message with a UID from floorUid on whose flags changed after modSeq is
+         * read, and the highest mod-sequence among them.
+         */
+        Changes changedSince(long floorUid, long modSeq) throws Exception;
+
+        record Changes(Map<Long, Boolean> readFlags, long highestModSeq) {
+        }
+    }
+
+    private final ImapStorePool imapStorePool;
+    private final EmailServiceHelper emailHelper;
+    private final boolean enabled;
+    private final List<String> configuredFolders;
+    private final Duration syncInterval;
+    private final Duration maxStaleness;
+    private final int maxMessages;
+    private final Path storePath;
+    private final MeterRegistry registry;
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final Map<String, MirroredFolder> folders = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService syncExecutor;
+
+    public MailboxMirror(ImapStorePool imapStorePool, EmailServiceHelper emailHelper,
+            @Value("${email.mirror.enabled:false}") boolean enabled,
+            @Value("${email.mirror.folders:INBOX}") List<String> configuredFolders,
+            @Value("${email.mirror.sync-interval:1m}") Duration syncInterval,
+            @Value("${email.mirror.max-staleness:5m}") Duration maxStaleness,
+            @Value("${email.mirror.max-messages:2000}") int maxMessages,
+            @Value("${email.mirror.path:data/mail-mirror}") String storePath,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.imapStorePool = imapStorePool;
+        this.emailHelper = emailHelper;
+        this.enabled = enabled;
+        this.configuredFolders = configuredFolders.stream().map(String::trim).filter(name -> !name.isEmpty()).toList();
+        this.syncInterval = syncInterval;
+        this.maxStaleness = maxStaleness;
+        this.maxMessages = Math.max(1, maxMessages);
+        this.storePath = Path.of(storePath);
+        this.registry = meterRegistry.getIfAvailable();
+        this.syncExecutor = enabled ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mailbox-mirror-sync");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Loads the stored folders and starts syncing them and the configured folders.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            logger.info("Mailbox mirror is disabled; email reads go to the IMAP server");
+            return;
+        }
+        logger.debug("Entering start with folders={} syncInterval={}", configuredFolders, syncInterval);
+        load();
+        configuredFolders.forEach(name -> folders.computeIfAbsent(name, MirroredFolder::new));
+        if (syncInterval.isPositive()) {
+            syncExecutor.scheduleWithFixedDelay(this::syncAll, 0, syncInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        logger.info("Mailbox mirror started for folders {}", folders.keySet());
+    }
+
+    @PreDestroy
+    public void close() {
+        logger.debug("Entering close");
+        if (syncExecutor != null) {
+            syncExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Answers a read of folderName from the mirror, with the same filters and order as an IMAP
+     * search: subject, sender, recipient and body contain the filter ignoring case, the message
+     * ID is equal, received dates are within dateAfter and dateBefore (yyyy-MM-dd) inclusive,
+     * and the most recent matches come first.
+     *
+     * Only the newest {@code email.mirror.max-messages} messages of a folder are mirrored, so in a
+     * larger folder a filtered read that matches fewer than limit of them may be missing older
+     * matches; it is answered by the server instead, and logged at debug level.
+     *
+     * @param forceRefresh Whether to sync the folder first even if it is not stale
+     * @return The matches, or empty if the server has to answer: the mirror is disabled, the
+     *         folder has not been synced yet, the sync of a stale folder failed, or the folder
+     *         has older messages than the mirror keeps and fewer than limit matched
+     */
+    public Optional<List<EmailMessage>> read(String folderName, int limit, String subjectFilter, String fromFilter,
+            String toFilter, String bodyFilter, String messageId, String dateAfter, String dateBefore,
+            boolean unreadOnly, boolean forceRefresh) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        logger.debug("Entering read with folderName={} limit={} forceRefresh={}", folderName, limit, forceRefresh);
+        long start = System.nanoTime();
+        MirroredFolder mirrored = folders.get(folderName);
+        if (mirrored == null) {
+            mirrored = folders.computeIfAbsent(folderName, MirroredFolder::new);
+            MirroredFolder added = mirrored;
+            syncExecutor.execute(() -> sync(added));
+            logger.info("Added folder '{}' to the mailbox mirror", folderName);
+            if (!forceRefresh) {
+                countRead(false);
+                return Optional.empty();
+            }
+        }
+        if (!refreshIfNeeded(mirrored, forceRefresh, start)) {
+            countRead(false);
+            return Optional.empty();
+        }
+
+        String subject = lowerFilter(subjectFilter);
+        String from = lowerFilter(fromFilter);
+        String to = lowerFilter(toFilter);
+        String body = lowerFilter(bodyFilter);
+        String id = messageId == null || messageId.trim().isEmpty() ? null : messageId.trim();
+        LocalDate after = parseDate(dateAfter, "dateAfter");
+        LocalDate before = parseDate(dateBefore, "dateBefore");
+
+        List<EmailMessage> matches = new ArrayList<>();
+        int scanned = 0;
+        mirrored.lock.readLock().lock();
+        try {
+            for (Mirrored message : mirrored.messages.descendingMap().values()) {
+                if (matches.size() >= limit) {
+                    break;
+                }
+                scanned++;
+                if ((subject == null || message.subject().contains(subject))
+                        && (from == null || message.from().contains(from))
+                        && (to == null || message.to().contains(to))
+                        && (body == null || message.body().contains(body))
+                        && (id == null || id.equals(message.message().getMessageId()))
+                        && (after == null || (message.receivedOn() != null && !message.receivedOn().isBefore(after)))
+                        && (before == null || (message.receivedOn() != null && !message.receivedOn().isAfter(before)))
+                        && (!unreadOnly || !message.message().isRead())) {
+                    matches.add(copy(message.message()));
+                }
+            }
+            if (matches.size() < limit && !mirrored.complete) {
+                logger.debug("Mailbox mirror of '{}' holds {} of its messages and {} matched; reading from the server",
+                    folderName, mirrored.messages.size(), matches.size());
+                countRead(false);
+                return Optional.empty();
+            }
+        } finally {
+            mirrored.lock.readLock().unlock();
+        }
+        logger.info("Mailbox mirror answered read of '{}' with {} messages of {} scanned in {} ms", folderName,
+            matches.size(), scanned, (System.nanoTime() - start) / 1_000_000);
+        countRead(true);
+        return Optional.of(matches);
+    }
+
+    /**
+     * Marks the mirrored message with messageId in folderName read, after it was marked read on
+     * the server, so that unread reads do not return it until the next sync.
+     */
+    public void markRead(String folderName, String messageId) {
+        MirroredFolder mirrored = folders.get(folderName);
+        if (mirrored == null || messageId == null) {
+            return;
+        }
+        mirrored.lock.writeLock().lock();
+        try {
+            mirrored.messages.replaceAll((uid, message) -> messageId.trim().equals(message.message().getMessageId())
+                ? message.withRead(true) : message);
+        } finally {
+            mirrored.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Makes the next read of folderName sync it first, after messages were added to or removed
+     * from it.
+     */
+    public void invalidate(String folderName) {
+        MirroredFolder mirrored = folders.get(folderName);
+        if (mirrored != null) {
+            mirrored.syncedAtNanos = NEVER;
+        }
+    }
+
+    private void countRead(boolean fromMirror) {
+        if (registry != null) {
+            Counter.builder(READS_METRIC).description("Email reads by whether the mailbox mirror answered them")
+                .tag("source", fromMirror ? "mirror" : "server").register(registry).increment();
+        }
+    }
+
+    /**
+     * Syncs the folder when it is stale or a refresh is forced. A forced refresh is satisfied by
+     * any sync that started after the read did, so concurrent readers share one sync.
+     *
+     * @return Whether the folder can answer the read
+     */
+    private boolean refreshIfNeeded(MirroredFolder mirrored, boolean forceRefresh, long requestedNanos) {
+        if (!forceRefresh && mirrored.isFresh(maxStaleness)) {
+            return true;
+        }
+        if (!forceRefresh && !mirrored.hasData()) {
+            // The first sync downloads the whole folder, which is left to the background
+            return false;
+        }
+        mirrored.syncLock.lock();
+        try {
+            long syncedAt = mirrored.syncedAtNanos;
+            if (forceRefresh ? syncedAt != NEVER && syncedAt - requestedNanos >= 0 : mirrored.isFresh(maxStaleness)) {
+                return true;
+            }
+            return sync(mirrored);
+        } finally {
+            mirrored.syncLock.unlock();
+        }
+    }
+
+    private void syncAll() {
+        for (MirroredFolder mirrored : folders.values()) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            sync(mirrored);
+        }
+    }
+
+    private boolean sync(MirroredFolder mirrored) {
+        return sync(mirrored, () -> imapStorePool.withFolder(mirrored.name, Folder.READ_ONLY, folder -> {
+            if (!folder.exists()) {
+                return null;
+            }
+            return syncFolder(mirrored, new ImapSource((IMAPFolder) folder));
+        }));
+    }
+
+    /**
+     * Syncs folderName from source, as a sync from the IMAP server does.
+     */
+    boolean sync(String folderName, Source source) {
+        MirroredFolder mirrored = folders.computeIfAbsent(folderName, MirroredFolder::new);
+        return sync(mirrored, () -> syncFolder(mirrored, source));
+    }
+
+    /**
+     * @param syncing Syncs the folder, returning whether anything changed, or null if the folder
+     *                does not exist
+     */
+    private boolean sync(MirroredFolder mirrored, Callable<Boolean> syncing) {
+        mirrored.syncLock.lock();
+        long start = System.nanoTime();
+        try {
+            Boolean changed = syncing.call();
+            if (changed == null) {
+                logger.warn("Folder '{}' does not exist; removing it from the mailbox mirror", mirrored.name);
+                folders.remove(mirrored.name, mirrored);
+                Files.deleteIfExists(file(mirrored.name));
+                return false;
+            }
+            mirrored.syncedAtNanos = start;
+            if (changed) {
+                write(mirrored);
+            }
+            if (registry != null) {
+                Timer.builder(SYNC_METRIC).description("Time to sync a folder of the mailbox mirror")
+                    .tag("folder", mirrored.name).register(registry).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            return true;
+        } catch (Exception e) {
+            logger.warn("Failed to sync folder '{}' of the mailbox mirror: {}", mirrored.name, e.getMessage());
+            return false;
+        } finally {
+            mirrored.syncLock.unlock();
+        }
+    }
+
+    /**
+     * Brings the mirror of an open folder up to date with the server.
+     *
+     * @return Whether anything changed
+     */
+    private boolean syncFolder(MirroredFolder mirrored, Source source) throws Exception {
+        long uidValidity = source.uidValidity();
+        if (uidValidity != mirrored.uidValidity) {
+            resync(mirrored, source, uidValidity);
+            return true;
+        }
+
+        boolean condstore = source.condstore();
+        long floorUid = mirrored.floorUid();
+        int total = source.messageCount();
+        NavigableMap<Long, EmailMessage> added = source.messagesFrom(mirrored.uidNext);
+
+        Map<Long, Boolean> readFlags;
+        Set<Long> present = null;
+        long highestModSeq = mirrored.highestModSeq;
+        if (condstore && mirrored.highestModSeq > 0) {
+            Source.Changes changes = source.changedSince(floorUid, mirrored.highestModSeq);
+            readFlags = changes.readFlags();
+            highestModSeq = Math.max(highestModSeq, changes.highestModSeq());
+            if (total != mirrored.messageCount + added.size()) {
+                present = source.uids(floorUid);
+            }
+        } else {
+            // Without CONDSTORE flag changes cannot be asked for, so all flags are fetched
+            if (condstore) {
+                highestModSeq = source.highestModSeq();
+            }
+            readFlags = source.readFlags(floorUid);
+            present = readFlags.keySet();
+        }
+        if (present != null) {
+            // Left out when expunged between the two fetches
+            added.keySet().retainAll(present);
+        }
+
+        int removed = 0;
+        int flagged = 0;
+        boolean changed;
+        mirrored.lock.writeLock().lock();
+        try {
+            if (present != null) {
+                Set<Long> kept = present;
+                int before = mirrored.messages.size();
+                mirrored.messages.keySet().removeIf(uid -> !kept.contains(uid));
+                removed = before - mirrored.messages.size();
+            }
+            for (Map.Entry<Long, Boolean> flag : readFlags.entrySet()) {
+                Mirrored message = mirrored.messages.get(flag.getKey());
+                if (message != null && message.message().isRead() != flag.getValue()) {
+                    mirrored.messages.put(flag.getKey(), message.withRead(flag.getValue()));
+                    flagged++;
+                }
+            }
+            added.forEach((uid, message) -> mirrored.messages.put(uid, Mirrored.of(uid, message)));
+            trim(mirrored);
+            changed = !added.isEmpty() || removed > 0 || flagged > 0 || total != mirrored.messageCount
+                || highestModSeq != mirrored.highestModSeq;
+            long lastUid = mirrored.messages.isEmpty() ? 0 : mirrored.messages.lastKey();
+            mirrored.uidNext = Math.max(mirrored.uidNext, Math.max(added.isEmpty() ? 0 : added.lastKey() + 1, lastUid + 1));
+            mirrored.messageCount = total;
+            mirrored.highestModSeq = highestModSeq;
+        } finally {
+            mirrored.lock.writeLock().unlock();
+        }
+        if (changed) {
+            logger.info("Synced mailbox mirror of '{}': {} new, {} flag changes, {} removed", mirrored.name,
+                added.size(), flagged, removed);
+        } else {
+            logger.debug("Mailbox mirror of '{}' is up to date", mirrored.name);
+        }
+        return changed;
+    }
+
+    /**
+     * Replaces the mirror of a folder with its most recent messages, for a first sync or a new
+     * UIDVALIDITY.
+     */
+    private void resync(MirroredFolder mirrored, Source source, long uidValidity) throws Exception {
+        long start = System.nanoTime();
+        int total = source.messageCount();
+        // Read before the messages, so that changes made while they download are fetched next time
+        long highestModSeq = source.condstore() ? source.highestModSeq() : -1;
+        NavigableMap<Long, EmailMessage> synced = source.lastMessages(maxMessages);
+
+        mirrored.lock.writeLock().lock();
+        try {
+            if (mirrored.uidValidity != -1) {
+                logger.warn("UIDVALIDITY of folder '{}' changed; mirroring it again", mirrored.name);
+            }
+            mirrored.messages.clear();
+            synced.forEach((uid, message) -> mirrored.messages.put(uid, Mirrored.of(uid, message)));
+            mirrored.uidValidity = uidValidity;
+            mirrored.uidNext = synced.isEmpty() ? 1 : synced.lastKey() + 1;
+            mirrored.messageCount = total;
+            mirrored.highestModSeq = highestModSeq;
+            mirrored.complete = total <= maxMessages;
+        } finally {
+            mirrored.lock.writeLock().unlock();
+        }
+        logger.info("Mirrored {} of {} messages of '{}' in {} ms", synced.size(), total, mirrored.name,
+            (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void trim(MirroredFolder mirrored) {
+        while (mirrored.messages.size() > maxMessages) {
+            mirrored.messages.pollFirstEntry();
+            mirrored.complete = false;
+        }
+    }
+
+    private void load() {
+        if (!Files.isDirectory(storePath)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(storePath)) {
+            for (Path file : files.filter(path -> path.toString().endsWith(".json")).sorted().toList()) {
+                try {
+                    StoredFolder stored = jsonMapper.readValue(file.toFile(), StoredFolder.class);
+                    MirroredFolder mirrored = new MirroredFolder(stored.folderName());
+                    mirrored.uidValidity = stored.uidValidity();
+                    mirrored.uidNext = stored.uidNext();
+                    mirrored.highestModSeq = stored.highestModSeq();
+                    mirrored.messageCount = stored.messageCount();
+                    mirrored.complete = stored.complete();
+                    stored.messages().forEach(message ->
+                        mirrored.messages.put(message.uid(), Mirrored.of(message.uid(), message.message())));
+                    folders.put(mirrored.name, mirrored);
+                } catch (Exception e) {
+                    logger.warn("Ignoring unreadable mailbox mirror file {}: {}", file, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to load the mailbox mirror from {}", storePath, e);
+        }
+        logger.info("Loaded mailbox mirror of {} folders from {}", folders.size(), storePath);
+    }
+
+    private void write(MirroredFolder mirrored) {
+        StoredFolder stored;
+        mirrored.lock.readLock().lock();
+        try {
+            stored = new StoredFolder(mirrored.name, mirrored.uidValidity, mirrored.uidNext, mirrored.highestModSeq,
+                mirrored.messageCount, mirrored.complete, mirrored.messages.values().stream()
+                    .map(message -> new StoredMessage(message.uid(), message.message()))
+                    .toList());
+        } finally {
+            mirrored.lock.readLock().unlock();
+        }
+        try {
+            Files.createDirectories(storePath);
+            Path file = file(mirrored.name);
+            Path temp = Files.createTempFile(storePath, file.getFileName().toString(), ".tmp");
+            try {
+                jsonMapper.writeValue(temp.toFile(), stored);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store the mailbox mirror of " + mirrored.name, e);
+        }
+    }
+
+    private Path file(String folderName) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(folderName.getBytes(StandardCharsets.UTF_8));
+            return storePath.resolve(HexFormat.of().formatHex(hash) + ".json");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static LocalDate parseDate(String date, String name) {
+        if (date == null || date.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date.trim());
+        } catch (DateTimeParseException e) {
+            logger.warn("Invalid {} format: {}. Expected yyyy-MM-dd", name, date);
+            return null;
+        }
+    }
+
+    private static String lowerFilter(String filter) {
+        return filter == null || filter.trim().isEmpty() ? null : filter.toLowerCase(Locale.ROOT);
+    }
+
+    private static String lower(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static EmailMessage copy(EmailMessage message) {
+        return new EmailMessage(message.getMessageId(), message.getFrom(),
+            message.getTo() == null ? null : new ArrayList<>(message.getTo()),
+            message.getCc() == null ? null : new ArrayList<>(message.getCc()),
+            message.getSubject(), message.getBody(), message.getSentDate(), message.getReceivedDate(),
+            message.isRead(), message.getSize(),
+            message.getAttachmentNames() == null ? null : new ArrayList<>(message.getAttachmentNames()));
+    }
+
+    /**
+     * A folder open on a pooled IMAP connection. Its message count is current without STATUS:
+     * the folder was just selected, or the pool validated the connection with a NOOP, whose
+     * EXISTS and EXPUNGE responses update it.
+     */
+    private final class ImapSource implements Source {
+
+        private final IMAPFolder folder;
+
+        ImapSource(IMAPFolder folder) {
+            this.folder = folder;
+        }
+
+        @Override
+        public long uidValidity() throws Exception {
+            return folder.getUIDValidity();
+        }
+
+        @Override
+        public int messageCount() throws Exception {
+            return folder.getMessageCount();
+        }
+
+        @Override
+        public boolean condstore() throws Exception {
+            return (Boolean) folder.doCommand(protocol -> protocol.hasCapability("CONDSTORE"));
+        }
+
+        @Override
+        public long highestModSeq() throws Exception {
+            // As of the SELECT, which is no later than any change not yet fetched
+            return folder.getHighestModSeq();
+        }
+
+        /**
+         * Leaves out the last message, which the server returns for a range past the highest UID.
+         */
+        @Override
+        public NavigableMap<Long, EmailMessage> messagesFrom(long fromUid) throws Exception {
+            List<Message> messages = new ArrayList<>();
+            for (Message message : folder.getMessagesByUID(Math.max(1, fromUid), UIDFolder.LASTUID)) {
+                if (message != null && folder.getUID(message) >= fromUid) {
+                    messages.add(message);
+                }
+            }
+            return convert(messages.toArray(Message[]::new));
+        }
+
+        @Override
+        public NavigableMap<Long, EmailMessage> lastMessages(int count) throws Exception {
+            int total = folder.getMessageCount();
+            return convert(total == 0 ? new Message[0] : folder.getMessages(Math.max(1, total - count + 1), total));
+        }
+
+        @Override
+        public Map<Long, Boolean> readFlags(long floorUid) throws Exception {
+            Map<Long, Boolean> readFlags = new TreeMap<>();
+            for (Message message : fetch(floorUid, true)) {
+                readFlags.put(folder.getUID(message), message.isSet(Flags.Flag.SEEN));
+            }
+            return readFlags;
+        }
+
+        @Override
+        public Set<Long> uids(long floorUid) throws Exception {
+            Set<Long> uids = new HashSet<>();
+            for (Message message : fetch(floorUid, false)) {
+                uids.add(folder.getUID(message));
+            }
+            return uids;
+        }
+
+        @Override
+        public Changes changedSince(long floorUid, long modSeq) throws Exception {
+            Map<Long, Boolean> readFlags = new TreeMap<>();
+            long highestModSeq = modSeq;
+            for (Message message : folder.getMessagesByUIDChangedSince(floorUid, UIDFolder.LASTUID, modSeq)) {
+                readFlags.put(folder.getUID(message), message.isSet(Flags.Flag.SEEN));
+                highestModSeq = Math.max(highestModSeq, ((IMAPMessage) message).getModSeq());
+            }
+            return new Changes(readFlags, highestModSeq);
+        }
+
+        private List<Message> fetch(long floorUid, boolean withFlags) throws Exception {
+            Message[] messages = folder.getMessagesByUID(floorUid, UIDFolder.LASTUID);
+            FetchProfile profile = new FetchProfile();
+            profile.add(UIDFolder.FetchProfileItem.UID);
+            if (withFlags) {
+                profile.add(FetchProfile.Item.FLAGS);
+            }
+            folder.fetch(messages, profile);
+            return Stream.of(messages).filter(Objects::nonNull).toList();
+        }
+
+        private NavigableMap<Long, EmailMessage> convert(Message[] messages) throws Exception {
+            FetchProfile profile = new FetchProfile();
+            profile.add(UIDFolder.FetchProfileItem.UID);
+            profile.add(FetchProfile.Item.ENVELOPE);
+            profile.add(FetchProfile.Item.FLAGS);
+            profile.add(FetchProfile.Item.CONTENT_INFO);
+            folder.fetch(messages, profile);
+            NavigableMap<Long, EmailMessage> converted = new TreeMap<>();
+            for (Message message : messages) {
+                long uid = folder.getUID(message);
+                try {
+                    converted.put(uid, emailHelper.convertToEmailMessage(message));
+                } catch (Exception e) {
+                    logger.error("Error mirroring message with UID {} of '{}': {}", uid, folder.getFullName(), e.getMessage());
+                }
+            }
+            return converted;
+        }
+    }
+
+    /**
+     * The mirror of one folder. Syncs of it are serialized by syncLock, and its messages and
+     * sync state are guarded by lock.
+     */
+    private static final class MirroredFolder {
+
+        private final String name;
+        private final ReentrantLock syncLock = new ReentrantLock();
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final NavigableMap<Long, Mirrored> messages = new TreeMap<>();
+        private long uidValidity = -1;
+        private long uidNext;
+        private long highestModSeq = -1;
+        private int messageCount;
+        private boolean complete;
+        // Start of the last successful sync
+        private volatile long syncedAtNanos = NEVER;
+
+        MirroredFolder(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Lowest UID the mirror covers.
+         */
+        long floorUid() {
+            lock.readLock().lock();
+            try {
+                return complete || messages.isEmpty() ? 1 : messages.firstKey();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        boolean hasData() {
+            lock.readLock().lock();
+            try {
+                return uidValidity != -1;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        boolean isFresh(Duration maxStaleness) {
+            long syncedAt = syncedAtNanos;
+            return syncedAt != NEVER && System.nanoTime() - syncedAt <= maxStaleness.toNanos();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.megacorp.humanresources.service.helper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.megacorp.humanresources.model.FileVersion;
+
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Record of which version of each policy PDF is in the vector store, kept as a JSON file
+ * keyed by GCS object name.
+ *
+ * A file is current when its MD5 hash matches the recorded one, or, for objects without an
+ * MD5 hash (composite uploads), when its generation does. A re-upload of identical content
+ * therefore does not count as a change even though GCS gives it a new generation.
+ *
+ * A missing or unreadable manifest is treated as empty, so the next ingest re-reads every
+ * file; since ingest replaces a file's chunks by its gcsPath, that is safe, only slower.
+ */
+public class PolicyIngestManifest {
+
+	private static final Logger logger = LoggerFactory.getLogger(PolicyIngestManifest.class);
+
+	private static final JsonMapper MAPPER = JsonMapper.builder().build();
+
+	/**
+	 * What was ingested for one file.
+	 *
+	 * @param generation The GCS generation that was ingested
+	 * @param md5Hash The Base64 MD5 hash of the content that was ingested
+	 * @param chunkCount Number of chunks added to the vector store
+	 * @param ingestedAt When the file was ingested
+	 */
+	public record Entry(Long generation, String md5Hash, int chunkCount, Instant ingestedAt) {
+	}
+
+	private final Path path;
+	private final Map<String, Entry> entries;
+
+	private PolicyIngestManifest(Path path, Map<String, Entry> entries) {
+		this.path = path;
+		this.entries = entries;
+	}
+
+	/**
+	 * Reads the manifest at path, or starts an empty one when the file does not exist or cannot
+	 * be read.
+	 */
+	public static PolicyIngestManifest load(Path path) {
+		Map<String, Entry> entries = new TreeMap<>();
+		if (Files.isRegularFile(path)) {
+			try {
+				entries.putAll(MAPPER.readValue(path.toFile(), new TypeReference<Map<String, Entry>>() { }));
+			} catch (Exception e) {
+				logger.warn("Ignoring unreadable policy ingest manifest {}, all policies will be re-ingested", path, e);
+				entries.clear();
+			}
+		}
+		logger.debug("Loaded policy ingest manifest {} with {} files", path, entries.size());
+		return new PolicyIngestManifest(path, entries);
+	}
+
+	public Entry get(String name) {
+		return entries.get(name);
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Whether the version of file in GCS is the one that was ingested.
+	 */
+	public boolean isCurrent(FileVersion file) {
+		Entry entry = entries.get(file.name());
+		if (entry == null) {
+			return false;
+		}
+		if (file.md5Hash() != null && entry.md5Hash() != null) {
+			return file.md5Hash().equals(entry.md5Hash());
+		}
+		return file.generation() != null && Objects.equals(file.generation(), entry.generation());
+	}
+
+	public void record(FileVersion file, int chunkCount) {
+		entries.put(file.name(), new Entry(file.generation(), file.md5Hash(), chunkCount, Instant.now()));
+	}
+
+	public void remove(String name) {
+		entries.remove(name);
+	}
+
+	/**
+	 * Forgets every file, for when the vector store no longer holds what the manifest lists.
+	 */
+	public void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Files recorded directly under prefix, not in sub-folders, that are no longer listed.
+	 *
+	 * @param prefix A folder prefix ending in '/'
+	 * @param listed The names currently under the prefix
+	 */
+	public List<String> missingFrom(String prefix, Collection<String> listed) {
+		Set<String> present = new HashSet<>(listed);
+		return entries.keySet().stream()
+			.filter(name -> name.startsWith(prefix) && name.indexOf('/', prefix.length()) < 0)
+			.filter(name -> !present.contains(name))
+			.toList();
+	}
+
+	/**
+	 * Writes the manifest to a temporary file next to it and moves that into place, so a crash
+	 * while saving leaves the previous manifest intact.
+	 */
+	public void save() {
+		try {
+			Path parent = path.toAbsolutePath().getParent();
+			Files.createDirectories(parent);
+			Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+			try {
+				MAPPER.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), entries);
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(temp);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to save policy ingest manifest " + path, e);
+		}
+	}
+}
@@ -1,12 +1,22 @@
 package com.megacorp.humanresources.specifications;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.springframework.data.jpa.domain.Specification;
 
+import com.megacorp.humanresources.entity.Address;
 import com.megacorp.humanresources.entity.Employee;
+import com.megacorp.humanresources.service.helper.LocationNormalizer;
 
+import jakarta.persistence.criteria.CommonAbstractCriteria;
+import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 
 public class EmployeeSpecifications {
 
@@ -63,40 +73,80 @@ public class EmployeeSpecifications {
 	}
 
 	public static Specification<Employee> hasManagerId(Long managerId) {
-		return (root, query, criteriaBuilder) -> {
-            // Join the Employee entity with its manager (which is also an Employee)
-            Join<Employee, Employee> managerJoin = root.join("manager");
-            // Create a predicate to filter by the manager's ID
-            return criteriaBuilder.equal(managerJoin.get("employeeId"), managerId);
-        };
+		// manager.employeeId resolves to the MANAGER_ID foreign key, so no self-join is needed
+		return (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("manager").get("employeeId"), managerId);
 	}
 
 	public static Specification<Employee> hasAddressId(Long addressId) {
-		return (root, query, criteriaBuilder) -> {
-			Join<Employee, ?> addressJoin = root.join("address");
-			return criteriaBuilder.equal(addressJoin.get("addressId"), addressId);
-		};
+		return (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("address").get("addressId"), addressId);
 	}
 
+	// The location filters compare the normalized Address columns written by
+	// LocationNormalizer, so the comparisons can use the address indexes
+
 	public static Specification<Employee> hasAddressState(String state) {
-		return (root, query, criteriaBuilder) -> {
-			Join<Employee, ?> addressJoin = root.join("address");
-			return criteriaBuilder.equal(criteriaBuilder.upper(addressJoin.get("state")), state.toUpperCase());
-		};
+		return (root, query, criteriaBuilder) ->
+			criteriaBuilder.equal(addressJoin(root).get("stateNormalized"), LocationNormalizer.normalizeState(state));
 	}
 
 	public static Specification<Employee> hasAddressCity(String city) {
-		return (root, query, criteriaBuilder) -> {
-			Join<Employee, ?> addressJoin = root.join("address");
-			return criteriaBuilder.equal(criteriaBuilder.upper(addressJoin.get("city")), city.toUpperCase());
-		};
+		return (root, query, criteriaBuilder) ->
+			criteriaBuilder.equal(addressJoin(root).get("cityNormalized"), LocationNormalizer.normalizeCity(city));
 	}
 
 	public static Specification<Employee> hasAddressPostalCode(String postalCode) {
+		return (root, query, criteriaBuilder) ->
+			criteriaBuilder.equal(addressJoin(root).get("postalCodeNormalized"), LocationNormalizer.normalizePostalCode(postalCode));
+	}
+
+	// Reuses the address join of another location filter so that combined filters join once
+	private static Join<Employee, ?> addressJoin(Root<Employee> root) {
+		for (Join<Employee, ?> join : root.getJoins()) {
+			if (join.getAttribute().getName().equals("address") && join.getJoinType() == JoinType.INNER) {
+				return join;
+			}
+		}
+		return root.join("address");
+	}
+
+	/**
+	 * The location filters for a bulk update or delete, where JPA defines no joins: the
+	 * employee's address must be one of the addresses matching all given filters.
+	 *
+	 * @return The predicate, or null if no location filter is given
+	 */
+	public static Predicate hasAddressMatching(CommonAbstractCriteria statement, Root<Employee> root, CriteriaBuilder criteriaBuilder,
+			String state, String city, String postalCode) {
+		Subquery<Long> addresses = statement.subquery(Long.class);
+		Root<Address> address = addresses.from(Address.class);
+		List<Predicate> filters = new ArrayList<>();
+		if (state != null && !state.isBlank()) {
+			filters.add(criteriaBuilder.equal(address.get("stateNormalized"), LocationNormalizer.normalizeState(state)));
+		}
+		if (city != null && !city.isBlank()) {
+			filters.add(criteriaBuilder.equal(address.get("cityNormalized"), LocationNormalizer.normalizeCity(city)));
+		}
+		if (postalCode != null && !postalCode.isBlank()) {
+			filters.add(criteriaBuilder.equal(address.get("postalCodeNormalized"), LocationNormalizer.normalizePostalCode(postalCode)));
+		}
+		if (filters.isEmpty()) {
+			return null;
+		}
+		addresses.select(address.get("addressId")).where(filters.toArray(Predicate[]::new));
+		return root.get("address").get("addressId").in(addresses);
+	}
+
+	/**
+	 * Fetch-joins the address into entity queries so that it is not loaded with one
+	 * select per employee. Count queries are left untouched.
+	 */
+	public static Specification<Employee> fetchAddress() {
 		return (root, query, criteriaBuilder) -> {
-			Join<Employee, ?> addressJoin = root.join("address");
-			return criteriaBuilder.equal(addressJoin.get("postalCode"), postalCode);
+			if (query != null && !Long.class.equals(query.getResultType()) && !long.class.equals(query.getResultType())) {
+				root.fetch("address", JoinType.LEFT);
+			}
+			return null;
 		};
 	}
 
-}
\ No newline at end of file
+}
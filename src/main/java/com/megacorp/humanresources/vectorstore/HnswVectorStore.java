@@ -0,0 +1,870 @@
+package com.megacorp.humanresources.vectorstore;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentMetadata;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.observation.conventions.VectorStoreProvider;
+import org.springframework.ai.observation.conventions.VectorStoreSimilarityMetric;
+import org.springframework.ai.vectorstore.AbstractVectorStoreBuilder;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionConverter;
+import org.springframework.ai.vectorstore.filter.converter.SimpleVectorStoreFilterExpressionConverter;
+import org.springframework.ai.vectorstore.observation.AbstractObservationVectorStore;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationContext;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import com.megacorp.humanresources.vectorstore.MappedVectorStore.Encoding;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Vector store that answers similarity searches from an HNSW graph (hierarchical navigable
+ * small world, Malkov and Yashunin) held in the JVM, so that policy RAG can run without
+ * Elasticsearch.
+ *
+ * Every document is a node on level 0 and, with exponentially decreasing probability, on the
+ * levels above it. On each level a node links to at most M nodes (2M on level 0), picked from
+ * its efConstruction nearest with the paper's neighbor heuristic, which skips a neighbor that
+ * is closer to an already linked one than to the node, so that links also reach neighboring
+ * clusters. A search descends greedily from the entry point on the top level and then explores
+ * level 0 keeping the efSearch best nodes found, scoring a few hundred vectors instead of all
+ * of them. Vectors are L2-normalized, so cosine similarity is a dot product, and stored as
+ * float32 or, with {@link Encoding#INT8}, as one signed byte per dimension plus a scale.
+ *
+ * Filter expressions are evaluated on the nodes the search visits. When a filter is so
+ * selective that the graph search finds fewer than topK matches, every matching document is
+ * scored instead. Deleted documents stay in the graph as tombstones that are traversed but
+ * never returned, until they make up a quarter of the nodes and the graph is rebuilt from the
+ * remaining vectors. Every change rewrites the store's file (vectors, links and documents,
+ * moved into place atomically), which {@link #load()} reads back without embedding anything.
+ * The stored vectors are available through {@link #findVectors}, for int8 dequantized.
+ */
+public class HnswVectorStore extends AbstractObservationVectorStore implements StoredVectors {
+
+	private static final Logger logger = LoggerFactory.getLogger(HnswVectorStore.class);
+
+	// "HRHN"
+	private static final int MAGIC = 0x4852484E;
+	private static final int FORMAT_VERSION = 1;
+	private static final int MAX_LEVEL = 16;
+	// Share of deleted nodes at which the graph is rebuilt without them
+	private static final double COMPACT_RATIO = 0.25;
+
+	private static final Comparator<Candidate> CLOSEST_FIRST = Comparator.comparingDouble(Candidate::similarity).reversed();
+
+	private final Path file;
+	private final Encoding encoding;
+	private final int m;
+	private final int efConstruction;
+	private final int efSearch;
+	private final double levelMultiplier;
+	private final JsonMapper jsonMapper = JsonMapper.builder().build();
+	private final ExpressionParser expressionParser = new SpelExpressionParser();
+	private final FilterExpressionConverter filterExpressionConverter = new SimpleVectorStoreFilterExpressionConverter();
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	// Fixed seed, so that the same documents added in the same order give the same graph
+	private final SplittableRandom random = new SplittableRandom(0x48524853);
+
+	// Guarded by lock
+	private final List<Node> nodes = new ArrayList<>();
+	private final Map<String, Integer> nodeIds = new HashMap<>();
+	private int dimensions;
+	private int entryPoint = -1;
+	private int topLevel = -1;
+	private int deletedCount;
+
+	protected HnswVectorStore(Builder builder) {
+		super(builder);
+		this.file = Objects.requireNonNull(builder.file, "file must not be null");
+		this.encoding = builder.encoding;
+		this.m = builder.m;
+		this.efConstruction = builder.efConstruction;
+		this.efSearch = builder.efSearch;
+		this.levelMultiplier = 1 / Math.log(m);
+	}
+
+	public static Builder builder(EmbeddingModel embeddingModel) {
+		return new Builder(embeddingModel);
+	}
+
+	/**
+	 * Reads the store's file if it was written with the same encoding.
+	 *
+	 * @return Whether the file was read; when not, the store is empty
+	 */
+	public boolean load() {
+		logger.debug("Entering load with file={}", file);
+		if (!Files.isRegularFile(file)) {
+			return false;
+		}
+		lock.writeLock().lock();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+				throw new IllegalStateException("not an HNSW vector store file of format version " + FORMAT_VERSION);
+			}
+			if (Encoding.values()[in.readInt()] != encoding) {
+				logger.info("HNSW vector store file {} was written with another encoding", file);
+				return false;
+			}
+			int fileDimensions = in.readInt();
+			int count = in.readInt();
+			int fileEntryPoint = in.readInt();
+			int fileTopLevel = in.readInt();
+			List<Node> loaded = new ArrayList<>(count);
+			for (int index = 0; index < count; index++) {
+				loaded.add(readNode(in, fileDimensions));
+			}
+
+			nodes.clear();
+			nodeIds.clear();
+			nodes.addAll(loaded);
+			deletedCount = 0;
+			for (int index = 0; index < count; index++) {
+				if (loaded.get(index).deleted) {
+					deletedCount++;
+				} else {
+					nodeIds.put(loaded.get(index).entry.id(), index);
+				}
+			}
+			dimensions = fileDimensions;
+			entryPoint = fileEntryPoint;
+			topLevel = fileTopLevel;
+			logger.info("HNSW vector store file {} loaded with {} documents of {} dimensions", file, nodeIds.size(), dimensions);
+			return true;
+		} catch (IOException | RuntimeException e) {
+			logger.warn("HNSW vector store file {} could not be loaded: {}", file, e.getMessage());
+			return false;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return nodeIds.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public Map<String, float[]> findVectors(Collection<String> ids) {
+		Map<String, float[]> vectors = new HashMap<>();
+		lock.readLock().lock();
+		try {
+			for (String id : ids) {
+				Integer index = nodeIds.get(id);
+				if (index != null) {
+					vectors.put(id, nodes.get(index).vector.toFloats());
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		return vectors;
+	}
+
+	@Override
+	public void doAdd(List<Document> documents) {
+		Objects.requireNonNull(documents, "Documents list cannot be null");
+		if (documents.isEmpty()) {
+			throw new IllegalArgumentException("Documents list cannot be empty");
+		}
+		logger.debug("Entering doAdd with {} documents", documents.size());
+		List<float[]> embeddings = embeddingModel.embed(documents, EmbeddingOptions.builder().build(), batchingStrategy);
+		lock.writeLock().lock();
+		try {
+			for (int i = 0; i < documents.size(); i++) {
+				Document document = documents.get(i);
+				Vector vector = encode(embeddings.get(i));
+				if (dimensions == 0) {
+					dimensions = vector.dimensions();
+				} else if (vector.dimensions() != dimensions) {
+					throw new IllegalArgumentException("Embeddings of different dimensions: " + dimensions + " and "
+						+ vector.dimensions());
+				}
+				Integer replaced = nodeIds.get(document.getId());
+				if (replaced != null) {
+					tombstone(replaced);
+				}
+				insert(new Entry(document.getId(), Objects.requireNonNullElse(document.getText(), ""), document.getMetadata()), vector);
+			}
+			compactIfNeeded();
+			save();
+		} finally {
+			lock.writeLock().unlock();
+		}
+		logger.info("Added {} documents to the HNSW vector store, now {} documents", documents.size(), size());
+	}
+
+	@Override
+	public void doDelete(List<String> idList) {
+		lock.writeLock().lock();
+		try {
+			int before = nodeIds.size();
+			for (String id : idList) {
+				Integer index = nodeIds.get(id);
+				if (index != null) {
+					tombstone(index);
+				}
+			}
+			if (nodeIds.size() != before) {
+				compactIfNeeded();
+				save();
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	protected void doDelete(Filter.Expression filterExpression) {
+		Predicate<Entry> matches = filter(filterExpression);
+		lock.writeLock().lock();
+		try {
+			int before = nodeIds.size();
+			for (int index = 0; index < nodes.size(); index++) {
+				Node node = nodes.get(index);
+				if (!node.deleted && matches.test(node.entry)) {
+					tombstone(index);
+				}
+			}
+			if (nodeIds.size() != before) {
+				logger.info("Deleted {} documents matching {} from the HNSW vector store", before - nodeIds.size(), filterExpression);
+				compactIfNeeded();
+				save();
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public List<Document> doSimilaritySearch(SearchRequest request) {
+		return search(request, false);
+	}
+
+	/**
+	 * Answers a search request by scoring every document, as a baseline for the recall and
+	 * latency of the graph search.
+	 */
+	public List<Document> exactSearch(SearchRequest request) {
+		return search(request, true);
+	}
+
+	@Override
+	public VectorStoreObservationContext.Builder createObservationContextBuilder(String operationName) {
+		return VectorStoreObservationContext.builder(VectorStoreProvider.SIMPLE.value(), operationName)
+			.dimensions(dimensions > 0 ? dimensions : null)
+			.collectionName(file.getFileName().toString())
+			.similarityMetric(VectorStoreSimilarityMetric.COSINE.value());
+	}
+
+	private List<Document> search(SearchRequest request, boolean exact) {
+		if (request.getTopK() <= 0) {
+			return List.of();
+		}
+		float[] embedding = embeddingModel.embed(request.getQuery());
+		Predicate<Entry> filter = request.hasFilterExpression() ? filter(request.getFilterExpression()) : null;
+		lock.readLock().lock();
+		try {
+			if (nodeIds.isEmpty()) {
+				return List.of();
+			}
+			Vector query = encode(embedding);
+			if (query.dimensions() != dimensions) {
+				throw new IllegalArgumentException("Query embedding has " + query.dimensions() + " dimensions, the vector store "
+					+ dimensions);
+			}
+			IntPredicate accept = index -> {
+				Node node = nodes.get(index);
+				return !node.deleted && (filter == null || filter.test(node.entry));
+			};
+
+			List<Candidate> candidates;
+			if (exact) {
+				candidates = scoreAll(query, accept, request.getTopK());
+			} else {
+				int current = entryPoint;
+				for (int level = topLevel; level > 0; level--) {
+					current = closest(query, current, level);
+				}
+				candidates = searchLevel(query, current, Math.max(efSearch, request.getTopK()), 0, accept);
+				if (filter != null && candidates.size() < request.getTopK()) {
+					// Too few matches among the nodes the graph search visited
+					candidates = scoreAll(query, accept, request.getTopK());
+				}
+			}
+
+			List<Document> documents = new ArrayList<>();
+			for (Candidate candidate : candidates) {
+				if (documents.size() == request.getTopK() || candidate.similarity() < request.getSimilarityThreshold()) {
+					break;
+				}
+				Entry entry = nodes.get(candidate.node()).entry;
+				Map<String, Object> metadata = new LinkedHashMap<>(entry.metadata());
+				metadata.put(DocumentMetadata.DISTANCE.value(), 1 - candidate.similarity());
+				documents.add(Document.builder()
+					.id(entry.id())
+					.text(entry.text())
+					.metadata(metadata)
+					.score(candidate.similarity())
+					.build());
+			}
+			return documents;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private void insert(Entry entry, Vector vector) {
+		int level = Math.min(MAX_LEVEL, (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier));
+		int index = nodes.size();
+		Node node = new Node(entry, vector, level);
+		nodes.add(node);
+		nodeIds.put(entry.id(), index);
+		if (entryPoint < 0) {
+			entryPoint = index;
+			topLevel = level;
+			return;
+		}
+
+		int current = entryPoint;
+		for (int l = topLevel; l > level; l--) {
+			current = closest(vector, current, l);
+		}
+		for (int l = Math.min(level, topLevel); l >= 0; l--) {
+			List<Candidate> candidates = searchLevel(vector, current, efConstruction, l,
+				candidate -> candidate != index && !nodes.get(candidate).deleted);
+			node.neighbors[l] = selectNeighbors(candidates, maxLinks(l));
+			for (int neighbor : node.neighbors[l]) {
+				link(neighbor, index, l);
+			}
+			if (!candidates.isEmpty()) {
+				current = candidates.get(0).node();
+			}
+		}
+		if (level > topLevel) {
+			entryPoint = index;
+			topLevel = level;
+		}
+	}
+
+	private int maxLinks(int level) {
+		return level == 0 ? 2 * m : m;
+	}
+
+	/**
+	 * Adds a link from one node to another and, when the node then has too many links on that
+	 * level, keeps the ones the neighbor heuristic picks.
+	 */
+	private void link(int from, int to, int level) {
+		Node node = nodes.get(from);
+		int[] links = Arrays.copyOf(node.neighbors[level], node.neighbors[level].length + 1);
+		links[links.length - 1] = to;
+		if (links.length <= maxLinks(level)) {
+			node.neighbors[level] = links;
+			return;
+		}
+		List<Candidate> candidates = new ArrayList<>(links.length);
+		for (int neighbor : links) {
+			candidates.add(new Candidate(neighbor, similarity(node.vector, nodes.get(neighbor).vector)));
+		}
+		candidates.sort(CLOSEST_FIRST);
+		node.neighbors[level] = selectNeighbors(candidates, maxLinks(level));
+	}
+
+	/**
+	 * The neighbor heuristic: going from the closest candidate, keeps a candidate only when it
+	 * is closer to the node than to every candidate kept so far, then fills the remaining
+	 * links with the closest candidates it skipped.
+	 *
+	 * @param candidates Candidates sorted closest first, with their similarity to the node
+	 */
+	private int[] selectNeighbors(List<Candidate> candidates, int maxLinks) {
+		List<Candidate> selected = new ArrayList<>(maxLinks);
+		List<Candidate> skipped = new ArrayList<>();
+		for (Candidate candidate : candidates) {
+			if (selected.size() == maxLinks) {
+				break;
+			}
+			Vector vector = nodes.get(candidate.node()).vector;
+			boolean diverse = true;
+			for (Candidate kept : selected) {
+				if (similarity(vector, nodes.get(kept.node()).vector) >= candidate.similarity()) {
+					diverse = false;
+					break;
+				}
+			}
+			(diverse ? selected : skipped).add(candidate);
+		}
+		for (int i = 0; i < skipped.size() && selected.size() < maxLinks; i++) {
+			selected.add(skipped.get(i));
+		}
+		return selected.stream().mapToInt(Candidate::node).toArray();
+	}
+
+	/**
+	 * Follows links on one level to the node closest to the query, as long as that improves.
+	 */
+	private int closest(Vector query, int start, int level) {
+		int current = start;
+		double best = similarity(query, nodes.get(current).vector);
+		boolean improved = true;
+		while (improved) {
+			improved = false;
+			for (int neighbor : nodes.get(current).neighbors[level]) {
+				double similarity = similarity(query, nodes.get(neighbor).vector);
+				if (similarity > best) {
+					best = similarity;
+					current = neighbor;
+					improved = true;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Best-first search of one level that keeps the ef closest accepted nodes, stopping when the
+	 * closest unexplored node is farther than all of them. Nodes that are not accepted are
+	 * still explored, so that tombstones and filtered out documents do not cut the graph.
+	 *
+	 * @return The accepted nodes found, closest first
+	 */
+	private List<Candidate> searchLevel(Vector query, int start, int ef, int level, IntPredicate accept) {
+		BitSet visited = new BitSet(nodes.size());
+		Heap frontier = new Heap(ef, true);
+		Heap found = new Heap(ef + 1, false);
+		double startSimilarity = similarity(query, nodes.get(start).vector);
+		visited.set(start);
+		frontier.push(start, startSimilarity);
+		if (accept.test(start)) {
+			found.push(start, startSimilarity);
+		}
+		while (frontier.size() > 0) {
+			if (found.size() >= ef && frontier.topSimilarity() < found.topSimilarity()) {
+				break;
+			}
+			int nearest = frontier.pop();
+			for (int neighbor : nodes.get(nearest).neighbors[level]) {
+				if (visited.get(neighbor)) {
+					continue;
+				}
+				visited.set(neighbor);
+				double similarity = similarity(query, nodes.get(neighbor).vector);
+				if (found.size() < ef || similarity > found.topSimilarity()) {
+					frontier.push(neighbor, similarity);
+					if (accept.test(neighbor)) {
+						found.push(neighbor, similarity);
+						if (found.size() > ef) {
+							found.pop();
+						}
+					}
+				}
+			}
+		}
+		return found.closestFirst();
+	}
+
+	/**
+	 * Scores every accepted node and keeps the best topK in a bounded heap.
+	 */
+	private List<Candidate> scoreAll(Vector query, IntPredicate accept, int topK) {
+		Heap best = new Heap(topK + 1, false);
+		for (int index = 0; index < nodes.size(); index++) {
+			if (nodes.get(index).deleted) {
+				continue;
+			}
+			double similarity = similarity(query, nodes.get(index).vector);
+			if ((best.size() < topK || similarity > best.topSimilarity()) && accept.test(index)) {
+				best.push(index, similarity);
+				if (best.size() > topK) {
+					best.pop();
+				}
+			}
+		}
+		return best.closestFirst();
+	}
+
+	private void tombstone(int index) {
+		Node node = nodes.get(index);
+		node.deleted = true;
+		nodeIds.remove(node.entry.id());
+		deletedCount++;
+	}
+
+	/**
+	 * Rebuilds the graph from the live nodes once tombstones make up a quarter of it, reusing
+	 * the stored vectors.
+	 */
+	private void compactIfNeeded() {
+		if (deletedCount == 0 || deletedCount < COMPACT_RATIO * nodes.size()) {
+			return;
+		}
+		List<Node> live = nodes.stream().filter(node -> !node.deleted).toList();
+		int removed = deletedCount;
+		nodes.clear();
+		nodeIds.clear();
+		entryPoint = -1;
+		topLevel = -1;
+		deletedCount = 0;
+		if (live.isEmpty()) {
+			dimensions = 0;
+		}
+		for (Node node : live) {
+			insert(node.entry, node.vector);
+		}
+		logger.info("Rebuilt the HNSW graph of {} documents without {} deleted ones", live.size(), removed);
+	}
+
+	private Vector encode(float[] embedding) {
+		float[] normalized = MappedVectorStore.normalize(embedding);
+		if (encoding == Encoding.INT8) {
+			byte[] bytes = new byte[normalized.length];
+			float scale = MappedVectorStore.quantize(normalized, bytes);
+			return new Vector(null, bytes, scale);
+		}
+		return new Vector(normalized, null, 1);
+	}
+
+	private static double similarity(Vector a, Vector b) {
+		if (a.bytes() != null) {
+			return (double) a.scale() * b.scale() * MappedVectorStore.dot(a.bytes(), b.bytes());
+		}
+		return MappedVectorStore.dot(a.floats(), b.floats());
+	}
+
+	private Predicate<Entry> filter(Filter.Expression filterExpression) {
+		var expression = expressionParser.parseExpression(filterExpressionConverter.convertExpression(filterExpression));
+		return entry -> {
+			StandardEvaluationContext context = new StandardEvaluationContext();
+			context.setVariable("metadata", entry.metadata());
+			return Boolean.TRUE.equals(expression.getValue(context, Boolean.class));
+		};
+	}
+
+	/**
+	 * Writes the graph to a new file next to the current one and moves it into place.
+	 */
+	private void save() {
+		try {
+			Path directory = file.toAbsolutePath().getParent();
+			Files.createDirectories(directory);
+			Path partial = Files.createTempFile(directory, file.getFileName().toString(), ".partial");
+			try {
+				try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+					DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+					out.writeInt(MAGIC);
+					out.writeInt(FORMAT_VERSION);
+					out.writeInt(encoding.ordinal());
+					out.writeInt(dimensions);
+					out.writeInt(nodes.size());
+					out.writeInt(entryPoint);
+					out.writeInt(topLevel);
+					for (Node node : nodes) {
+						writeNode(out, node);
+					}
+					out.flush();
+					channel.force(true);
+				}
+				Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(partial);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to write vector store file " + file, e);
+		}
+	}
+
+	private void writeNode(DataOutputStream out, Node node) throws IOException {
+		out.writeBoolean(node.deleted);
+		if (encoding == Encoding.INT8) {
+			out.writeFloat(node.vector.scale());
+			out.write(node.vector.bytes());
+		} else {
+			for (float component : node.vector.floats()) {
+				out.writeFloat(component);
+			}
+		}
+		out.writeInt(node.neighbors.length);
+		for (int[] links : node.neighbors) {
+			out.writeInt(links.length);
+			for (int link : links) {
+				out.writeInt(link);
+			}
+		}
+		byte[] document = jsonMapper.writeValueAsBytes(node.entry);
+		out.writeInt(document.length);
+		out.write(document);
+	}
+
+	private Node readNode(DataInputStream in, int dimensions) throws IOException {
+		boolean deleted = in.readBoolean();
+		Vector vector;
+		if (encoding == Encoding.INT8) {
+			float scale = in.readFloat();
+			byte[] bytes = new byte[dimensions];
+			in.readFully(bytes);
+			vector = new Vector(null, bytes, scale);
+		} else {
+			float[] floats = new float[dimensions];
+			for (int i = 0; i < dimensions; i++) {
+				floats[i] = in.readFloat();
+			}
+			vector = new Vector(floats, null, 1);
+		}
+		int levels = in.readInt();
+		int[][] neighbors = new int[levels][];
+		for (int level = 0; level < levels; level++) {
+			neighbors[level] = new int[in.readInt()];
+			for (int i = 0; i < neighbors[level].length; i++) {
+				neighbors[level][i] = in.readInt();
+			}
+		}
+		byte[] document = new byte[in.readInt()];
+		in.readFully(document);
+		Node node = new Node(jsonMapper.readValue(document, Entry.class), vector, neighbors);
+		node.deleted = deleted;
+		return node;
+	}
+
+	/**
+	 * Binary heap of nodes ordered by similarity, kept in primitive arrays since a search pushes
+	 * a candidate for most of the nodes it scores.
+	 */
+	private static final class Heap {
+
+		private final boolean closestFirst;
+		private int[] heapNodes;
+		private double[] similarities;
+		private int size;
+
+		Heap(int capacity, boolean closestFirst) {
+			this.closestFirst = closestFirst;
+			this.heapNodes = new int[Math.max(capacity, 16)];
+			this.similarities = new double[heapNodes.length];
+		}
+
+		int size() {
+			return size;
+		}
+
+		double topSimilarity() {
+			return similarities[0];
+		}
+
+		void push(int node, double similarity) {
+			if (size == heapNodes.length) {
+				heapNodes = Arrays.copyOf(heapNodes, size * 2);
+				similarities = Arrays.copyOf(similarities, size * 2);
+			}
+			int index = size++;
+			while (index > 0) {
+				int parent = (index - 1) >>> 1;
+				if (!before(similarity, similarities[parent])) {
+					break;
+				}
+				heapNodes[index] = heapNodes[parent];
+				similarities[index] = similarities[parent];
+				index = parent;
+			}
+			heapNodes[index] = node;
+			similarities[index] = similarity;
+		}
+
+		/**
+		 * Removes the top node.
+		 */
+		int pop() {
+			int top = heapNodes[0];
+			size--;
+			int node = heapNodes[size];
+			double similarity = similarities[size];
+			int index = 0;
+			while (true) {
+				int child = 2 * index + 1;
+				if (child >= size) {
+					break;
+				}
+				if (child + 1 < size && before(similarities[child + 1], similarities[child])) {
+					child++;
+				}
+				if (!before(similarities[child], similarity)) {
+					break;
+				}
+				heapNodes[index] = heapNodes[child];
+				similarities[index] = similarities[child];
+				index = child;
+			}
+			heapNodes[index] = node;
+			similarities[index] = similarity;
+			return top;
+		}
+
+		/**
+		 * Empties the heap into a list sorted closest first.
+		 */
+		List<Candidate> closestFirst() {
+			Candidate[] sorted = new Candidate[size];
+			while (size > 0) {
+				double similarity = similarities[0];
+				int position = closestFirst ? sorted.length - size : size - 1;
+				sorted[position] = new Candidate(pop(), similarity);
+			}
+			return Arrays.asList(sorted);
+		}
+
+		private boolean before(double a, double b) {
+			return closestFirst ? a > b : a < b;
+		}
+	}
+
+	/**
+	 * A normalized vector, either as floats or as bytes that multiplied by the scale give the
+	 * components.
+	 */
+	private record Vector(float[] floats, byte[] bytes, float scale) {
+
+		int dimensions() {
+			return floats != null ? floats.length : bytes.length;
+		}
+
+		float[] toFloats() {
+			if (floats != null) {
+				return floats.clone();
+			}
+			float[] components = new float[bytes.length];
+			for (int i = 0; i < bytes.length; i++) {
+				components[i] = bytes[i] * scale;
+			}
+			return components;
+		}
+	}
+
+	private static final class Node {
+
+		private final Entry entry;
+		private final Vector vector;
+		// The links of each level the node is on, replaced whenever they change
+		private final int[][] neighbors;
+		private boolean deleted;
+
+		Node(Entry entry, Vector vector, int level) {
+			this(entry, vector, new int[level + 1][]);
+			Arrays.fill(neighbors, new int[0]);
+		}
+
+		Node(Entry entry, Vector vector, int[][] neighbors) {
+			this.entry = entry;
+			this.vector = vector;
+			this.neighbors = neighbors;
+		}
+	}
+
+	private record Entry(String id, String text, Map<String, Object> metadata) {
+	}
+
+	private record Candidate(int node, double similarity) {
+	}
+
+	public static final class Builder extends AbstractVectorStoreBuilder<Builder> {
+
+		private Path file;
+		private Encoding encoding = Encoding.FLOAT32;
+		private int m = 16;
+		private int efConstruction = 200;
+		private int efSearch = 100;
+
+		private Builder(EmbeddingModel embeddingModel) {
+			super(embeddingModel);
+		}
+
+		/**
+		 * The file the store is kept in.
+		 */
+		public Builder file(Path file) {
+			this.file = file;
+			return this;
+		}
+
+		public Builder encoding(Encoding encoding) {
+			this.encoding = Objects.requireNonNull(encoding, "encoding must not be null");
+			return this;
+		}
+
+		/**
+		 * Links per node on the levels above 0 (twice as many on level 0); more links give
+		 * better recall for more memory and slower inserts.
+		 */
+		public Builder m(int m) {
+			if (m < 2) {
+				throw new IllegalArgumentException("m must be at least 2");
+			}
+			this.m = m;
+			return this;
+		}
+
+		/**
+		 * Candidates considered when linking a new node.
+		 */
+		public Builder efConstruction(int efConstruction) {
+			if (efConstruction < 1) {
+				throw new IllegalArgumentException("efConstruction must be positive");
+			}
+			this.efConstruction = efConstruction;
+			return this;
+		}
+
+		/**
+		 * Candidates kept while searching level 0, at least topK; more give better recall for
+		 * slower searches.
+		 */
+		public Builder efSearch(int efSearch) {
+			if (efSearch < 1) {
+				throw new IllegalArgumentException("efSearch must be positive");
+			}
+			this.efSearch = efSearch;
+			return this;
+		}
+
+		@Override
+		public HnswVectorStore build() {
+			return new HnswVectorStore(this);
+		}
+	}
+}
@@ -0,0 +1,622 @@
+package com.megacorp.humanresources.vectorstore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentMetadata;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.observation.conventions.VectorStoreProvider;
+import org.springframework.ai.observation.conventions.VectorStoreSimilarityMetric;
+import org.springframework.ai.vectorstore.AbstractVectorStoreBuilder;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionConverter;
+import org.springframework.ai.vectorstore.filter.converter.SimpleVectorStoreFilterExpressionConverter;
+import org.springframework.ai.vectorstore.observation.AbstractObservationVectorStore;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationContext;
+import org.springframework.core.io.Resource;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Vector store kept in a single memory-mapped file, as a drop-in replacement for Spring AI's
+ * SimpleVectorStore and its JSON file.
+ *
+ * The file starts with a fixed header (format, encoding, dimensions, document count and the
+ * content hash of the sources the store was built from), followed by the vector segment and
+ * the document segment. Vectors are L2-normalized when written, so cosine similarity is a
+ * plain dot product, and stored either as float32 or, with {@link Encoding#INT8}, as one
+ * signed byte per dimension plus a scale per vector (a quarter of the size). An int8 store
+ * quantizes the query the same way and scores with integer arithmetic, with scores off by
+ * well under 1%. The document segment holds an offset table and the id, text and
+ * metadata of each document as JSON, decoded only for the documents a search returns or a
+ * filter has to look at.
+ *
+ * Loading maps the file and reads the header, however many documents it holds. The file is
+ * mapped as one buffer, so it is limited to 2 GB (at most about 500,000 float32 or 2 million
+ * int8 vectors of 1024 dimensions, fewer once their text is counted); writing a larger store
+ * fails, and a larger file is not loaded. A search computes the score of every vector straight
+ * from the mapped buffer and keeps the best topK in a bounded heap. The store is built for
+ * read-mostly data: adding or deleting documents rewrites the file and maps the new one, while
+ * searches running at that moment finish on the previous mapping.
+ */
+public class MappedVectorStore extends AbstractObservationVectorStore {
+
+	private static final Logger logger = LoggerFactory.getLogger(MappedVectorStore.class);
+
+	/**
+	 * How the vector components are stored.
+	 */
+	public enum Encoding {
+		FLOAT32, INT8
+	}
+
+	// "HRVS"
+	private static final int MAGIC = 0x48525653;
+	private static final int FORMAT_VERSION = 1;
+	private static final int HASH_BYTES = 64;
+	// magic, version, encoding, dimensions, count, reserved, content hash, document segment offset
+	private static final int HEADER_BYTES = 6 * Integer.BYTES + HASH_BYTES + Long.BYTES;
+	// A MappedByteBuffer and its int offsets address at most this many bytes
+	private static final long MAX_FILE_BYTES = Integer.MAX_VALUE;
+
+	private final Path file;
+	private final Encoding encoding;
+	private final String contentHash;
+	private final JsonMapper jsonMapper = JsonMapper.builder().build();
+	private final ExpressionParser expressionParser = new SpelExpressionParser();
+	private final FilterExpressionConverter filterExpressionConverter = new SimpleVectorStoreFilterExpressionConverter();
+	private final Object writeLock = new Object();
+
+	private volatile Segment segment;
+
+	protected MappedVectorStore(Builder builder) {
+		super(builder);
+		this.file = Objects.requireNonNull(builder.file, "file must not be null");
+		this.encoding = builder.encoding;
+		this.contentHash = builder.contentHash;
+	}
+
+	public static Builder builder(EmbeddingModel embeddingModel) {
+		return new Builder(embeddingModel);
+	}
+
+	/**
+	 * SHA-256 of the sources a store is built from, to be passed to
+	 * {@link Builder#contentHash(String)} so that changing a source invalidates the file.
+	 */
+	public static String contentHash(Resource... sources) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] buffer = new byte[1 << 16];
+			for (Resource source : sources) {
+				try (InputStream stream = source.getInputStream()) {
+					int read;
+					while ((read = stream.read(buffer)) != -1) {
+						digest.update(buffer, 0, read);
+					}
+				}
+			}
+			return HexFormat.of().formatHex(digest.digest());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read vector store source", e);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Maps the store's file if it was written with the same encoding and content hash.
+	 *
+	 * @return Whether the file was mapped; when not, the store is empty and has to be filled
+	 */
+	public boolean load() {
+		logger.debug("Entering load with file={}", file);
+		if (!Files.isRegularFile(file)) {
+			return false;
+		}
+		try {
+			Segment mapped = map(file);
+			if (mapped.encoding != encoding || !mapped.contentHash.equals(contentHash)) {
+				logger.info("Vector store file {} was built from other sources or with another encoding", file);
+				return false;
+			}
+			segment = mapped;
+			logger.info("Vector store file {} mapped with {} documents of {} dimensions", file, mapped.count, mapped.dimensions);
+			return true;
+		} catch (IOException | RuntimeException e) {
+			logger.warn("Vector store file {} could not be mapped: {}", file, e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Replaces the contents of the store with the documents and embeddings of a file written
+	 * by {@code SimpleVectorStore.save}, without calling the embedding model. Which sources the
+	 * JSON file was built from is not known, so the file is written with an empty content hash:
+	 * it serves until the next {@link #load()}, which rejects it so the store is rebuilt from
+	 * its sources.
+	 */
+	public void importSimpleVectorStore(Resource json) {
+		logger.debug("Entering importSimpleVectorStore with json={}", json);
+		Map<String, StoredDocument> stored;
+		try (InputStream stream = json.getInputStream()) {
+			stored = jsonMapper.readValue(stream, new TypeReference<LinkedHashMap<String, StoredDocument>>() { });
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read " + json, e);
+		}
+		List<Entry> entries = new ArrayList<>();
+		List<float[]> vectors = new ArrayList<>();
+		stored.values().forEach(document -> {
+			entries.add(new Entry(document.id(), document.text(), document.metadata() != null ? document.metadata() : Map.of()));
+			vectors.add(document.embedding());
+		});
+		synchronized (writeLock) {
+			write(entries, vectors, "");
+		}
+		logger.info("Imported {} documents from {} into {}", entries.size(), json, file);
+	}
+
+	public int size() {
+		Segment current = segment;
+		return current != null ? current.count : 0;
+	}
+
+	@Override
+	public void doAdd(List<Document> documents) {
+		Objects.requireNonNull(documents, "Documents list cannot be null");
+		if (documents.isEmpty()) {
+			throw new IllegalArgumentException("Documents list cannot be empty");
+		}
+		logger.debug("Entering doAdd with {} documents", documents.size());
+		List<float[]> embeddings = embeddingModel.embed(documents, EmbeddingOptions.builder().build(), batchingStrategy);
+		synchronized (writeLock) {
+			Set<String> replaced = documents.stream().map(Document::getId).collect(Collectors.toSet());
+			List<Entry> entries = new ArrayList<>();
+			List<float[]> vectors = new ArrayList<>();
+			retain(entry -> !replaced.contains(entry.id()), entries, vectors);
+			for (int i = 0; i < documents.size(); i++) {
+				Document document = documents.get(i);
+				entries.add(new Entry(document.getId(), Objects.requireNonNullElse(document.getText(), ""), document.getMetadata()));
+				vectors.add(embeddings.get(i));
+			}
+			write(entries, vectors, writtenHash());
+		}
+		logger.info("Added {} documents to the vector store, now {} documents", documents.size(), size());
+	}
+
+	@Override
+	public void doDelete(List<String> idList) {
+		Set<String> deleted = Set.copyOf(idList);
+		synchronized (writeLock) {
+			List<Entry> entries = new ArrayList<>();
+			List<float[]> vectors = new ArrayList<>();
+			retain(entry -> !deleted.contains(entry.id()), entries, vectors);
+			write(entries, vectors, writtenHash());
+		}
+	}
+
+	@Override
+	protected void doDelete(Filter.Expression filterExpression) {
+		Predicate<Entry> matches = filter(filterExpression);
+		synchronized (writeLock) {
+			List<Entry> entries = new ArrayList<>();
+			List<float[]> vectors = new ArrayList<>();
+			retain(matches.negate(), entries, vectors);
+			write(entries, vectors, writtenHash());
+		}
+	}
+
+	@Override
+	public List<Document> doSimilaritySearch(SearchRequest request) {
+		Segment current = segment;
+		if (current == null || current.count == 0 || request.getTopK() <= 0) {
+			return List.of();
+		}
+		float[] query = normalize(embeddingModel.embed(request.getQuery()));
+		if (query.length != current.dimensions) {
+			throw new IllegalArgumentException("Query embedding has " + query.length + " dimensions, the vector store "
+				+ current.dimensions);
+		}
+		Predicate<Entry> filter = request.hasFilterExpression() ? filter(request.getFilterExpression()) : null;
+
+		PriorityQueue<Hit> best = new PriorityQueue<>(request.getTopK() + 1, (a, b) -> Double.compare(a.score(), b.score()));
+		float[] row = new float[current.dimensions];
+		byte[] quantizedRow = null;
+		byte[] quantizedQuery = null;
+		float queryScale = 0;
+		if (current.encoding == Encoding.INT8) {
+			quantizedRow = new byte[current.dimensions];
+			quantizedQuery = new byte[current.dimensions];
+			queryScale = quantize(query, quantizedQuery);
+		}
+		for (int index = 0; index < current.count; index++) {
+			double score = current.score(index, query, row, quantizedRow, quantizedQuery, queryScale);
+			if (score < request.getSimilarityThreshold()
+					|| (best.size() == request.getTopK() && score <= best.peek().score())) {
+				continue;
+			}
+			Entry entry = null;
+			if (filter != null) {
+				entry = current.entry(index, jsonMapper);
+				if (!filter.test(entry)) {
+					continue;
+				}
+			}
+			best.add(new Hit(index, score, entry));
+			if (best.size() > request.getTopK()) {
+				best.poll();
+			}
+		}
+
+		List<Hit> hits = new ArrayList<>(best);
+		hits.sort((a, b) -> Double.compare(b.score(), a.score()));
+		return hits.stream().map(hit -> {
+			Entry entry = hit.entry() != null ? hit.entry() : current.entry(hit.index(), jsonMapper);
+			Map<String, Object> metadata = new LinkedHashMap<>(entry.metadata());
+			metadata.put(DocumentMetadata.DISTANCE.value(), 1 - hit.score());
+			return Document.builder()
+				.id(entry.id())
+				.text(entry.text())
+				.metadata(metadata)
+				.score(hit.score())
+				.build();
+		}).toList();
+	}
+
+	@Override
+	public VectorStoreObservationContext.Builder createObservationContextBuilder(String operationName) {
+		return VectorStoreObservationContext.builder(VectorStoreProvider.SIMPLE.value(), operationName)
+			.dimensions(segment != null ? segment.dimensions : null)
+			.collectionName(file.getFileName().toString())
+			.similarityMetric(VectorStoreSimilarityMetric.COSINE.value());
+	}
+
+	private Predicate<Entry> filter(Filter.Expression filterExpression) {
+		var expression = expressionParser.parseExpression(filterExpressionConverter.convertExpression(filterExpression));
+		return entry -> {
+			StandardEvaluationContext context = new StandardEvaluationContext();
+			context.setVariable("metadata", entry.metadata());
+			return Boolean.TRUE.equals(expression.getValue(context, Boolean.class));
+		};
+	}
+
+	/**
+	 * Collects the documents of the current file that satisfy the condition, with their
+	 * stored (normalized, for int8 dequantized) vectors.
+	 */
+	private void retain(Predicate<Entry> keep, List<Entry> entries, List<float[]> vectors) {
+		Segment current = segment;
+		if (current == null) {
+			return;
+		}
+		for (int index = 0; index < current.count; index++) {
+			Entry entry = current.entry(index, jsonMapper);
+			if (keep.test(entry)) {
+				entries.add(entry);
+				vectors.add(current.vector(index));
+			}
+		}
+	}
+
+	/**
+	 * Content hash to write with documents kept from the current file: that file's own, so
+	 * that adding to an imported store does not vouch for the imported documents.
+	 */
+	private String writtenHash() {
+		Segment current = segment;
+		return current != null ? current.contentHash : contentHash;
+	}
+
+	/**
+	 * Writes a new file next to the current one, moves it into place and maps it.
+	 */
+	private void write(List<Entry> entries, List<float[]> vectors, String contentHash) {
+		int dimensions = vectors.isEmpty() ? 0 : vectors.get(0).length;
+		for (float[] vector : vectors) {
+			if (vector.length != dimensions) {
+				throw new IllegalArgumentException("Embeddings of different dimensions: " + dimensions + " and " + vector.length);
+			}
+		}
+		List<byte[]> documents = new ArrayList<>(entries.size());
+		for (Entry entry : entries) {
+			documents.add(jsonMapper.writeValueAsBytes(entry));
+		}
+		long vectorBytes = encoding == Encoding.INT8
+			? (long) entries.size() * (Float.BYTES + dimensions)
+			: (long) entries.size() * dimensions * Float.BYTES;
+		long documentsOffset = HEADER_BYTES + vectorBytes;
+		long fileBytes = documentsOffset + (entries.size() + 1L) * Long.BYTES;
+		for (byte[] document : documents) {
+			fileBytes += document.length;
+		}
+		if (fileBytes > MAX_FILE_BYTES) {
+			throw new IllegalStateException("Vector store file " + file + " would take " + fileBytes + " bytes for "
+				+ entries.size() + " documents, more than the " + MAX_FILE_BYTES + " bytes a single mapping can hold");
+		}
+
+		try {
+			Path directory = file.toAbsolutePath().getParent();
+			Files.createDirectories(directory);
+			Path partial = Files.createTempFile(directory, file.getFileName().toString(), ".partial");
+			try {
+				try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+					ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+					header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(encoding.ordinal()).putInt(dimensions)
+						.putInt(entries.size()).putInt(0);
+					header.put(Arrays.copyOf(contentHash.getBytes(StandardCharsets.US_ASCII), HASH_BYTES));
+					header.putLong(documentsOffset);
+					writeFully(channel, header.flip());
+
+					ByteBuffer vectorSegment = ByteBuffer.allocate((int) vectorBytes).order(ByteOrder.LITTLE_ENDIAN);
+					if (encoding == Encoding.INT8) {
+						List<byte[]> quantized = new ArrayList<>(vectors.size());
+						for (float[] vector : vectors) {
+							byte[] bytes = new byte[dimensions];
+							vectorSegment.putFloat(quantize(normalize(vector), bytes));
+							quantized.add(bytes);
+						}
+						quantized.forEach(vectorSegment::put);
+					} else {
+						for (float[] vector : vectors) {
+							for (float component : normalize(vector)) {
+								vectorSegment.putFloat(component);
+							}
+						}
+					}
+					writeFully(channel, vectorSegment.flip());
+
+					ByteBuffer offsets = ByteBuffer.allocate((documents.size() + 1) * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+					long offset = 0;
+					for (byte[] document : documents) {
+						offsets.putLong(offset);
+						offset += document.length;
+					}
+					offsets.putLong(offset);
+					writeFully(channel, offsets.flip());
+					for (byte[] document : documents) {
+						writeFully(channel, ByteBuffer.wrap(document));
+					}
+					channel.force(true);
+				}
+				Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(partial);
+			}
+			segment = map(file);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to write vector store file " + file, e);
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	private static Segment map(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > MAX_FILE_BYTES) {
+				throw new IllegalStateException("file of " + channel.size() + " bytes is larger than the " + MAX_FILE_BYTES
+					+ " bytes a single mapping can hold");
+			}
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			mapped.order(ByteOrder.LITTLE_ENDIAN);
+			if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != FORMAT_VERSION) {
+				throw new IllegalStateException("not a vector store file of format version " + FORMAT_VERSION);
+			}
+			Encoding encoding = Encoding.values()[mapped.getInt(8)];
+			int dimensions = mapped.getInt(12);
+			int count = mapped.getInt(16);
+			byte[] hash = new byte[HASH_BYTES];
+			mapped.get(24, hash);
+			long documentsOffset = mapped.getLong(24 + HASH_BYTES);
+			return new Segment(mapped, encoding, dimensions, count, new String(hash, StandardCharsets.US_ASCII).trim(),
+				Math.toIntExact(documentsOffset));
+		}
+	}
+
+	static float[] normalize(float[] vector) {
+		double sumOfSquares = 0;
+		for (float component : vector) {
+			sumOfSquares += component * component;
+		}
+		float[] normalized = vector.clone();
+		if (sumOfSquares > 0) {
+			float inverseNorm = (float) (1 / Math.sqrt(sumOfSquares));
+			for (int i = 0; i < normalized.length; i++) {
+				normalized[i] *= inverseNorm;
+			}
+		}
+		return normalized;
+	}
+
+	/**
+	 * Dot product with four independent accumulators, which lets the JIT keep several
+	 * multiply-adds in flight instead of waiting on a single running sum.
+	 */
+	static float dot(float[] a, float[] b) {
+		float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+		int i = 0;
+		int bound = a.length & ~3;
+		for (; i < bound; i += 4) {
+			s0 += a[i] * b[i];
+			s1 += a[i + 1] * b[i + 1];
+			s2 += a[i + 2] * b[i + 2];
+			s3 += a[i + 3] * b[i + 3];
+		}
+		for (; i < a.length; i++) {
+			s0 += a[i] * b[i];
+		}
+		return (s0 + s1) + (s2 + s3);
+	}
+
+	/**
+	 * Integer dot product of two quantized vectors, which avoids widening every stored byte
+	 * to a float.
+	 */
+	static int dot(byte[] a, byte[] b) {
+		int sum = 0;
+		for (int i = 0; i < a.length; i++) {
+			sum += a[i] * b[i];
+		}
+		return sum;
+	}
+
+	/**
+	 * Quantizes a normalized vector to one signed byte per component.
+	 *
+	 * @return The scale that turns the bytes back into the components
+	 */
+	static float quantize(float[] normalized, byte[] quantized) {
+		float maxAbs = 0;
+		for (float component : normalized) {
+			maxAbs = Math.max(maxAbs, Math.abs(component));
+		}
+		float scale = maxAbs > 0 ? maxAbs / 127 : 1;
+		for (int i = 0; i < normalized.length; i++) {
+			quantized[i] = (byte) Math.round(normalized[i] / scale);
+		}
+		return scale;
+	}
+
+	/**
+	 * Read-only view of one mapped file.
+	 */
+	private static final class Segment {
+
+		private final ByteBuffer buffer;
+		private final Encoding encoding;
+		private final int dimensions;
+		private final int count;
+		private final String contentHash;
+		private final FloatBuffer floats;
+		private final int documentsOffset;
+		private final int documentsStart;
+
+		Segment(ByteBuffer buffer, Encoding encoding, int dimensions, int count, String contentHash, int documentsOffset) {
+			this.buffer = buffer;
+			this.encoding = encoding;
+			this.dimensions = dimensions;
+			this.count = count;
+			this.contentHash = contentHash;
+			this.floats = buffer.slice(HEADER_BYTES, documentsOffset - HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+			this.documentsOffset = documentsOffset;
+			this.documentsStart = documentsOffset + (count + 1) * Long.BYTES;
+		}
+
+		double score(int index, float[] query, float[] row, byte[] quantizedRow, byte[] quantizedQuery, float queryScale) {
+			if (encoding == Encoding.INT8) {
+				buffer.get(HEADER_BYTES + count * Float.BYTES + index * dimensions, quantizedRow);
+				return (double) floats.get(index) * queryScale * dot(quantizedRow, quantizedQuery);
+			}
+			floats.get(index * dimensions, row);
+			return dot(row, query);
+		}
+
+		float[] vector(int index) {
+			float[] vector = new float[dimensions];
+			if (encoding == Encoding.INT8) {
+				float scale = floats.get(index);
+				for (int i = 0; i < dimensions; i++) {
+					vector[i] = buffer.get(HEADER_BYTES + count * Float.BYTES + index * dimensions + i) * scale;
+				}
+			} else {
+				floats.get(index * dimensions, vector);
+			}
+			return vector;
+		}
+
+		Entry entry(int index, JsonMapper jsonMapper) {
+			long start = buffer.getLong(documentsOffset + index * Long.BYTES);
+			long end = buffer.getLong(documentsOffset + (index + 1) * Long.BYTES);
+			byte[] bytes = new byte[Math.toIntExact(end - start)];
+			buffer.get(Math.toIntExact(documentsStart + start), bytes);
+			return jsonMapper.readValue(bytes, Entry.class);
+		}
+	}
+
+	private record Entry(String id, String text, Map<String, Object> metadata) {
+	}
+
+	private record Hit(int index, double score, Entry entry) {
+	}
+
+	// One document of a SimpleVectorStore JSON file
+	private record StoredDocument(String id, String text, Map<String, Object> metadata, float[] embedding) {
+	}
+
+	public static final class Builder extends AbstractVectorStoreBuilder<Builder> {
+
+		private Path file;
+		private Encoding encoding = Encoding.FLOAT32;
+		private String contentHash = "";
+
+		private Builder(EmbeddingModel embeddingModel) {
+			super(embeddingModel);
+		}
+
+		/**
+		 * The file the store is kept in.
+		 */
+		public Builder file(Path file) {
+			this.file = file;
+			return this;
+		}
+
+		public Builder encoding(Encoding encoding) {
+			this.encoding = Objects.requireNonNull(encoding, "encoding must not be null");
+			return this;
+		}
+
+		/**
+		 * Identifies the sources the store is built from; a file written with another hash is
+		 * not loaded. At most 64 ASCII characters, such as {@link MappedVectorStore#contentHash}.
+		 */
+		public Builder contentHash(String contentHash) {
+			if (contentHash.length() > HASH_BYTES) {
+				throw new IllegalArgumentException("contentHash must not be longer than " + HASH_BYTES + " characters");
+			}
+			this.contentHash = contentHash;
+			return this;
+		}
+
+		@Override
+		public MappedVectorStore build() {
+			return new MappedVectorStore(this);
+		}
+	}
+}
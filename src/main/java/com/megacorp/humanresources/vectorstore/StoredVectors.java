@@ -0,0 +1,18 @@
+package com.megacorp.humanresources.vectorstore;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A vector store that hands out the vectors it holds, so that comparing its documents with
+ * each other does not embed them again.
+ */
+public interface StoredVectors {
+
+	/**
+	 * @param ids Document ids
+	 * @return The L2-normalized vectors of the documents in the store by id; ids the store does
+	 *         not hold are left out
+	 */
+	Map<String, float[]> findVectors(Collection<String> ids);
+}
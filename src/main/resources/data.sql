@@ -1,18 +1,5 @@
--- Employee data source: https://www.kaggle.com/datasets/williamlucas0/employee-sample-data
--- Address data source: https://www.mockaroo.com/
-INSERT INTO address (ADDRESS_ID, STREET_ADDRESS, CITY, STATE, POSTAL_CODE, IS_REMOTE)
-SELECT ADDRESS_ID, STREET_ADDRESS, CITY, STATE, POSTAL_CODE, IS_REMOTE
-FROM CSVREAD('ops/data/db/address_data_load.csv');
-
-ALTER SEQUENCE address_sequence RESTART WITH 10900;
-
-INSERT INTO employee (EMPLOYEE_ID, FIRST_NAME, LAST_NAME, TITLE, DEPARTMENT, BUSINESS_UNIT, gender, ethnicity, age, hire_Date, annual_Salary, termination_date, ADDRESS_ID)
-SELECT EMPLOYEE_ID, FIRST_NAME, LAST_NAME, TITLE, DEPARTMENT, BUSINESS_UNIT, gender, ethnicity, age, hire_Date, annual_Salary, termination_date, ADDRESS_ID
-FROM CSVREAD('ops/data/db/employee_data_load.csv');
-
-UPDATE EMPLOYEE t
-SET t.MANAGER_ID = (SELECT c.MANAGER_ID FROM CSVREAD('ops/data/db/employee_data_load.csv') c WHERE CAST(c.EMPLOYEE_ID AS BIGINT)= t.EMPLOYEE_ID)
-WHERE t.EMPLOYEE_ID IN (SELECT CAST(c.EMPLOYEE_ID AS BIGINT) FROM CSVREAD('ops/data/db/employee_data_load.csv') c); 
+-- Runs after the address and employee seed (db/employee-seed.sql or EmployeeCsvBootstrapLoader,
+-- see employee.bootstrap.loader), so the enrollments below can select from EMPLOYEE.
 
 -- Benefits plan seed data (table created by JPA from BenefitsConfig entity)
 INSERT INTO BENEFITS_CONFIG (PLAN_ID, PLAN_NAME, PLAN_TYPE, PROVIDER, COVERAGE_LEVEL, MONTHLY_PREMIUM, DEDUCTIBLE, OUT_OF_POCKET_MAX, ENROLLMENT_STATUS, DESCRIPTION)
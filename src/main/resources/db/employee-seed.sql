@@ -0,0 +1,18 @@
+-- SQL seed loader for addresses and employees (employee.bootstrap.loader=sql); the default Java loader
+-- (EmployeeCsvBootstrapLoader) reads the same CSVs. Both run before data.sql, which seeds the benefits.
+-- Employee data source: https://www.kaggle.com/datasets/williamlucas0/employee-sample-data
+-- Address data source: https://www.mockaroo.com/
+-- The *_NORMALIZED columns must match LocationNormalizer; the CSV already uses 2-letter state codes
+INSERT INTO address (ADDRESS_ID, STREET_ADDRESS, CITY, STATE, POSTAL_CODE, IS_REMOTE, STATE_NORMALIZED, CITY_NORMALIZED, POSTAL_CODE_NORMALIZED)
+SELECT ADDRESS_ID, STREET_ADDRESS, CITY, STATE, POSTAL_CODE, IS_REMOTE, UPPER(TRIM(STATE)), UPPER(TRIM(CITY)), UPPER(TRIM(POSTAL_CODE))
+FROM CSVREAD('ops/data/db/address_data_load.csv');
+
+ALTER SEQUENCE address_sequence RESTART WITH 10900;
+
+INSERT INTO employee (EMPLOYEE_ID, FIRST_NAME, LAST_NAME, TITLE, DEPARTMENT, BUSINESS_UNIT, gender, ethnicity, age, hire_Date, annual_Salary, termination_date, ADDRESS_ID)
+SELECT EMPLOYEE_ID, FIRST_NAME, LAST_NAME, TITLE, DEPARTMENT, BUSINESS_UNIT, gender, ethnicity, age, hire_Date, annual_Salary, termination_date, ADDRESS_ID
+FROM CSVREAD('ops/data/db/employee_data_load.csv');
+
+UPDATE EMPLOYEE t
+SET t.MANAGER_ID = (SELECT c.MANAGER_ID FROM CSVREAD('ops/data/db/employee_data_load.csv') c WHERE CAST(c.EMPLOYEE_ID AS BIGINT)= t.EMPLOYEE_ID)
+WHERE t.EMPLOYEE_ID IN (SELECT CAST(c.EMPLOYEE_ID AS BIGINT) FROM CSVREAD('ops/data/db/employee_data_load.csv') c);
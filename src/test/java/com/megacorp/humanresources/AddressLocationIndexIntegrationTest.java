@@ -0,0 +1,112 @@
+package com.megacorp.humanresources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import com.megacorp.humanresources.entity.Address;
+import com.megacorp.humanresources.model.EmployeeCount;
+import com.megacorp.humanresources.repository.AddressRepository;
+import com.megacorp.humanresources.service.AddressServiceImpl;
+import com.megacorp.humanresources.service.EmployeeServiceImpl;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest(properties = {
+    // Counts must reach the database for their SQL to be explained
+    "employee.bitmap-index.enabled=false",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.megacorp.humanresources.AddressLocationIndexIntegrationTest$CapturingStatementInspector"
+})
+class AddressLocationIndexIntegrationTest {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private EmployeeServiceImpl employeeService;
+
+    @Autowired
+    private AddressServiceImpl addressService;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void countEmployeesInStateUsesStateIndex() {
+        String plan = explainCount(() -> employeeService.countEmployeesInState("Georgia"), "GA");
+        assertThat(plan).contains("IDX_ADDRESS_STATE_CITY");
+    }
+
+    @Test
+    void countEmployeesInCityUsesCityIndex() {
+        String plan = explainCount(() -> employeeService.countEmployeesInCity(" atlanta "), "ATLANTA");
+        assertThat(plan).contains("IDX_ADDRESS_CITY_STATE");
+    }
+
+    @Test
+    void countEmployeesInZipcodeUsesPostalCodeIndex() {
+        String plan = explainCount(() -> employeeService.countEmployeesInZipcode("33101"), "33101");
+        assertThat(plan).contains("IDX_ADDRESS_POSTAL_CODE");
+    }
+
+    @Test
+    void insertsAndUpdatesWriteNormalizedColumns() {
+        Address address = Address.builder()
+            .streetAddress("1 Normalized Way")
+            .city("  Savannah ")
+            .state("georgia")
+            .postalCode("31401")
+            .isRemote(false)
+            .build();
+        Address saved = addressService.saveAddress(address);
+
+        assertThat(saved.getStateNormalized()).isEqualTo("GA");
+        assertThat(saved.getCityNormalized()).isEqualTo("SAVANNAH");
+        assertThat(saved.getPostalCodeNormalized()).isEqualTo("31401");
+
+        saved.setState("Ohio");
+        saved.setCity("columbus ");
+        addressRepository.save(saved);
+        assertThat(jdbcTemplate.queryForList(
+            "SELECT STATE_NORMALIZED, CITY_NORMALIZED FROM address WHERE ADDRESS_ID = ?", saved.getAddressId()))
+            .singleElement()
+            .isEqualTo(Map.of("STATE_NORMALIZED", "OH", "CITY_NORMALIZED", "COLUMBUS"));
+
+        addressService.deleteAddressById(saved.getAddressId());
+    }
+
+    @Test
+    void seedDataHasNormalizedColumns() {
+        Long missing = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM address WHERE STATE_NORMALIZED IS NULL OR CITY_NORMALIZED IS NULL OR POSTAL_CODE_NORMALIZED IS NULL",
+            Long.class);
+        assertThat(missing).isZero();
+    }
+
+    private String explainCount(Supplier<EmployeeCount> count, Object parameter) {
+        STATEMENTS.clear();
+        assertThat(count.get().getCount()).isGreaterThan(0L);
+        String sql = STATEMENTS.stream()
+            .filter(statement -> statement.startsWith("select count"))
+            .reduce((first, second) -> second)
+            .orElseThrow();
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, parameter);
+    }
+
+    public static class CapturingStatementInspector implements StatementInspector {
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.megacorp.humanresources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.megacorp.humanresources.embedding.CachingEmbeddingModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+class CachingEmbeddingModelTest {
+
+    private final CountingEmbeddingModel delegate = new CountingEmbeddingModel();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void questionsDifferingOnlyInCaseAndSpacingShareOneEmbedding() {
+        CachingEmbeddingModel model = new CachingEmbeddingModel(delegate, 10, meterRegistry);
+
+        float[] first = model.embed("How many vacation days do I get?");
+        float[] second = model.embed("  how many   VACATION days do i get? ");
+
+        assertThat(second).containsExactly(first);
+        assertThat(delegate.texts).containsExactly("How many vacation days do I get?");
+        assertThat(meterRegistry.get(CachingEmbeddingModel.REQUESTS_METRIC).tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(CachingEmbeddingModel.REQUESTS_METRIC).tag("result", "miss").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(CachingEmbeddingModel.SAVED_METRIC).timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void leastRecentlyUsedQuestionIsEvicted() {
+        CachingEmbeddingModel model = new CachingEmbeddingModel(delegate, 2, null);
+
+        model.embed("a");
+        model.embed("b");
+        model.embed("a");
+        model.embed("c");
+        model.embed("a");
+        model.embed("b");
+
+        assertThat(delegate.texts).containsExactly("a", "b", "c", "b");
+        assertThat(model.size()).isEqualTo(2);
+    }
+
+    @Test
+    void documentEmbeddingsAreNotCached() {
+        CachingEmbeddingModel model = new CachingEmbeddingModel(delegate, 10, null);
+        Document document = new Document("policy text");
+
+        model.embed(document);
+        model.embed(document);
+
+        assertThat(delegate.texts).containsExactly("policy text", "policy text");
+        assertThat(model.size()).isZero();
+    }
+
+    private static final class CountingEmbeddingModel implements EmbeddingModel {
+
+        private final List<String> texts = new ArrayList<>();
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (String text : request.getInstructions()) {
+                texts.add(text);
+                embeddings.add(new Embedding(new float[] { text.length(), texts.size() }, embeddings.size()));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return call(new EmbeddingRequest(List.of(document.getText()), null)).getResult().getOutput();
+        }
+
+        @Override
+        public int dimensions() {
+            return 2;
+        }
+    }
+}
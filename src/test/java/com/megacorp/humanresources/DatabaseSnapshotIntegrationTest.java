@@ -0,0 +1,129 @@
+package com.megacorp.humanresources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import com.megacorp.humanresources.config.DatabaseSnapshotStore;
+import com.megacorp.humanresources.entity.Employee;
+import com.megacorp.humanresources.model.DatabaseSnapshotResult;
+import com.megacorp.humanresources.service.EmployeeServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest
+class DatabaseSnapshotIntegrationTest {
+
+    private static final List<String> TABLES = List.of("ADDRESS", "EMPLOYEE", "BENEFITS_CONFIG", "EMPLOYEE_BENEFIT");
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private EmployeeServiceImpl employeeService;
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void savesEveryRowOfTheHrTables() {
+        DatabaseSnapshotStore store = store(tempDir.resolve("hr-snapshot.bin"), List.of());
+
+        DatabaseSnapshotResult result = store.save();
+
+        assertThat(Files.isRegularFile(tempDir.resolve("hr-snapshot.bin"))).isTrue();
+        assertThat(result.sizeBytes()).isPositive();
+        assertThat(result.rowCounts()).containsOnlyKeys("ADDRESS", "EMPLOYEE", "BENEFITS_CONFIG", "EMPLOYEE_BENEFIT");
+        result.rowCounts().forEach((table, rows) ->
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class)).as(table).isEqualTo(rows));
+    }
+
+    @Test
+    void doesNotRestoreIntoFilledTablesOrAfterTheSeedDataChanged() throws Exception {
+        Path seedInput = Files.writeString(tempDir.resolve("seed.csv"), "EMPLOYEE_ID\n1\n");
+        Path snapshot = tempDir.resolve("hr-snapshot.bin");
+        DatabaseSnapshotStore store = store(snapshot, List.of(seedInput));
+        store.save();
+        Long employees = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employee", Long.class);
+
+        assertThat(store.restoreIfCurrent()).isFalse();
+
+        Files.writeString(seedInput, "EMPLOYEE_ID\n2\n");
+        assertThat(store.restoreIfCurrent()).isFalse();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employee", Long.class)).isEqualTo(employees);
+    }
+
+    @Test
+    void restoresRowsForeignKeysAndNextIdsIntoWipedTables() {
+        DatabaseSnapshotStore store = store(tempDir.resolve("hr-snapshot.bin"), List.of());
+        Map<String, List<Map<String, Object>>> before = new LinkedHashMap<>();
+        for (String table : TABLES) {
+            before.put(table, jdbcTemplate.queryForList("SELECT * FROM " + table + " ORDER BY 1"));
+        }
+        Long maxEmployeeId = jdbcTemplate.queryForObject("SELECT MAX(employee_id) FROM employee", Long.class);
+        Long maxEnrollmentId = jdbcTemplate.queryForObject("SELECT MAX(enrollment_id) FROM employee_benefit", Long.class);
+        store.save();
+
+        // As on a fresh in-memory database: empty tables, sequences and identities at their start
+        TABLES.forEach(table -> jdbcTemplate.execute("ALTER TABLE " + table + " SET REFERENTIAL_INTEGRITY FALSE"));
+        TABLES.forEach(table -> jdbcTemplate.execute("TRUNCATE TABLE " + table + " RESTART IDENTITY"));
+        TABLES.forEach(table -> jdbcTemplate.execute("ALTER TABLE " + table + " SET REFERENTIAL_INTEGRITY TRUE"));
+        for (String sequence : List.of("ADDRESS_SEQUENCE", "EMPLOYEE_SEQUENCE", "BENEFITS_CONFIG_SEQUENCE")) {
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH 1");
+        }
+
+        assertThat(store.restoreIfCurrent()).isTrue();
+
+        for (String table : TABLES) {
+            assertThat(jdbcTemplate.queryForList("SELECT * FROM " + table + " ORDER BY 1")).as(table)
+                .isEqualTo(before.get(table));
+        }
+        assertThat(jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR employee_sequence", Long.class))
+            .isGreaterThan(maxEmployeeId);
+        assertThatThrownBy(() -> jdbcTemplate.update(
+            "INSERT INTO employee_benefit (employee_id, plan_id, enrollment_date) VALUES (-1, 1, CURRENT_DATE)"))
+            .isInstanceOf(DataIntegrityViolationException.class);
+
+        Employee employee = new Employee("Restora", "Snapshot");
+        employee.setDepartment("Engineering");
+        Long employeeId = employeeService.saveEmployee(employee).getEmployeeId();
+        try {
+            assertThat(employeeId).isGreaterThan(maxEmployeeId);
+            Long planId = (Long) before.get("BENEFITS_CONFIG").getFirst().get("PLAN_ID");
+            jdbcTemplate.update("INSERT INTO employee_benefit (employee_id, plan_id, enrollment_date) VALUES (?, ?, CURRENT_DATE)",
+                employeeId, planId);
+            assertThat(jdbcTemplate.queryForObject("SELECT enrollment_id FROM employee_benefit WHERE employee_id = ?",
+                Long.class, employeeId)).isGreaterThan(maxEnrollmentId);
+        } finally {
+            jdbcTemplate.update("DELETE FROM employee_benefit WHERE employee_id = ?", employeeId);
+            employeeService.deleteEmployeeById(employeeId);
+        }
+    }
+
+    private DatabaseSnapshotStore store(Path snapshot, List<Path> seedInputs) {
+        return new DatabaseSnapshotStore(dataSource, snapshot,
+            seedInputs.stream().<Resource>map(FileSystemResource::new).toList(),
+            true, 500, applicationContext.getBeanProvider(MeterRegistry.class));
+    }
+}
@@ -0,0 +1,111 @@
+package com.megacorp.humanresources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.OptionalLong;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.megacorp.humanresources.entity.Address;
+import com.megacorp.humanresources.entity.Employee;
+import com.megacorp.humanresources.index.EmployeeBitmapIndex;
+import com.megacorp.humanresources.repository.AddressRepository;
+import com.megacorp.humanresources.repository.EmployeeRepository;
+import com.megacorp.humanresources.service.EmployeeServiceImpl;
+import com.megacorp.humanresources.specifications.EmployeeSpecifications;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.domain.Specification;
+
+@SpringBootTest(properties = "employee.bitmap-index.enabled=true")
+class EmployeeBitmapIndexIntegrationTest {
+
+    @Autowired
+    private EmployeeBitmapIndex employeeBitmapIndex;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private EmployeeServiceImpl employeeService;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void indexCountsMatchDatabaseCounts() {
+        assertThat(employeeBitmapIndex.isReady()).isTrue();
+
+        assertThat(indexCount(null, null, null, null, null, null))
+            .isEqualTo(employeeRepository.count());
+
+        assertThat(indexCount("IT", null, null, null, null, null))
+            .isEqualTo(employeeRepository.count(EmployeeSpecifications.hasDepartment("IT")));
+
+        assertThat(indexCount(null, "GA", null, null, null, null))
+            .isEqualTo(employeeRepository.count(EmployeeSpecifications.hasAddressState("GA")));
+
+        Specification<Employee> itInAgeRange = EmployeeSpecifications.hasDepartment("IT")
+            .and(EmployeeSpecifications.ageBetween(30, 45));
+        assertThat(indexCount("IT", null, 30, 45, null, null))
+            .isEqualTo(employeeRepository.count(itInAgeRange));
+
+        LocalDate first = LocalDate.of(2015, 1, 1);
+        LocalDate last = LocalDate.of(2019, 12, 31);
+        assertThat(indexCount(null, null, null, null, first, last))
+            .isEqualTo(employeeRepository.count(EmployeeSpecifications.hasHireDateBetween(first, last)));
+    }
+
+    @Test
+    void indexFollowsEmployeeWrites() {
+        long before = indexCount("Bitmap Index Test", null, null, null, null, null);
+
+        Employee employee = new Employee("Bitmap", "Tester");
+        employee.setDepartment("Bitmap Index Test");
+        Employee saved = employeeService.saveEmployee(employee);
+        assertThat(indexCount("Bitmap Index Test", null, null, null, null, null)).isEqualTo(before + 1);
+
+        employeeService.updateEmployee(saved.getEmployeeId(), null, null, null, "Bitmap Index Moved",
+            null, null, null, null, null, null, null, null, null);
+        assertThat(indexCount("Bitmap Index Test", null, null, null, null, null)).isEqualTo(before);
+        assertThat(indexCount("Bitmap Index Moved", null, null, null, null, null)).isEqualTo(1L);
+
+        employeeService.deleteEmployeeById(saved.getEmployeeId());
+        assertThat(indexCount("Bitmap Index Moved", null, null, null, null, null)).isZero();
+    }
+
+    @Test
+    void indexesTheStoredAddressOfAnEmployeeSavedFromJson() throws Exception {
+        Address stored = addressRepository.findAll().getFirst();
+        // As the POST body arrives: the address carries no normalized location
+        Employee employee = objectMapper.readValue("""
+            {"firstName": "Bitmap", "lastName": "Json", "department": "Bitmap Address Test",
+             "address": {"addressId": %d, "state": "%s", "city": "%s"}}
+            """.formatted(stored.getAddressId(), stored.getState(), stored.getCity()), Employee.class);
+        assertThat(employee.getAddress().getStateNormalized()).isNull();
+        long before = indexCount(null, stored.getState(), null, null, null, null);
+
+        Employee saved = employeeService.saveEmployee(employee);
+
+        assertThat(indexCount("Bitmap Address Test", stored.getState(), null, null, null, null)).isEqualTo(1L);
+        assertThat(indexCount(null, stored.getState(), null, null, null, null)).isEqualTo(before + 1)
+            .isEqualTo(employeeRepository.count(EmployeeSpecifications.hasAddressState(stored.getState())));
+
+        employeeService.deleteEmployeeById(saved.getEmployeeId());
+        assertThat(indexCount(null, stored.getState(), null, null, null, null)).isEqualTo(before);
+    }
+
+    private long indexCount(String department, String state, Integer startAge, Integer endAge,
+            LocalDate hireDateFirst, LocalDate hireDateLast) {
+        OptionalLong count = employeeBitmapIndex.count(
+            null, null, startAge, endAge, department, null, null, null, null,
+            null, null, state, null, null,
+            null, hireDateFirst, hireDateLast, null, null, null, null);
+        assertThat(count).isPresent();
+        return count.getAsLong();
+    }
+}
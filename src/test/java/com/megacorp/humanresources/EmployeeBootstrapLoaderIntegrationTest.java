@@ -0,0 +1,52 @@
+package com.megacorp.humanresources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.megacorp.humanresources.service.helper.CsvLines;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest
+class EmployeeBootstrapLoaderIntegrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void loadsEveryCsvRowWithItsManager() throws IOException {
+        List<String> lines = Files.readAllLines(Path.of("ops/data/db/employee_data_load.csv"));
+        Map<String, Integer> columns = CsvLines.columns(lines.get(0));
+        Map<Long, Long> expectedManagers = new HashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            List<String> values = CsvLines.split(line);
+            String manager = values.get(columns.get("MANAGER_ID")).trim();
+            expectedManagers.put(Long.valueOf(values.get(columns.get("EMPLOYEE_ID")).trim()), manager.isEmpty() ? null : Long.valueOf(manager));
+        }
+
+        Map<Long, Long> loadedManagers = new HashMap<>();
+        jdbcTemplate.query("SELECT EMPLOYEE_ID, MANAGER_ID FROM employee WHERE EMPLOYEE_ID <= ?",
+            rs -> { loadedManagers.put(rs.getLong(1), rs.getObject(2, Long.class)); }, expectedManagers.keySet().stream().max(Long::compare).orElseThrow());
+
+        assertThat(loadedManagers).isEqualTo(expectedManagers);
+    }
+
+    @Test
+    void loadsAddressesAndRunsTheRemainingSeedScripts() throws IOException {
+        long addressRows = Files.readAllLines(Path.of("ops/data/db/address_data_load.csv")).size() - 1;
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM address WHERE ADDRESS_ID < 10900", Long.class)).isEqualTo(addressRows);
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM address WHERE STATE_NORMALIZED <> UPPER(TRIM(STATE)) OR CITY_NORMALIZED <> UPPER(TRIM(CITY))",
+            Long.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM EMPLOYEE_BENEFIT", Long.class)).isPositive();
+    }
+}
@@ -0,0 +1,148 @@
+package com.megacorp.humanresources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.megacorp.humanresources.entity.Address;
+import com.megacorp.humanresources.entity.Employee;
+import com.megacorp.humanresources.exceptions.InvalidRequestException;
+import com.megacorp.humanresources.exceptions.ResourceNotFoundException;
+import com.megacorp.humanresources.model.EmployeeBulkUpdateResult;
+import com.megacorp.humanresources.service.AddressServiceImpl;
+import com.megacorp.humanresources.service.EmployeeServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class EmployeeBulkUpdateIntegrationTest {
+
+    @Autowired
+    private EmployeeServiceImpl employeeService;
+
+    @Autowired
+    private AddressServiceImpl addressService;
+
+    private final List<Long> employeeIds = new ArrayList<>();
+    private Address address;
+
+    @BeforeEach
+    void createEmployees() {
+        address = addressService.saveAddress(Address.builder()
+            .streetAddress("1 Bulk Way")
+            .city("Bulkville")
+            .state("Georgia")
+            .postalCode("31999")
+            .isRemote(false)
+            .build());
+        for (String firstName : List.of("Ada", "Ben", "Cy")) {
+            Employee employee = new Employee(firstName, "Bulkcase");
+            employee.setDepartment("Bulk Ops");
+            employee.setTitle("Analyst");
+            employee.setAddress(address);
+            employeeIds.add(employeeService.saveEmployee(employee).getEmployeeId());
+        }
+    }
+
+    @AfterEach
+    void deleteEmployees() {
+        employeeIds.forEach(employeeService::deleteEmployeeById);
+        employeeIds.clear();
+        addressService.deleteAddressById(address.getAddressId());
+    }
+
+    @Test
+    void dryRunCountsWithoutChangingAnything() {
+        EmployeeBulkUpdateResult result = update(true, "Senior Analyst", 5615L);
+
+        assertThat(result.dryRun()).isTrue();
+        assertThat(result.matchedCount()).isEqualTo(3);
+        assertThat(result.updatedCount()).isZero();
+        assertThat(employeeService.getEmployeeById(employeeIds.get(0)).getTitle()).isEqualTo("Analyst");
+    }
+
+    @Test
+    void updatesEveryMatchingEmployeeInOneStatement() {
+        EmployeeBulkUpdateResult result = update(false, "Senior Analyst", 5615L);
+
+        assertThat(result.dryRun()).isFalse();
+        assertThat(result.updatedCount()).isEqualTo(3);
+        assertThat(result.changes()).containsEntry("title", "Senior Analyst").containsEntry("managerId", 5615L);
+        for (Long employeeId : employeeIds) {
+            Employee employee = employeeService.getEmployeeById(employeeId);
+            assertThat(employee.getTitle()).isEqualTo("Senior Analyst");
+            assertThat(employee.getManagerId()).isEqualTo(5615L);
+        }
+        assertThat(employeeService.countEmployees(
+            null, "Bulkcase", null, null, "Bulk Ops", "Senior Analyst", null, null, null, 5615L, null,
+            null, null, null, null, null, null, null, null, null, null).getCount()).isEqualTo(3);
+    }
+
+    @Test
+    void updatesEveryoneInAStateAndCity() {
+        EmployeeBulkUpdateResult result = employeeService.updateEmployeesMatching(
+            false, "Relocated Ops", null, null, null, null, null, null,
+            null, null, null, null, null, null, null, null, null, null, null,
+            "ga", " bulkville", null, null, null, null, null, null, null, null);
+
+        assertThat(result.updatedCount()).isEqualTo(3);
+        for (Long employeeId : employeeIds) {
+            assertThat(employeeService.getEmployeeById(employeeId).getDepartment()).isEqualTo("Relocated Ops");
+        }
+        assertThat(employeeService.countEmployees(
+            null, null, null, null, "Relocated Ops", null, null, null, null, null, null,
+            null, null, null, null, null, null, null, null, null, null).getCount()).isEqualTo(3);
+    }
+
+    @Test
+    void rejectsManagerAmongTheMatchedEmployees() {
+        assertThatThrownBy(() -> update(false, null, employeeIds.get(1)))
+            .isInstanceOf(InvalidRequestException.class)
+            .hasMessageContaining(String.valueOf(employeeIds.get(1)));
+        assertThat(employeeService.getEmployeeById(employeeIds.get(0)).getManagerId()).isNull();
+    }
+
+    @Test
+    void rejectsManagerWhoReportsToAMatchedEmployee() {
+        // Dee is not matched, but reports to Eve, who reports to Ada, who is
+        Employee eve = new Employee("Eve", "Outsidecase");
+        eve.setManager(employeeService.getEmployeeById(employeeIds.get(0)));
+        eve = employeeService.saveEmployee(eve);
+        employeeIds.addFirst(eve.getEmployeeId());
+        Employee dee = new Employee("Dee", "Outsidecase");
+        dee.setManager(eve);
+        Long deeId = employeeService.saveEmployee(dee).getEmployeeId();
+        employeeIds.addFirst(deeId);
+
+        assertThatThrownBy(() -> update(false, null, deeId))
+            .isInstanceOf(InvalidRequestException.class)
+            .hasMessageContaining("Employee " + employeeIds.get(2))
+            .hasMessageContaining("reporting cycle");
+        assertThat(employeeService.getEmployeeById(employeeIds.get(2)).getManagerId()).isNull();
+    }
+
+    @Test
+    void rejectsUnfilteredOrEmptyUpdates() {
+        assertThatThrownBy(() -> employeeService.updateEmployeesMatching(
+            false, "Bulk Ops", null, null, null, null, null, null,
+            null, null, null, null, null, null, null, null, null, null, null,
+            null, null, null, null, null, null, null, null, null, null))
+            .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> update(false, null, null))
+            .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> update(true, null, 999999L))
+            .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    private EmployeeBulkUpdateResult update(boolean dryRun, String newTitle, Long newManagerId) {
+        return employeeService.updateEmployeesMatching(
+            dryRun, null, newTitle, null, newManagerId, null, null, null,
+            null, "Bulkcase", null, null, "Bulk Ops", null, null, null, null, null, null,
+            null, null, null, null, null, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,115 @@
+package com.megacorp.humanresources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.megacorp.humanresources.repository.EmployeeRepository;
+import com.megacorp.humanresources.service.EmployeeServiceImpl;
+import com.megacorp.humanresources.specifications.EmployeeSpecifications;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+// A clear interval of 0 clears after every row instead of failing
+@SpringBootTest(properties = "employee.export.clear-interval=0")
+class EmployeeExportIntegrationTest {
+
+    @Autowired
+    private EmployeeServiceImpl employeeService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void ndjsonWritesOneProjectedEmployeePerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = employeeService.exportEmployees(out, "ndjson", List.of("employeeId", "lastName", "address"),
+            null, null, null, null, "IT", null, null, null, null, null, null, null, null, null,
+            null, null, null, null, null, null, null);
+
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertThat(body).endsWith("\n");
+        String[] lines = body.split("\n");
+        assertThat(count).isPositive().isEqualTo(lines.length)
+            .isEqualTo(employeeRepository.count(EmployeeSpecifications.hasDepartment("IT")));
+        for (String line : lines) {
+            JsonNode employee = objectMapper.readTree(line);
+            assertThat(employee.isObject()).isTrue();
+            assertThat(fieldNames(employee)).containsExactlyInAnyOrder("employeeId", "lastName", "address");
+            assertThat(employee.path("address").path("state").isMissingNode()).isFalse();
+        }
+    }
+
+    @Test
+    void jsonArrayHoldsEveryFieldWithoutProjection() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = employeeService.exportEmployees(out, null, null,
+            null, null, null, null, "IT", null, null, null, null, null, null, null, null, null,
+            null, null, null, null, null, null, null);
+
+        JsonNode employees = objectMapper.readTree(out.toByteArray());
+        assertThat(employees.isArray()).isTrue();
+        assertThat(employees.size()).isEqualTo(count);
+        assertThat(fieldNames(employees.get(0))).contains("employeeId", "firstName", "lastName", "department",
+            "hireDate", "annualSalary", "address");
+    }
+
+    @Test
+    void exportAppliesTheSameFiltersAsSearch() throws Exception {
+        LocalDate first = LocalDate.of(2015, 1, 1);
+        LocalDate last = LocalDate.of(2019, 12, 31);
+
+        assertSameEmployees(null, null, null, null, null, "Georgia", null, null, null, null);
+        assertSameEmployees(null, null, null, null, null, null, "Atlanta", null, null, null);
+        assertSameEmployees("IT", null, 30, 45, null, null, null, null, null, null);
+        assertSameEmployees(null, null, null, null, null, "GA", null, first, last, null);
+        assertSameEmployees(null, "Smith", null, null, null, null, null, null, null, null);
+        assertSameEmployees(null, null, null, null, "Female", null, null, null, null, LocalDate.of(2020, 1, 1));
+    }
+
+    private void assertSameEmployees(String department, String lastName, Integer startAge, Integer endAge, String gender,
+            String state, String city, LocalDate hireDateFirst, LocalDate hireDateLast, LocalDate terminationDateFirst)
+            throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        employeeService.exportEmployees(out, "ndjson", List.of("employeeId"),
+            null, lastName, startAge, endAge, department, null, null, gender, null, null, null, state, city, null,
+            null, hireDateFirst, hireDateLast, null, terminationDateFirst, null, null);
+        List<Long> exported = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).lines().toList()) {
+            exported.add(objectMapper.readTree(line).path("employeeId").asLong());
+        }
+
+        List<Long> searched = new ArrayList<>();
+        JsonNode page;
+        int pageNumber = 1;
+        do {
+            page = objectMapper.readTree(employeeService.searchEmployees(
+                null, lastName, startAge, endAge, department, null, null, gender, null, null, null, state, city, null,
+                null, hireDateFirst, hireDateLast, null, terminationDateFirst, null, null,
+                pageNumber++, 500, "employeeId", "asc", null, false, "summary"));
+            page.path("content").forEach(employee -> searched.add(employee.path("employeeId").asLong()));
+        } while (page.path("hasNext").asBoolean());
+
+        assertThat(exported).as("department=%s lastName=%s ages=%s-%s gender=%s state=%s city=%s hired=%s..%s terminated>=%s",
+                department, lastName, startAge, endAge, gender, state, city, hireDateFirst, hireDateLast, terminationDateFirst)
+            .isNotEmpty()
+            .isEqualTo(searched);
+    }
+
+    private static Collection<String> fieldNames(JsonNode node) {
+        return Set.copyOf(node.properties().stream().map(Map.Entry::getKey).toList());
+    }
+}
@@ -0,0 +1,61 @@
+package com.megacorp.humanresources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import com.megacorp.humanresources.entity.Employee;
+import com.megacorp.humanresources.exceptions.InvalidRequestException;
+import com.megacorp.humanresources.model.EmployeeMatch;
+import com.megacorp.humanresources.service.EmployeeServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class EmployeeFuzzySearchIntegrationTest {
+
+    @Autowired
+    private EmployeeServiceImpl employeeService;
+
+    @Test
+    void misspelledNameRanksIntendedEmployeeFirst() {
+        List<EmployeeMatch> matches = employeeService.fuzzySearchEmployees("Aron Powel", null, 5, null);
+
+        assertThat(matches).isNotEmpty();
+        assertThat(matches.get(0).employeeId()).isEqualTo(5000L);
+        assertThat(matches).isSortedAccordingTo((a, b) -> Double.compare(b.similarity(), a.similarity()));
+        assertThat(matches).allSatisfy(match -> assertThat(match.similarity()).isBetween(0.3, 1.0));
+    }
+
+    @Test
+    void misspelledTitleMatchesTitle() {
+        List<EmployeeMatch> matches = employeeService.fuzzySearchEmployees(null, "Enterprize Architekt", 5, null);
+
+        assertThat(matches).isNotEmpty();
+        assertThat(matches).allSatisfy(match -> assertThat(match.title()).isEqualTo("Enterprise Architect"));
+    }
+
+    @Test
+    void indexFollowsEmployeeWrites() {
+        Employee employee = new Employee("Zebulon", "Quixote");
+        employee.setTitle("Chief Cartographer");
+        Employee saved = employeeService.saveEmployee(employee);
+
+        assertThat(employeeService.fuzzySearchEmployees("Zebulon Quixot", null, 1, null))
+            .extracting(EmployeeMatch::employeeId)
+            .containsExactly(saved.getEmployeeId());
+
+        employeeService.deleteEmployeeById(saved.getEmployeeId());
+        assertThat(employeeService.fuzzySearchEmployees("Zebulon Quixote", null, 10, null))
+            .extracting(EmployeeMatch::employeeId)
+            .doesNotContain(saved.getEmployeeId());
+    }
+
+    @Test
+    void requiresNameOrTitle() {
+        assertThatThrownBy(() -> employeeService.fuzzySearchEmployees(" ", null, null, null))
+            .isInstanceOf(InvalidRequestException.class);
+    }
+}
@@ -0,0 +1,114 @@
+package com.megacorp.humanresources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.megacorp.humanresources.entity.Address;
+import com.megacorp.humanresources.entity.Employee;
+import com.megacorp.humanresources.exceptions.InvalidRequestException;
+import com.megacorp.humanresources.model.EmployeeGroupCount;
+import com.megacorp.humanresources.model.EmployeeGroupedCounts;
+import com.megacorp.humanresources.service.AddressServiceImpl;
+import com.megacorp.humanresources.service.EmployeeServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class EmployeeGroupedCountIntegrationTest {
+
+    @Autowired
+    private EmployeeServiceImpl employeeService;
+
+    @Autowired
+    private AddressServiceImpl addressService;
+
+    @Test
+    void groupedCountsMatchPerValueCounts() {
+        EmployeeGroupedCounts grouped = employeeService.countEmployeesGroupedByTool(
+            List.of("department"), List.of("avgSalary", "maxSalary"),
+            null, null, null, null, null, null, null, null, null, null, null,
+            "Georgia", null, null, null, null, null, null, null, null, null);
+
+        assertThat(grouped.groups()).isNotEmpty();
+        assertThat(grouped.totalCount())
+            .isEqualTo(employeeService.countEmployeesInState("Georgia").getCount());
+        for (EmployeeGroupCount group : grouped.groups()) {
+            String department = (String) group.group().get("department");
+            long expected = employeeService.countEmployeesTool(
+                null, null, null, null, department, null, null, null, null, null, null,
+                "GA", null, null, null, null, null, null, null, null, null).getCount();
+            assertThat(group.count()).as(department).isEqualTo(expected);
+            assertThat(group.maxSalary()).isNotNull();
+            assertThat(group.minSalary()).isNull();
+        }
+    }
+
+    @Test
+    void groupsByTwoDimensionsIncludingHireYear() {
+        EmployeeGroupedCounts grouped = employeeService.countEmployeesGroupedByTool(
+            List.of("hireYear", "gender"), null,
+            null, null, null, null, "IT", null, null, null, null, null, null,
+            null, null, null, null, null, null, null, null, null, null);
+
+        assertThat(grouped.groupBy()).containsExactly("hireYear", "gender");
+        assertThat(grouped.groups()).allSatisfy(group ->
+            assertThat(group.group()).containsOnlyKeys("hireYear", "gender"));
+        assertThat(grouped.totalCount()).isEqualTo(employeeService.countEmployeesTool(
+            null, null, null, null, "IT", null, null, null, null, null, null,
+            null, null, null, null, null, null, null, null, null, null).getCount());
+    }
+
+    @Test
+    void groupsSpellingsOfOneStateAndCityTogether() {
+        List<Long> employeeIds = new ArrayList<>();
+        List<Long> addressIds = new ArrayList<>();
+        try {
+            for (String[] location : new String[][] {{"Georgia", " atlanta "}, {"GA", "Atlanta"}, {"ga", "ATLANTA"}}) {
+                Address address = addressService.saveAddress(Address.builder()
+                    .streetAddress("1 Grouping Way")
+                    .city(location[1])
+                    .state(location[0])
+                    .postalCode("30301")
+                    .isRemote(false)
+                    .build());
+                addressIds.add(address.getAddressId());
+                Employee employee = new Employee("Group", "Bylocation");
+                employee.setDepartment("Grouped Location Test");
+                employee.setAddress(address);
+                employeeIds.add(employeeService.saveEmployee(employee).getEmployeeId());
+            }
+
+            EmployeeGroupedCounts grouped = employeeService.countEmployeesGroupedByTool(
+                List.of("state", "city"), null,
+                null, null, null, null, "Grouped Location Test", null, null, null, null, null, null,
+                null, null, null, null, null, null, null, null, null, null);
+
+            assertThat(grouped.groups()).singleElement().satisfies(group -> {
+                assertThat(group.group()).isEqualTo(Map.of("state", "GA", "city", "ATLANTA"));
+                assertThat(group.count()).isEqualTo(3);
+            });
+        } finally {
+            employeeIds.forEach(employeeService::deleteEmployeeById);
+            addressIds.forEach(addressService::deleteAddressById);
+        }
+    }
+
+    @Test
+    void rejectsUnsupportedDimensions() {
+        assertThatThrownBy(() -> employeeService.countEmployeesGroupedByTool(
+            List.of("annualSalary"), null,
+            null, null, null, null, null, null, null, null, null, null, null,
+            null, null, null, null, null, null, null, null, null, null))
+            .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> employeeService.countEmployeesGroupedByTool(
+            List.of("title", "city", "state"), null,
+            null, null, null, null, null, null, null, null, null, null, null,
+            null, null, null, null, null, null, null, null, null, null))
+            .isInstanceOf(InvalidRequestException.class);
+    }
+}
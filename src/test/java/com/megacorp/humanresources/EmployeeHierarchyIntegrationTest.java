@@ -0,0 +1,88 @@
+package com.megacorp.humanresources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.megacorp.humanresources.entity.Employee;
+import com.megacorp.humanresources.exceptions.ResourceNotFoundException;
+import com.megacorp.humanresources.model.EmployeeReports;
+import com.megacorp.humanresources.model.OrgChartEntry;
+import com.megacorp.humanresources.service.EmployeeServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest
+class EmployeeHierarchyIntegrationTest {
+
+    private static final String SUBTREE_SIZE_SQL =
+        "WITH RECURSIVE sub(id) AS ("
+        + " SELECT EMPLOYEE_ID FROM employee WHERE MANAGER_ID = ? AND EMPLOYEE_ID <> MANAGER_ID"
+        + " UNION ALL SELECT e.EMPLOYEE_ID FROM employee e JOIN sub ON e.MANAGER_ID = sub.id WHERE e.EMPLOYEE_ID <> e.MANAGER_ID)"
+        + " SELECT COUNT(*) FROM sub";
+
+    @Autowired
+    private EmployeeServiceImpl employeeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void reportingChainWalksUpToTheTop() {
+        Long reportOf5186 = jdbcTemplate.queryForObject(
+            "SELECT MIN(EMPLOYEE_ID) FROM employee WHERE MANAGER_ID = 5186", Long.class);
+
+        List<OrgChartEntry> chain = employeeService.getReportingChain(reportOf5186);
+
+        assertThat(chain).extracting(OrgChartEntry::employeeId).containsExactly(5186L, 5448L, 5183L);
+        assertThat(chain).extracting(OrgChartEntry::level).containsExactly(1, 2, 3);
+        assertThat(employeeService.getReportingChain(5615L)).isEmpty();
+    }
+
+    @Test
+    void subtreeCountsMatchRecursiveQuery() {
+        for (long managerId : List.of(5615L, 5775L, 5186L, 5208L)) {
+            Long expected = jdbcTemplate.queryForObject(SUBTREE_SIZE_SQL, Long.class, managerId);
+            assertThat(employeeService.countSubtree(managerId).getCount()).as("manager %d", managerId).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void pagesCoverTheWholeSubtreeOnce() {
+        long total = employeeService.countSubtree(5186L).getCount();
+        List<Long> seen = new ArrayList<>();
+        EmployeeReports page;
+        int pageNumber = 1;
+        do {
+            page = employeeService.getAllReports(5186L, pageNumber++, 7);
+            assertThat(page.totalCount()).isEqualTo(total);
+            page.reports().forEach(report -> seen.add(report.employeeId()));
+        } while (pageNumber <= page.totalPages());
+
+        assertThat(seen).hasSize((int) total).doesNotHaveDuplicates();
+        assertThat(employeeService.getAllReports(5186L, 1, 1).reports().get(0).level()).isEqualTo(1);
+    }
+
+    @Test
+    void followsManagerChanges() {
+        long before = employeeService.countSubtree(5186L).getCount();
+        Employee hire = new Employee("Orla", "Chartcase");
+        hire.setManager(employeeService.getEmployeeById(5186L));
+        Long hireId = employeeService.saveEmployee(hire).getEmployeeId();
+        try {
+            assertThat(employeeService.countSubtree(5186L).getCount()).isEqualTo(before + 1);
+            assertThat(employeeService.getReportingChain(hireId).get(0).employeeId()).isEqualTo(5186L);
+
+            employeeService.updateEmployee(hireId, null, null, null, null, null, null, null, null, 5615L, null, null, null, null);
+            assertThat(employeeService.countSubtree(5186L).getCount()).isEqualTo(before);
+            assertThat(employeeService.getReportingChain(hireId)).extracting(OrgChartEntry::employeeId).containsExactly(5615L);
+        } finally {
+            employeeService.deleteEmployeeById(hireId);
+        }
+        assertThatThrownBy(() -> employeeService.getReportingChain(hireId)).isInstanceOf(ResourceNotFoundException.class);
+    }
+}
@@ -0,0 +1,120 @@
+package com.megacorp.humanresources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import com.megacorp.humanresources.exceptions.InvalidRequestException;
+import com.megacorp.humanresources.index.EmployeeBitmapIndex;
+import com.megacorp.humanresources.index.EmployeeTrigramIndex;
+import com.megacorp.humanresources.model.EmployeeImportError;
+import com.megacorp.humanresources.model.EmployeeImportResult;
+import com.megacorp.humanresources.service.EmployeeImportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest
+class EmployeeImportIntegrationTest {
+
+    private static final String HEADER =
+        "EMPLOYEE_ID,FIRST_NAME,LAST_NAME,TITLE,DEPARTMENT,BUSINESS_UNIT,GENDER,ETHNICITY,AGE,HIRE_DATE,ANNUAL_SALARY,MANAGER_ID,termination_date,ADDRESS_ID\n";
+
+    @Autowired
+    private EmployeeImportService employeeImportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EmployeeBitmapIndex employeeBitmapIndex;
+
+    @Autowired
+    private EmployeeTrigramIndex employeeTrigramIndex;
+
+    @AfterEach
+    void removeImportedEmployees() {
+        jdbcTemplate.update("UPDATE employee SET MANAGER_ID = NULL WHERE LAST_NAME LIKE 'Importcase%'");
+        jdbcTemplate.update("DELETE FROM employee WHERE LAST_NAME LIKE 'Importcase%'");
+        employeeBitmapIndex.rebuild();
+        employeeTrigramIndex.rebuild();
+    }
+
+    @Test
+    void importsRowsAndResolvesManagersAcrossBatches() throws IOException {
+        String csv = HEADER
+            + "1,Ann,Importcase,CEO,IT,Corporate,Female,Asian,50,2010-01-01,200000,1,,10000\n"
+            + "2,Bob,Importcase,\"Developer, Senior\",IT,Corporate,Male,Asian,40,2012-05-01,120000,1,,10001\n"
+            + "3,Cat,Importcase,Developer,IT,Corporate,Female,Asian,30,2015-03-01,90000,4,2020-01-31,\n"
+            + "4,Dan,Importcase,Team Lead,IT,Corporate,Male,Asian,45,2011-07-01,150000,1,,\n"
+            + "5,Eve,Importcase,Developer,IT,Corporate,Female,Asian,28,2019-09-01,85000,5615,,\n";
+
+        EmployeeImportResult result = employeeImportService.importEmployees(stream(csv), 2);
+
+        assertThat(result.rowsRead()).isEqualTo(5);
+        assertThat(result.imported()).isEqualTo(5);
+        assertThat(result.failed()).isZero();
+        assertThat(result.managersLinked()).isEqualTo(5);
+        assertThat(result.errors()).isEmpty();
+
+        Long annId = idOf("Ann");
+        assertThat(managerOf("Ann")).isEqualTo(annId);
+        assertThat(managerOf("Bob")).isEqualTo(annId);
+        assertThat(managerOf("Cat")).isEqualTo(idOf("Dan"));
+        assertThat(managerOf("Eve")).isEqualTo(5615L);
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT TITLE FROM employee WHERE FIRST_NAME = 'Bob' AND LAST_NAME = 'Importcase'", String.class))
+            .isEqualTo("Developer, Senior");
+    }
+
+    @Test
+    void reportsRejectedRowsWithoutStoppingTheImport() throws IOException {
+        String csv = HEADER
+            + "1,Ann,Importcase,CEO,IT,Corporate,Female,Asian,abc,2010-01-01,200000,,,\n"
+            + "2,Bob,Importcase,Developer,IT,Corporate,Male,Asian,40,2012-05-01,120000,1,,\n"
+            + "3,Cat,Importcase,Developer,IT,Corporate,Female,Asian,30,2015-03-01,90000,,,99999\n"
+            + "4,Dan,Importcase,Developer,IT,Corporate,Male,Asian,45,2011-07-01,150000,424242,,\n"
+            + "2,Dup,Importcase,Developer,IT,Corporate,Male,Asian,45,2011-07-01,150000,,,\n";
+
+        EmployeeImportResult result = employeeImportService.importEmployees(stream(csv), null);
+
+        assertThat(result.rowsRead()).isEqualTo(5);
+        assertThat(result.imported()).isEqualTo(2);
+        assertThat(result.failed()).isEqualTo(3);
+        assertThat(result.errors())
+            .extracting(EmployeeImportError::rowNumber)
+            .containsExactly(2L, 3L, 4L, 5L, 6L);
+        assertThat(managerOf("Bob")).isNull();
+        assertThat(managerOf("Dan")).isNull();
+    }
+
+    @Test
+    void rejectsFilesWithoutRequiredColumns() {
+        assertThatThrownBy(() -> employeeImportService.importEmployees(stream("EMPLOYEE_ID,FIRST_NAME\n1,Ann\n"), null))
+            .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> employeeImportService.importEmployees(stream(HEADER), 0))
+            .isInstanceOf(InvalidRequestException.class);
+    }
+
+    private Long idOf(String firstName) {
+        return jdbcTemplate.queryForObject(
+            "SELECT EMPLOYEE_ID FROM employee WHERE FIRST_NAME = ? AND LAST_NAME = 'Importcase'", Long.class, firstName);
+    }
+
+    private Long managerOf(String firstName) {
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+            "SELECT MANAGER_ID FROM employee WHERE FIRST_NAME = ? AND LAST_NAME = 'Importcase'", firstName);
+        Object managerId = row.get("MANAGER_ID");
+        return managerId != null ? ((Number) managerId).longValue() : null;
+    }
+
+    private static ByteArrayInputStream stream(String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+}
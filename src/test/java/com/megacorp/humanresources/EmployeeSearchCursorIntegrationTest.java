@@ -0,0 +1,66 @@
+package com.megacorp.humanresources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class EmployeeSearchCursorIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void cursorPagesReturnSameEmployeesAsPageNumbers() throws Exception {
+        List<Long> byPageNumber = new ArrayList<>();
+        for (int pageNumber = 1; pageNumber <= 3; pageNumber++) {
+            JsonNode page = search("pageNumber", String.valueOf(pageNumber));
+            page.path("content").forEach(employee -> byPageNumber.add(employee.path("employeeId").asLong()));
+        }
+
+        List<Long> byCursor = new ArrayList<>();
+        JsonNode page = search("includeTotal", "false");
+        assertThat(page.has("totalElements")).isFalse();
+        page.path("content").forEach(employee -> byCursor.add(employee.path("employeeId").asLong()));
+        for (int i = 0; i < 2; i++) {
+            assertThat(page.path("nextCursor").isTextual()).isTrue();
+            page = search("cursor", page.path("nextCursor").asText());
+            page.path("content").forEach(employee -> byCursor.add(employee.path("employeeId").asLong()));
+        }
+
+        assertThat(byCursor).hasSize(30).isEqualTo(byPageNumber);
+    }
+
+    @Test
+    void invalidCursorReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/employees/search").param("cursor", "not-a-cursor"))
+            .andExpect(status().isBadRequest());
+    }
+
+    private JsonNode search(String name, String value) throws Exception {
+        String body = mockMvc.perform(get("/employees/search")
+                .param("department", "IT")
+                .param("pageSize", "10")
+                .param("sortBy", "hireDate")
+                .param("sortDirection", "desc")
+                .param(name, value))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+}
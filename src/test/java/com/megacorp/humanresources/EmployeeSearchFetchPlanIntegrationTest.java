@@ -0,0 +1,97 @@
+package com.megacorp.humanresources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.megacorp.humanresources.service.BenefitsServiceImpl;
+import com.megacorp.humanresources.service.EmployeeServiceImpl;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class EmployeeSearchFetchPlanIntegrationTest {
+
+    @Autowired
+    private EmployeeServiceImpl employeeService;
+
+    @Autowired
+    private BenefitsServiceImpl benefitsService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void searchPagesUseConstantNumberOfStatements() throws Exception {
+        for (String projection : new String[] {"full", "summary"}) {
+            // One select for the page and one count(*) for totalElements
+            assertThat(statementsForPage(10, true, projection)).as(projection).isEqualTo(2);
+            assertThat(statementsForPage(100, true, projection)).as(projection).isEqualTo(2);
+            // A slice reads one extra row instead of counting
+            assertThat(statementsForPage(10, false, projection)).as(projection).isEqualTo(1);
+            assertThat(statementsForPage(100, false, projection)).as(projection).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void cursorPagesUseSingleStatement() throws Exception {
+        for (String projection : new String[] {"full", "summary"}) {
+            JsonNode first = objectMapper.readTree(search(1, 50, false, null, projection));
+            String cursor = first.path("nextCursor").asText();
+
+            statistics.clear();
+            JsonNode next = objectMapper.readTree(search(null, 50, false, cursor, projection));
+            assertThat(statistics.getPrepareStatementCount()).as(projection).isEqualTo(1);
+            assertThat(next.path("content").size()).isEqualTo(50);
+        }
+    }
+
+    @Test
+    void summaryProjectionReturnsIdsWithoutEntityFields() throws Exception {
+        JsonNode page = objectMapper.readTree(search(1, 5, false, null, "summary"));
+        JsonNode employee = page.path("content").get(0);
+
+        assertThat(employee.has("employeeId")).isTrue();
+        assertThat(employee.has("lastName")).isTrue();
+        assertThat(employee.has("managerId")).isTrue();
+        assertThat(employee.has("addressId")).isTrue();
+        assertThat(employee.has("address")).isFalse();
+        assertThat(employee.has("annualSalary")).isFalse();
+    }
+
+    @Test
+    void benefitEnrollmentListsUseSingleStatement() {
+        statistics.clear();
+        assertThat(benefitsService.getEnrollmentsByPlanType("Medical")).isNotEmpty();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private long statementsForPage(int pageSize, boolean includeTotal, String projection) throws Exception {
+        statistics.clear();
+        JsonNode page = objectMapper.readTree(search(2, pageSize, includeTotal, null, projection));
+        assertThat(page.path("content").size()).isEqualTo(pageSize);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private String search(Integer pageNumber, int pageSize, boolean includeTotal, String cursor, String projection) {
+        return employeeService.searchEmployees(
+            null, null, null, null, null, null, null, null, null, null, null,
+            null, null, null, null, null, null, null, null, null, null,
+            pageNumber, pageSize, "lastName", "asc", cursor, includeTotal, projection);
+    }
+}
@@ -0,0 +1,105 @@
+package com.megacorp.humanresources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.megacorp.humanresources.entity.Employee;
+import com.megacorp.humanresources.exceptions.InvalidRequestException;
+import com.megacorp.humanresources.exceptions.ResourceNotFoundException;
+import com.megacorp.humanresources.model.HeadcountSeries;
+import com.megacorp.humanresources.service.EmployeeServiceImpl;
+import com.megacorp.humanresources.service.HeadcountServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest
+class HeadcountSeriesIntegrationTest {
+
+    private static final String ACTIVE_SQL =
+        "SELECT COUNT(*) FROM employee WHERE DEPARTMENT = ? AND HIRE_DATE <= ? AND (TERMINATION_DATE IS NULL OR TERMINATION_DATE > ?)";
+
+    @Autowired
+    private HeadcountServiceImpl headcountService;
+
+    @Autowired
+    private EmployeeServiceImpl employeeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void monthlySeriesMatchesCountQueries() {
+        HeadcountSeries series = headcountService.getHeadcountSeries(
+            "department", "Sales", "month", LocalDate.of(2015, 1, 1), LocalDate.of(2025, 12, 31)).get(0);
+
+        assertThat(series.periods()).hasSize(132);
+        for (HeadcountSeries.Period period : series.periods()) {
+            assertThat(period.headcount()).as("headcount at %s", period.end())
+                .isEqualTo(jdbcTemplate.queryForObject(ACTIVE_SQL, Long.class, "Sales", period.end(), period.end()));
+            assertThat(period.hires()).as("hires in %s", period.start()).isEqualTo(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM employee WHERE DEPARTMENT = 'Sales' AND HIRE_DATE BETWEEN ? AND ?",
+                Long.class, period.start(), period.end()));
+            assertThat(period.terminations()).as("terminations in %s", period.start()).isEqualTo(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM employee WHERE DEPARTMENT = 'Sales' AND TERMINATION_DATE BETWEEN ? AND ?",
+                Long.class, period.start(), period.end()));
+        }
+    }
+
+    @Test
+    void seriesPerGroupShareTheSamePeriods() {
+        List<HeadcountSeries> series = headcountService.getHeadcountSeriesTool("business unit", null, "quarterly", "2020-02-15", "2024-12-31");
+
+        assertThat(series).extracting(HeadcountSeries::value)
+            .containsExactlyElementsOf(jdbcTemplate.queryForList(
+                "SELECT DISTINCT BUSINESS_UNIT FROM employee ORDER BY BUSINESS_UNIT", String.class));
+        assertThat(series).allSatisfy(group -> {
+            assertThat(group.from()).isEqualTo(LocalDate.of(2020, 1, 1));
+            assertThat(group.to()).isEqualTo(LocalDate.of(2024, 12, 31));
+            assertThat(group.periods()).hasSize(20);
+        });
+    }
+
+    @Test
+    void seriesFollowsEmployeeWrites() {
+        LocalDate from = LocalDate.of(2016, 3, 1);
+        LocalDate to = LocalDate.of(2016, 4, 30);
+        long before = headcountService.getHeadcountSeries("department", "Sales", "month", from, to).get(0).periods().get(1).headcount();
+
+        Employee employee = new Employee("Tamsin", "Seriescase");
+        employee.setDepartment("Sales");
+        employee.setHireDate(LocalDate.of(2016, 3, 10));
+        Long employeeId = employeeService.saveEmployee(employee).getEmployeeId();
+        try {
+            List<HeadcountSeries.Period> periods = headcountService.getHeadcountSeries("department", "Sales", "month", from, to).get(0).periods();
+            assertThat(periods.get(0).hires()).isGreaterThanOrEqualTo(1);
+            assertThat(periods.get(1).headcount()).isEqualTo(before + 1);
+
+            employeeService.updateEmployee(employeeId, null, null, null, null, null, null, null, null, null, null, null,
+                LocalDate.of(2016, 4, 5), null);
+            periods = headcountService.getHeadcountSeries("department", "Sales", "month", from, to).get(0).periods();
+            assertThat(periods.get(1).terminations()).isGreaterThanOrEqualTo(1);
+            assertThat(periods.get(1).headcount()).isEqualTo(before);
+        } finally {
+            employeeService.deleteEmployeeById(employeeId);
+        }
+        assertThat(headcountService.getHeadcountSeries("department", "Sales", "month", from, to).get(0).periods().get(1).headcount())
+            .isEqualTo(before);
+    }
+
+    @Test
+    void rejectsInvalidQueries() {
+        assertThatThrownBy(() -> headcountService.getHeadcountSeries("title", null, "day", LocalDate.of(1990, 1, 1), null))
+            .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> headcountService.getHeadcountSeries(null, null, "hourly", null, null))
+            .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> headcountService.getHeadcountSeriesTool(null, null, null, "2020-13-01", null))
+            .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> headcountService.getHeadcountSeries("department", "Nonexistent", null, null, null))
+            .isInstanceOf(ResourceNotFoundException.class);
+    }
+}
@@ -0,0 +1,244 @@
+package com.megacorp.humanresources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.megacorp.humanresources.vectorstore.HnswVectorStore;
+import com.megacorp.humanresources.vectorstore.MappedVectorStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+class HnswVectorStoreTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(HnswVectorStoreTest.class);
+
+    private static final int DIMENSIONS = 96;
+    private static final int DOCUMENTS = 4000;
+    private static final int CLUSTERS = 40;
+    private static final int QUERIES = 200;
+    private static final int TOP_K = 10;
+
+    @TempDir
+    private Path tempDir;
+
+    private final VectorTableEmbeddingModel embeddingModel = new VectorTableEmbeddingModel();
+
+    private List<Document> documents;
+
+    @BeforeEach
+    void createDocuments() {
+        Random random = new Random(7);
+        float[][] centroids = new float[CLUSTERS][];
+        for (int c = 0; c < CLUSTERS; c++) {
+            centroids[c] = gaussian(random, 1);
+        }
+        documents = new ArrayList<>();
+        for (int i = 0; i < DOCUMENTS; i++) {
+            int cluster = i % CLUSTERS;
+            String text = "chunk " + i;
+            embeddingModel.vectors.put(text, add(centroids[cluster], gaussian(random, 0.6f)));
+            documents.add(new Document("chunk-" + i, text, Map.of(
+                "policyTitle", "Policy " + cluster,
+                "gcsPath", "policies/Policy " + cluster + ".pdf",
+                "page_number", i / CLUSTERS)));
+        }
+        for (int q = 0; q < QUERIES; q++) {
+            embeddingModel.vectors.put("question " + q, add(centroids[q % CLUSTERS], gaussian(random, 0.8f)));
+        }
+    }
+
+    /**
+     * Recall@10 of the graph search against the exact top 10 and the latency of both, the
+     * figures to compare when tuning rag.policies.hnsw.*.
+     */
+    @Test
+    void graphSearchFindsNearlyAllExactNeighborsAndReportsLatencyAgainstBruteForce() {
+        for (MappedVectorStore.Encoding encoding : MappedVectorStore.Encoding.values()) {
+            HnswVectorStore store = store(encoding.name() + ".bin", encoding);
+            store.add(documents);
+            List<SearchRequest> requests = new ArrayList<>();
+            for (int q = 0; q < QUERIES; q++) {
+                requests.add(SearchRequest.builder().query("question " + q).topK(TOP_K).build());
+            }
+
+            // Warm up both paths before timing them
+            for (int round = 0; round < 5; round++) {
+                requests.forEach(store::similaritySearch);
+                requests.forEach(store::exactSearch);
+            }
+            long graphNanos = time(requests, store::similaritySearch);
+            long exactNanos = time(requests, store::exactSearch);
+
+            int found = 0;
+            for (SearchRequest request : requests) {
+                Set<String> exact = ids(store.exactSearch(request));
+                found += (int) store.similaritySearch(request).stream().filter(document -> exact.contains(document.getId())).count();
+            }
+            double recall = (double) found / (QUERIES * TOP_K);
+            logger.info("HNSW {} over {} vectors of {} dimensions: recall@{} {}, {} us per graph search, {} us per brute-force search",
+                encoding, DOCUMENTS, DIMENSIONS, TOP_K, String.format("%.3f", recall), graphNanos / QUERIES / 1000,
+                exactNanos / QUERIES / 1000);
+
+            assertThat(recall).isGreaterThanOrEqualTo(0.95);
+        }
+    }
+
+    @Test
+    void filtersOnPolicyMetadataIncludingFiltersTooSelectiveForTheGraph() {
+        HnswVectorStore store = store("store.bin", MappedVectorStore.Encoding.FLOAT32);
+        store.add(documents);
+
+        List<Document> byPath = store.similaritySearch(SearchRequest.builder().query("question 3").topK(5)
+            .filterExpression("gcsPath == 'policies/Policy 3.pdf'").build());
+        assertThat(byPath).hasSize(5).allSatisfy(document -> assertThat(document.getMetadata())
+            .containsEntry("gcsPath", "policies/Policy 3.pdf"));
+
+        // Question 3 is close to policy 3, so the graph search visits few chunks of policy 17
+        SearchRequest farFilter = SearchRequest.builder().query("question 3").topK(5)
+            .filterExpression("policyTitle == 'Policy 17' && page_number < 3").build();
+        List<Document> byTitle = store.similaritySearch(farFilter);
+        assertThat(ids(byTitle)).containsExactlyInAnyOrder("chunk-17", "chunk-57", "chunk-97");
+        assertThat(ids(byTitle)).isEqualTo(ids(store.exactSearch(farFilter)));
+    }
+
+    @Test
+    void reloadsTheGraphAndKeepsReplacementsAndDeletes() {
+        HnswVectorStore store = store("store.bin", MappedVectorStore.Encoding.INT8);
+        store.add(documents);
+        embeddingModel.vectors.put("replaced chunk", embeddingModel.vectors.get("question 5"));
+        store.add(List.of(new Document("chunk-0", "replaced chunk", Map.of("policyTitle", "Policy 0"))));
+        store.delete(List.of("chunk-1", "chunk-2"));
+        store.delete("gcsPath == 'policies/Policy 4.pdf'");
+        SearchRequest request = SearchRequest.builder().query("question 5").topK(TOP_K).build();
+        List<Document> expected = store.similaritySearch(request);
+
+        HnswVectorStore reloaded = store("store.bin", MappedVectorStore.Encoding.INT8);
+        assertThat(reloaded.load()).isTrue();
+        assertThat(reloaded.size()).isEqualTo(DOCUMENTS - 2 - DOCUMENTS / CLUSTERS);
+        List<Document> actual = reloaded.similaritySearch(request);
+        assertThat(actual).extracting(Document::getId).containsExactlyElementsOf(expected.stream().map(Document::getId).toList());
+        assertThat(actual.getFirst().getId()).isEqualTo("chunk-0");
+        assertThat(actual.getFirst().getScore()).isCloseTo(1.0, within(0.01));
+        assertThat(reloaded.exactSearch(SearchRequest.builder().query("question 4").topK(DOCUMENTS).build()))
+            .noneMatch(document -> "Policy 4".equals(document.getMetadata().get("policyTitle")));
+        assertThat(store("store.bin", MappedVectorStore.Encoding.FLOAT32).load()).isFalse();
+
+        // The stored vectors are normalized and dequantized
+        Map<String, float[]> vectors = reloaded.findVectors(List.of("chunk-0", "chunk-1", "chunk-5"));
+        assertThat(vectors).containsOnlyKeys("chunk-0", "chunk-5");
+        float[] question = embeddingModel.vectors.get("question 5");
+        assertThat(dot(vectors.get("chunk-0"), vectors.get("chunk-0"))).isCloseTo(1.0, within(0.02));
+        assertThat(dot(vectors.get("chunk-0"), question) / Math.sqrt(dot(question, question))).isCloseTo(1.0, within(0.01));
+    }
+
+    @Test
+    void rebuildsTheGraphOnceAQuarterOfItIsDeleted() {
+        HnswVectorStore store = store("store.bin", MappedVectorStore.Encoding.FLOAT32);
+        store.add(documents);
+        List<String> deleted = new ArrayList<>();
+        for (int i = 0; i < DOCUMENTS / 2; i++) {
+            deleted.add("chunk-" + (2 * i));
+        }
+        store.delete(deleted);
+
+        assertThat(store.size()).isEqualTo(DOCUMENTS / 2);
+        SearchRequest request = SearchRequest.builder().query("question 8").topK(TOP_K).build();
+        List<Document> results = store.similaritySearch(request);
+        assertThat(results).hasSize(TOP_K).noneMatch(document -> deleted.contains(document.getId()));
+        assertThat(ids(results)).containsAll(ids(store.exactSearch(request)).stream().limit(TOP_K / 2).toList());
+    }
+
+    private HnswVectorStore store(String fileName, MappedVectorStore.Encoding encoding) {
+        return HnswVectorStore.builder(embeddingModel)
+            .file(tempDir.resolve(fileName))
+            .encoding(encoding)
+            .build();
+    }
+
+    private static long time(List<SearchRequest> requests, Function<SearchRequest, List<Document>> search) {
+        long start = System.nanoTime();
+        requests.forEach(search::apply);
+        return System.nanoTime() - start;
+    }
+
+    private static Set<String> ids(List<Document> documents) {
+        Set<String> ids = new HashSet<>();
+        documents.forEach(document -> ids.add(document.getId()));
+        return ids;
+    }
+
+    private static float[] gaussian(Random random, float deviation) {
+        float[] vector = new float[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            vector[i] = (float) random.nextGaussian() * deviation;
+        }
+        return vector;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static float[] add(float[] a, float[] b) {
+        float[] sum = new float[a.length];
+        for (int i = 0; i < a.length; i++) {
+            sum[i] = a[i] + b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Looks embeddings up by text, so that searches measure the store and not the model.
+     */
+    private static final class VectorTableEmbeddingModel implements EmbeddingModel {
+
+        private final Map<String, float[]> vectors = new HashMap<>();
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (int i = 0; i < request.getInstructions().size(); i++) {
+                embeddings.add(new Embedding(embed(request.getInstructions().get(i)), i));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embed(document.getText());
+        }
+
+        @Override
+        public float[] embed(String text) {
+            return vectors.get(text).clone();
+        }
+
+        @Override
+        public int dimensions() {
+            return DIMENSIONS;
+        }
+    }
+}
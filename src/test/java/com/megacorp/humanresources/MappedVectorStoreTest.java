@@ -0,0 +1,232 @@
+package com.megacorp.humanresources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.megacorp.humanresources.vectorstore.MappedVectorStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.core.io.FileSystemResource;
+
+class MappedVectorStoreTest {
+
+    private static final int DIMENSIONS = 256;
+
+    @TempDir
+    private Path tempDir;
+
+    private final EmbeddingModel embeddingModel = new WordEmbeddingModel();
+
+    private List<Document> documents;
+
+    @BeforeEach
+    void createDocuments() {
+        documents = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            documents.add(Document.builder()
+                .id("doc-" + i)
+                .text("document " + i + " topic" + (i % 10) + " word" + (i % 7))
+                .metadata(Map.of("group", i % 3))
+                .build());
+        }
+    }
+
+    @Test
+    void ranksLikeSimpleVectorStoreAndReloadsWithTheSameContentHash() {
+        MappedVectorStore store = store("float32.bin", MappedVectorStore.Encoding.FLOAT32, "hash-1");
+        store.add(documents);
+        SimpleVectorStore simpleVectorStore = SimpleVectorStore.builder(embeddingModel).build();
+        simpleVectorStore.add(documents);
+        SearchRequest request = SearchRequest.builder().query("topic3 word5").topK(5).build();
+
+        List<Document> expected = simpleVectorStore.similaritySearch(request);
+        List<Document> actual = store.similaritySearch(request);
+
+        assertThat(actual).extracting(Document::getId).containsExactlyElementsOf(expected.stream().map(Document::getId).toList());
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i).getScore()).isCloseTo(expected.get(i).getScore(), within(1e-5));
+        }
+
+        MappedVectorStore reloaded = store("float32.bin", MappedVectorStore.Encoding.FLOAT32, "hash-1");
+        assertThat(reloaded.load()).isTrue();
+        assertThat(reloaded.size()).isEqualTo(300);
+        assertThat(reloaded.similaritySearch(request)).extracting(Document::getId)
+            .containsExactlyElementsOf(actual.stream().map(Document::getId).toList());
+        assertThat(store("float32.bin", MappedVectorStore.Encoding.FLOAT32, "hash-2").load()).isFalse();
+        assertThat(store("float32.bin", MappedVectorStore.Encoding.INT8, "hash-1").load()).isFalse();
+    }
+
+    @Test
+    void int8StoreKeepsScoresWithinOnePercentAndAppliesFilters() {
+        MappedVectorStore float32 = store("float32.bin", MappedVectorStore.Encoding.FLOAT32, "hash");
+        MappedVectorStore int8 = store("int8.bin", MappedVectorStore.Encoding.INT8, "hash");
+        float32.add(documents);
+        int8.add(documents);
+        SearchRequest request = SearchRequest.builder().query("topic4 word2").topK(3).filterExpression("group == 1").build();
+
+        List<Document> exact = float32.similaritySearch(request);
+        List<Document> quantized = int8.similaritySearch(request);
+
+        assertThat(quantized).hasSize(3).allSatisfy(document -> assertThat(document.getMetadata()).containsEntry("group", 1));
+        assertThat(quantized.get(0).getId()).isEqualTo(exact.get(0).getId());
+        assertThat(quantized.get(0).getScore()).isCloseTo(exact.get(0).getScore(), within(0.01));
+    }
+
+    @Test
+    void deletesByIdAndByFilter() {
+        MappedVectorStore store = store("store.bin", MappedVectorStore.Encoding.FLOAT32, "hash");
+        store.add(documents);
+
+        store.delete(List.of("doc-0", "doc-1"));
+        assertThat(store.size()).isEqualTo(298);
+
+        store.delete("group == 2");
+        assertThat(store.size()).isEqualTo(198);
+        assertThat(store.similaritySearch(SearchRequest.builder().query("topic2").topK(300).build()))
+            .noneMatch(document -> document.getMetadata().get("group").equals(2));
+    }
+
+    @Test
+    void importsASimpleVectorStoreFileWithoutEmbeddingAgain() {
+        SimpleVectorStore simpleVectorStore = SimpleVectorStore.builder(embeddingModel).build();
+        simpleVectorStore.add(documents);
+        Path json = tempDir.resolve("vectorstore.json");
+        simpleVectorStore.save(json.toFile());
+
+        CountingEmbeddingModel counting = new CountingEmbeddingModel(embeddingModel);
+        MappedVectorStore store = MappedVectorStore.builder(counting)
+            .file(tempDir.resolve("vectorstore.bin"))
+            .contentHash("hash")
+            .build();
+        assertThat(store.load()).isFalse();
+        store.importSimpleVectorStore(new FileSystemResource(json));
+
+        assertThat(counting.calls.get()).isZero();
+        assertThat(store.size()).isEqualTo(300);
+        SearchRequest request = SearchRequest.builder().query("topic6 word1").topK(5).filterExpression("group == 0").build();
+        List<Document> expected = simpleVectorStore.similaritySearch(request);
+        List<Document> imported = store.similaritySearch(request);
+        assertThat(imported).extracting(Document::getId).containsExactlyElementsOf(expected.stream().map(Document::getId).toList());
+        assertThat(imported.get(0).getText()).isEqualTo(expected.get(0).getText());
+        assertThat(imported.get(0).getMetadata()).containsEntry("group", 0);
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(imported.get(i).getScore()).isCloseTo(expected.get(i).getScore(), within(1e-5));
+        }
+
+        // The sources of the JSON file are unknown, so the next start rebuilds the store
+        store.add(documents.subList(0, 1));
+        MappedVectorStore reloaded = store("vectorstore.bin", MappedVectorStore.Encoding.FLOAT32, "hash");
+        assertThat(reloaded.load()).isFalse();
+        assertThat(reloaded.size()).isZero();
+    }
+
+    @Test
+    void doesNotLoadAFileLargerThanASingleMapping() throws Exception {
+        MappedVectorStore store = store("store.bin", MappedVectorStore.Encoding.FLOAT32, "hash");
+        store.add(documents);
+        // Sparse, so the test does not write 2 GB
+        try (RandomAccessFile file = new RandomAccessFile(tempDir.resolve("store.bin").toFile(), "rw")) {
+            file.setLength(Integer.MAX_VALUE + 1L);
+        }
+
+        MappedVectorStore reloaded = store("store.bin", MappedVectorStore.Encoding.FLOAT32, "hash");
+        assertThat(reloaded.load()).isFalse();
+        assertThat(reloaded.size()).isZero();
+    }
+
+    private MappedVectorStore store(String fileName, MappedVectorStore.Encoding encoding, String contentHash) {
+        return MappedVectorStore.builder(embeddingModel)
+            .file(tempDir.resolve(fileName))
+            .encoding(encoding)
+            .contentHash(contentHash)
+            .build();
+    }
+
+    /**
+     * Counts the calls that embed documents, leaving queries out.
+     */
+    private static final class CountingEmbeddingModel implements EmbeddingModel {
+
+        private final EmbeddingModel delegate;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        CountingEmbeddingModel(EmbeddingModel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            calls.incrementAndGet();
+            return delegate.call(request);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            calls.incrementAndGet();
+            return delegate.embed(document);
+        }
+
+        @Override
+        public float[] embed(String text) {
+            return delegate.embed(text);
+        }
+
+        @Override
+        public int dimensions() {
+            return DIMENSIONS;
+        }
+    }
+
+    /**
+     * Deterministic embeddings in which texts that share words are similar.
+     */
+    private static final class WordEmbeddingModel implements EmbeddingModel {
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> embeddings = new ArrayList<>();
+            for (int i = 0; i < request.getInstructions().size(); i++) {
+                embeddings.add(new Embedding(embed(request.getInstructions().get(i)), i));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embed(document.getText());
+        }
+
+        @Override
+        public float[] embed(String text) {
+            float[] vector = new float[DIMENSIONS];
+            for (String word : text.split("\\s+")) {
+                Random random = new Random(word.hashCode());
+                for (int i = 0; i < DIMENSIONS; i++) {
+                    vector[i] += (float) random.nextGaussian();
+                }
+            }
+            return vector;
+        }
+
+        @Override
+        public int dimensions() {
+            return DIMENSIONS;
+        }
+    }
+}
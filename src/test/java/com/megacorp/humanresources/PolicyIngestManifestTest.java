@@ -0,0 +1,59 @@
+package com.megacorp.humanresources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.megacorp.humanresources.model.FileVersion;
+import com.megacorp.humanresources.service.helper.PolicyIngestManifest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PolicyIngestManifestTest {
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void recordedVersionsSurviveReloadAndOnlyChangedContentIsStale() {
+        Path path = tempDir.resolve("data/manifest.json");
+        PolicyIngestManifest manifest = PolicyIngestManifest.load(path);
+        manifest.record(new FileVersion("policies/leave.pdf", 1L, "md5-leave", 10L), 12);
+        manifest.record(new FileVersion("policies/composite.pdf", 7L, null, 10L), 3);
+        manifest.save();
+
+        PolicyIngestManifest reloaded = PolicyIngestManifest.load(path);
+
+        assertThat(reloaded.size()).isEqualTo(2);
+        assertThat(reloaded.get("policies/leave.pdf").chunkCount()).isEqualTo(12);
+        assertThat(reloaded.get("policies/leave.pdf").ingestedAt()).isNotNull();
+        // Same content uploaded again gets a new generation but is not a change
+        assertThat(reloaded.isCurrent(new FileVersion("policies/leave.pdf", 2L, "md5-leave", 10L))).isTrue();
+        assertThat(reloaded.isCurrent(new FileVersion("policies/leave.pdf", 2L, "md5-changed", 11L))).isFalse();
+        assertThat(reloaded.isCurrent(new FileVersion("policies/composite.pdf", 7L, null, 10L))).isTrue();
+        assertThat(reloaded.isCurrent(new FileVersion("policies/composite.pdf", 8L, null, 10L))).isFalse();
+        assertThat(reloaded.isCurrent(new FileVersion("policies/new.pdf", 1L, "md5-new", 10L))).isFalse();
+    }
+
+    @Test
+    void missingFromOnlyReportsFilesDirectlyUnderThePrefix() {
+        PolicyIngestManifest manifest = PolicyIngestManifest.load(tempDir.resolve("manifest.json"));
+        manifest.record(new FileVersion("policies/kept.pdf", 1L, "a", 1L), 1);
+        manifest.record(new FileVersion("policies/deleted.pdf", 1L, "b", 1L), 1);
+        manifest.record(new FileVersion("policies/archive/old.pdf", 1L, "c", 1L), 1);
+        manifest.record(new FileVersion("other/elsewhere.pdf", 1L, "d", 1L), 1);
+
+        assertThat(manifest.missingFrom("policies/", List.of("policies/kept.pdf")))
+            .containsExactly("policies/deleted.pdf");
+    }
+
+    @Test
+    void unreadableManifestStartsEmpty() throws Exception {
+        Path path = tempDir.resolve("manifest.json");
+        Files.writeString(path, "{ not json");
+
+        assertThat(PolicyIngestManifest.load(path).size()).isZero();
+    }
+}
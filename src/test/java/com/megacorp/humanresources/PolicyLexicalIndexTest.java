@@ -0,0 +1,80 @@
+package com.megacorp.humanresources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import com.megacorp.humanresources.index.PolicyLexicalIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+
+class PolicyLexicalIndexTest {
+
+    private static final String CONDUCT = "policies/Code of Conduct Policy.pdf";
+    private static final String EMAIL = "policies/Email Usage Policy.pdf";
+    private static final String DRESS = "policies/Business Dress Code Policy.pdf";
+
+    @TempDir
+    private Path tempDir;
+
+    private PolicyLexicalIndex index;
+
+    @BeforeEach
+    void createIndex() {
+        index = new PolicyLexicalIndex(tempDir.resolve("chunks").toString());
+        index.loadOnStartup();
+        index.replace(CONDUCT, List.of(
+            chunk("conduct-1", "Code of Conduct", "Employees must treat each other with respect. Harassment of any kind is prohibited."),
+            chunk("conduct-2", "Code of Conduct", "Fraternization between managers and their direct reports must be disclosed to HR. "
+                + "Solicitation of coworkers for outside causes is not permitted during working hours.")));
+        index.replace(EMAIL, List.of(
+            chunk("email-1", "Email Usage", "Company email is provided for business purposes. Limited personal use is allowed."),
+            chunk("email-2", "Email Usage", "Do not forward confidential email to personal accounts.")));
+        index.replace(DRESS, List.of(
+            chunk("dress-1", "Business Dress Code", "Business casual attire is expected in the office. Jeans are allowed on Fridays.")));
+    }
+
+    @Test
+    void rareExactTermRanksTheChunkContainingItFirst() {
+        PolicyLexicalIndex.Result result = index.search("What is the rule on fraternization?", 5);
+
+        assertThat(result.terms()).containsExactly("rule", "fraternization");
+        assertThat(result.matches()).extracting(match -> match.document().getId()).containsExactly("conduct-2");
+        assertThat(result.matches().getFirst().matchedTerms()).isEqualTo(1);
+        assertThat(result.matches().getFirst().document().getMetadata()).containsEntry("gcsPath", CONDUCT);
+    }
+
+    @Test
+    void policiesAreRankedByTheirBestChunk() {
+        assertThat(index.rankPolicies("Can I use company email for personal things?", 3))
+            .startsWith(EMAIL);
+        assertThat(index.rankPolicies("Are jeans ok on Friday?", 3)).containsExactly(DRESS);
+    }
+
+    @Test
+    void replacedAndRemovedPoliciesSurviveAReload() {
+        index.replace(DRESS, List.of(chunk("dress-2", "Business Dress Code", "Shorts are not permitted.")));
+        index.remove(EMAIL);
+
+        PolicyLexicalIndex reloaded = new PolicyLexicalIndex(tempDir.resolve("chunks").toString());
+        reloaded.loadOnStartup();
+
+        assertThat(reloaded.isReady()).isTrue();
+        assertThat(reloaded.size()).isEqualTo(3);
+        assertThat(reloaded.contains(EMAIL)).isFalse();
+        assertThat(reloaded.search("jeans", 5).matches()).isEmpty();
+        assertThat(reloaded.search("shorts", 5).matches()).extracting(match -> match.document().getId())
+            .containsExactly("dress-2");
+        assertThat(reloaded.search("solicitation", 5).matches()).extracting(match -> match.document().getId())
+            .containsExactly("conduct-2");
+    }
+
+    private static Document chunk(String id, String policyTitle, String text) {
+        String gcsPath = "policies/" + policyTitle + " Policy.pdf";
+        return new Document(id, text, Map.of("policyTitle", policyTitle, "gcsPath", gcsPath, "page_number", 1));
+    }
+}
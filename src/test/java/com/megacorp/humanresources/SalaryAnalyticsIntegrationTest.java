@@ -0,0 +1,128 @@
+package com.megacorp.humanresources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.List;
+
+import com.megacorp.humanresources.entity.Employee;
+import com.megacorp.humanresources.exceptions.InvalidRequestException;
+import com.megacorp.humanresources.exceptions.ResourceNotFoundException;
+import com.megacorp.humanresources.model.SalaryHistogram;
+import com.megacorp.humanresources.model.SalaryPercentiles;
+import com.megacorp.humanresources.model.SalarySummary;
+import com.megacorp.humanresources.service.EmployeeServiceImpl;
+import com.megacorp.humanresources.service.SalaryAnalyticsServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest
+class SalaryAnalyticsIntegrationTest {
+
+    @Autowired
+    private SalaryAnalyticsServiceImpl salaryAnalyticsService;
+
+    @Autowired
+    private EmployeeServiceImpl employeeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void percentilesAreWithinOnePercentOfExactValues() {
+        for (String department : jdbcTemplate.queryForList("SELECT DISTINCT DEPARTMENT FROM employee", String.class)) {
+            List<Long> salaries = jdbcTemplate.queryForList(
+                "SELECT ANNUAL_SALARY FROM employee WHERE DEPARTMENT = ? AND ANNUAL_SALARY IS NOT NULL ORDER BY ANNUAL_SALARY",
+                Long.class, department);
+
+            SalaryPercentiles result = salaryAnalyticsService.getSalaryPercentiles(
+                "department", department, List.of(0.0, 10.0, 50.0, 90.0, 99.0, 100.0));
+
+            assertThat(result.count()).isEqualTo(salaries.size());
+            assertThat(result.percentiles()).containsOnlyKeys("p0", "p10", "p50", "p90", "p99", "p100");
+            for (double percentile : List.of(0.0, 10.0, 50.0, 90.0, 99.0, 100.0)) {
+                long exact = salaries.get((int) Math.floor(percentile / 100 * (salaries.size() - 1)));
+                long estimate = result.percentiles().get("p" + (int) percentile);
+                assertThat((double) estimate).as("%s p%s", department, percentile).isCloseTo(exact, within(exact * 0.01 + 1));
+            }
+            assertThat(result.percentiles()).containsEntry("p0", salaries.get(0))
+                .containsEntry("p100", salaries.get(salaries.size() - 1));
+        }
+    }
+
+    @Test
+    void summariesCoverEveryGroupAndMatchCounts() {
+        List<SalarySummary> departments = salaryAnalyticsService.getSalarySummary("department", null);
+        SalarySummary overall = salaryAnalyticsService.getSalarySummary(null, null).get(0);
+
+        assertThat(departments).extracting(SalarySummary::value)
+            .containsExactlyElementsOf(jdbcTemplate.queryForList(
+                "SELECT DISTINCT DEPARTMENT FROM employee WHERE ANNUAL_SALARY IS NOT NULL ORDER BY DEPARTMENT", String.class));
+        assertThat(departments.stream().mapToLong(SalarySummary::count).sum()).isEqualTo(overall.count());
+        assertThat(overall.count()).isEqualTo(
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employee WHERE ANNUAL_SALARY IS NOT NULL", Long.class));
+        assertThat(overall.mean()).isEqualTo(Math.round(
+            jdbcTemplate.queryForObject("SELECT AVG(CAST(ANNUAL_SALARY AS DOUBLE)) FROM employee", Double.class)));
+        assertThat(overall.iqr()).isEqualTo(overall.p75() - overall.p25());
+        assertThat(overall.min()).isEqualTo(
+            jdbcTemplate.queryForObject("SELECT MIN(ANNUAL_SALARY) FROM employee", Long.class));
+        assertThat(overall.max()).isEqualTo(
+            jdbcTemplate.queryForObject("SELECT MAX(ANNUAL_SALARY) FROM employee", Long.class));
+        assertThat(salaryAnalyticsService.getSalarySummary("Business Unit", "Corporate")).singleElement()
+            .extracting(SalarySummary::dimension).isEqualTo("businessUnit");
+    }
+
+    @Test
+    void histogramCountsEverySalaryOnce() {
+        SalaryHistogram histogram = salaryAnalyticsService.getSalaryHistogram("department", "Engineering", 20_000L);
+
+        assertThat(histogram.bins().stream().mapToLong(SalaryHistogram.Bin::count).sum()).isEqualTo(histogram.count());
+        assertThat(histogram.bins()).allSatisfy(bin -> {
+            assertThat(bin.lowerBound() % 20_000).isZero();
+            assertThat(bin.upperBound() - bin.lowerBound()).isEqualTo(20_000);
+        });
+        assertThat(histogram.bins()).isSortedAccordingTo((a, b) -> Long.compare(a.lowerBound(), b.lowerBound()));
+    }
+
+    @Test
+    void distributionsFollowEmployeeWrites() {
+        SalarySummary financeBeforeSummary = salaryAnalyticsService.getSalarySummary("department", "Finance").get(0);
+        long financeBefore = financeBeforeSummary.count();
+        Employee employee = new Employee("Sela", "Sketchcase");
+        employee.setDepartment("Finance");
+        employee.setTitle("Salary Sketch Analyst");
+        employee.setAnnualSalary(5_000_000L);
+        Long employeeId = employeeService.saveEmployee(employee).getEmployeeId();
+        try {
+            assertThat(salaryAnalyticsService.getSalarySummary("department", "Finance").get(0))
+                .returns(financeBefore + 1, SalarySummary::count).returns(5_000_000L, SalarySummary::max);
+            assertThat(salaryAnalyticsService.getSalaryPercentiles("title", "Salary Sketch Analyst", List.of(50.0))
+                .percentiles().get("p50")).isCloseTo(5_000_000L, within(50_000L));
+
+            employeeService.updateEmployee(employeeId, null, null, null, "Sales", null, null, null, null, null, null, null, null, 100_000L);
+            assertThat(salaryAnalyticsService.getSalarySummary("department", "Finance").get(0))
+                .returns(financeBefore, SalarySummary::count).returns(financeBeforeSummary.max(), SalarySummary::max);
+            assertThat(salaryAnalyticsService.getSalaryPercentiles("title", "Salary Sketch Analyst", List.of(50.0))
+                .percentiles().get("p50")).isCloseTo(100_000L, within(1_000L));
+        } finally {
+            employeeService.deleteEmployeeById(employeeId);
+        }
+        assertThatThrownBy(() -> salaryAnalyticsService.getSalarySummary("title", "Salary Sketch Analyst"))
+            .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void rejectsInvalidQueries() {
+        assertThatThrownBy(() -> salaryAnalyticsService.getSalaryPercentiles("gender", "Female", null))
+            .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> salaryAnalyticsService.getSalaryPercentiles(null, "IT", null))
+            .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> salaryAnalyticsService.getSalaryPercentiles(null, null, List.of(101.0)))
+            .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> salaryAnalyticsService.getSalaryHistogram("department", "IT", 0L))
+            .isInstanceOf(InvalidRequestException.class);
+    }
+}
@@ -0,0 +1,61 @@
+package com.megacorp.humanresources.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.megacorp.humanresources.index.PolicyLexicalIndex;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+/**
+ * Deterministic stand-in for the embedding model: words and adjacent word pairs, as the
+ * lexical index tokenizes them, hashed into signed buckets weighted by 1 + log(count), so
+ * texts sharing words are similar without a network call.
+ */
+final class HashingEmbeddingModel implements EmbeddingModel {
+
+    private static final int DIMENSIONS = 1024;
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        List<Embedding> embeddings = new ArrayList<>();
+        for (int i = 0; i < request.getInstructions().size(); i++) {
+            embeddings.add(new Embedding(embed(request.getInstructions().get(i)), i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getText());
+    }
+
+    @Override
+    public float[] embed(String text) {
+        List<String> words = PolicyLexicalIndex.tokenize(text);
+        Map<String, Integer> features = new HashMap<>();
+        for (int i = 0; i < words.size(); i++) {
+            features.merge(words.get(i), 1, Integer::sum);
+            if (i > 0) {
+                features.merge(words.get(i - 1) + " " + words.get(i), 1, Integer::sum);
+            }
+        }
+        float[] vector = new float[DIMENSIONS];
+        features.forEach((feature, count) -> {
+            // String.hashCode is specified, so the buckets are the same on every JVM
+            int hash = feature.hashCode() * 0x9E3779B1;
+            vector[Math.floorMod(hash, DIMENSIONS)] += (hash >>> 31 == 0 ? 1 : -1) * (float) (1 + Math.log(count));
+        });
+        return vector;
+    }
+
+    @Override
+    public int dimensions() {
+        return DIMENSIONS;
+    }
+}
@@ -0,0 +1,115 @@
+package com.megacorp.humanresources.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import com.megacorp.humanresources.model.FileItem;
+import com.megacorp.humanresources.model.FileVersion;
+import org.springframework.core.io.Resource;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Serves the policy PDFs of a local folder, named like policies_Title.pdf, as the GCS
+ * objects policies/Title.pdf.
+ */
+final class LocalPolicyStorage implements FileStorageService {
+
+    static final Path POLICY_PDFS = Path.of("ops/data/gcs");
+
+    private static final String PREFIX = "policies_";
+
+    private final Path folder;
+    private final int limit;
+
+    LocalPolicyStorage(Path folder) {
+        this(folder, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Serves only the first limit PDFs of the folder, by name.
+     */
+    LocalPolicyStorage(Path folder, int limit) {
+        this.folder = folder;
+        this.limit = limit;
+    }
+
+    int size() {
+        return listFileVersions("policies/").size();
+    }
+
+    @Override
+    public List<FileVersion> listFileVersions(String prefix) {
+        try (Stream<Path> files = Files.list(folder)) {
+            return files
+                .map(file -> file.getFileName().toString())
+                .filter(name -> name.startsWith(PREFIX) && name.endsWith(".pdf"))
+                .sorted()
+                .limit(limit)
+                .map(name -> new FileVersion("policies/" + name.substring(PREFIX.length()), 1L, null,
+                    folder.resolve(name).toFile().length()))
+                .filter(file -> file.name().startsWith(prefix))
+                .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public byte[] retrieveFile(String fileName) {
+        try {
+            return Files.readAllBytes(folder.resolve(PREFIX + fileName.substring(fileName.lastIndexOf('/') + 1)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public List<String> listFiles(String prefix) {
+        return listFileVersions(prefix).stream().map(FileVersion::name).toList();
+    }
+
+    @Override
+    public String readFile(String fileName) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String deleteFile(String fileName) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String uploadFile(MultipartFile file) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String uploadFile(byte[] fileContent, String fileName) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<String> listFileUrlsInFolder(String folderName) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Resource getResourceFromGcsUrl(String gcsUrl) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String generateSignedUrl(String objectName, long duration, TimeUnit timeUnit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<FileItem> listFilesWithSignedUrls(String prefix, long duration, TimeUnit timeUnit) {
+        throw new UnsupportedOperationException();
+    }
+}
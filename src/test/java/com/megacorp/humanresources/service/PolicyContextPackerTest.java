@@ -0,0 +1,164 @@
+package com.megacorp.humanresources.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.megacorp.humanresources.vectorstore.HnswVectorStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+class PolicyContextPackerTest {
+
+    private static final String QUESTION = "How much annual leave do I get?";
+
+    private final FixedEmbeddingModel embeddingModel = new FixedEmbeddingModel();
+
+    // Similarity to the question falls from A to C; A2 is a near-copy of A, B is close to A
+    // without being a duplicate, and C covers something else
+    private final Document a = chunk("a", "Annual leave accrues at two days per month of service. ", 12, 0.9, 0.436, 0);
+    private final Document a2 = chunk("a2", "Annual leave accrues at two days per month of service! ", 12, 0.89, 0.456, 0);
+    private final Document b = chunk("b", "Leave accrual is prorated for part-time employees. ", 12, 0.88, 0.3, 0.368);
+    private final Document c = chunk("c", "Unused leave is carried over up to ten days into the next year. ", 12, 0.85, -0.3, 0.433);
+
+    @TempDir
+    private Path tempDir;
+
+    private HnswVectorStore vectorStore;
+
+    @BeforeEach
+    void storeChunks() {
+        vectorStore = HnswVectorStore.builder(embeddingModel).file(tempDir.resolve("policy-hnsw.bin")).build();
+        vectorStore.add(List.of(a, a2, b, c));
+        embeddingModel.requests = 0;
+    }
+
+    @Test
+    void dropsNearDuplicatesAndKeepsRelevanceOrder() {
+        PolicyContextPacker packer = packer(0);
+
+        PolicyContextPacker.Packed packed = packer.pack(List.of(a, a2, b, c), QUESTION, 4);
+
+        assertThat(packed.duplicates()).isEqualTo(1);
+        assertThat(packed.documents()).extracting(Document::getId).containsExactly("a", "b", "c");
+        assertThat(packed.tokens()).isEqualTo(tokens(packer, a, b, c));
+        assertThat(packed.tokensSaved()).isEqualTo(tokens(packer, a2));
+        // Only the question was embedded, the chunk vectors came from the store
+        assertThat(embeddingModel.requests).isZero();
+    }
+
+    @Test
+    void prefersANovelChunkOverOneCloseToAChunkAlreadyPicked() {
+        PolicyContextPacker packer = packer(tokens(packer(0), a, c));
+
+        PolicyContextPacker.Packed packed = packer.pack(List.of(a, b, c), QUESTION, 3);
+
+        // By relevance alone b would take the second place
+        assertThat(packed.documents()).extracting(Document::getId).containsExactly("a", "c");
+        assertThat(packed.duplicates()).isZero();
+        assertThat(packed.tokensSaved()).isEqualTo(tokens(packer, b));
+    }
+
+    @Test
+    void cutsTheFirstChunkThatDoesNotFitAtATokenBoundary() {
+        PolicyContextPacker sizing = packer(0);
+        int budget = tokens(sizing, a) + 60;
+        PolicyContextPacker packer = packer(budget);
+
+        PolicyContextPacker.Packed packed = packer.pack(List.of(a, b, c), null, 3);
+
+        assertThat(packed.documents()).hasSize(2);
+        assertThat(packed.documents().getFirst().getText()).isEqualTo(a.getText());
+        Document cut = packed.documents().get(1);
+        assertThat(cut.getId()).isEqualTo("b");
+        assertThat(cut.getText()).isEqualTo(packer.truncate(b.getText(), 60));
+        assertThat(b.getText()).startsWith(cut.getText());
+        assertThat(packer.countTokens(cut.getText())).isEqualTo(60);
+        assertThat(packed.tokens()).isEqualTo(budget);
+        assertThat(packed.tokensSaved()).isEqualTo(tokens(sizing, a, b, c) - budget);
+        // Without a question nothing is embedded
+        assertThat(embeddingModel.requests).isZero();
+    }
+
+    @Test
+    void appliesOnlyTheBudgetWhenTheStoreLacksAChunk() {
+        vectorStore.delete(List.of("a2"));
+
+        PolicyContextPacker.Packed packed = packer(0).pack(List.of(a, a2, b, c), QUESTION, 4);
+
+        assertThat(packed.duplicates()).isZero();
+        assertThat(packed.documents()).extracting(Document::getId).containsExactly("a", "a2", "b", "c");
+        assertThat(embeddingModel.requests).isZero();
+    }
+
+    @Test
+    void defaultBudgetHoldsTopKChunksOfTheIngestChunkSize() {
+        assertThat(packer(0).maxTokens(5)).isEqualTo(5 * 800);
+        assertThat(packer(1500).maxTokens(5)).isEqualTo(1500);
+    }
+
+    private PolicyContextPacker packer(int maxTokens) {
+        return new PolicyContextPacker(embeddingModel, vectorStore, maxTokens, 800, 0.7, 0.95,
+            new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+    }
+
+    private static int tokens(PolicyContextPacker packer, Document... documents) {
+        int tokens = 0;
+        for (Document document : documents) {
+            tokens += packer.countTokens(document.getText());
+        }
+        return tokens;
+    }
+
+    private Document chunk(String id, String sentence, int repeats, double... embedding) {
+        String text = sentence.repeat(repeats).trim();
+        float[] vector = new float[embedding.length];
+        for (int i = 0; i < embedding.length; i++) {
+            vector[i] = (float) embedding[i];
+        }
+        embeddingModel.embeddings.put(text, vector);
+        return Document.builder().id(id).text(text).build();
+    }
+
+    /**
+     * Answers with the embeddings given to the chunks, and the first axis for the question.
+     * Counts the requests that embed documents.
+     */
+    private static final class FixedEmbeddingModel implements EmbeddingModel {
+
+        private final Map<String, float[]> embeddings = new HashMap<>();
+        private int requests;
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            requests++;
+            List<Embedding> results = new ArrayList<>();
+            for (int i = 0; i < request.getInstructions().size(); i++) {
+                results.add(new Embedding(embed(request.getInstructions().get(i)), i));
+            }
+            return new EmbeddingResponse(results);
+        }
+
+        @Override
+        public float[] embed(String text) {
+            return embeddings.getOrDefault(text, new float[] { 1, 0, 0 });
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embed(document.getText());
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.megacorp.humanresources.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.megacorp.humanresources.index.PolicyLexicalIndex;
+import com.megacorp.humanresources.model.FileVersion;
+import com.megacorp.humanresources.service.helper.PolicyIngestManifest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+/**
+ * A policy keeps its previous chunks until its new version is indexed, and a failed batch
+ * fails every PDF with chunks in it.
+ */
+class PolicyIngestPipelineTest {
+
+    private final ObjectProvider<MeterRegistry> noMetrics = new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class);
+    private final LocalPolicyStorage storage = new LocalPolicyStorage(LocalPolicyStorage.POLICY_PDFS, 3);
+    private final List<FileVersion> files = storage.listFileVersions("policies/");
+    private final RecordingVectorStore vectorStore = new RecordingVectorStore();
+
+    @TempDir
+    private Path tempDir;
+
+    private PolicyLexicalIndex lexicalIndex;
+    private PolicyIngestManifest manifest;
+
+    @BeforeEach
+    void ingestFirstVersion() {
+        lexicalIndex = new PolicyLexicalIndex(tempDir.resolve("policy-chunks").toString());
+        lexicalIndex.loadOnStartup();
+        manifest = PolicyIngestManifest.load(tempDir.resolve("policy-ingest-manifest.json"));
+
+        PolicyIngestPipeline.Outcome first = pipeline(100).run(files, manifest);
+
+        assertThat(first.added()).hasSize(3);
+        assertThat(first.failed()).isEmpty();
+        assertThat(vectorStore.documents).hasSize(first.chunksAdded());
+    }
+
+    @Test
+    void replacesThePreviousChunksOnceTheNewVersionIsIndexed() {
+        Map<String, Set<String>> previous = ingestIdsByPath();
+
+        PolicyIngestPipeline.Outcome second = pipeline(4).run(files, manifest);
+
+        assertThat(second.updated()).hasSize(3);
+        assertThat(second.failed()).isEmpty();
+        assertThat(vectorStore.documents).hasSize(second.chunksAdded());
+        ingestIdsByPath().forEach((path, ingestIds) -> {
+            assertThat(ingestIds).hasSize(1).doesNotContainAnyElementsOf(previous.get(path));
+            assertThat(manifest.get(path)).isNotNull();
+        });
+    }
+
+    @Test
+    void failedBatchFailsEveryPolicyInItAndKeepsTheirPreviousChunks() {
+        Map<String, Set<String>> previous = ingestIdsByPath();
+        Map<String, Long> previousCounts = chunkCountsByPath();
+        vectorStore.failAdd(2);
+
+        // Small batches, so the failing one holds chunks of a policy that already had chunks
+        // in the first, and usually of the next policy as well
+        PolicyIngestPipeline.Outcome second = pipeline(4).run(files, manifest);
+
+        Set<String> inFailedBatch = vectorStore.pathsInFailedAdd;
+        assertThat(inFailedBatch).isNotEmpty();
+        assertThat(second.failed()).containsAll(inFailedBatch);
+        assertThat(second.added()).isEmpty();
+        assertThat(second.updated()).hasSize(files.size() - second.failed().size());
+
+        Map<String, Set<String>> ingestIds = ingestIdsByPath();
+        Map<String, Long> counts = chunkCountsByPath();
+        for (String path : second.failed()) {
+            assertThat(manifest.get(path)).isNull();
+            // The chunks written by the first batch were deleted, the previous version is whole
+            assertThat(ingestIds.get(path)).isEqualTo(previous.get(path));
+            assertThat(counts.get(path)).isEqualTo(previousCounts.get(path));
+        }
+        for (String path : second.updated()) {
+            assertThat(manifest.get(path)).isNotNull();
+            assertThat(ingestIds.get(path)).hasSize(1).doesNotContainAnyElementsOf(previous.get(path));
+        }
+
+        // The next ingest retries the failed policies
+        vectorStore.failAdd(0);
+        PolicyIngestPipeline.Outcome retry = pipeline(4).run(files, manifest);
+        assertThat(retry.failed()).isEmpty();
+        assertThat(ingestIdsByPath().values()).allSatisfy(ids -> assertThat(ids).hasSize(1));
+        assertThat(files).allSatisfy(file -> assertThat(manifest.get(file.name())).isNotNull());
+    }
+
+    @Test
+    void failedBatchFailsEveryPolicyWhenNoneOfItWasWritten() {
+        Map<String, Long> previousCounts = chunkCountsByPath();
+        vectorStore.failAdd(1);
+
+        PolicyIngestPipeline.Outcome second = pipeline(1_000).run(files, manifest);
+
+        assertThat(second.failed()).containsExactlyInAnyOrderElementsOf(files.stream().map(FileVersion::name).toList());
+        assertThat(second.chunksAdded()).isZero();
+        assertThat(manifest.size()).isZero();
+        assertThat(chunkCountsByPath()).isEqualTo(previousCounts);
+    }
+
+    private PolicyIngestPipeline pipeline(int batchSize) {
+        // One worker, so the policies are indexed in a fixed order
+        return new PolicyIngestPipeline(vectorStore, storage, lexicalIndex, 1, batchSize, 800, noMetrics);
+    }
+
+    private Map<String, Set<String>> ingestIdsByPath() {
+        Map<String, Set<String>> ingestIds = new LinkedHashMap<>();
+        for (Document document : vectorStore.documents.values()) {
+            ingestIds.computeIfAbsent((String) document.getMetadata().get("gcsPath"), path -> new LinkedHashSet<>())
+                .add((String) document.getMetadata().get(PolicyIngestPipeline.INGEST_ID));
+        }
+        return ingestIds;
+    }
+
+    private Map<String, Long> chunkCountsByPath() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Document document : vectorStore.documents.values()) {
+            counts.merge((String) document.getMetadata().get("gcsPath"), 1L, Long::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * Keeps the documents in memory and can fail one add call. Deleting by filter supports the
+     * EQ, NE and AND expressions the pipeline builds.
+     */
+    private static final class RecordingVectorStore implements VectorStore {
+
+        final Map<String, Document> documents = new LinkedHashMap<>();
+        final Set<String> pathsInFailedAdd = new LinkedHashSet<>();
+        private int failAddCall;
+        private int addCalls;
+
+        /**
+         * Fails the given add call from now on, counting from 1; 0 fails none.
+         */
+        void failAdd(int call) {
+            failAddCall = call;
+            addCalls = 0;
+        }
+
+        @Override
+        public void add(List<Document> batch) {
+            if (++addCalls == failAddCall) {
+                batch.forEach(document -> pathsInFailedAdd.add((String) document.getMetadata().get("gcsPath")));
+                throw new IllegalStateException("Embedding request failed");
+            }
+            batch.forEach(document -> documents.put(document.getId(), document));
+        }
+
+        @Override
+        public void delete(List<String> idList) {
+            idList.forEach(documents::remove);
+        }
+
+        @Override
+        public void delete(Filter.Expression filterExpression) {
+            List<String> matching = new ArrayList<>();
+            documents.forEach((id, document) -> {
+                if (matches(filterExpression, document.getMetadata())) {
+                    matching.add(id);
+                }
+            });
+            matching.forEach(documents::remove);
+        }
+
+        @Override
+        public List<Document> similaritySearch(SearchRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        private static boolean matches(Filter.Expression expression, Map<String, Object> metadata) {
+            return switch (expression.type()) {
+                case AND -> matches((Filter.Expression) expression.left(), metadata)
+                    && matches((Filter.Expression) expression.right(), metadata);
+                case EQ -> Objects.equals(metadata.get(((Filter.Key) expression.left()).key()), ((Filter.Value) expression.right()).value());
+                case NE -> !Objects.equals(metadata.get(((Filter.Key) expression.left()).key()), ((Filter.Value) expression.right()).value());
+                default -> throw new UnsupportedOperationException(expression.type().name());
+            };
+        }
+    }
+}
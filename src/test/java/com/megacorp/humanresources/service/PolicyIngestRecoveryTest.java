@@ -0,0 +1,82 @@
+package com.megacorp.humanresources.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import com.megacorp.humanresources.index.PolicyLexicalIndex;
+import com.megacorp.humanresources.model.PolicyIngestResult;
+import com.megacorp.humanresources.vectorstore.HnswVectorStore;
+import com.megacorp.humanresources.vectorstore.MappedVectorStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+/**
+ * A policy vector store that starts empty while the ingest manifest and the lexical index
+ * still list every PDF must not leave the next ingest skipping them all.
+ */
+class PolicyIngestRecoveryTest {
+
+    private final ObjectProvider<MeterRegistry> noMetrics = new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class);
+    private final HashingEmbeddingModel embeddingModel = new HashingEmbeddingModel();
+    private final LocalPolicyStorage storage = new LocalPolicyStorage(LocalPolicyStorage.POLICY_PDFS, 2);
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void reingestsEveryPolicyWhenTheStoreFileCouldNotBeLoaded() throws Exception {
+        Path storeFile = tempDir.resolve("policy-hnsw.bin");
+        PolicyLexicalIndex lexicalIndex = new PolicyLexicalIndex(tempDir.resolve("policy-chunks").toString());
+        lexicalIndex.loadOnStartup();
+
+        HnswVectorStore first = store(storeFile, MappedVectorStore.Encoding.FLOAT32);
+        PolicyIngestResult initial = ragService(first, lexicalIndex).ingestPoliciesFromGcs("policies/");
+        assertThat(initial.added()).hasSize(2);
+        assertThat(initial.failed()).isEmpty();
+        assertThat(ragService(first, lexicalIndex).ingestPoliciesFromGcs("policies/").unchanged()).isEqualTo(2);
+
+        // The encoding changed between runs, so the file written above is not loaded
+        HnswVectorStore reencoded = store(storeFile, MappedVectorStore.Encoding.INT8);
+        assertThat(reencoded.load()).isFalse();
+        assertThat(reencoded.size()).isZero();
+
+        PolicyIngestResult recovered = ragService(reencoded, lexicalIndex).ingestPoliciesFromGcs("policies/");
+
+        assertThat(recovered.unchanged()).isZero();
+        assertThat(recovered.failed()).isEmpty();
+        assertThat(recovered.added()).hasSize(2);
+        assertThat(recovered.chunksAdded()).isEqualTo(initial.chunksAdded());
+        assertThat(reencoded.size()).isEqualTo(initial.chunksAdded());
+
+        // A deleted store file is recovered the same way
+        Files.delete(storeFile);
+        HnswVectorStore recreated = store(storeFile, MappedVectorStore.Encoding.INT8);
+        assertThat(recreated.load()).isFalse();
+        assertThat(ragService(recreated, lexicalIndex).ingestPoliciesFromGcs("policies/").added()).hasSize(2);
+    }
+
+    private HnswVectorStore store(Path file, MappedVectorStore.Encoding encoding) {
+        return HnswVectorStore.builder(embeddingModel).file(file).encoding(encoding).build();
+    }
+
+    private RagServiceImpl ragService(HnswVectorStore vectorStore, PolicyLexicalIndex lexicalIndex) {
+        PolicyIngestPipeline pipeline = new PolicyIngestPipeline(vectorStore, storage, lexicalIndex, 2, 100, 800, noMetrics);
+        ChatModel instantAnswer = prompt -> new ChatResponse(List.of(new Generation(new AssistantMessage("See the policy."))));
+        return new RagServiceImpl(vectorStore, ChatClient.builder(instantAnswer), storage, pipeline, embeddingModel,
+            new PolicyAnswerCache(0, 0.05, Duration.ofHours(1), noMetrics), event -> { }, lexicalIndex,
+            new PolicyContextPacker(embeddingModel, vectorStore, 0, 800, 0.7, 0.95, noMetrics),
+            tempDir.resolve("policy-ingest-manifest.json").toString(), 60, 3, 2.0, 1.5, noMetrics);
+    }
+}
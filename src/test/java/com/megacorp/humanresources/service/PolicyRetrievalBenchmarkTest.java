@@ -0,0 +1,188 @@
+package com.megacorp.humanresources.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.megacorp.humanresources.index.PolicyLexicalIndex;
+import com.megacorp.humanresources.model.PolicyIngestResult;
+import com.megacorp.humanresources.vectorstore.HnswVectorStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * Offline benchmark of policy retrieval over the policy PDFs in ops/data/gcs: ingests them with
+ * the real pipeline into an in-memory vector store, using a hashed bag-of-words stand-in for the
+ * embedding model, and asks the labeled questions in data/policy-retrieval-questions.csv through
+ * {@link RagServiceImpl#queryPolicies} with a chat model that answers instantly.
+ *
+ * Reports recall@topK and MRR of the expected policy and p50/p99 latency for the vector search,
+ * the lexical index and the fused queryPolicies retrieval, and the index build time. Settings
+ * are read from system properties so that changes can be compared run against run, e.g.
+ * {@code ./mvnw test -Dtest=PolicyRetrievalBenchmarkTest -Drag.benchmark.chunk-size=400}:
+ * rag.benchmark.top-k, rag.benchmark.similarity-threshold, rag.benchmark.chunk-size and
+ * rag.benchmark.vector-store (simple or hnsw). Similarity thresholds of the stand-in model are
+ * far lower than those of real embeddings, so only compare thresholds against each other.
+ */
+class PolicyRetrievalBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(PolicyRetrievalBenchmarkTest.class);
+
+    private static final String QUESTIONS = "data/policy-retrieval-questions.csv";
+    private static final int ROUNDS = 20;
+
+    // What the default settings reach; falling below means questions lost their policy
+    private static final double MIN_RECALL = 0.9;
+    private static final double MIN_MRR = 0.8;
+
+    private final int topK = Integer.getInteger("rag.benchmark.top-k", 5);
+    private final double similarityThreshold = Double.parseDouble(System.getProperty("rag.benchmark.similarity-threshold", "0.1"));
+    private final int chunkSize = Integer.getInteger("rag.benchmark.chunk-size", 800);
+    private final String vectorStoreType = System.getProperty("rag.benchmark.vector-store", "simple");
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void reportsRecallMrrAndLatencyOfPolicyRetrieval() throws IOException {
+        List<LabeledQuestion> questions = readQuestions();
+        ObjectProvider<MeterRegistry> noMetrics = new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class);
+        HashingEmbeddingModel embeddingModel = new HashingEmbeddingModel();
+        VectorStore vectorStore = "hnsw".equals(vectorStoreType)
+            ? HnswVectorStore.builder(embeddingModel).file(tempDir.resolve("policy-hnsw.bin")).build()
+            : SimpleVectorStore.builder(embeddingModel).build();
+        PolicyLexicalIndex lexicalIndex = new PolicyLexicalIndex(tempDir.resolve("policy-chunks").toString());
+        lexicalIndex.loadOnStartup();
+        LocalPolicyStorage storage = new LocalPolicyStorage(LocalPolicyStorage.POLICY_PDFS);
+        PolicyIngestPipeline pipeline = new PolicyIngestPipeline(vectorStore, storage, lexicalIndex, 4, 100, chunkSize, noMetrics);
+        ChatModel instantAnswer = prompt -> new ChatResponse(List.of(new Generation(new AssistantMessage("See the policy."))));
+        RagServiceImpl ragService = new RagServiceImpl(vectorStore, ChatClient.builder(instantAnswer), storage, pipeline,
+            embeddingModel, new PolicyAnswerCache(0, 0.05, Duration.ofHours(1), noMetrics), event -> { }, lexicalIndex,
+            new PolicyContextPacker(embeddingModel, vectorStore, 0, chunkSize, 0.7, 0.95, noMetrics),
+            tempDir.resolve("policy-ingest-manifest.json").toString(), 60, 3, 2.0, 1.5, noMetrics);
+
+        PolicyIngestResult ingest = ragService.ingestPoliciesFromGcs("policies/");
+        assertThat(ingest.failed()).isEmpty();
+        assertThat(ingest.added()).hasSize(storage.size());
+
+        Score vector = score(questions, question -> titles(vectorStore.similaritySearch(SearchRequest.builder()
+            .query(question)
+            .topK(topK)
+            .similarityThreshold(similarityThreshold)
+            .build())));
+        Score lexical = score(questions, question -> titles(lexicalIndex.search(question, topK).matches().stream()
+            .map(PolicyLexicalIndex.Match::document)
+            .toList()));
+        Score hybrid = score(questions, question -> ragService.queryPolicies(question, topK, similarityThreshold)
+            .matchedPolicyTitles());
+
+        logger.info("Policy retrieval benchmark: {} questions, {} policies in {} chunks of {} tokens indexed into {} in {} ms, topK={} similarityThreshold={}",
+            questions.size(), ingest.added().size(), ingest.chunksAdded(), chunkSize, vectorStoreType, ingest.elapsedMillis(),
+            topK, similarityThreshold);
+        logger.info("  vector  {}", vector);
+        logger.info("  lexical {}", lexical);
+        logger.info("  hybrid  {}", hybrid);
+        hybrid.misses().forEach(miss -> logger.info("  hybrid miss: {}", miss));
+
+        assertThat(hybrid.recall()).isGreaterThanOrEqualTo(MIN_RECALL);
+        assertThat(hybrid.mrr()).isGreaterThanOrEqualTo(MIN_MRR);
+    }
+
+    /**
+     * Scores a retriever returning policy titles, best first, on every question, and times it
+     * over {@link #ROUNDS} rounds after one warm-up round.
+     */
+    private Score score(List<LabeledQuestion> questions, Function<String, List<String>> retriever) {
+        int found = 0;
+        double reciprocalRanks = 0;
+        List<String> misses = new ArrayList<>();
+        for (LabeledQuestion question : questions) {
+            List<String> titles = retriever.apply(question.question());
+            int rank = titles.indexOf(question.policyTitle()) + 1;
+            if (rank > 0) {
+                found++;
+                reciprocalRanks += 1.0 / rank;
+            } else {
+                misses.add(question.question() + " -> " + titles);
+            }
+        }
+
+        long[] nanos = new long[questions.size() * ROUNDS];
+        int sample = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (LabeledQuestion question : questions) {
+                long start = System.nanoTime();
+                retriever.apply(question.question());
+                nanos[sample++] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(nanos);
+        return new Score((double) found / questions.size(), reciprocalRanks / questions.size(),
+            percentileMicros(nanos, 0.5), percentileMicros(nanos, 0.99), misses);
+    }
+
+    private static long percentileMicros(long[] sortedNanos, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return TimeUnit.NANOSECONDS.toMicros(sortedNanos[Math.max(0, index)]);
+    }
+
+    /**
+     * Distinct policy titles of the chunks, in rank order.
+     */
+    private static List<String> titles(List<Document> chunks) {
+        return chunks.stream()
+            .map(chunk -> chunk.getMetadata().get("policyTitle"))
+            .filter(Objects::nonNull)
+            .map(Object::toString)
+            .distinct()
+            .toList();
+    }
+
+    private static List<LabeledQuestion> readQuestions() throws IOException {
+        String csv = new ClassPathResource(QUESTIONS).getContentAsString(StandardCharsets.UTF_8);
+        return csv.lines()
+            .skip(1)
+            .filter(line -> !line.isBlank())
+            .map(line -> {
+                int comma = line.lastIndexOf(',');
+                return new LabeledQuestion(line.substring(0, comma).trim(), line.substring(comma + 1).trim());
+            })
+            .toList();
+    }
+
+    private record LabeledQuestion(String question, String policyTitle) {
+    }
+
+    private record Score(double recall, double mrr, long p50Micros, long p99Micros, List<String> misses) {
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "recall %.3f, MRR %.3f, p50 %d us, p99 %d us", recall, mrr, p50Micros, p99Micros);
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.megacorp.humanresources.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.megacorp.humanresources.controller.ChatController;
+import com.megacorp.humanresources.index.PolicyLexicalIndex;
+import com.megacorp.humanresources.model.PolicyRagResponse;
+import com.megacorp.humanresources.model.PolicyRagStreamEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+
+/**
+ * Fusing the vector and keyword rankings, when a keyword question skips the vector search,
+ * and streaming an answer as events.
+ */
+class RagServiceImplTest {
+
+    private final ObjectProvider<MeterRegistry> noMetrics = new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class);
+    private final HashingEmbeddingModel embeddingModel = new HashingEmbeddingModel();
+    // What the service and the packer embed at query time; the store embeds with embeddingModel
+    private final CountingEmbeddingModel queryEmbeddingModel = new CountingEmbeddingModel(embeddingModel);
+    private final LocalPolicyStorage storage = new LocalPolicyStorage(LocalPolicyStorage.POLICY_PDFS);
+    private final CountingVectorStore vectorStore = new CountingVectorStore(SimpleVectorStore.builder(embeddingModel).build());
+    private final TokenChatModel chatModel = new TokenChatModel("Dating a coworker", " must be disclosed", " to HR.");
+
+    @TempDir
+    private Path tempDir;
+
+    private RagServiceImpl ragService;
+
+    @BeforeEach
+    void ingestPolicies() {
+        PolicyLexicalIndex lexicalIndex = new PolicyLexicalIndex(tempDir.resolve("policy-chunks").toString());
+        lexicalIndex.loadOnStartup();
+        PolicyIngestPipeline pipeline = new PolicyIngestPipeline(vectorStore, storage, lexicalIndex, 2, 100, 800, noMetrics);
+        ragService = new RagServiceImpl(vectorStore, ChatClient.builder(chatModel), storage, pipeline, queryEmbeddingModel,
+            new PolicyAnswerCache(100, 0.05, Duration.ofHours(1), noMetrics), event -> { }, lexicalIndex,
+            new PolicyContextPacker(queryEmbeddingModel, vectorStore, 0, 800, 0.7, 0.95, noMetrics),
+            tempDir.resolve("policy-ingest-manifest.json").toString(), 60, 3, 2.0, 1.5, noMetrics);
+        assertThat(ragService.ingestPoliciesFromGcs("policies/").failed()).isEmpty();
+        vectorStore.searches.set(0);
+        queryEmbeddingModel.calls.set(0);
+    }
+
+    @Test
+    void fusionRanksDocumentsFoundByBothRetrieversFirst() {
+        Document a = chunk("a", "policies/A.pdf");
+        Document b = chunk("b", "policies/B.pdf");
+        Document c = chunk("c", "policies/C.pdf");
+        Document d = chunk("d", "policies/D.pdf");
+
+        // a: 1/61 + 1/62, c: 1/63 + 1/61, b: 1/62, d: 1/63
+        assertThat(RagServiceImpl.reciprocalRankFusion(List.of(List.of(a, b, c), List.of(c, a, d)), 60, 4))
+            .containsExactly(a, c, b, d);
+        assertThat(RagServiceImpl.reciprocalRankFusion(List.of(List.of(a, b, c), List.of(c, a, d)), 60, 2))
+            .containsExactly(a, c);
+        // Equal scores keep the order of the earlier ranking
+        assertThat(RagServiceImpl.reciprocalRankFusion(List.of(List.of(a, b), List.of(b, a)), 60, 2))
+            .containsExactly(a, b);
+        assertThat(RagServiceImpl.reciprocalRankFusion(List.of(List.of(), List.of(d)), 60, 5)).containsExactly(d);
+    }
+
+    @Test
+    void keywordMatchMustScoreEnoughAndClearlyBeatOtherPolicies() {
+        Document fraternization = chunk("f1", "policies/Fraternization Policy.pdf");
+        Document fraternizationAgain = chunk("f2", "policies/Fraternization Policy.pdf");
+        Document email = chunk("e1", "policies/Email Usage Policy.pdf");
+
+        // The only policy with the word, but the word is too common to mean anything
+        assertThat(confident(List.of("employee"), match(fraternization, 0.5, 1))).isFalse();
+        assertThat(confident(List.of("fraternization"), match(fraternization, 2.95, 1))).isTrue();
+
+        // The best chunk of another policy is the runner-up, not the next chunk of the same one
+        assertThat(confident(List.of("fraternization"), match(fraternization, 3.0, 1), match(fraternizationAgain, 2.9, 1),
+            match(email, 2.0, 1))).isTrue();
+        assertThat(confident(List.of("fraternization"), match(fraternization, 3.0, 1), match(email, 2.5, 1))).isFalse();
+
+        // Every word must be in the best chunk, and there must not be too many words
+        assertThat(confident(List.of("overtime", "pay"), match(email, 3.0, 1))).isFalse();
+        assertThat(confident(List.of("email", "usage", "personal", "use"), match(email, 12.0, 4))).isFalse();
+        assertThat(RagServiceImpl.isConfidentKeywordMatch(
+            new PolicyLexicalIndex.Result(List.of("email"), List.of(match(email, 4.0, 1))), 0, 2.0, 1.5)).isFalse();
+        assertThat(confident(List.of("vacation"))).isFalse();
+    }
+
+    @Test
+    void keywordQuestionIsNeitherEmbeddedNorSearchedAndIsCached() {
+        PolicyRagResponse first = ragService.queryPolicies("fraternization", null, null);
+
+        assertThat(first.matchedPolicyTitles()).first().asString().contains("Fraternization");
+        assertThat(vectorStore.searches).hasValue(0);
+        assertThat(chatModel.calls).hasValue(1);
+
+        // Answered from the answer cache, which is enabled, by the question's terms
+        PolicyRagResponse again = ragService.queryPolicies(" Fraternization ", null, null);
+        assertThat(again).isEqualTo(first);
+        assertThat(vectorStore.searches).hasValue(0);
+        assertThat(chatModel.calls).hasValue(1);
+        assertThat(queryEmbeddingModel.calls).hasValue(0);
+
+        // Another topK is another answer
+        ragService.queryPolicies("fraternization", 2, null);
+        assertThat(chatModel.calls).hasValue(2);
+        assertThat(queryEmbeddingModel.calls).hasValue(0);
+    }
+
+    @Test
+    void weakOrStricterKeywordQuestionsUseTheVectorSearch() {
+        // "employee" is in nearly every policy
+        ragService.queryPolicies("employee", null, null);
+        assertThat(vectorStore.searches).hasValue(1);
+        assertThat(queryEmbeddingModel.calls).hasPositiveValue();
+
+        // Keyword matches say nothing about similarity, so a stricter threshold is honoured
+        ragService.queryPolicies("fraternization", null, 0.8);
+        assertThat(vectorStore.searches).hasValue(2);
+
+        ragService.queryPolicies("fraternization", null, 0.3);
+        assertThat(vectorStore.searches).hasValue(2);
+    }
+
+    @Test
+    void streamSendsThePoliciesThenTheTokensThenDone() {
+        List<PolicyRagStreamEvent> events = ragService.streamPolicies("fraternization", null, null).collectList().block();
+
+        assertThat(events).hasSize(5);
+        PolicyRagStreamEvent.Policies policies = (PolicyRagStreamEvent.Policies) events.getFirst();
+        assertThat(policies.matchedPolicyTitles()).first().asString().contains("Fraternization");
+        assertThat(policies.attachmentPaths()).contains("policies/Fraternization Policy.pdf");
+        assertThat(events.subList(1, 4)).containsExactly(new PolicyRagStreamEvent.Token("Dating a coworker"),
+            new PolicyRagStreamEvent.Token(" must be disclosed"), new PolicyRagStreamEvent.Token(" to HR."));
+        assertThat(events.getLast()).isEqualTo(new PolicyRagStreamEvent.Done(policies.matchCount(), false));
+        assertThat(chatModel.calls).hasValue(1);
+    }
+
+    @Test
+    void streamedAnswerIsCachedAndStreamedAgainAsOneToken() {
+        List<PolicyRagStreamEvent> streamed = ragService.streamPolicies("fraternization", null, null).collectList().block();
+        PolicyRagStreamEvent.Policies policies = (PolicyRagStreamEvent.Policies) streamed.getFirst();
+
+        // The complete answer was cached once the stream finished
+        PolicyRagResponse cached = ragService.queryPolicies("fraternization", null, null);
+        assertThat(cached.answer()).isEqualTo("Dating a coworker must be disclosed to HR.");
+        assertThat(cached.matchCount()).isEqualTo(policies.matchCount());
+
+        List<PolicyRagStreamEvent> again = ragService.streamPolicies("fraternization", null, null).collectList().block();
+        assertThat(again).containsExactly(
+            new PolicyRagStreamEvent.Policies(policies.attachmentPaths(), policies.matchedPolicyTitles(), policies.matchCount()),
+            new PolicyRagStreamEvent.Token("Dating a coworker must be disclosed to HR."),
+            new PolicyRagStreamEvent.Done(policies.matchCount(), true));
+        assertThat(chatModel.calls).hasValue(1);
+    }
+
+    @Test
+    void controllerNamesEachServerSentEventAfterItsType() {
+        ChatController controller = new ChatController(null, null, ragService, ChatClient.builder(chatModel), List.of(),
+            new SimpleLoggerAdvisor(), ChatClient.create(chatModel), ChatClient.create(chatModel));
+
+        List<ServerSentEvent<PolicyRagStreamEvent>> events = controller.streamCompanyPolicies("fraternization", null, null)
+            .collectList().block();
+
+        assertThat(events).extracting(ServerSentEvent::event).containsExactly("policies", "token", "token", "token", "done");
+        assertThat(events).extracting(ServerSentEvent::data).last().isEqualTo(new PolicyRagStreamEvent.Done(
+            ((PolicyRagStreamEvent.Policies) events.getFirst().data()).matchCount(), false));
+    }
+
+    private static boolean confident(List<String> terms, PolicyLexicalIndex.Match... matches) {
+        return RagServiceImpl.isConfidentKeywordMatch(new PolicyLexicalIndex.Result(terms, List.of(matches)), 3, 2.0, 1.5);
+    }
+
+    private static PolicyLexicalIndex.Match match(Document document, double score, int matchedTerms) {
+        return new PolicyLexicalIndex.Match(document, score, matchedTerms);
+    }
+
+    private static Document chunk(String id, String gcsPath) {
+        return new Document(id, "Chunk " + id, Map.of("gcsPath", gcsPath));
+    }
+
+    /**
+     * Answers every prompt with the same tokens, one chat response per token when streaming,
+     * and counts the prompts.
+     */
+    private static final class TokenChatModel implements ChatModel {
+
+        final AtomicInteger calls = new AtomicInteger();
+        private final List<String> tokens;
+
+        TokenChatModel(String... tokens) {
+            this.tokens = List.of(tokens);
+        }
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            calls.incrementAndGet();
+            return response(String.join("", tokens));
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            calls.incrementAndGet();
+            return Flux.fromIterable(tokens).map(TokenChatModel::response);
+        }
+
+        private static ChatResponse response(String text) {
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+        }
+    }
+
+    /**
+     * Counts the embedding requests of the model it delegates to.
+     */
+    private static final class CountingEmbeddingModel implements EmbeddingModel {
+
+        final AtomicInteger calls = new AtomicInteger();
+        private final EmbeddingModel delegate;
+
+        CountingEmbeddingModel(EmbeddingModel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            calls.incrementAndGet();
+            return delegate.call(request);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            calls.incrementAndGet();
+            return delegate.embed(document);
+        }
+
+        @Override
+        public float[] embed(String text) {
+            calls.incrementAndGet();
+            return delegate.embed(text);
+        }
+
+        @Override
+        public int dimensions() {
+            return delegate.dimensions();
+        }
+    }
+
+    /**
+     * Counts the similarity searches of the store it delegates to.
+     */
+    private static final class CountingVectorStore implements VectorStore {
+
+        final AtomicInteger searches = new AtomicInteger();
+        private final VectorStore delegate;
+
+        CountingVectorStore(VectorStore delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void add(List<Document> documents) {
+            delegate.add(documents);
+        }
+
+        @Override
+        public void delete(List<String> idList) {
+            delegate.delete(idList);
+        }
+
+        @Override
+        public void delete(Filter.Expression filterExpression) {
+            delegate.delete(filterExpression);
+        }
+
+        @Override
+        public List<Document> similaritySearch(SearchRequest request) {
+            searches.incrementAndGet();
+            return delegate.similaritySearch(request);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.megacorp.humanresources.service.helper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.megacorp.humanresources.exceptions.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+
+class EmployeeDimensionsTest {
+
+    @Test
+    void resolvesToTheDimensionNames() {
+        assertThat(EmployeeDimensions.resolve("Department", "IT", false))
+            .isEqualTo(EmployeeDimensions.DEPARTMENT).isEqualTo("department");
+        assertThat(EmployeeDimensions.resolve("title", null, false))
+            .isEqualTo(EmployeeDimensions.TITLE).isEqualTo("title");
+        for (String spelling : new String[] {"businessUnit", "Business Unit", "business_unit", "BUSINESS-UNIT"}) {
+            assertThat(EmployeeDimensions.resolve(spelling, null, false))
+                .isEqualTo(EmployeeDimensions.BUSINESS_UNIT).isEqualTo("businessUnit");
+        }
+        assertThat(EmployeeDimensions.resolve(" ", null, false)).isNull();
+    }
+
+    @Test
+    void rejectsUnknownDimensionsAndMissingDimensionsOrValues() {
+        assertThatThrownBy(() -> EmployeeDimensions.resolve("location", null, false))
+            .isInstanceOf(InvalidRequestException.class)
+            .hasMessageContaining("Unsupported dimension 'location'");
+        assertThatThrownBy(() -> EmployeeDimensions.resolve(null, "IT", false))
+            .isInstanceOf(InvalidRequestException.class)
+            .hasMessageContaining("A dimension (department, title or businessUnit) is required with value 'IT'");
+        assertThatThrownBy(() -> EmployeeDimensions.resolve("department", "", true))
+            .isInstanceOf(InvalidRequestException.class)
+            .hasMessageContaining("A value is required with dimension 'department'");
+    }
+}
@@ -0,0 +1,363 @@
+package com.megacorp.humanresources.service.helper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.Flags;
+import jakarta.mail.Folder;
+import jakarta.mail.FolderClosedException;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Provider;
+import jakarta.mail.Session;
+import jakarta.mail.Store;
+import jakarta.mail.StoreClosedException;
+import jakarta.mail.URLName;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+class ImapStorePoolTest {
+
+    private static final String STORES = "test.fake-stores";
+
+    private final List<FakeStore> stores = new ArrayList<>();
+    private final List<ImapStorePool> pools = new ArrayList<>();
+
+    @AfterEach
+    void closePools() {
+        pools.forEach(ImapStorePool::close);
+    }
+
+    @Test
+    void reusesAnIdleConnectionAndItsOpenFolder() throws Exception {
+        ImapStorePool pool = pool(2, Duration.ofSeconds(1));
+
+        String name = pool.withFolder("INBOX", Folder.READ_ONLY, folder -> {
+            assertThat(pool.activeCount()).isEqualTo(1);
+            return folder.getFullName();
+        });
+        pool.withFolder("INBOX", Folder.READ_ONLY, Folder::getMessageCount);
+
+        assertThat(name).isEqualTo("INBOX");
+        assertThat(stores).hasSize(1);
+        assertThat(stores.getFirst().opens).isEqualTo(1);
+        assertThat(pool.activeCount()).isZero();
+        assertThat(pool.idleCount()).isEqualTo(1);
+
+        // Another folder switches the idle connection instead of logging in again
+        pool.withFolder("[Gmail]/Sent Mail", Folder.READ_ONLY, Folder::getFullName);
+        assertThat(stores).hasSize(1);
+        assertThat(stores.getFirst().opens).isEqualTo(2);
+    }
+
+    @Test
+    void replacesAnIdleConnectionThatFailsValidation() throws Exception {
+        ImapStorePool pool = pool(2, Duration.ofSeconds(1));
+        pool.withFolder("INBOX", Folder.READ_ONLY, Folder::getFullName);
+        stores.getFirst().alive = false;
+
+        pool.withFolder("INBOX", Folder.READ_ONLY, Folder::getFullName);
+
+        assertThat(stores).hasSize(2);
+        assertThat(stores.get(0).closed).isTrue();
+        assertThat(stores.get(1).closed).isFalse();
+        assertThat(pool.idleCount()).isEqualTo(1);
+    }
+
+    @Test
+    void discardsAConnectionThatClosesDuringUse() throws Exception {
+        ImapStorePool pool = pool(2, Duration.ofSeconds(1));
+
+        assertThatThrownBy(() -> pool.withFolder("INBOX", Folder.READ_ONLY, folder -> {
+            throw new FolderClosedException(folder);
+        })).isInstanceOf(FolderClosedException.class);
+        assertThatThrownBy(() -> pool.withFolder("INBOX", Folder.READ_ONLY, folder -> {
+            throw new StoreClosedException(folder.getStore());
+        })).isInstanceOf(StoreClosedException.class);
+
+        assertThat(stores).hasSize(2).allSatisfy(store -> assertThat(store.closed).isTrue());
+        assertThat(pool.idleCount()).isZero();
+        assertThat(pool.activeCount()).isZero();
+    }
+
+    @Test
+    void keepsAConnectionWhoseWorkFailed() throws Exception {
+        ImapStorePool pool = pool(2, Duration.ofSeconds(1));
+
+        assertThatThrownBy(() -> pool.withFolder("INBOX", Folder.READ_ONLY, folder -> {
+            throw new IllegalArgumentException("No message with that id");
+        })).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(stores).hasSize(1);
+        assertThat(stores.getFirst().closed).isFalse();
+        assertThat(pool.idleCount()).isEqualTo(1);
+    }
+
+    @Test
+    void discardsAConnectionThatCannotOpenTheFolder() throws Exception {
+        ImapStorePool pool = pool(2, Duration.ofSeconds(1));
+        pool.withFolder("INBOX", Folder.READ_ONLY, Folder::getFullName);
+        stores.getFirst().failOpen = true;
+
+        assertThatThrownBy(() -> pool.withFolder("[Gmail]/Sent Mail", Folder.READ_ONLY, Folder::getFullName))
+            .isInstanceOf(MessagingException.class)
+            .hasMessageContaining("SELECT failed");
+
+        assertThat(stores.getFirst().closed).isTrue();
+        assertThat(pool.idleCount()).isZero();
+        assertThat(pool.activeCount()).isZero();
+
+        pool.withFolder("INBOX", Folder.READ_ONLY, Folder::getFullName);
+        assertThat(stores).hasSize(2);
+    }
+
+    @Test
+    void timesOutWhenEveryConnectionIsInUse() throws Exception {
+        ImapStorePool pool = pool(1, Duration.ofMillis(50));
+
+        pool.withFolder("INBOX", Folder.READ_ONLY, folder -> {
+            assertThatThrownBy(() -> pool.withFolder("INBOX", Folder.READ_ONLY, Folder::getFullName))
+                .isInstanceOf(MessagingException.class)
+                .hasMessageContaining("No IMAP connection became free within 50 ms");
+            return null;
+        });
+
+        assertThat(pool.activeCount()).isZero();
+        assertThat(pool.withFolder("INBOX", Folder.READ_ONLY, Folder::getFullName)).isEqualTo("INBOX");
+        assertThat(stores).hasSize(1);
+    }
+
+    @Test
+    void keepAliveDropsDeadIdleConnectionsAndReturnsItsPermits() throws Exception {
+        ImapStorePool pool = pool(2, Duration.ofMillis(50));
+        pool.withFolder("INBOX", Folder.READ_ONLY,
+            inbox -> pool.withFolder("[Gmail]/Sent Mail", Folder.READ_ONLY, Folder::getFullName));
+        assertThat(stores).hasSize(2);
+        assertThat(pool.idleCount()).isEqualTo(2);
+        FakeStore dead = stores.get(0);
+        FakeStore live = stores.get(1);
+        dead.alive = false;
+        int noops = live.noops;
+
+        pool.keepIdleConnectionsAlive();
+
+        assertThat(dead.closed).isTrue();
+        assertThat(live.closed).isFalse();
+        assertThat(live.noops).isEqualTo(noops + 1);
+        assertThat(pool.idleCount()).isEqualTo(1);
+
+        // Both permits are back: two connections can be borrowed at once
+        pool.withFolder("INBOX", Folder.READ_ONLY,
+            inbox -> pool.withFolder("[Gmail]/Sent Mail", Folder.READ_ONLY, Folder::getFullName));
+        assertThat(stores).hasSize(3);
+        assertThat(pool.activeCount()).isZero();
+        assertThat(pool.idleCount()).isEqualTo(2);
+    }
+
+    private ImapStorePool pool(int maxSize, Duration maxWait) {
+        // Keep-alive 0 starts no scheduler and treats every idle connection as due
+        ImapStorePool pool = new ImapStorePool(new FakeImapHelper(), "hr@megacorp.com", "app-password", maxSize, maxWait,
+            Duration.ZERO, new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+        pools.add(pool);
+        return pool;
+    }
+
+    /**
+     * Hands out sessions whose IMAP stores are {@link FakeStore}s, collected in stores.
+     */
+    private final class FakeImapHelper extends EmailServiceHelper {
+
+        @Override
+        public Session getImapSession() {
+            Properties props = new Properties();
+            props.put(STORES, stores);
+            Session session = Session.getInstance(props);
+            Provider provider = new Provider(Provider.Type.STORE, "imap", FakeStore.class.getName(), "test", null);
+            session.addProvider(provider);
+            try {
+                session.setProvider(provider);
+            } catch (MessagingException e) {
+                throw new IllegalStateException(e);
+            }
+            return session;
+        }
+    }
+
+    /**
+     * Store that connects without a server. Its folders fail the NOOP once it is no longer alive.
+     */
+    public static final class FakeStore extends Store {
+
+        boolean alive = true;
+        boolean failOpen;
+        boolean closed;
+        int opens;
+        int noops;
+
+        @SuppressWarnings("unchecked")
+        public FakeStore(Session session, URLName url) {
+            super(session, url);
+            ((List<FakeStore>) session.getProperties().get(STORES)).add(this);
+        }
+
+        @Override
+        protected boolean protocolConnect(String host, int port, String user, String password) {
+            return true;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return alive && super.isConnected();
+        }
+
+        @Override
+        public synchronized void close() throws MessagingException {
+            closed = true;
+            super.close();
+        }
+
+        @Override
+        public Folder getDefaultFolder() {
+            return getFolder("");
+        }
+
+        @Override
+        public Folder getFolder(String name) {
+            return new FakeFolder(this, name);
+        }
+
+        @Override
+        public Folder getFolder(URLName url) {
+            return getFolder(url.getFile());
+        }
+    }
+
+    private static final class FakeFolder extends Folder {
+
+        private final FakeStore store;
+        private final String name;
+        private boolean open;
+
+        FakeFolder(FakeStore store, String name) {
+            super(store);
+            this.store = store;
+            this.name = name;
+        }
+
+        @Override
+        public void open(int mode) throws MessagingException {
+            if (store.failOpen) {
+                throw new MessagingException("SELECT failed");
+            }
+            store.opens++;
+            this.mode = mode;
+            open = true;
+        }
+
+        @Override
+        public void close(boolean expunge) {
+            open = false;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public int getMessageCount() throws MessagingException {
+            if (!store.alive) {
+                throw new FolderClosedException(this);
+            }
+            store.noops++;
+            return 0;
+        }
+
+        @Override
+        public String getName() {
+            return name.substring(name.lastIndexOf('/') + 1);
+        }
+
+        @Override
+        public String getFullName() {
+            return name;
+        }
+
+        @Override
+        public Folder getParent() {
+            return null;
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public Folder[] list(String pattern) {
+            return new Folder[0];
+        }
+
+        @Override
+        public char getSeparator() {
+            return '/';
+        }
+
+        @Override
+        public int getType() {
+            return HOLDS_MESSAGES;
+        }
+
+        @Override
+        public boolean create(int type) {
+            return false;
+        }
+
+        @Override
+        public boolean hasNewMessages() {
+            return false;
+        }
+
+        @Override
+        public Folder getFolder(String name) {
+            return store.getFolder(name);
+        }
+
+        @Override
+        public boolean delete(boolean recurse) {
+            return false;
+        }
+
+        @Override
+        public boolean renameTo(Folder folder) {
+            return false;
+        }
+
+        @Override
+        public Flags getPermanentFlags() {
+            return new Flags();
+        }
+
+        @Override
+        public Message getMessage(int msgnum) {
+            throw new IndexOutOfBoundsException(msgnum);
+        }
+
+        @Override
+        public void appendMessages(Message[] msgs) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Message[] expunge() {
+            return new Message[0];
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.megacorp.humanresources.service.helper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.megacorp.humanresources.model.EmailMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+class MailboxMirrorTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private final List<MailboxMirror> mirrors = new ArrayList<>();
+
+    @AfterEach
+    void closeMirrors() {
+        mirrors.forEach(MailboxMirror::close);
+    }
+
+    @Test
+    void downloadsOnlyMessagesFromThePreviousUidNextOn() {
+        MailboxMirror mirror = mirror(100);
+        FakeFolder inbox = new FakeFolder(true);
+        inbox.deliver("Welcome", "Payroll", "Benefits");
+
+        assertThat(mirror.sync("INBOX", inbox)).isTrue();
+        assertThat(inbox.downloaded).containsExactly(1L, 2L, 3L);
+
+        inbox.downloaded.clear();
+        assertThat(mirror.sync("INBOX", inbox)).isTrue();
+        assertThat(inbox.downloaded).isEmpty();
+
+        inbox.deliver("Offsite", "Review");
+        assertThat(mirror.sync("INBOX", inbox)).isTrue();
+
+        assertThat(inbox.downloaded).containsExactly(4L, 5L);
+        assertThat(subjects(mirror.read("INBOX", 10, null, null, null, null, null, null, null, false, false)))
+            .containsExactly("Review", "Offsite", "Benefits", "Payroll", "Welcome");
+    }
+
+    @Test
+    void refreshesReadFlagsWithAndWithoutCondstore() {
+        MailboxMirror mirror = mirror(100);
+        for (boolean condstore : List.of(true, false)) {
+            String folderName = condstore ? "INBOX" : "Archive";
+            FakeFolder folder = new FakeFolder(condstore);
+            folder.deliver("Welcome", "Payroll", "Benefits");
+            mirror.sync(folderName, folder);
+
+            folder.markRead(2);
+            folder.downloaded.clear();
+            mirror.sync(folderName, folder);
+
+            assertThat(folder.downloaded).as(folderName).isEmpty();
+            assertThat(subjects(mirror.read(folderName, 10, null, null, null, null, null, null, null, true, false)))
+                .as(folderName).containsExactly("Benefits", "Welcome");
+            if (condstore) {
+                assertThat(folder.flagFetches).as(folderName).isZero();
+            }
+        }
+    }
+
+    @Test
+    void dropsExpungedMessages() {
+        MailboxMirror mirror = mirror(100);
+        FakeFolder inbox = new FakeFolder(true);
+        inbox.deliver("Welcome", "Payroll", "Benefits");
+        mirror.sync("INBOX", inbox);
+
+        inbox.expunge(2);
+        // An expunge and a new message in the same sync leave the count unchanged
+        inbox.expunge(1);
+        inbox.deliver("Offsite");
+        inbox.downloaded.clear();
+        mirror.sync("INBOX", inbox);
+
+        assertThat(inbox.downloaded).containsExactly(4L);
+        assertThat(subjects(mirror.read("INBOX", 10, null, null, null, null, null, null, null, false, false)))
+            .containsExactly("Offsite", "Benefits");
+    }
+
+    @Test
+    void mirrorsTheFolderAgainWhenUidValidityChanges() {
+        MailboxMirror mirror = mirror(100);
+        FakeFolder inbox = new FakeFolder(true);
+        inbox.deliver("Welcome", "Payroll", "Benefits");
+        mirror.sync("INBOX", inbox);
+
+        inbox.renumber(100);
+        inbox.downloaded.clear();
+        mirror.sync("INBOX", inbox);
+
+        assertThat(inbox.downloaded).containsExactly(100L, 101L, 102L);
+        assertThat(subjects(mirror.read("INBOX", 10, null, null, null, null, null, null, null, false, false)))
+            .containsExactly("Benefits", "Payroll", "Welcome");
+
+        // The new UIDs carry on from there
+        inbox.deliver("Offsite");
+        inbox.downloaded.clear();
+        mirror.sync("INBOX", inbox);
+        assertThat(inbox.downloaded).containsExactly(103L);
+    }
+
+    @Test
+    void leavesReadsTheTruncatedMirrorCannotAnswerToTheServer() {
+        MailboxMirror mirror = mirror(3);
+        FakeFolder inbox = new FakeFolder(true);
+        inbox.deliver("Welcome", "Payroll", "Benefits", "Offsite", "Review");
+        mirror.sync("INBOX", inbox);
+
+        assertThat(inbox.downloaded).containsExactly(3L, 4L, 5L);
+        assertThat(subjects(mirror.read("INBOX", 3, null, null, null, null, null, null, null, false, false)))
+            .containsExactly("Review", "Offsite", "Benefits");
+        assertThat(mirror.read("INBOX", 5, null, null, null, null, null, null, null, false, false)).isEmpty();
+        assertThat(mirror.read("INBOX", 1, "payroll", null, null, null, null, null, null, false, false)).isEmpty();
+
+        // Messages past the limit push the oldest out
+        inbox.deliver("Farewell");
+        mirror.sync("INBOX", inbox);
+        assertThat(subjects(mirror.read("INBOX", 3, null, null, null, null, null, null, null, false, false)))
+            .containsExactly("Farewell", "Review", "Offsite");
+    }
+
+    private MailboxMirror mirror(int maxMessages) {
+        MailboxMirror mirror = new MailboxMirror(null, null, true, List.of(), Duration.ZERO, Duration.ofMinutes(5),
+            maxMessages, tempDir.resolve("mirror-" + mirrors.size()).toString(),
+            new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+        mirrors.add(mirror);
+        return mirror;
+    }
+
+    private static List<String> subjects(Optional<List<EmailMessage>> messages) {
+        assertThat(messages).isPresent();
+        return messages.get().stream().map(EmailMessage::getSubject).toList();
+    }
+
+    /**
+     * A folder on the server, with mod-sequences as a CONDSTORE server keeps them.
+     */
+    private static final class FakeFolder implements MailboxMirror.Source {
+
+        private final boolean condstore;
+        private final NavigableMap<Long, FakeMessage> messages = new TreeMap<>();
+        private final List<Long> downloaded = new ArrayList<>();
+        private long uidValidity = 1;
+        private long nextUid = 1;
+        private long modSeq = 1;
+        private int flagFetches;
+
+        FakeFolder(boolean condstore) {
+            this.condstore = condstore;
+        }
+
+        void deliver(String... subjects) {
+            for (String subject : subjects) {
+                messages.put(nextUid++, new FakeMessage(subject, false, ++modSeq));
+            }
+        }
+
+        void markRead(long uid) {
+            messages.put(uid, new FakeMessage(messages.get(uid).subject(), true, ++modSeq));
+        }
+
+        void expunge(long uid) {
+            messages.remove(uid);
+            modSeq++;
+        }
+
+        void renumber(long firstUid) {
+            List<FakeMessage> kept = new ArrayList<>(messages.values());
+            messages.clear();
+            nextUid = firstUid;
+            kept.forEach(message -> messages.put(nextUid++, message));
+            uidValidity++;
+        }
+
+        @Override
+        public long uidValidity() {
+            return uidValidity;
+        }
+
+        @Override
+        public int messageCount() {
+            return messages.size();
+        }
+
+        @Override
+        public boolean condstore() {
+            return condstore;
+        }
+
+        @Override
+        public long highestModSeq() {
+            return modSeq;
+        }
+
+        @Override
+        public NavigableMap<Long, EmailMessage> messagesFrom(long fromUid) {
+            return download(messages.tailMap(fromUid, true));
+        }
+
+        @Override
+        public NavigableMap<Long, EmailMessage> lastMessages(int count) {
+            NavigableMap<Long, FakeMessage> last = new TreeMap<>();
+            messages.descendingMap().entrySet().stream().limit(count).forEach(entry -> last.put(entry.getKey(), entry.getValue()));
+            return download(last);
+        }
+
+        @Override
+        public Map<Long, Boolean> readFlags(long floorUid) {
+            flagFetches++;
+            Map<Long, Boolean> readFlags = new HashMap<>();
+            messages.tailMap(floorUid, true).forEach((uid, message) -> readFlags.put(uid, message.read()));
+            return readFlags;
+        }
+
+        @Override
+        public Set<Long> uids(long floorUid) {
+            return Set.copyOf(messages.tailMap(floorUid, true).keySet());
+        }
+
+        @Override
+        public Changes changedSince(long floorUid, long since) {
+            Map<Long, Boolean> readFlags = new HashMap<>();
+            long highest = since;
+            for (Map.Entry<Long, FakeMessage> entry : messages.tailMap(floorUid, true).entrySet()) {
+                if (entry.getValue().modSeq() > since) {
+                    readFlags.put(entry.getKey(), entry.getValue().read());
+                    highest = Math.max(highest, entry.getValue().modSeq());
+                }
+            }
+            return new Changes(readFlags, highest);
+        }
+
+        private NavigableMap<Long, EmailMessage> download(Map<Long, FakeMessage> selected) {
+            NavigableMap<Long, EmailMessage> converted = new TreeMap<>();
+            selected.forEach((uid, message) -> {
+                downloaded.add(uid);
+                converted.put(uid, new EmailMessage("<" + message.subject() + "@megacorp.test>", "hr@megacorp.test",
+                    List.of("me@megacorp.test"), List.of(), message.subject(), "About " + message.subject(),
+                    LocalDateTime.of(2026, 1, 1, 9, 0), LocalDateTime.of(2026, 1, 1, 9, 0), message.read(), 100, List.of()));
+            });
+            return converted;
+        }
+    }
+
+    private record FakeMessage(String subject, boolean read, long modSeq) {
+    }
+}